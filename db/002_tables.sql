@@ -6,18 +6,56 @@ CREATE TABLE IF NOT EXISTS stockbot.watchlist (
     updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
 );
 
+-- Yearly partitions are added by MigrationRunner on application start.
 CREATE TABLE IF NOT EXISTS stockbot.price_daily (
-    id BIGSERIAL PRIMARY KEY,
     ticker TEXT NOT NULL,
     trade_date DATE NOT NULL,
-    open NUMERIC,
-    high NUMERIC,
-    low NUMERIC,
-    close NUMERIC,
-    volume NUMERIC,
+    open DOUBLE PRECISION,
+    high DOUBLE PRECISION,
+    low DOUBLE PRECISION,
+    close DOUBLE PRECISION,
+    volume DOUBLE PRECISION,
     source TEXT NULL,
     created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
-    UNIQUE (ticker, trade_date)
+    PRIMARY KEY (ticker, trade_date)
+) PARTITION BY RANGE (trade_date);
+
+CREATE TABLE IF NOT EXISTS stockbot.price_daily_default PARTITION OF stockbot.price_daily DEFAULT;
+
+CREATE TABLE IF NOT EXISTS stockbot.forward_returns (
+    ticker TEXT NOT NULL,
+    trade_date DATE NOT NULL,
+    close DOUBLE PRECISION,
+    ret_1d DOUBLE PRECISION NULL,
+    ret_3d DOUBLE PRECISION NULL,
+    ret_5d DOUBLE PRECISION NULL,
+    ret_10d DOUBLE PRECISION NULL,
+    ret_20d DOUBLE PRECISION NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (ticker, trade_date)
+);
+
+CREATE TABLE IF NOT EXISTS stockbot.ticker_latest (
+    ticker TEXT PRIMARY KEY,
+    last_trade_date DATE NOT NULL,
+    bar_count INT NOT NULL,
+    last_close DOUBLE PRECISION NULL,
+    avg_volume_20 DOUBLE PRECISION NULL,
+    zero_volume_mask_20 INT NOT NULL DEFAULT 0,
+    flat_mask_20 INT NOT NULL DEFAULT 0,
+    has_shape BOOLEAN NOT NULL DEFAULT false,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+CREATE TABLE IF NOT EXISTS stockbot.price_blob (
+    ticker TEXT NOT NULL,
+    year INT NOT NULL,
+    bar_count INT NOT NULL,
+    first_date DATE NOT NULL,
+    last_date DATE NOT NULL,
+    payload BYTEA NOT NULL,
+    updated_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (ticker, year)
 );
 
 CREATE TABLE IF NOT EXISTS stockbot.indicators_daily (
@@ -118,8 +156,9 @@ CREATE TABLE IF NOT EXISTS stockbot.candidates (
     created_at TIMESTAMPTZ NOT NULL DEFAULT now()
 );
 
+-- Monthly partitions are added by MigrationRunner on application start and dropped by retention.
 CREATE TABLE IF NOT EXISTS stockbot.scan_results (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGSERIAL,
     run_id BIGINT NOT NULL REFERENCES stockbot.runs(id) ON DELETE CASCADE,
     ticker TEXT NOT NULL,
     code TEXT NULL,
@@ -137,5 +176,25 @@ CREATE TABLE IF NOT EXISTS stockbot.scan_results (
     failure_reason TEXT NOT NULL DEFAULT 'none',
     request_failure_category TEXT NULL,
     error TEXT NULL,
-    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE TABLE IF NOT EXISTS stockbot.scan_results_default PARTITION OF stockbot.scan_results DEFAULT;
+
+CREATE TABLE IF NOT EXISTS stockbot.scan_result_rollup (
+    run_id BIGINT NOT NULL REFERENCES stockbot.runs(id) ON DELETE CASCADE,
+    dim TEXT NOT NULL,
+    value TEXT NOT NULL,
+    n INTEGER NOT NULL,
+    fetch_coverage INTEGER NOT NULL DEFAULT 0,
+    indicator_coverage INTEGER NOT NULL DEFAULT 0,
+    ex_filtered_non_tradable INTEGER NOT NULL DEFAULT 0,
+    ex_history_short INTEGER NOT NULL DEFAULT 0,
+    ex_stale INTEGER NOT NULL DEFAULT 0,
+    ex_no_data INTEGER NOT NULL DEFAULT 0,
+    tradable_denominator INTEGER NOT NULL DEFAULT 0,
+    tradable_indicator_coverage INTEGER NOT NULL DEFAULT 0,
+    rolled_up_at TIMESTAMPTZ NOT NULL DEFAULT now(),
+    PRIMARY KEY (run_id, dim, value)
 );
@@ -0,0 +1,100 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Prints a side-by-side table of two JMH JSON result files (-rf json): primary score and, when recorded with
+ * -prof gc, normalized allocation per operation. Usage: java -cp json.jar scripts/JmhCompare.java base.json head.json
+ */
+public final class JmhCompare {
+    private static final String ALLOC_METRIC = "gc.alloc.rate.norm";
+
+    private JmhCompare() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            System.err.println("usage: JmhCompare <base.json> <head.json>");
+            System.exit(2);
+        }
+        Map<String, JSONObject> base = load(Path.of(args[0]));
+        Map<String, JSONObject> head = load(Path.of(args[1]));
+
+        System.out.println(String.format(
+                Locale.US,
+                "%-70s %14s %14s %8s %12s %12s %8s",
+                "benchmark", "base", "head", "delta", "base B/op", "head B/op", "delta"
+        ));
+        for (Map.Entry<String, JSONObject> entry : head.entrySet()) {
+            JSONObject before = base.get(entry.getKey());
+            JSONObject after = entry.getValue();
+            double baseScore = before == null ? Double.NaN : score(before);
+            double headScore = score(after);
+            double baseAlloc = before == null ? Double.NaN : alloc(before);
+            double headAlloc = alloc(after);
+            System.out.println(String.format(
+                    Locale.US,
+                    "%-70s %14.3f %14.3f %7.1f%% %12.0f %12.0f %7.1f%%  %s",
+                    entry.getKey(),
+                    baseScore,
+                    headScore,
+                    change(baseScore, headScore),
+                    baseAlloc,
+                    headAlloc,
+                    change(baseAlloc, headAlloc),
+                    after.getJSONObject("primaryMetric").optString("scoreUnit", "")
+            ));
+        }
+        for (String key : base.keySet()) {
+            if (!head.containsKey(key)) {
+                System.out.println(String.format(Locale.US, "%-70s only in base", key));
+            }
+        }
+    }
+
+    private static Map<String, JSONObject> load(Path file) throws Exception {
+        JSONArray results = new JSONArray(Files.readString(file));
+        Map<String, JSONObject> out = new LinkedHashMap<>();
+        for (int i = 0; i < results.length(); i++) {
+            JSONObject result = results.getJSONObject(i);
+            out.put(key(result), result);
+        }
+        return out;
+    }
+
+    private static String key(JSONObject result) {
+        String name = result.getString("benchmark");
+        int dot = name.lastIndexOf('.', name.lastIndexOf('.') - 1);
+        StringBuilder key = new StringBuilder(dot < 0 ? name : name.substring(dot + 1));
+        key.append(" [").append(result.optString("mode", "")).append(']');
+        JSONObject params = result.optJSONObject("params");
+        if (params != null) {
+            for (String param : params.keySet().stream().sorted().toList()) {
+                key.append(' ').append(param).append('=').append(params.get(param));
+            }
+        }
+        return key.toString();
+    }
+
+    private static double score(JSONObject result) {
+        return result.getJSONObject("primaryMetric").optDouble("score", Double.NaN);
+    }
+
+    private static double alloc(JSONObject result) {
+        JSONObject secondary = result.optJSONObject("secondaryMetrics");
+        JSONObject metric = secondary == null ? null : secondary.optJSONObject(ALLOC_METRIC);
+        return metric == null ? Double.NaN : metric.optDouble("score", Double.NaN);
+    }
+
+    private static double change(double before, double after) {
+        if (!Double.isFinite(before) || !Double.isFinite(after) || before == 0.0) {
+            return Double.NaN;
+        }
+        return (after - before) * 100.0 / before;
+    }
+}
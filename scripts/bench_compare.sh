@@ -0,0 +1,42 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Runs the same JMH selection on two commits and prints score / allocation deltas.
+# usage: scripts/bench_compare.sh <base-ref> [head-ref=HEAD] [include-regex=Benchmark] [extra jmh args...]
+# e.g.   scripts/bench_compare.sh origin/main HEAD TechScoringBenchmark -f 2 -i 10
+# Both refs must already contain the "bench" Maven profile.
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+cd "$ROOT_DIR"
+
+BASE_REF="${1:?base ref required}"
+HEAD_REF="${2:-HEAD}"
+INCLUDE="${3:-Benchmark}"
+shift $(( $# < 3 ? $# : 3 ))
+EXTRA_ARGS="-prof gc $*"
+
+OUT_DIR="$ROOT_DIR/target/bench-compare"
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR"
+
+run_bench() {
+  local label="$1"
+  local ref="$2"
+  local tree="$OUT_DIR/$label-tree"
+  echo "[bench_compare] ${label}: $(git rev-parse --short "$ref")"
+  git worktree add --detach "$tree" "$ref" >/dev/null
+  (
+    cd "$tree"
+    mvn -B -q -Pbench -Dencoding.check.skip=true test \
+      -Dbench.include="$INCLUDE" \
+      -Dbench.result="$OUT_DIR/$label.json" \
+      -Dbench.args="$EXTRA_ARGS"
+  )
+  git worktree remove --force "$tree"
+}
+
+run_bench base "$BASE_REF"
+run_bench head "$HEAD_REF"
+
+mvn -B -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile="$OUT_DIR/test.cp" >/dev/null
+java -cp "$(cat "$OUT_DIR/test.cp")" scripts/JmhCompare.java "$OUT_DIR/base.json" "$OUT_DIR/head.json"
@@ -5,8 +5,11 @@ import com.stockbot.app.properties.MailProperties;
 import com.stockbot.app.properties.ScanProperties;
 import com.stockbot.core.ModuleResult;
 import com.stockbot.core.RunTelemetry;
+import com.stockbot.data.http.HttpClientEx;
 import com.stockbot.jp.backtest.BacktestRunner;
 import com.stockbot.jp.config.Config;
+import com.stockbot.jp.db.AnalyticsExporter;
+import com.stockbot.jp.db.BarBootstrapImporter;
 import com.stockbot.jp.db.BarDailyDao;
 import com.stockbot.jp.db.Database;
 import com.stockbot.jp.db.MetadataDao;
@@ -18,6 +21,8 @@ import com.stockbot.jp.model.DailyRunOutcome;
 import com.stockbot.jp.model.RunRow;
 import com.stockbot.jp.model.ScoredCandidate;
 import com.stockbot.jp.model.WatchlistAnalysis;
+import com.stockbot.jp.news.NewsFeedPoller;
+import com.stockbot.jp.news.NewsItemDao;
 import com.stockbot.jp.output.HtmlPostProcessor;
 import com.stockbot.jp.output.Mailer;
 import com.stockbot.jp.output.ReportBuilder;
@@ -40,6 +45,7 @@ import org.quartz.JobExecutionContext;
 import org.quartz.JobExecutionException;
 import org.quartz.Scheduler;
 import org.quartz.SchedulerContext;
+import org.quartz.SimpleScheduleBuilder;
 import org.quartz.Trigger;
 import org.quartz.TriggerBuilder;
 import org.quartz.impl.StdSchedulerFactory;
@@ -194,6 +200,72 @@ public final class StockBotApplication implements ApplicationRunner {
                     + ", schema=" + database.schema());
             runDao.recoverDanglingRuns();
 
+            if (cmd.hasOption("bootstrap-bars")) {
+                BarBootstrapImporter importer = new BarBootstrapImporter(
+                        database,
+                        metadataDao,
+                        config.getInt("price.bootstrap.streams", 4)
+                );
+                BarBootstrapImporter.ImportStats stats = importer.importFrom(Path.of(cmd.getOptionValue("bootstrap-bars").trim()));
+                System.out.println(String.format(
+                        Locale.US,
+                        "Bootstrap done. inputs=%d skipped=%d staged_rows=%d rows=%d tickers=%d range=%s..%s stage_ms=%d load_ms=%d",
+                        stats.getInputs(),
+                        stats.getInputsSkipped(),
+                        stats.getStagedRows(),
+                        stats.getLoadedRows(),
+                        stats.getTickers(),
+                        stats.getFirstDate(),
+                        stats.getLastDate(),
+                        stats.getStageMillis(),
+                        stats.getLoadMillis()
+                ));
+                return 0;
+            }
+
+            if (cmd.hasOption("export-analytics")) {
+                AnalyticsExporter exporter = new AnalyticsExporter(
+                        database,
+                        metadataDao,
+                        config.getInt("export.threads", 4)
+                );
+                Path outDir = config.getPath("export.dir");
+                AnalyticsExporter.ExportStats stats = exporter.export(outDir, cmd.hasOption("export-full"));
+                for (AnalyticsExporter.TableExport table : stats.getTables()) {
+                    System.out.println(String.format(
+                            Locale.US,
+                            "Export table=%s partitions=%d rows=%d",
+                            table.getTable(),
+                            table.getPartitions(),
+                            table.getRows()
+                    ));
+                }
+                System.out.println(String.format(
+                        Locale.US,
+                        "Export done. dir=%s runs=%d last_run_id=%d elapsed_ms=%d",
+                        outDir.toAbsolutePath(),
+                        stats.getRuns(),
+                        stats.getLastRunId(),
+                        stats.getMillis()
+                ));
+                return 0;
+            }
+
+            if (cmd.hasOption("rebuild-bar-archive")) {
+                DailyRunner dailyRunner = new DailyRunner(
+                        config,
+                        universeDao,
+                        metadataDao,
+                        barDailyDao,
+                        runDao,
+                        scanResultDao,
+                        eventMemoryService
+                );
+                int archived = dailyRunner.rebuildBarArchive();
+                System.out.println("Bar archive rebuild done. tickers=" + archived);
+                return 0;
+            }
+
             if (executionMode == ExecutionMode.DAEMON) {
                 return runSchedule(
                         cmd,
@@ -303,11 +375,31 @@ private int runSchedule(
         triggers.add(trigger1130);
         triggers.add(trigger1500);
         scheduler.scheduleJob(job, triggers, true);
+        int pollIntervalMin = Math.max(1, config.getInt("news.poll.interval_min", 10));
+        boolean newsPollEnabled = config.getBoolean("news.poll.enabled", false);
+        if (newsPollEnabled) {
+            schedulerContext.put(
+                    NewsPollJob.CONTEXT_KEY,
+                    new NewsFeedPoller(config, new HttpClientEx(), new NewsItemDao(runDao.database()), metadataDao)
+            );
+            JobDetail pollJob = JobBuilder.newJob(NewsPollJob.class)
+                    .withIdentity("newsPollJob", "stockbot")
+                    .build();
+            Trigger pollTrigger = TriggerBuilder.newTrigger()
+                    .withIdentity("newsPoll", "stockbot")
+                    .forJob(pollJob)
+                    .startNow()
+                    .withSchedule(SimpleScheduleBuilder.repeatMinutelyForever(pollIntervalMin)
+                            .withMisfireHandlingInstructionNextWithRemainingCount())
+                    .build();
+            scheduler.scheduleJob(pollJob, Set.of(pollTrigger), true);
+        }
 
         scheduler.start();
         System.out.println(String.format(
                 Locale.US,
-                "DAEMON 模式已启动。zone=Asia/Tokyo, triggers=11:30,15:00, trigger=%s, max_runs=%s, max_runtime_min=%s",
+                "DAEMON 模式已启动。zone=Asia/Tokyo, triggers=11:30,15:00, news_poll=%s, trigger=%s, max_runs=%s, max_runtime_min=%s",
+                newsPollEnabled ? pollIntervalMin + "m" : "off",
                 safe(trigger),
                 maxRuns > 0 ? Integer.toString(maxRuns) : "unlimited",
                 maxRuntimeMin > 0 ? Integer.toString(maxRuntimeMin) : "unlimited"
@@ -1302,6 +1394,10 @@ private Options buildOptions() {
         options.addOption(Option.builder().longOpt("trigger").hasArg().argName("manual|cron").desc("run trigger source (default: manual)").build());
         options.addOption(Option.builder().longOpt("max-runs").hasArg().argName("N").desc("daemon safety valve: stop after N completed runs").build());
         options.addOption(Option.builder().longOpt("max-runtime-min").hasArg().argName("M").desc("daemon safety valve: stop after M minutes").build());
+        options.addOption(Option.builder().longOpt("bootstrap-bars").hasArg().argName("path").desc("bulk-load price history into an empty price_daily from csv files or an http archive directory and exit").build());
+        options.addOption(Option.builder().longOpt("export-analytics").desc("write runs, scan results, candidates and price_daily changed since the last export as partitioned csv.gz under export.dir and exit").build());
+        options.addOption(Option.builder().longOpt("export-full").desc("with --export-analytics: rewrite every partition instead of exporting incrementally").build());
+        options.addOption(Option.builder().longOpt("rebuild-bar-archive").desc("rewrite the local bar archive (outputs/cache/bars) from price_daily and exit").build());
         return options;
     }
 
@@ -1493,6 +1589,32 @@ private String resolveMode(Config config) {
         }
     }
 
+    /**
+     * Keeps planned watchlist feeds indexed between report runs; yields to a running report.
+     */
+    @DisallowConcurrentExecution
+    public static final class NewsPollJob implements Job {
+        static final String CONTEXT_KEY = "stockbot.newsFeedPoller";
+
+        @Override
+        public void execute(JobExecutionContext context) throws JobExecutionException {
+            if (DailyReportJob.RUN_LOCK.isLocked()) {
+                return;
+            }
+            try {
+                Object raw = context.getScheduler().getContext().get(CONTEXT_KEY);
+                if (!(raw instanceof NewsFeedPoller)) {
+                    throw new JobExecutionException("missing NewsFeedPoller");
+                }
+                ((NewsFeedPoller) raw).pollOnce();
+            } catch (JobExecutionException e) {
+                throw e;
+            } catch (Exception e) {
+                System.err.println("WARN: news poll failed err=" + e.getMessage());
+            }
+        }
+    }
+
 private List<String> loadWatchlist(Config config) {
         String watchlistPath = config.getString("watchlist.path", "watchlist.txt");
         Path path = config.workingDir().resolve(watchlistPath).normalize();
@@ -4,6 +4,7 @@ import com.stockbot.app.properties.DbProperties;
 import com.stockbot.app.properties.EmailProperties;
 import com.stockbot.app.properties.MailProperties;
 import com.stockbot.app.properties.ScanProperties;
+import com.stockbot.data.http.HttpClientEx;
 import com.stockbot.jp.config.Config;
 import com.stockbot.jp.db.BarDailyDao;
 import com.stockbot.jp.db.Database;
@@ -12,6 +13,7 @@ import com.stockbot.jp.db.MigrationRunner;
 import com.stockbot.jp.db.RunDao;
 import com.stockbot.jp.db.ScanResultDao;
 import com.stockbot.jp.db.UniverseDao;
+import com.stockbot.jp.news.OllamaEmbeddingService;
 import com.stockbot.jp.vector.EventMemoryService;
 import com.stockbot.jp.vector.VectorSearchService;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
@@ -23,6 +25,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 @Configuration
@@ -88,7 +91,22 @@ public class StockBotBootstrapConfig {
     @Bean
     @Lazy
     public EventMemoryService eventMemoryService(Config config, Database database, BarDailyDao barDailyDao) {
-        return new EventMemoryService(config, new VectorSearchService(database), barDailyDao);
+        VectorSearchService.TextEmbedder embedder = null;
+        if (config.getBoolean("vector.memory.embed.enabled", true)) {
+            OllamaEmbeddingService embeddingService = new OllamaEmbeddingService(config, new HttpClientEx(), null);
+            embedder = new VectorSearchService.TextEmbedder() {
+                @Override
+                public float[] embed(String text) {
+                    return embeddingService.embedText(text);
+                }
+
+                @Override
+                public List<float[]> embedAll(List<String> texts) {
+                    return embeddingService.embedTexts(texts);
+                }
+            };
+        }
+        return new EventMemoryService(config, new VectorSearchService(database, embedder), barDailyDao);
     }
 
     private String readDbUrl(DbProperties dbProperties) {
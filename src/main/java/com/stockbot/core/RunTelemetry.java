@@ -25,6 +25,9 @@ public final class RunTelemetry {
     public static final String STEP_MAIL_SEND = "MAIL_SEND";
     public static final String STEP_MARKET_FETCH = "MARKET_FETCH";
     public static final String STEP_INDICATORS = "INDICATORS";
+    public static final String STEP_MEMORY_SEARCH = "MEMORY_SEARCH";
+    public static final String STEP_DB_WRITE = "DB_WRITE";
+    public static final String STEP_SQL_PROFILE = "SQL_PROFILE";
 
     private static final DateTimeFormatter ISO = DateTimeFormatter.ISO_INSTANT;
 
@@ -43,6 +46,7 @@ public final class RunTelemetry {
 
     private final Map<String, StepStat> steps = new LinkedHashMap<>();
     private final Map<String, Deque<Long>> stepStartsNanos = new HashMap<>();
+    private final Map<String, List<String>> sections = new LinkedHashMap<>();
 
     public RunTelemetry(long runId, String runMode, String trigger, Instant startedAt) {
         this.runId = runId;
@@ -111,7 +115,18 @@ public final class RunTelemetry {
         long elapsedMs = startedNanos <= 0L
                 ? 0L
                 : Math.max(0L, (System.nanoTime() - startedNanos) / 1_000_000L);
-        stat.elapsedMs += elapsedMs;
+        accumulate(stat, elapsedMs, itemsIn, itemsOut, errorCount, optionalNote);
+    }
+
+    private void accumulate(
+            StepStat stat,
+            long elapsedMs,
+            long itemsIn,
+            long itemsOut,
+            long errorCount,
+            String optionalNote
+    ) {
+        stat.elapsedMs += Math.max(0L, elapsedMs);
         stat.itemsIn += Math.max(0L, itemsIn);
         stat.itemsOut += Math.max(0L, itemsOut);
         stat.errorCount += Math.max(0L, errorCount);
@@ -127,6 +142,21 @@ public final class RunTelemetry {
         }
     }
 
+    /**
+     * Records a step whose duration was measured elsewhere (for example, accumulated inside a service).
+     */
+    public synchronized void recordStep(
+            String name,
+            long elapsedMs,
+            long itemsIn,
+            long itemsOut,
+            long errorCount,
+            String optionalNote
+    ) {
+        String key = sanitizeStepName(name);
+        accumulate(steps.computeIfAbsent(key, StepStat::new), elapsedMs, itemsIn, itemsOut, errorCount, optionalNote);
+    }
+
     public synchronized void setStepNote(String name, String optionalNote) {
         if (optionalNote == null || optionalNote.trim().isEmpty()) {
             return;
@@ -140,6 +170,22 @@ public final class RunTelemetry {
         }
     }
 
+    /**
+     * Sets a named block of preformatted lines printed after the steps in {@link #getSummary()}, replacing any
+     * earlier block of that name.
+     */
+    public synchronized void setSection(String name, List<String> lines) {
+        String key = name == null ? "" : name.trim();
+        if (key.isEmpty()) {
+            return;
+        }
+        if (lines == null || lines.isEmpty()) {
+            sections.remove(key);
+        } else {
+            sections.put(key, List.copyOf(lines));
+        }
+    }
+
     public synchronized void setAiUsage(boolean used, String reason) {
         this.aiUsed = used;
         String normalizedReason = reason == null ? "" : reason.trim();
@@ -232,6 +278,12 @@ public final class RunTelemetry {
             }
             sb.append('\n');
         }
+        for (Map.Entry<String, List<String>> section : sections.entrySet()) {
+            sb.append(section.getKey()).append(":\n");
+            for (String line : section.getValue()) {
+                sb.append("  ").append(line).append('\n');
+            }
+        }
         return sb.toString().trim();
     }
 
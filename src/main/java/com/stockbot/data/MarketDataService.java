@@ -20,7 +20,10 @@ import java.util.List;
  * 使用建议：修改该类型时应同步关注上下游调用，避免影响整体流程稳定性。
  */
 public class MarketDataService {
+    public static final String DEFAULT_CHART_BASE_URL = "https://query1.finance.yahoo.com";
+
     private final HttpClientEx http;
+    private final String chartBaseUrl;
 
 /**
  * 方法说明：MarketDataService，负责初始化对象并装配依赖参数。
@@ -28,7 +31,16 @@ public class MarketDataService {
  * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
  */
     public MarketDataService(HttpClientEx http) {
+        this(http, DEFAULT_CHART_BASE_URL);
+    }
+
+    /**
+     * {@code chartBaseUrl} replaces the Yahoo host, e.g. to point a load test at a local replay server.
+     */
+    public MarketDataService(HttpClientEx http, String chartBaseUrl) {
         this.http = http;
+        String base = chartBaseUrl == null || chartBaseUrl.isBlank() ? DEFAULT_CHART_BASE_URL : chartBaseUrl.trim();
+        this.chartBaseUrl = base.endsWith("/") ? base.substring(0, base.length() - 1) : base;
     }
 
 /**
@@ -37,59 +49,65 @@ public class MarketDataService {
  * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
  */
     public List<DailyBar> fetchDailyHistoryBars(String ticker, String range, String interval) {
-        List<DailyBar> out = new ArrayList<>();
         try {
             String encodedTicker = encodeTickerForPath(ticker);
-            String url = "https://query1.finance.yahoo.com/v8/finance/chart/" + encodedTicker
+            String url = chartBaseUrl + "/v8/finance/chart/" + encodedTicker
                     + "?range=" + range + "&interval=" + interval;
             String body = http.getText(url, 30);
-
-            JSONObject root = new JSONObject(body);
-            JSONObject chart = root.optJSONObject("chart");
-            if (chart == null) return out;
-            JSONArray result = chart.optJSONArray("result");
-            if (result == null || result.length() == 0) return out;
-            JSONObject r0 = result.optJSONObject(0);
-            if (r0 == null) return out;
-
-            JSONArray timestamps = r0.optJSONArray("timestamp");
-            JSONObject indicators = r0.optJSONObject("indicators");
-            JSONArray quoteArr = indicators == null ? null : indicators.optJSONArray("quote");
-            JSONObject quote0 = (quoteArr == null || quoteArr.length() == 0) ? null : quoteArr.optJSONObject(0);
-            if (timestamps == null || quote0 == null) return out;
-
-            JSONArray opens = quote0.optJSONArray("open");
-            JSONArray highs = quote0.optJSONArray("high");
-            JSONArray lows = quote0.optJSONArray("low");
-            JSONArray closes = quote0.optJSONArray("close");
-            JSONArray volumes = quote0.optJSONArray("volume");
-            if (closes == null) return out;
-
-            int n = Math.min(timestamps.length(), closes.length());
-            for (int i = 0; i < n; i++) {
-                if (closes.isNull(i)) continue;
-                long epoch = timestamps.optLong(i, 0L);
-                double close = closes.optDouble(i, Double.NaN);
-                if (epoch <= 0 || !Double.isFinite(close) || close <= 0.0) continue;
-
-                double open = valueOrFallback(opens, i, close);
-                double high = valueOrFallback(highs, i, Math.max(open, close));
-                double low = valueOrFallback(lows, i, Math.min(open, close));
-                if (high < Math.max(open, close)) high = Math.max(open, close);
-                if (low > Math.min(open, close)) low = Math.min(open, close);
-
-                double volume = valueOrFallback(volumes, i, 0.0);
-                if (!Double.isFinite(volume) || volume < 0.0) {
-                    volume = 0.0;
-                }
-
-                LocalDate d = Instant.ofEpochSecond(epoch).atZone(ZoneOffset.UTC).toLocalDate();
-                out.add(new DailyBar(d, open, high, low, close, volume));
-            }
-            out.sort(Comparator.comparing(dp -> dp.date));
+            return parseChartBars(body);
         } catch (Exception e) {
             throw new RuntimeException("fetch_daily_history_failed: " + e.getMessage(), e);
         }
+    }
+
+    /**
+     * Daily bars of a Yahoo v8 chart response body, ascending by date; rows without a positive close are dropped.
+     */
+    public static List<DailyBar> parseChartBars(String body) {
+        List<DailyBar> out = new ArrayList<>();
+        JSONObject root = new JSONObject(body);
+        JSONObject chart = root.optJSONObject("chart");
+        if (chart == null) return out;
+        JSONArray result = chart.optJSONArray("result");
+        if (result == null || result.length() == 0) return out;
+        JSONObject r0 = result.optJSONObject(0);
+        if (r0 == null) return out;
+
+        JSONArray timestamps = r0.optJSONArray("timestamp");
+        JSONObject indicators = r0.optJSONObject("indicators");
+        JSONArray quoteArr = indicators == null ? null : indicators.optJSONArray("quote");
+        JSONObject quote0 = (quoteArr == null || quoteArr.length() == 0) ? null : quoteArr.optJSONObject(0);
+        if (timestamps == null || quote0 == null) return out;
+
+        JSONArray opens = quote0.optJSONArray("open");
+        JSONArray highs = quote0.optJSONArray("high");
+        JSONArray lows = quote0.optJSONArray("low");
+        JSONArray closes = quote0.optJSONArray("close");
+        JSONArray volumes = quote0.optJSONArray("volume");
+        if (closes == null) return out;
+
+        int n = Math.min(timestamps.length(), closes.length());
+        for (int i = 0; i < n; i++) {
+            if (closes.isNull(i)) continue;
+            long epoch = timestamps.optLong(i, 0L);
+            double close = closes.optDouble(i, Double.NaN);
+            if (epoch <= 0 || !Double.isFinite(close) || close <= 0.0) continue;
+
+            double open = valueOrFallback(opens, i, close);
+            double high = valueOrFallback(highs, i, Math.max(open, close));
+            double low = valueOrFallback(lows, i, Math.min(open, close));
+            if (high < Math.max(open, close)) high = Math.max(open, close);
+            if (low > Math.min(open, close)) low = Math.min(open, close);
+
+            double volume = valueOrFallback(volumes, i, 0.0);
+            if (!Double.isFinite(volume) || volume < 0.0) {
+                volume = 0.0;
+            }
+
+            LocalDate d = Instant.ofEpochSecond(epoch).atZone(ZoneOffset.UTC).toLocalDate();
+            out.add(new DailyBar(d, open, high, low, close, volume));
+        }
+        out.sort(Comparator.comparing(dp -> dp.date));
         return out;
     }
 
@@ -119,7 +137,7 @@ public class MarketDataService {
         return out;
     }
 
-    private double valueOrFallback(JSONArray arr, int index, double fallback) {
+    private static double valueOrFallback(JSONArray arr, int index, double fallback) {
         if (arr == null || index < 0 || index >= arr.length() || arr.isNull(index)) {
             return fallback;
         }
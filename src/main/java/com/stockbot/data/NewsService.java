@@ -333,8 +333,7 @@ public class NewsService {
         try {
             String q = URLEncoder.encode(query, StandardCharsets.UTF_8);
             String url = "https://news.google.com/rss/search?q=" + q + "&hl=" + lang + "&gl=" + region + "&ceid=" + region + ":" + lang;
-            String xml = http.getText(url, 30);
-            return RssParser.parse(xml, Math.max(1, limit));
+            return http.getStream(url, 30, null, body -> RssParser.parse(body, Math.max(1, limit)));
         } catch (Exception e) {
             return List.of();
         }
@@ -352,8 +351,7 @@ public class NewsService {
                     + "-"
                     + (region == null || region.trim().isEmpty() ? "us" : region.trim().toLowerCase(Locale.ROOT));
             String url = "https://www.bing.com/news/search?q=" + q + "&format=rss&setlang=" + langTag;
-            String xml = http.getText(url, 30);
-            return RssParser.parse(xml, Math.max(1, limit));
+            return http.getStream(url, 30, null, body -> RssParser.parse(body, Math.max(1, limit)));
         } catch (Exception e) {
             return List.of();
         }
@@ -374,8 +372,7 @@ public class NewsService {
             String reg = region == null || region.trim().isEmpty() ? "US" : region.trim().toUpperCase(Locale.ROOT);
             String url = "https://feeds.finance.yahoo.com/rss/2.0/headline?s=" + t
                     + "&region=" + reg + "&lang=" + langTag;
-            String xml = http.getText(url, 30);
-            return RssParser.parse(xml, Math.max(1, limit));
+            return http.getStream(url, 30, null, body -> RssParser.parse(body, Math.max(1, limit)));
         } catch (Exception e) {
             return List.of();
         }
@@ -388,8 +385,7 @@ public class NewsService {
  */
     private List<NewsItem> fetchRss(String url, int limit) {
         try {
-            String xml = http.getText(url, 30);
-            return RssParser.parse(xml, Math.max(1, limit));
+            return http.getStream(url, 30, null, body -> RssParser.parse(body, Math.max(1, limit)));
         } catch (Exception e) {
             return List.of();
         }
@@ -4,6 +4,16 @@ import com.stockbot.data.http.HttpClientEx;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
 /**
  * Minimal Ollama wrapper used for text generation and embeddings.
  */
@@ -13,13 +23,22 @@ public class OllamaClient {
     private final String model;
     private final int timeoutSeconds;
     private final int maxTokens;
+    private final Double temperature;
 
     public OllamaClient(HttpClientEx http, String baseUrl, String model, int timeoutSeconds, int maxTokens) {
+        this(http, baseUrl, model, timeoutSeconds, maxTokens, null);
+    }
+
+    /**
+     * @param temperature sampling temperature sent in {@code options}; null leaves the model default
+     */
+    public OllamaClient(HttpClientEx http, String baseUrl, String model, int timeoutSeconds, int maxTokens, Double temperature) {
         this.http = http;
         this.baseUrl = baseUrl;
         this.model = model;
         this.timeoutSeconds = timeoutSeconds;
         this.maxTokens = Math.max(0, maxTokens);
+        this.temperature = temperature;
     }
 
     public String summarize(String prompt) {
@@ -35,11 +54,7 @@ public class OllamaClient {
                 req.put("system", systemPrompt.trim());
             }
             req.put("stream", false);
-            if (maxTokens > 0) {
-                JSONObject options = new JSONObject();
-                options.put("num_predict", maxTokens);
-                req.put("options", options);
-            }
+            putOptions(req);
             String resp = http.postJson(baseUrl + "/api/generate", req.toString(), timeoutSeconds);
             JSONObject o = new JSONObject(resp);
             return o.optString("response", "");
@@ -48,6 +63,90 @@ public class OllamaClient {
         }
     }
 
+    /**
+     * Streams /api/generate and stops reading as soon as {@code stopAfterChunk} returns true for a chunk or
+     * {@code deadlineMs} elapses; closing the response early makes Ollama abandon the rest of the
+     * completion. The deadline is checked between chunks, and also bounds the wait for response headers.
+     * Never throws: transport errors come back with {@link StreamResult#STOP_ERROR} and the text so far.
+     */
+    public StreamResult generateStream(String systemPrompt, String prompt, long deadlineMs, Predicate<String> stopAfterChunk) {
+        JSONObject req = new JSONObject();
+        req.put("model", model);
+        req.put("prompt", prompt == null ? "" : prompt);
+        if (systemPrompt != null && !systemPrompt.trim().isEmpty()) {
+            req.put("system", systemPrompt.trim());
+        }
+        req.put("stream", true);
+        putOptions(req);
+        long budgetMs = deadlineMs > 0L ? deadlineMs : TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        int requestTimeoutSec = (int) Math.max(1L, Math.min(timeoutSeconds, TimeUnit.MILLISECONDS.toSeconds(budgetMs) + 1L));
+        long started = System.nanoTime();
+        long deadlineNanos = started + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+        StreamState state = new StreamState();
+        try {
+            http.postJsonStream(baseUrl + "/api/generate", req.toString(), requestTimeoutSec, body -> {
+                BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JSONObject chunk = new JSONObject(line);
+                    String piece = chunk.optString("response", "");
+                    if (!piece.isEmpty()) {
+                        if (state.firstTokenNanos == 0L) {
+                            state.firstTokenNanos = System.nanoTime();
+                        }
+                        state.text.append(piece);
+                        state.chunks++;
+                    }
+                    if (chunk.optBoolean("done", false)) {
+                        state.evalCount = chunk.optLong("eval_count", 0L);
+                        state.stopReason = StreamResult.STOP_DONE;
+                        return null;
+                    }
+                    if (!piece.isEmpty() && stopAfterChunk != null && stopAfterChunk.test(piece)) {
+                        state.stopReason = StreamResult.STOP_CONDITION;
+                        return null;
+                    }
+                    if (System.nanoTime() - deadlineNanos >= 0L) {
+                        state.stopReason = StreamResult.STOP_DEADLINE;
+                        return null;
+                    }
+                }
+                return null;
+            });
+        } catch (HttpTimeoutException e) {
+            state.stopReason = StreamResult.STOP_DEADLINE;
+        } catch (Exception e) {
+            state.stopReason = StreamResult.STOP_ERROR;
+            state.error = e.getMessage();
+        }
+        long now = System.nanoTime();
+        return new StreamResult(
+                state.text.toString(),
+                state.evalCount > 0L ? state.evalCount : state.chunks,
+                state.firstTokenNanos == 0L ? -1L : TimeUnit.NANOSECONDS.toMillis(state.firstTokenNanos - started),
+                TimeUnit.NANOSECONDS.toMillis(now - started),
+                state.firstTokenNanos == 0L ? 0L : now - state.firstTokenNanos,
+                state.stopReason,
+                state.error
+        );
+    }
+
+    private void putOptions(JSONObject req) {
+        JSONObject options = new JSONObject();
+        if (maxTokens > 0) {
+            options.put("num_predict", maxTokens);
+        }
+        if (temperature != null) {
+            options.put("temperature", temperature.doubleValue());
+        }
+        if (!options.isEmpty()) {
+            req.put("options", options);
+        }
+    }
+
     public float[] embed(String text) {
         return embed(model, text);
     }
@@ -89,6 +188,48 @@ public class OllamaClient {
         }
     }
 
+    /**
+     * Embeds several texts with one /api/embed call, falling back to one request per text when the
+     * server rejects array input. The result is aligned with {@code texts}; failures are empty arrays.
+     */
+    public List<float[]> embedBatch(String embedModel, List<String> texts) {
+        List<float[]> out = new ArrayList<>();
+        if (texts == null || texts.isEmpty()) {
+            return out;
+        }
+        String modelToUse = embedModel == null || embedModel.trim().isEmpty()
+                ? model
+                : embedModel.trim();
+        JSONArray input = new JSONArray();
+        boolean anyInput = false;
+        for (String text : texts) {
+            String value = text == null ? "" : text.trim();
+            anyInput |= !value.isEmpty();
+            input.put(value);
+        }
+        if (anyInput && texts.size() > 1 && modelToUse != null && !modelToUse.isEmpty()) {
+            JSONObject req = new JSONObject();
+            req.put("model", modelToUse);
+            req.put("input", input);
+            try {
+                String resp = http.postJson(baseUrl + "/api/embed", req.toString(), timeoutSeconds);
+                JSONArray arrs = new JSONObject(resp).optJSONArray("embeddings");
+                if (arrs != null && arrs.length() == texts.size()) {
+                    for (int i = 0; i < arrs.length(); i++) {
+                        out.add(input.optString(i, "").isEmpty() ? new float[0] : toFloats(arrs.optJSONArray(i)));
+                    }
+                    return out;
+                }
+            } catch (Exception ignored) {
+                // Older Ollama versions only support one prompt per request.
+            }
+        }
+        for (String text : texts) {
+            out.add(embed(modelToUse, text));
+        }
+        return out;
+    }
+
     private float[] parseEmbedding(String raw) {
         if (raw == null || raw.trim().isEmpty()) {
             return new float[0];
@@ -111,6 +252,10 @@ public class OllamaClient {
                 }
             }
         }
+        return toFloats(arr);
+    }
+
+    private float[] toFloats(JSONArray arr) {
         if (arr == null || arr.length() == 0) {
             return new float[0];
         }
@@ -122,4 +267,64 @@ public class OllamaClient {
         }
         return out;
     }
+
+    private static final class StreamState {
+        private final StringBuilder text = new StringBuilder(1024);
+        private long chunks;
+        private long evalCount;
+        private long firstTokenNanos;
+        private String stopReason = StreamResult.STOP_DONE;
+        private String error;
+    }
+
+    /**
+     * Outcome of one streamed generation: the text received, token count, time to first token and why
+     * reading stopped.
+     */
+    public static final class StreamResult {
+        public static final String STOP_DONE = "done";
+        public static final String STOP_CONDITION = "stop_condition";
+        public static final String STOP_DEADLINE = "deadline";
+        public static final String STOP_ERROR = "error";
+
+        public final String text;
+        public final long tokens;
+        public final long ttftMs;
+        public final long elapsedMs;
+        public final String stopReason;
+        public final String error;
+        private final long decodeNanos;
+
+        public StreamResult(String text, long tokens, long ttftMs, long elapsedMs, long decodeNanos, String stopReason, String error) {
+            this.text = text == null ? "" : text;
+            this.tokens = Math.max(0L, tokens);
+            this.ttftMs = ttftMs;
+            this.elapsedMs = Math.max(0L, elapsedMs);
+            this.decodeNanos = Math.max(0L, decodeNanos);
+            this.stopReason = stopReason == null ? STOP_DONE : stopReason;
+            this.error = error;
+        }
+
+        /**
+         * Decode rate after the first token; 0 when fewer than two tokens arrived.
+         */
+        public double tokensPerSec() {
+            if (tokens < 2L || decodeNanos <= 0L) {
+                return 0.0;
+            }
+            return (tokens - 1L) / (decodeNanos / 1_000_000_000.0);
+        }
+
+        public String note() {
+            return String.format(
+                    Locale.US,
+                    "ttft_ms=%d tokens=%d tok_per_sec=%.1f elapsed_ms=%d stop=%s",
+                    ttftMs,
+                    tokens,
+                    tokensPerSec(),
+                    elapsedMs,
+                    stopReason
+            );
+        }
+    }
 }
@@ -0,0 +1,149 @@
+package com.stockbot.data.http;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Directory of recorded HTTP responses, one gzip-compressed JSON file per URL (named by the URL's SHA-256),
+ * used to replay real upstream traffic in load tests. Recording is switched on for every {@link HttpClientEx}
+ * with {@code -Dstockbot.http.record_dir=...} or the {@code STOCKBOT_HTTP_RECORD_DIR} environment variable.
+ */
+public final class HttpArchive {
+    public static final String RECORD_DIR_PROPERTY = "stockbot.http.record_dir";
+    public static final String RECORD_DIR_ENV = "STOCKBOT_HTTP_RECORD_DIR";
+
+    private final Path dir;
+
+    public HttpArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Archive named by the system property or environment variable, or null when recording is off.
+     */
+    public static HttpArchive fromEnvironment() {
+        String raw = System.getProperty(RECORD_DIR_PROPERTY);
+        if (raw == null || raw.isBlank()) {
+            raw = System.getenv(RECORD_DIR_ENV);
+        }
+        return raw == null || raw.isBlank() ? null : new HttpArchive(Path.of(raw.trim()));
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    /**
+     * Stores the response, replacing any earlier recording of the same URL. Failures are logged, not thrown,
+     * so recording can never break a live run.
+     */
+    public void record(String url, int status, String contentType, String body) {
+        Path target = pathFor(url);
+        JSONObject entry = new JSONObject();
+        entry.put("url", url);
+        entry.put("status", status);
+        entry.put("content_type", contentType == null ? "" : contentType);
+        entry.put("recorded_at", Instant.now().toString());
+        entry.put("body", body == null ? "" : body);
+        try {
+            Files.createDirectories(target.getParent());
+            Path tmp = Files.createTempFile(target.getParent(), "rec", ".tmp");
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                out.write(entry.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("WARN: http archive write failed url=" + url + ", err=" + e.getMessage());
+        }
+    }
+
+    public Optional<Entry> lookup(String url) {
+        Path source = pathFor(url);
+        if (!Files.isRegularFile(source)) {
+            return Optional.empty();
+        }
+        return read(source, url);
+    }
+
+    /**
+     * Every recorded entry file, sorted by name.
+     */
+    public List<Path> entryFiles() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            return files.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(".json.gz"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Reads one entry file from {@link #entryFiles()}; unreadable files are logged and skipped.
+     */
+    public Optional<Entry> read(Path source) {
+        return read(source, "");
+    }
+
+    private Optional<Entry> read(Path source, String url) {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(source))) {
+            JSONObject entry = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            return Optional.of(new Entry(
+                    entry.optString("url", url),
+                    entry.optInt("status", 200),
+                    entry.optString("content_type", ""),
+                    entry.optString("body", "")
+            ));
+        } catch (Exception e) {
+            System.err.println("WARN: http archive read failed url=" + (url.isEmpty() ? source : url)
+                    + ", err=" + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    static String key(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest((url == null ? "" : url).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    private Path pathFor(String url) {
+        String key = key(url);
+        return dir.resolve(key.substring(0, 2)).resolve(key + ".json.gz");
+    }
+
+    public static final class Entry {
+        public final String url;
+        public final int status;
+        public final String contentType;
+        public final String body;
+
+        public Entry(String url, int status, String contentType, String body) {
+            this.url = url;
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
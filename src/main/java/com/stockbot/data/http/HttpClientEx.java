@@ -1,10 +1,14 @@
 package com.stockbot.data.http;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -14,6 +18,7 @@ import java.util.Map;
  */
 public class HttpClientEx {
     private final HttpClient client;
+    private final HttpArchive recorder;
 
 /**
  * 方法说明：HttpClientEx，负责初始化对象并装配依赖参数。
@@ -21,10 +26,19 @@ public class HttpClientEx {
  * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
  */
     public HttpClientEx() {
+        this(HttpArchive.fromEnvironment());
+    }
+
+    /**
+     * With a non-null {@code recorder}, every GET response (any status) is also written to the archive for
+     * later replay; POSTs are never recorded.
+     */
+    public HttpClientEx(HttpArchive recorder) {
         this.client = HttpClient.newBuilder()
                 .connectTimeout(Duration.ofSeconds(20))
                 .followRedirects(HttpClient.Redirect.NORMAL)
                 .build();
+        this.recorder = recorder;
     }
 
 /**
@@ -37,18 +51,79 @@ public class HttpClientEx {
     }
 
     public String getText(String url, int timeoutSeconds, Map<String, String> headers) throws Exception {
-        HttpRequest req = HttpRequest.newBuilder()
+        HttpResponse<String> resp = client.send(buildGet(url, timeoutSeconds, headers), HttpResponse.BodyHandlers.ofString());
+        record(url, resp);
+        if (resp.statusCode() >= 200 && resp.statusCode() < 300) return resp.body();
+        throw new RuntimeException("HTTP " + resp.statusCode() + " for " + url);
+    }
+
+    /**
+     * Streams a 2xx response body into {@code reader} without buffering it as a String. The body stream is
+     * closed when the reader returns, so a reader that stops early abandons the rest of the response.
+     */
+    public <T> T getStream(String url, int timeoutSeconds, Map<String, String> headers, BodyReader<T> reader) throws Exception {
+        HttpResponse<InputStream> resp = client.send(buildGet(url, timeoutSeconds, headers), HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = resp.body()) {
+            InputStream source = body;
+            if (recorder != null) {
+                byte[] bytes = body.readAllBytes();
+                recorder.record(url, resp.statusCode(), contentType(resp), new String(bytes, StandardCharsets.UTF_8));
+                source = new ByteArrayInputStream(bytes);
+            }
+            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                return reader.read(source);
+            }
+        }
+        throw new RuntimeException("HTTP " + resp.statusCode() + " for " + url);
+    }
+
+    /**
+     * Conditional GET: sends If-None-Match / If-Modified-Since when validators are given and reports a 304
+     * as {@link ConditionalResponse#notModified}. Any other non-2xx status throws like {@link #getText}.
+     */
+    public ConditionalResponse getConditional(String url, int timeoutSeconds, String etag, String lastModified) throws Exception {
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (etag != null && !etag.isBlank()) {
+            headers.put("If-None-Match", etag);
+        }
+        if (lastModified != null && !lastModified.isBlank()) {
+            headers.put("If-Modified-Since", lastModified);
+        }
+        HttpResponse<String> resp = client.send(buildGet(url, timeoutSeconds, headers), HttpResponse.BodyHandlers.ofString());
+        if (resp.statusCode() != 304) {
+            record(url, resp);
+        }
+        if (resp.statusCode() == 304) {
+            return new ConditionalResponse(true, "", etag, lastModified);
+        }
+        if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+            return new ConditionalResponse(
+                    false,
+                    resp.body(),
+                    resp.headers().firstValue("ETag").orElse(null),
+                    resp.headers().firstValue("Last-Modified").orElse(null)
+            );
+        }
+        throw new RuntimeException("HTTP " + resp.statusCode() + " for " + url);
+    }
+
+    private void record(String url, HttpResponse<String> resp) {
+        if (recorder != null) {
+            recorder.record(url, resp.statusCode(), contentType(resp), resp.body());
+        }
+    }
+
+    private static String contentType(HttpResponse<?> resp) {
+        return resp.headers().firstValue("Content-Type").orElse("");
+    }
+
+    private HttpRequest buildGet(String url, int timeoutSeconds, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
                 .uri(URI.create(url))
                 .timeout(Duration.ofSeconds(timeoutSeconds))
                 .GET()
-                .header("User-Agent", "StockBot/3.0")
-                .build();
-        if (headers != null && !headers.isEmpty()) {
-            HttpRequest.Builder builder = HttpRequest.newBuilder()
-                    .uri(URI.create(url))
-                    .timeout(Duration.ofSeconds(timeoutSeconds))
-                    .GET()
-                    .header("User-Agent", "StockBot/3.0");
+                .header("User-Agent", "StockBot/3.0");
+        if (headers != null) {
             for (Map.Entry<String, String> e : headers.entrySet()) {
                 if (e.getKey() == null || e.getValue() == null) {
                     continue;
@@ -60,11 +135,8 @@ public class HttpClientEx {
                 }
                 builder.header(key, value);
             }
-            req = builder.build();
         }
-        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() >= 200 && resp.statusCode() < 300) return resp.body();
-        throw new RuntimeException("HTTP " + resp.statusCode() + " for " + url);
+        return builder.build();
     }
 
 /**
@@ -84,4 +156,44 @@ public class HttpClientEx {
         if (resp.statusCode() >= 200 && resp.statusCode() < 300) return resp.body();
         throw new RuntimeException("HTTP " + resp.statusCode() + " for " + url + " body=" + resp.body());
     }
+
+    /**
+     * POSTs JSON and streams a 2xx response body into {@code reader}, e.g. newline-delimited chunks from a
+     * streaming generation endpoint. As with {@link #getStream}, returning early closes the connection.
+     */
+    public <T> T postJsonStream(String url, String json, int timeoutSeconds, BodyReader<T> reader) throws Exception {
+        HttpRequest req = HttpRequest.newBuilder()
+                .uri(URI.create(url))
+                .timeout(Duration.ofSeconds(timeoutSeconds))
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json")
+                .header("User-Agent", "StockBot/3.0")
+                .build();
+        HttpResponse<InputStream> resp = client.send(req, HttpResponse.BodyHandlers.ofInputStream());
+        try (InputStream body = resp.body()) {
+            if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
+                return reader.read(body);
+            }
+        }
+        throw new RuntimeException("HTTP " + resp.statusCode() + " for " + url);
+    }
+
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body) throws Exception;
+    }
+
+    public static final class ConditionalResponse {
+        public final boolean notModified;
+        public final String body;
+        public final String etag;
+        public final String lastModified;
+
+        public ConditionalResponse(boolean notModified, String body, String etag, String lastModified) {
+            this.notModified = notModified;
+            this.body = body == null ? "" : body;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
 }
@@ -1,11 +1,15 @@
 package com.stockbot.data.rss;
 
 import com.stockbot.model.NewsItem;
-import org.w3c.dom.*;
-import javax.xml.parsers.DocumentBuilderFactory;
-import java.io.ByteArrayInputStream;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -13,56 +17,124 @@ import java.util.List;
 
 /**
  * 模块说明：RssParser（class）。
- * 主要职责：承载 rss 模块 的关键逻辑，对外提供可复用的调用入口。
- * 使用建议：修改该类型时应同步关注上下游调用，避免影响整体流程稳定性。
+ * 主要职责：以 StAX 流式读取 RSS 2.0 的 item，收满 maxItems 条即停止，不构建整棵 DOM。
+ * 使用建议：解析器已禁用 DTD 与外部实体；调用方负责关闭传入的流。
  */
 public class RssParser {
+    private static final XMLInputFactory FACTORY = newHardenedFactory();
 
 /**
  * 方法说明：parse，负责解析输入内容并转换结构。
- * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
- * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
+ * 处理流程：包装为 Reader 后走流式解析，不再把字符串转回字节。
+ * 维护提示：解析失败时返回已收集的条目（可能为空），不抛异常。
  */
     public static List<NewsItem> parse(String xml, int maxItems) {
+        if (xml == null || xml.isEmpty()) {
+            return new ArrayList<>();
+        }
+        try (Reader reader = new StringReader(xml)) {
+            return parse(FACTORY.createXMLStreamReader(reader), maxItems);
+        } catch (Exception e) {
+            return new ArrayList<>();
+        }
+    }
+
+/**
+ * 方法说明：parse，直接消费 HTTP 响应流。
+ * 处理流程：编码由 XML 声明决定；收满 maxItems 条后立即返回，剩余字节不再读取。
+ * 维护提示：流由调用方关闭，提前关闭即放弃剩余响应体。
+ */
+    public static List<NewsItem> parse(InputStream in, int maxItems) {
+        if (in == null) {
+            return new ArrayList<>();
+        }
+        try {
+            return parse(FACTORY.createXMLStreamReader(in), maxItems);
+        } catch (Exception e) {
+            return new ArrayList<>();
+        }
+    }
+
+    private static List<NewsItem> parse(XMLStreamReader reader, int maxItems) {
         List<NewsItem> out = new ArrayList<>();
+        int limit = Math.max(0, maxItems);
+        ItemFields item = null;
+        String field = null;
+        int fieldDepth = 0;
+        int depth = 0;
+        StringBuilder text = new StringBuilder();
         try {
-            Document doc = DocumentBuilderFactory.newInstance()
-                    .newDocumentBuilder()
-                    .parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
-            NodeList items = doc.getElementsByTagName("item");
-            for (int i = 0; i < items.getLength() && out.size() < maxItems; i++) {
-                Element item = (Element) items.item(i);
-                String title = text(item, "title");
-                String description = text(item, "description");
-                String link = text(item, "link");
-                String pubDate = text(item, "pubDate");
-                ZonedDateTime zdt = null;
-                try {
-                    zdt = ZonedDateTime.parse(pubDate, DateTimeFormatter.RFC_1123_DATE_TIME);
-                } catch (Exception ignored) {}
-                String source = sourceText(item, title, link);
-                out.add(new NewsItem(title == null ? "" : title.trim(),
-                        description == null ? "" : description.trim(),
-                        link == null ? "" : link.trim(),
-                        source,
-                        zdt));
+            while (out.size() < limit && reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    depth++;
+                    String name = unprefixedName(reader);
+                    if (item == null) {
+                        if ("item".equals(name)) {
+                            item = new ItemFields();
+                        }
+                    } else if (field == null && name != null && item.wants(name)) {
+                        field = name;
+                        fieldDepth = depth;
+                        text.setLength(0);
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (field != null && depth == fieldDepth) {
+                        item.set(field, text.toString());
+                        field = null;
+                    } else if (item != null && field == null && "item".equals(unprefixedName(reader))) {
+                        out.add(item.toNewsItem());
+                        item = null;
+                    }
+                    depth--;
+                } else if (field != null && (event == XMLStreamConstants.CHARACTERS
+                        || event == XMLStreamConstants.CDATA
+                        || event == XMLStreamConstants.SPACE)) {
+                    text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                }
             }
-        } catch (Exception e) {
-            // 忽略解析异常并返回空结果
+        } catch (XMLStreamException e) {
+            // 截断或非法 XML：保留已完整解析的条目
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {}
         }
         return out;
     }
 
+    private static String unprefixedName(XMLStreamReader reader) {
+        String prefix = reader.getPrefix();
+        return prefix == null || prefix.isEmpty() ? reader.getLocalName() : null;
+    }
+
+    private static XMLInputFactory newHardenedFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return factory;
+    }
+
 /**
- * 方法说明：text，负责执行业务逻辑并产出结果。
- * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
- * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
+ * 方法说明：parsePubDate，负责解析 RFC 1123 发布时间。
+ * 处理流程：先做长度与格式的廉价预检，避免对明显不合法的值走异常路径。
+ * 维护提示：无法解析时返回 null，与原 DOM 实现一致。
  */
-    private static String text(Element parent, String tag) {
-        NodeList nl = parent.getElementsByTagName(tag);
-        if (nl.getLength() == 0) return null;
-        Node n = nl.item(0);
-        return n == null ? null : n.getTextContent();
+    static ZonedDateTime parsePubDate(String pubDate) {
+        if (pubDate == null) {
+            return null;
+        }
+        String t = pubDate.trim();
+        if (t.length() < 16 || !Character.isLetterOrDigit(t.charAt(0))) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(t, DateTimeFormatter.RFC_1123_DATE_TIME);
+        } catch (Exception ignored) {
+            return null;
+        }
     }
 
 /**
@@ -70,8 +142,7 @@ public class RssParser {
  * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
  * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
  */
-    private static String sourceText(Element item, String title, String link) {
-        String source = text(item, "source");
+    private static String sourceText(String source, String title, String link) {
         if (source != null && !source.trim().isEmpty()) return source.trim();
 
         // 聚合来源常将媒体名拼在标题里，格式通常是“标题 - 来源”
@@ -93,4 +164,64 @@ public class RssParser {
         } catch (Exception ignored) {}
         return "";
     }
+
+    /**
+     * 单个 item 内各字段取首次出现的值，与 DOM 版 getElementsByTagName(..).item(0) 语义一致。
+     */
+    private static final class ItemFields {
+        private String title;
+        private String description;
+        private String link;
+        private String pubDate;
+        private String source;
+
+        boolean wants(String name) {
+            switch (name) {
+                case "title":
+                    return title == null;
+                case "description":
+                    return description == null;
+                case "link":
+                    return link == null;
+                case "pubDate":
+                    return pubDate == null;
+                case "source":
+                    return source == null;
+                default:
+                    return false;
+            }
+        }
+
+        void set(String name, String value) {
+            switch (name) {
+                case "title":
+                    title = value;
+                    break;
+                case "description":
+                    description = value;
+                    break;
+                case "link":
+                    link = value;
+                    break;
+                case "pubDate":
+                    pubDate = value;
+                    break;
+                case "source":
+                    source = value;
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        NewsItem toNewsItem() {
+            return new NewsItem(
+                    title == null ? "" : title.trim(),
+                    description == null ? "" : description.trim(),
+                    link == null ? "" : link.trim(),
+                    sourceText(source, title, link),
+                    parsePubDate(pubDate)
+            );
+        }
+    }
 }
@@ -3,8 +3,10 @@ package com.stockbot.jp.backtest;
 import com.stockbot.jp.config.Config;
 import com.stockbot.jp.db.BarDailyDao;
 import com.stockbot.jp.db.RunDao;
+import com.stockbot.jp.db.UnitOfWork;
 import com.stockbot.jp.model.BacktestReport;
 import com.stockbot.jp.model.CandidateRow;
+import com.stockbot.jp.model.ForwardReturn;
 import com.stockbot.jp.model.RunRow;
 
 import java.sql.SQLException;
@@ -50,25 +52,40 @@ public final class BacktestRunner {
 
         List<RunRow> runs = runDao.listSuccessfulDailyRuns(lookbackRuns);
         List<Double> returns = new ArrayList<>();
+        List<String> pickTickers = new ArrayList<>();
+        List<LocalDate> pickDates = new ArrayList<>();
         int usedRuns = 0;
 
-        for (RunRow run : runs) {
-            if (run.startedAt == null) {
-                continue;
-            }
-            LocalDate runDate = LocalDate.ofInstant(run.startedAt, zoneId);
-            List<CandidateRow> picks = runDao.listCandidates(run.id, topK);
-            if (picks.isEmpty()) {
-                continue;
-            }
-            usedRuns++;
-            for (CandidateRow pick : picks) {
-                OptionalDouble entry = barDailyDao.closeOnOrAfterWithOffset(pick.ticker, runDate, 0);
-                OptionalDouble exit = barDailyDao.closeOnOrAfterWithOffset(pick.ticker, runDate, holdDays);
-                if (entry.isPresent() && exit.isPresent() && entry.getAsDouble() > 0.0) {
-                    double ret = (exit.getAsDouble() - entry.getAsDouble()) / entry.getAsDouble() * 100.0;
-                    returns.add(ret);
+        // Holding periods without a forward_returns column look closes up per pick on one shared connection.
+        try (UnitOfWork ignored = runDao.database().openUnitOfWork()) {
+            for (RunRow run : runs) {
+                if (run.startedAt == null) {
+                    continue;
+                }
+                LocalDate runDate = LocalDate.ofInstant(run.startedAt, zoneId);
+                List<CandidateRow> picks = runDao.listCandidates(run.id, topK);
+                if (picks.isEmpty()) {
+                    continue;
                 }
+                usedRuns++;
+                for (CandidateRow pick : picks) {
+                    if (ForwardReturn.supports(holdDays)) {
+                        pickTickers.add(pick.ticker);
+                        pickDates.add(runDate);
+                        continue;
+                    }
+                    OptionalDouble entry = barDailyDao.closeOnOrAfterWithOffset(pick.ticker, runDate, 0);
+                    OptionalDouble exit = barDailyDao.closeOnOrAfterWithOffset(pick.ticker, runDate, holdDays);
+                    if (entry.isPresent() && exit.isPresent() && entry.getAsDouble() > 0.0) {
+                        double ret = (exit.getAsDouble() - entry.getAsDouble()) / entry.getAsDouble() * 100.0;
+                        returns.add(ret);
+                    }
+                }
+            }
+        }
+        for (ForwardReturn row : barDailyDao.loadForwardReturns(pickTickers, pickDates)) {
+            if (row != null) {
+                row.pct(holdDays).ifPresent(returns::add);
             }
         }
 
@@ -388,6 +388,9 @@ public final class Config {
         defaults.put("db.pass", "stockbot");
         defaults.put("db.schema", "stockbot");
         defaults.put("db.sql_log.enabled", "true");
+        defaults.put("db.sql_profile.top_n", "10");
+        defaults.put("db.sql_profile.n_plus_one_calls", "500");
+        defaults.put("db.unit_of_work.enabled", "true");
         defaults.put("report.dir", "outputs/reports");
         defaults.put("report.mode.intraday.hideEntry", "true");
         defaults.put("watchlist.path", "watchlist.txt");
@@ -407,6 +410,7 @@ public final class Config {
         defaults.put("jpx.universe.force_update", "false");
         defaults.put("jpx.universe.request_timeout_sec", "20");
         defaults.put("yahoo.max_bars_per_ticker", "300");
+        defaults.put("yahoo.chart.base_url", "https://query1.finance.yahoo.com");
 
         defaults.put("scan.threads", "3");
         defaults.put("scan.top_n", "15");
@@ -419,6 +423,16 @@ public final class Config {
         defaults.put("scan.upsert.initial_days", "300");
         defaults.put("scan.upsert.incremental_recent_days", "10");
         defaults.put("scan.upsert.incremental_overlap_days", "2");
+        defaults.put("scan.summary.enabled", "true");
+        defaults.put("scan.results.retention_days", "90");
+        defaults.put("scan.prefilter.non_tradable", "false");
+        defaults.put("scan.archive.enabled", "true");
+        defaults.put("scan.archive.dir", "");
+        defaults.put("price.blob.enabled", "false");
+        defaults.put("price.blob.read_enabled", "true");
+        defaults.put("price.bootstrap.streams", "4");
+        defaults.put("export.dir", "outputs/export");
+        defaults.put("export.threads", "4");
         defaults.put("scan.tradable.min_avg_volume_20", "50000");
         defaults.put("scan.tradable.min_price", "100");
         defaults.put("scan.tradable.max_zero_volume_days_20", "3");
@@ -535,6 +549,12 @@ public final class Config {
         defaults.put("news.performance.auto_tune", "true");
         defaults.put("news.performance.profile", "accuracy");
         defaults.put("news.fetch.log_keywords", "true");
+        defaults.put("news.fetch.per_host_max", "4");
+        defaults.put("news.fetch.run_cache_ttl_sec", "900");
+        defaults.put("news.poll.enabled", "false");
+        defaults.put("news.poll.interval_min", "10");
+        defaults.put("news.poll.max_lag_min", "30");
+        defaults.put("news.poll.embed_batch", "200");
         defaults.put("news.vector.query_expand.enabled", "true");
         defaults.put("news.vector.query_expand.top_k", "8");
         defaults.put("news.vector.query_expand.max_extra_queries", "2");
@@ -560,6 +580,14 @@ public final class Config {
         defaults.put("ai.timeout_sec", "600");
         defaults.put("ai.max_tokens", "1200");
         defaults.put("ai.temperature", "0.2");
+        defaults.put("ai.summary.parallelism", "1");
+        defaults.put("ai.summary.budget_sec", "900");
+        defaults.put("ai.summary.stream.enabled", "true");
+        defaults.put("ai.summary.stream.max_sections", "4");
+        defaults.put("ai.summary.stream.deadline_sec", "90");
+        defaults.put("ai.summary.memo.enabled", "true");
+        defaults.put("ai.summary.memo.ttl_days", "7");
+        defaults.put("ai.summary.memo.lru_entries", "512");
         defaults.put("fetch.concurrent", "12");
         defaults.put("news.concurrent", "10");
         defaults.put("fetch.bars", "520");
@@ -571,6 +599,7 @@ public final class Config {
         defaults.put("indicator.core", "sma20,sma60,rsi14,atr14");
         defaults.put("indicator.allow_partial", "true");
         defaults.put("vector.memory.enabled", "true");
+        defaults.put("vector.memory.embed.enabled", "true");
         defaults.put("vector.memory.news.max_items", "3");
         defaults.put("vector.memory.news.top_k", "12");
         defaults.put("vector.memory.news.max_cases", "5");
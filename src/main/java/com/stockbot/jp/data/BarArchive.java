@@ -0,0 +1,496 @@
+package com.stockbot.jp.data;
+
+import com.stockbot.jp.model.BarDaily;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local memory-mapped bar archive: one file per market segment ({@code bars_<market>.bin}) holding a fixed-size
+ * columnar slot per ticker with the newest {@code capacity} daily bars.
+ * <p>
+ * File layout (little endian): a 32-byte header (magic, version, capacity, slot count, slot size) followed by
+ * slots. A slot starts with a 48-byte block carrying the ticker (length + UTF-8, at most 31 bytes) and the bar
+ * count, then {@code int[capacity]} epoch days and five {@code double[capacity]} columns (open, high, low, close,
+ * volume). Slot headers double as the ticker offset index, which is rebuilt in memory when a file is opened.
+ * <p>
+ * Reads return list views over the mapping without copying; a view stays valid until the next write for the same
+ * ticker. Writers hold an exclusive lock on the file (a sidecar {@code .lock} file, so other processes sharing the
+ * directory take part) and pick up slots appended elsewhere before allocating one; readers hold a shared lock and
+ * check the slot still names the ticker asked for.
+ */
+public final class BarArchive implements Closeable {
+    public interface BarLoader {
+        List<BarDaily> load(String ticker) throws Exception;
+    }
+
+    private static final int MAGIC = 0x53424241;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int SLOT_HEADER_BYTES = 48;
+    private static final int MAX_TICKER_BYTES = 31;
+    private static final int INITIAL_SLOTS = 64;
+
+    private final Path dir;
+    private final int capacity;
+    private final Map<String, SegmentFile> files = new ConcurrentHashMap<>();
+
+    public BarArchive(Path dir, int capacity) {
+        this.dir = dir;
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Archived bars for a ticker, ascending by date, as a view over the mapped file; empty when absent.
+     */
+    public List<BarDaily> read(String market, String ticker) throws IOException {
+        if (ticker == null || ticker.isEmpty()) {
+            return List.of();
+        }
+        return segment(market).read(ticker);
+    }
+
+    /**
+     * Replaces the archived bars of a ticker with the newest {@code capacity} of {@code bars}.
+     *
+     * @return false when the ticker cannot be archived (name too long)
+     */
+    public boolean write(String market, String ticker, List<BarDaily> bars) throws IOException {
+        if (ticker == null || ticker.isEmpty() || ticker.getBytes(StandardCharsets.UTF_8).length > MAX_TICKER_BYTES) {
+            return false;
+        }
+        List<BarDaily> valid = new ArrayList<>(bars == null ? 0 : bars.size());
+        if (bars != null) {
+            for (BarDaily bar : bars) {
+                if (bar != null && bar.tradeDate != null) {
+                    valid.add(bar);
+                }
+            }
+        }
+        segment(market).write(ticker, valid);
+        return true;
+    }
+
+    /**
+     * Merges freshly upserted bars into the archive: archived bars dated before the first new bar are kept, the
+     * rest is replaced by {@code bars}.
+     */
+    public boolean append(String market, String ticker, List<BarDaily> bars) throws IOException {
+        LocalDate firstNew = null;
+        if (bars != null) {
+            for (BarDaily bar : bars) {
+                if (bar != null && bar.tradeDate != null && (firstNew == null || bar.tradeDate.isBefore(firstNew))) {
+                    firstNew = bar.tradeDate;
+                }
+            }
+        }
+        if (firstNew == null) {
+            return false;
+        }
+        List<BarDaily> merged = new ArrayList<>(capacity + bars.size());
+        for (BarDaily old : read(market, ticker)) {
+            if (old.tradeDate.isBefore(firstNew)) {
+                merged.add(old);
+            }
+        }
+        merged.addAll(bars);
+        return write(market, ticker, merged);
+    }
+
+    /**
+     * Rewrites the given tickers of one market from {@code loader} (normally price_daily).
+     *
+     * @return number of tickers archived
+     */
+    public int rebuild(String market, List<String> tickers, BarLoader loader) throws Exception {
+        int written = 0;
+        for (String ticker : tickers) {
+            List<BarDaily> bars = loader.load(ticker);
+            if (bars != null && !bars.isEmpty() && write(market, ticker, bars)) {
+                written++;
+            }
+        }
+        segment(market).flush();
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException first = null;
+        for (SegmentFile file : files.values()) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                if (first == null) {
+                    first = e;
+                }
+            }
+        }
+        files.clear();
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    static String fileName(String market) {
+        String key = market == null || market.trim().isEmpty() ? "UNKNOWN" : market.trim();
+        return "bars_" + key.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9_-]+", "_") + ".bin";
+    }
+
+    private SegmentFile segment(String market) throws IOException {
+        String name = fileName(market);
+        SegmentFile existing = files.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (files) {
+            existing = files.get(name);
+            if (existing == null) {
+                Files.createDirectories(dir);
+                existing = new SegmentFile(dir.resolve(name), capacity);
+                files.put(name, existing);
+            }
+            return existing;
+        }
+    }
+
+    private static int slotSize(int capacity) {
+        int days = (capacity * Integer.BYTES + 7) & ~7;
+        return SLOT_HEADER_BYTES + days + 5 * capacity * Double.BYTES;
+    }
+
+    /**
+     * Serializes access to one archive file across every {@link BarArchive} in this JVM and, through a
+     * {@link FileLock} on a sidecar {@code .lock} file, across processes (a daemon next to a CLI run). File locks
+     * are held per JVM and throw on overlap instead of blocking, so there is exactly one per path: readers share
+     * one shared lock while any of them is inside, writers take an exclusive one.
+     */
+    private static final class FileGuard {
+        private static final Map<Path, FileGuard> GUARDS = new ConcurrentHashMap<>();
+
+        private final FileChannel channel;
+        private final ReentrantReadWriteLock local = new ReentrantReadWriteLock();
+        private final Object readerMonitor = new Object();
+        private int readers;
+        private FileLock shared;
+
+        private FileGuard(Path lockFile) throws IOException {
+            this.channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        static FileGuard of(Path file) throws IOException {
+            Path key = file.toAbsolutePath().normalize();
+            FileGuard guard = GUARDS.get(key);
+            if (guard != null) {
+                return guard;
+            }
+            synchronized (GUARDS) {
+                guard = GUARDS.get(key);
+                if (guard == null) {
+                    guard = new FileGuard(key.resolveSibling(key.getFileName() + ".lock"));
+                    GUARDS.put(key, guard);
+                }
+                return guard;
+            }
+        }
+
+        void lockRead() throws IOException {
+            local.readLock().lock();
+            try {
+                synchronized (readerMonitor) {
+                    if (readers == 0) {
+                        shared = channel.lock(0L, Long.MAX_VALUE, true);
+                    }
+                    readers++;
+                }
+            } catch (IOException | RuntimeException e) {
+                local.readLock().unlock();
+                throw e;
+            }
+        }
+
+        void unlockRead() throws IOException {
+            try {
+                synchronized (readerMonitor) {
+                    if (--readers == 0) {
+                        FileLock lock = shared;
+                        shared = null;
+                        lock.release();
+                    }
+                }
+            } finally {
+                local.readLock().unlock();
+            }
+        }
+
+        FileLock lockWrite() throws IOException {
+            local.writeLock().lock();
+            try {
+                return channel.lock();
+            } catch (IOException | RuntimeException e) {
+                local.writeLock().unlock();
+                throw e;
+            }
+        }
+
+        void unlockWrite(FileLock lock) throws IOException {
+            try {
+                lock.release();
+            } finally {
+                local.writeLock().unlock();
+            }
+        }
+    }
+
+    private static final class SegmentFile implements Closeable {
+        private final FileGuard guard;
+        private final FileChannel channel;
+        private final int capacity;
+        private final int slotSize;
+        private final int daysOffset;
+        private final int columnsOffset;
+        private final Map<String, Integer> slotByTicker = new ConcurrentHashMap<>();
+        private volatile MappedByteBuffer map;
+        private int slotCount;
+        private int allocatedSlots;
+
+        SegmentFile(Path path, int capacity) throws IOException {
+            this.capacity = capacity;
+            this.slotSize = slotSize(capacity);
+            this.daysOffset = SLOT_HEADER_BYTES;
+            this.columnsOffset = SLOT_HEADER_BYTES + ((capacity * Integer.BYTES + 7) & ~7);
+            this.guard = FileGuard.of(path);
+            FileLock lock = guard.lockWrite();
+            try {
+                if (Files.exists(path) && !isCompatible(path)) {
+                    Files.delete(path);
+                }
+                this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                if (channel.size() < HEADER_BYTES) {
+                    allocatedSlots = INITIAL_SLOTS;
+                    map = mapSlots(allocatedSlots);
+                    map.putInt(0, MAGIC);
+                    map.putInt(4, VERSION);
+                    map.putInt(8, capacity);
+                    map.putInt(12, 0);
+                    map.putInt(16, slotSize);
+                    slotCount = 0;
+                } else {
+                    allocatedSlots = INITIAL_SLOTS;
+                    map = mapSlots(allocatedSlots);
+                    slotCount = 0;
+                    refreshIndex();
+                }
+            } finally {
+                guard.unlockWrite(lock);
+            }
+        }
+
+        private boolean isCompatible(Path path) throws IOException {
+            try (FileChannel probe = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (probe.size() < HEADER_BYTES) {
+                    return false;
+                }
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+                if (probe.read(header, 0) < HEADER_BYTES) {
+                    return false;
+                }
+                return header.getInt(0) == MAGIC
+                        && header.getInt(4) == VERSION
+                        && header.getInt(8) == capacity
+                        && header.getInt(16) == slotSize
+                        && probe.size() >= HEADER_BYTES + (long) header.getInt(12) * slotSize;
+            }
+        }
+
+        /**
+         * Picks up slots another writer (this JVM or another process) appended since the last look, remapping when
+         * the file has grown. Caller holds the exclusive lock.
+         */
+        private void refreshIndex() throws IOException {
+            long fileSlots = (channel.size() - HEADER_BYTES) / slotSize;
+            if (fileSlots > allocatedSlots) {
+                allocatedSlots = Math.toIntExact(fileSlots);
+                map = mapSlots(allocatedSlots);
+            }
+            int stored = Math.min(map.getInt(12), allocatedSlots);
+            for (int slot = slotCount; slot < stored; slot++) {
+                String ticker = tickerAt(map, slot);
+                if (!ticker.isEmpty()) {
+                    slotByTicker.put(ticker, slot);
+                }
+            }
+            slotCount = Math.max(slotCount, stored);
+        }
+
+        /**
+         * The slot header must still name {@code ticker}; anything else (a file rewritten elsewhere) is a miss.
+         */
+        List<BarDaily> read(String ticker) throws IOException {
+            Integer slot = slotByTicker.get(ticker);
+            if (slot == null) {
+                return List.of();
+            }
+            guard.lockRead();
+            try {
+                MappedByteBuffer current = map;
+                if (slotOffset(slot) + slotSize > current.capacity() || !ticker.equals(tickerAt(current, slot))) {
+                    return List.of();
+                }
+                ByteBuffer view = current.slice(slotOffset(slot), slotSize).order(ByteOrder.LITTLE_ENDIAN);
+                int count = view.getInt(32);
+                if (count <= 0) {
+                    return List.of();
+                }
+                return new SlotView(ticker, view, Math.min(count, capacity), daysOffset, columnsOffset, capacity);
+            } finally {
+                guard.unlockRead();
+            }
+        }
+
+        void write(String ticker, List<BarDaily> bars) throws IOException {
+            FileLock lock = guard.lockWrite();
+            try {
+                refreshIndex();
+                Integer slot = slotByTicker.get(ticker);
+                boolean fresh = slot == null;
+                if (fresh) {
+                    if (slotCount == allocatedSlots) {
+                        allocatedSlots *= 2;
+                        map = mapSlots(allocatedSlots);
+                    }
+                    slot = slotCount;
+                }
+                ByteBuffer out = map.slice(slotOffset(slot), slotSize).order(ByteOrder.LITTLE_ENDIAN);
+                int from = Math.max(0, bars.size() - capacity);
+                int count = bars.size() - from;
+                out.putInt(32, 0);
+                for (int i = 0; i < count; i++) {
+                    BarDaily bar = bars.get(from + i);
+                    out.putInt(daysOffset + i * Integer.BYTES, (int) bar.tradeDate.toEpochDay());
+                    out.putDouble(columnsOffset + i * Double.BYTES, bar.open);
+                    out.putDouble(columnsOffset + (capacity + i) * Double.BYTES, bar.high);
+                    out.putDouble(columnsOffset + (2 * capacity + i) * Double.BYTES, bar.low);
+                    out.putDouble(columnsOffset + (3 * capacity + i) * Double.BYTES, bar.close);
+                    out.putDouble(columnsOffset + (4 * capacity + i) * Double.BYTES, bar.volume);
+                }
+                if (fresh) {
+                    byte[] name = ticker.getBytes(StandardCharsets.UTF_8);
+                    out.put(0, (byte) name.length);
+                    out.put(1, name);
+                }
+                out.putInt(32, count);
+                if (fresh) {
+                    slotCount++;
+                    map.putInt(12, slotCount);
+                    slotByTicker.put(ticker, slot);
+                }
+            } finally {
+                guard.unlockWrite(lock);
+            }
+        }
+
+        void flush() throws IOException {
+            FileLock lock = guard.lockWrite();
+            try {
+                map.force();
+            } finally {
+                guard.unlockWrite(lock);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            FileLock lock = guard.lockWrite();
+            try {
+                map.force();
+                channel.close();
+            } finally {
+                guard.unlockWrite(lock);
+            }
+        }
+
+        private MappedByteBuffer mapSlots(int slots) throws IOException {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) slots * slotSize);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return mapped;
+        }
+
+        private int slotOffset(int slot) {
+            return Math.toIntExact(HEADER_BYTES + (long) slot * slotSize);
+        }
+
+        private String tickerAt(ByteBuffer buffer, int slot) {
+            int base = slotOffset(slot);
+            int length = Math.min(buffer.get(base) & 0xFF, MAX_TICKER_BYTES);
+            byte[] name = new byte[length];
+            buffer.get(base + 1, name);
+            return new String(name, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class SlotView extends AbstractList<BarDaily> implements RandomAccess {
+        private final String ticker;
+        private final ByteBuffer slot;
+        private final int size;
+        private final int daysOffset;
+        private final int columnsOffset;
+        private final int capacity;
+
+        SlotView(String ticker, ByteBuffer slot, int size, int daysOffset, int columnsOffset, int capacity) {
+            this.ticker = ticker;
+            this.slot = slot;
+            this.size = size;
+            this.daysOffset = daysOffset;
+            this.columnsOffset = columnsOffset;
+            this.capacity = capacity;
+        }
+
+        @Override
+        public BarDaily get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+            }
+            return new BarDaily(
+                    ticker,
+                    LocalDate.ofEpochDay(slot.getInt(daysOffset + index * Integer.BYTES)),
+                    slot.getDouble(columnsOffset + index * Double.BYTES),
+                    slot.getDouble(columnsOffset + (capacity + index) * Double.BYTES),
+                    slot.getDouble(columnsOffset + (2 * capacity + index) * Double.BYTES),
+                    slot.getDouble(columnsOffset + (3 * capacity + index) * Double.BYTES),
+                    slot.getDouble(columnsOffset + (4 * capacity + index) * Double.BYTES)
+            );
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
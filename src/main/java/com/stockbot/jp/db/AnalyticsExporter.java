@@ -0,0 +1,243 @@
+package com.stockbot.jp.db;
+
+import lombok.Value;
+import org.json.JSONObject;
+import org.postgresql.PGConnection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports scan runs and price history as gzip CSV files in Hive-style partition directories
+ * ({@code scan_results/run_id=42/part.csv.gz}, {@code price_daily/month=2025-03/part.csv.gz}), so offline analysis
+ * reads files instead of querying the live database. Every partition is one server-side {@code COPY ... TO STDOUT}
+ * streamed through gzip into a temporary file, on up to {@code threads} connections at once, so memory stays flat
+ * whatever the table size. Exports are incremental: runs after the last exported run, and the price months that
+ * daily upserts may still revise. Needs PostgreSQL 16+ ({@code pg_input_is_valid}).
+ */
+public final class AnalyticsExporter {
+    public static final String META_EXPORT = "export.analytics.v1";
+    /**
+     * Daily upserts rewrite a short tail of recent bars, so months reaching back this far are exported again.
+     */
+    static final int PRICE_REWRITE_DAYS = 31;
+    private static final String PART_FILE = "part.csv.gz";
+
+    private final Database database;
+    private final MetadataDao metadataDao;
+    private final int threads;
+
+    public AnalyticsExporter(Database database, MetadataDao metadataDao, int threads) {
+        this.database = database;
+        this.metadataDao = metadataDao;
+        this.threads = Math.max(1, threads);
+    }
+
+    /**
+     * Writes every partition changed since the previous export into {@code outDir}; {@code full} ignores the
+     * previous export and rewrites all of them. Existing partition files are replaced atomically.
+     */
+    public ExportStats export(Path outDir, boolean full) throws Exception {
+        JSONObject last = full ? new JSONObject() : metadataDao.get(META_EXPORT).map(JSONObject::new).orElseGet(JSONObject::new);
+        long lastRunId = last.optLong("last_run_id", 0L);
+        LocalDate lastTradeDate = last.has("last_trade_date") ? LocalDate.parse(last.getString("last_trade_date")) : null;
+
+        List<Long> runIds;
+        LocalDate firstMonth = null;
+        LocalDate newestTradeDate = null;
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            Map<Long, Boolean> finishedById = new TreeMap<>();
+            try (ResultSet rs = st.executeQuery("SELECT id, finished_at IS NOT NULL FROM runs WHERE id > " + lastRunId + " ORDER BY id")) {
+                while (rs.next()) {
+                    finishedById.put(rs.getLong(1), rs.getBoolean(2));
+                }
+            }
+            runIds = exportableRuns(finishedById);
+            try (ResultSet rs = st.executeQuery("SELECT MAX(last_trade_date) FROM ticker_latest")) {
+                if (rs.next() && rs.getDate(1) != null) {
+                    newestTradeDate = rs.getDate(1).toLocalDate();
+                }
+            }
+            if (newestTradeDate != null) {
+                if (lastTradeDate != null) {
+                    firstMonth = lastTradeDate.minusDays(PRICE_REWRITE_DAYS).withDayOfMonth(1);
+                } else {
+                    try (ResultSet rs = st.executeQuery("SELECT MIN(trade_date) FROM price_daily")) {
+                        if (rs.next() && rs.getDate(1) != null) {
+                            firstMonth = rs.getDate(1).toLocalDate().withDayOfMonth(1);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<Partition> partitions = new ArrayList<>();
+        for (long runId : runIds) {
+            partitions.add(new Partition("scan_results", "run_id=" + runId,
+                    "SELECT run_id, ticker, code, market, data_source, price_timestamp, bars_count, last_close, " +
+                    "cache_hit::text AS cache_hit, fetch_latency_ms, fetch_success::text AS fetch_success, " +
+                    "indicator_ready::text AS indicator_ready, candidate_ready::text AS candidate_ready, " +
+                    "data_insufficient_reason, failure_reason, request_failure_category, error, created_at " +
+                    "FROM scan_results WHERE run_id = " + runId + " ORDER BY id"));
+            // Tech subscores live in indicators_json; malformed documents export with empty tech columns.
+            partitions.add(new Partition("candidates", "run_id=" + runId,
+                    "SELECT c.run_id, c.rank_no, c.ticker, c.code, c.name, c.market, c.score, c.close, " +
+                    "(j ->> 'trend_strength')::int AS trend_strength, j ->> 'signal_status' AS signal_status, " +
+                    "j ->> 'risk_level' AS risk_level, j ->> 'data_status' AS data_status, " +
+                    "(j -> 'subscores' ->> 'trend_structure')::int AS trend_structure, " +
+                    "(j -> 'subscores' ->> 'bias_risk')::int AS bias_risk, " +
+                    "(j -> 'subscores' ->> 'volume_confirm')::int AS volume_confirm, " +
+                    "(j -> 'subscores' ->> 'execution_quality')::int AS execution_quality, " +
+                    "(j ->> 'ma5')::float8 AS ma5, (j ->> 'ma10')::float8 AS ma10, (j ->> 'ma20')::float8 AS ma20, " +
+                    "(j ->> 'bias')::float8 AS bias, (j ->> 'vol_ratio')::float8 AS vol_ratio, " +
+                    "(j ->> 'stop_line')::float8 AS stop_line, (j ->> 'stop_pct')::float8 AS stop_pct, " +
+                    "c.reasons_json, c.created_at " +
+                    "FROM candidates c CROSS JOIN LATERAL (SELECT CASE WHEN pg_input_is_valid(c.indicators_json, 'jsonb') " +
+                    "AND left(ltrim(c.indicators_json), 1) = '{' THEN c.indicators_json::jsonb END AS j) x " +
+                    "WHERE c.run_id = " + runId + " ORDER BY c.rank_no"));
+        }
+        if (!runIds.isEmpty()) {
+            partitions.add(new Partition("runs", "",
+                    "SELECT id AS run_id, mode, started_at, finished_at, status, universe_size, scanned_size, " +
+                    "candidate_size, top_n, report_path, notes FROM runs WHERE finished_at IS NOT NULL ORDER BY id"));
+        }
+        for (LocalDate month : months(firstMonth, newestTradeDate)) {
+            partitions.add(new Partition("price_daily", "month=" + month.toString().substring(0, 7),
+                    "SELECT ticker, trade_date, open, high, low, close, volume, source FROM price_daily " +
+                    "WHERE trade_date >= '" + month + "' AND trade_date < '" + month.plusMonths(1) + "' " +
+                    "ORDER BY ticker, trade_date"));
+        }
+
+        long started = System.nanoTime();
+        Map<String, TableExport> byTable = new TreeMap<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (Partition partition : partitions) {
+                results.add(executor.submit(() -> write(outDir, partition)));
+            }
+            for (int i = 0; i < partitions.size(); i++) {
+                long rows;
+                try {
+                    rows = results.get(i).get();
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+                String table = partitions.get(i).table;
+                TableExport prev = byTable.getOrDefault(table, new TableExport(table, 0, 0L));
+                byTable.put(table, new TableExport(table, prev.partitions + 1, prev.rows + rows));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long exportedRunId = runIds.isEmpty() ? lastRunId : runIds.get(runIds.size() - 1);
+        LocalDate exportedTradeDate = newestTradeDate == null ? lastTradeDate : newestTradeDate;
+        JSONObject marker = new JSONObject()
+                .put("last_run_id", exportedRunId)
+                .put("dir", outDir.toAbsolutePath().normalize().toString())
+                .put("exported_at", Instant.now().toString());
+        if (exportedTradeDate != null) {
+            marker.put("last_trade_date", exportedTradeDate.toString());
+        }
+        metadataDao.put(META_EXPORT, marker.toString());
+        return new ExportStats(
+                runIds.size(),
+                exportedRunId,
+                new ArrayList<>(byTable.values()),
+                (System.nanoTime() - started) / 1_000_000L
+        );
+    }
+
+    private long write(Path outDir, Partition partition) throws IOException, SQLException {
+        Path dir = partition.key.isEmpty() ? outDir.resolve(partition.table) : outDir.resolve(partition.table).resolve(partition.key);
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "part", ".tmp");
+        long rows;
+        try (Connection conn = database.connect();
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+            rows = conn.unwrap(PGConnection.class).getCopyAPI()
+                    .copyOut("COPY (" + partition.sql + ") TO STDOUT WITH (FORMAT csv, HEADER true)", out);
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, dir.resolve(PART_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return rows;
+    }
+
+    /**
+     * Runs to export, oldest first: the leading ones that have finished. A run still in progress holds back every
+     * later run, so the next export's "after the last exported run" never skips it.
+     */
+    static List<Long> exportableRuns(Map<Long, Boolean> finishedById) {
+        List<Long> out = new ArrayList<>();
+        for (Map.Entry<Long, Boolean> e : finishedById.entrySet()) {
+            if (!Boolean.TRUE.equals(e.getValue())) {
+                break;
+            }
+            out.add(e.getKey());
+        }
+        return out;
+    }
+
+    /**
+     * First days of the months from {@code first}'s month through {@code last}'s, or none when either is null.
+     */
+    static List<LocalDate> months(LocalDate first, LocalDate last) {
+        List<LocalDate> out = new ArrayList<>();
+        if (first == null || last == null) {
+            return out;
+        }
+        LocalDate end = last.withDayOfMonth(1);
+        for (LocalDate month = first.withDayOfMonth(1); !month.isAfter(end); month = month.plusMonths(1)) {
+            out.add(month);
+        }
+        return out;
+    }
+
+    private static final class Partition {
+        final String table;
+        final String key;
+        final String sql;
+
+        Partition(String table, String key, String sql) {
+            this.table = table;
+            this.key = key;
+            this.sql = sql;
+        }
+    }
+
+    @Value
+    public static class TableExport {
+        String table;
+        int partitions;
+        long rows;
+    }
+
+    @Value
+    public static class ExportStats {
+        int runs;
+        long lastRunId;
+        List<TableExport> tables;
+        long millis;
+    }
+}
@@ -0,0 +1,273 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.jp.model.BarColumns;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary format of one price_blob chunk: a run of daily bars for one ticker, ascending by date.
+ * <p>
+ * Layout: {@code version(1) | count varint | rawLength varint | deflate(body)}. The body holds the first epoch day
+ * followed by day gaps, then one block per column (open, high, low, close, volume). A column whose values are all
+ * exact at a decimal scale of 1, 100 or 10^4 is stored as zigzag varint deltas of the scaled integers; otherwise as
+ * varints of each value's IEEE bits XOR the previous value's. Both forms decode to the identical doubles.
+ */
+public final class BarBlobCodec {
+    static final int VERSION = 1;
+    private static final long[] SCALES = {1L, 100L, 10_000L};
+    private static final double MAX_EXACT = 1L << 52;
+
+    private BarBlobCodec() {
+    }
+
+    public static byte[] encode(BarColumns bars, int from, int to) {
+        int count = Math.max(0, to - from);
+        VarintWriter body = new VarintWriter(16 + count * 12);
+        if (count > 0) {
+            body.writeVarlong(zigzag(bars.epochDays[from]));
+            for (int i = from + 1; i < to; i++) {
+                int gap = bars.epochDays[i] - bars.epochDays[i - 1];
+                if (gap <= 0) {
+                    throw new IllegalArgumentException("bars must be strictly ascending by date");
+                }
+                body.writeVarlong(gap);
+            }
+            writeColumn(body, bars.open, from, to);
+            writeColumn(body, bars.high, from, to);
+            writeColumn(body, bars.low, from, to);
+            writeColumn(body, bars.close, from, to);
+            writeColumn(body, bars.volume, from, to);
+        }
+
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() / 2 + 16);
+        try {
+            out.write(VERSION);
+            VarintWriter header = new VarintWriter(10);
+            header.writeVarlong(count);
+            header.writeVarlong(body.size());
+            out.write(header.buffer(), 0, header.size());
+            deflater.setInput(body.buffer(), 0, body.size());
+            deflater.finish();
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(chunk);
+                out.write(chunk, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Number of bars in a payload, read from the header without inflating.
+     */
+    public static int count(byte[] payload) {
+        VarintReader reader = header(payload);
+        return (int) reader.readVarlong();
+    }
+
+    public static BarColumns decode(byte[] payload) {
+        BarColumns out = BarColumns.allocate(count(payload));
+        return out.withSize(decodeInto(payload, out, 0));
+    }
+
+    /**
+     * Decodes a payload into {@code dest} starting at {@code offset} and returns the number of bars written.
+     * {@code dest} arrays must have room for {@link #count(byte[])} more bars.
+     */
+    public static int decodeInto(byte[] payload, BarColumns dest, int offset) {
+        VarintReader header = header(payload);
+        int count = (int) header.readVarlong();
+        int rawLength = (int) header.readVarlong();
+        if (count == 0) {
+            return 0;
+        }
+        byte[] body = new byte[rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, header.position(), payload.length - header.position());
+            int filled = 0;
+            while (filled < rawLength) {
+                int n = inflater.inflate(body, filled, rawLength - filled);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                filled += n;
+            }
+            if (filled != rawLength) {
+                throw new IllegalArgumentException("truncated price_blob payload");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("corrupt price_blob payload: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+
+        VarintReader reader = new VarintReader(body, 0);
+        int day = (int) unzigzag(reader.readVarlong());
+        dest.epochDays[offset] = day;
+        for (int i = 1; i < count; i++) {
+            day += (int) reader.readVarlong();
+            dest.epochDays[offset + i] = day;
+        }
+        readColumn(reader, dest.open, offset, count);
+        readColumn(reader, dest.high, offset, count);
+        readColumn(reader, dest.low, offset, count);
+        readColumn(reader, dest.close, offset, count);
+        readColumn(reader, dest.volume, offset, count);
+        return count;
+    }
+
+    private static VarintReader header(byte[] payload) {
+        if (payload == null || payload.length < 3) {
+            throw new IllegalArgumentException("price_blob payload too short");
+        }
+        if ((payload[0] & 0xFF) != VERSION) {
+            throw new IllegalArgumentException("unsupported price_blob version " + (payload[0] & 0xFF));
+        }
+        return new VarintReader(payload, 1);
+    }
+
+    private static void writeColumn(VarintWriter out, double[] values, int from, int to) {
+        int scaleIndex = exactScale(values, from, to);
+        out.writeByte(scaleIndex + 1);
+        if (scaleIndex >= 0) {
+            long scale = SCALES[scaleIndex];
+            long prev = 0L;
+            for (int i = from; i < to; i++) {
+                long scaled = Math.round(values[i] * scale);
+                out.writeVarlong(zigzag(scaled - prev));
+                prev = scaled;
+            }
+            return;
+        }
+        long prevBits = 0L;
+        for (int i = from; i < to; i++) {
+            long bits = Double.doubleToRawLongBits(values[i]);
+            out.writeVarlong(bits ^ prevBits);
+            prevBits = bits;
+        }
+    }
+
+    private static void readColumn(VarintReader in, double[] dest, int offset, int count) {
+        int scaleIndex = in.readByte() - 1;
+        if (scaleIndex >= 0) {
+            double scale = SCALES[scaleIndex];
+            long value = 0L;
+            for (int i = 0; i < count; i++) {
+                value += unzigzag(in.readVarlong());
+                dest[offset + i] = value / scale;
+            }
+            return;
+        }
+        long bits = 0L;
+        for (int i = 0; i < count; i++) {
+            bits ^= in.readVarlong();
+            dest[offset + i] = Double.longBitsToDouble(bits);
+        }
+    }
+
+    /**
+     * Smallest scale at which every value survives {@code round(v * scale) / scale}, or -1.
+     */
+    private static int exactScale(double[] values, int from, int to) {
+        for (int s = 0; s < SCALES.length; s++) {
+            double scale = SCALES[s];
+            boolean exact = true;
+            for (int i = from; i < to && exact; i++) {
+                double scaled = values[i] * scale;
+                exact = Math.abs(scaled) < MAX_EXACT
+                        && Math.round(scaled) / scale == values[i]
+                        && Double.doubleToRawLongBits(values[i]) != Double.doubleToRawLongBits(-0.0);
+            }
+            if (exact) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1L);
+    }
+
+    private static final class VarintWriter {
+        private byte[] buf;
+        private int size;
+
+        VarintWriter(int capacity) {
+            this.buf = new byte[Math.max(16, capacity)];
+        }
+
+        void writeByte(int value) {
+            ensure(1);
+            buf[size++] = (byte) value;
+        }
+
+        void writeVarlong(long value) {
+            ensure(10);
+            long v = value;
+            while ((v & ~0x7FL) != 0L) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) {
+                byte[] grown = new byte[Math.max(buf.length * 2, size + extra)];
+                System.arraycopy(buf, 0, grown, 0, size);
+                buf = grown;
+            }
+        }
+    }
+
+    private static final class VarintReader {
+        private final byte[] buf;
+        private int pos;
+
+        VarintReader(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        int readByte() {
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarlong() {
+            long result = 0L;
+            int shift = 0;
+            while (true) {
+                byte b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+                shift += 7;
+            }
+        }
+
+        int position() {
+            return pos;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.jp.db.mybatis.BarBlobMapper;
+import com.stockbot.jp.db.mybatis.BarBlobRow;
+import com.stockbot.jp.db.mybatis.BarDailyRow;
+import com.stockbot.jp.model.BarColumns;
+import com.stockbot.jp.model.BarDaily;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DAO for price_blob: each ticker's daily bars packed one row per calendar year with {@link BarBlobCodec}.
+ * price_daily stays the source of truth; {@link #refresh} re-packs the years touched by an upsert from it.
+ */
+public final class BarBlobDao {
+    private final Database database;
+
+    public BarBlobDao(Database database) {
+        this.database = database;
+    }
+
+    /**
+     * Re-packs every year from {@code fromDate}'s year onwards out of price_daily. A ticker without any chunk yet
+     * is packed from its first bar, so enabling the tier on an existing database fills it in as tickers are upserted.
+     *
+     * @return number of chunks written
+     */
+    public int refresh(String ticker, LocalDate fromDate) throws SQLException {
+        if (ticker == null || ticker.trim().isEmpty() || fromDate == null) {
+            return 0;
+        }
+        return database.inTransaction(BarBlobMapper.class, mapper -> {
+            LocalDate from = mapper.countChunks(ticker) == 0
+                    ? LocalDate.of(1900, 1, 1)
+                    : LocalDate.of(fromDate.getYear(), 1, 1);
+            BarColumns bars = toColumns(mapper.selectBarsSince(ticker, from));
+            int written = 0;
+            int start = 0;
+            while (start < bars.size) {
+                int year = bars.tradeDate(start).getYear();
+                int end = start + 1;
+                while (end < bars.size && bars.tradeDate(end).getYear() == year) {
+                    end++;
+                }
+                mapper.upsertChunk(
+                        ticker,
+                        year,
+                        end - start,
+                        bars.tradeDate(start),
+                        bars.tradeDate(end - 1),
+                        BarBlobCodec.encode(bars, start, end)
+                );
+                written++;
+                start = end;
+            }
+            return written;
+        });
+    }
+
+    /**
+     * Newest {@code limit} bars, ascending, decoded straight into primitive columns.
+     */
+    public BarColumns loadRecentColumns(String ticker, int limit) throws SQLException {
+        List<BarBlobRow> chunks = database.withMapper(
+                BarBlobMapper.class,
+                mapper -> mapper.selectRecentChunks(ticker, Math.max(1, limit))
+        );
+        if (chunks == null || chunks.isEmpty()) {
+            return BarColumns.EMPTY;
+        }
+        int total = 0;
+        for (BarBlobRow chunk : chunks) {
+            total += BarBlobCodec.count(chunk.getPayload());
+        }
+        BarColumns out = BarColumns.allocate(total);
+        int filled = 0;
+        for (BarBlobRow chunk : chunks) {
+            filled += BarBlobCodec.decodeInto(chunk.getPayload(), out, filled);
+        }
+        out = out.withSize(filled);
+        return filled > limit ? out.tail(limit) : out;
+    }
+
+    public List<BarDaily> loadRecentBars(String ticker, int limit) throws SQLException {
+        return loadRecentColumns(ticker, limit).toBars(ticker);
+    }
+
+    private BarColumns toColumns(List<BarDailyRow> rows) {
+        if (rows == null || rows.isEmpty()) {
+            return BarColumns.EMPTY;
+        }
+        BarColumns out = BarColumns.allocate(rows.size());
+        int n = 0;
+        for (BarDailyRow row : rows) {
+            if (row == null || row.getTradeDate() == null) {
+                continue;
+            }
+            out.epochDays[n] = (int) row.getTradeDate().toEpochDay();
+            out.open[n] = n(row.getOpen());
+            out.high[n] = n(row.getHigh());
+            out.low[n] = n(row.getLow());
+            out.close[n] = n(row.getClose());
+            out.volume[n] = n(row.getVolume());
+            n++;
+        }
+        return out.withSize(n);
+    }
+
+    private double n(Double value) {
+        return value == null ? 0.0 : value;
+    }
+}
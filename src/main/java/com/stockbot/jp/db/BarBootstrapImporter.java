@@ -0,0 +1,560 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.data.MarketDataService;
+import com.stockbot.data.http.HttpArchive;
+import lombok.Value;
+import org.json.JSONObject;
+import org.postgresql.PGConnection;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * One-off bulk load of price history into an empty price_daily, from per-market CSV files or a recorded
+ * {@link HttpArchive} of Yahoo chart responses. Input is streamed into the unlogged staging table
+ * price_daily_import over parallel COPY connections, then moved into price_daily in a single transaction with the
+ * primary key and BRIN index rebuilt afterwards, together with the forward_returns and ticker_latest rows the
+ * scanner plans from. Finished inputs are recorded in metadata, so an interrupted import restarts with the rest.
+ */
+public final class BarBootstrapImporter {
+    public static final String META_STAGED = "price.bootstrap.staged";
+    public static final String META_DONE = "price.bootstrap.v1";
+    static final String STAGE_TABLE = "price_daily_import";
+    /**
+     * Session setting a COPY connection carries the ordinal of the input it is staging in; the staging table's
+     * input_ordinal column defaults to it.
+     */
+    static final String INPUT_SETTING = "stockbot.bootstrap_input";
+    static final int BLOCK_BYTES = 8 << 20;
+    private static final int REPLAY_FILES_PER_BLOCK = 64;
+    private static final String CHART_PATH = "/v8/finance/chart/";
+    private static final Set<String> CSV_COLUMNS = Set.of(
+            "ticker", "trade_date", "open", "high", "low", "close", "volume", "source"
+    );
+
+    private final Database database;
+    private final MetadataDao metadataDao;
+    private final int streams;
+
+    public BarBootstrapImporter(Database database, MetadataDao metadataDao, int streams) {
+        this.database = database;
+        this.metadataDao = metadataDao;
+        this.streams = Math.max(1, streams);
+    }
+
+    /**
+     * Imports {@code source}: a CSV file ({@code .csv} or {@code .csv.gz}), a directory of them, or an HTTP
+     * archive directory. CSV files need a header naming their columns out of ticker, trade_date (or date), open,
+     * high, low, close, volume and source; tickers must already be in the stored form, e.g. {@code 7203.jp}.
+     *
+     * @throws IllegalArgumentException when price_daily already holds rows or the input is not recognised
+     */
+    public ImportStats importFrom(Path source) throws Exception {
+        List<Path> inputs = listInputs(source);
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT EXISTS (SELECT 1 FROM price_daily)")) {
+                if (rs.next() && rs.getBoolean(1)) {
+                    throw new IllegalArgumentException("price_daily already has rows; bootstrap only loads an empty database");
+                }
+            }
+            try (ResultSet rs = st.executeQuery("SELECT EXISTS (SELECT 1 FROM pg_attribute WHERE attrelid = "
+                    + "to_regclass('" + STAGE_TABLE + "') AND attname = 'input_ordinal' AND NOT attisdropped)")) {
+                if (rs.next() && !rs.getBoolean(1)) {
+                    // Rows staged before input ordinals existed cannot be ordered; the markers are reset with them.
+                    st.execute("DROP TABLE IF EXISTS " + STAGE_TABLE);
+                }
+            }
+            st.execute("CREATE UNLOGGED TABLE IF NOT EXISTS " + STAGE_TABLE + " (" +
+                    "seq BIGSERIAL," +
+                    "input_ordinal INT NOT NULL DEFAULT current_setting('" + INPUT_SETTING + "')::int," +
+                    "ticker TEXT," +
+                    "trade_date DATE," +
+                    "open DOUBLE PRECISION," +
+                    "high DOUBLE PRECISION," +
+                    "low DOUBLE PRECISION," +
+                    "close DOUBLE PRECISION," +
+                    "volume DOUBLE PRECISION," +
+                    "source TEXT" +
+                    ")");
+        }
+
+        long stageStarted = System.nanoTime();
+        JSONObject staged = loadStaged();
+        int skipped = 0;
+        long stagedRows = 0L;
+        try (CopyStreams copy = new CopyStreams(streams)) {
+            for (int ordinal = 0; ordinal < inputs.size(); ordinal++) {
+                Path input = inputs.get(ordinal);
+                String key = input.toAbsolutePath().normalize().toString();
+                long size = Files.isDirectory(input) ? -1L : Files.size(input);
+                JSONObject done = staged.optJSONObject(key);
+                if (done != null && done.optLong("bytes", -2L) == size) {
+                    skipped++;
+                    stagedRows += done.optLong("rows", 0L);
+                    continue;
+                }
+                long rows = Files.isDirectory(input)
+                        ? stageReplay(copy, ordinal, new HttpArchive(input))
+                        : stageCsv(copy, ordinal, input);
+                stagedRows += rows;
+                staged.put(key, new JSONObject().put("bytes", size).put("rows", rows));
+                metadataDao.put(META_STAGED, staged.toString());
+                System.out.println(String.format(Locale.US, "Bootstrap staged %s rows=%d", input.getFileName(), rows));
+            }
+        }
+        long stageNanos = System.nanoTime() - stageStarted;
+
+        long loadStarted = System.nanoTime();
+        ImportStats stats = load(inputs.size(), skipped, stagedRows, stageNanos / 1_000_000L, loadStarted);
+        database.writeStats().record("price_daily", stats.loadedRows, System.nanoTime() - loadStarted);
+        metadataDao.put(META_DONE, new JSONObject()
+                .put("source", source.toAbsolutePath().normalize().toString())
+                .put("inputs", stats.inputs)
+                .put("rows", stats.loadedRows)
+                .put("tickers", stats.tickers)
+                .put("first_date", String.valueOf(stats.firstDate))
+                .put("last_date", String.valueOf(stats.lastDate))
+                .put("finished_at", Instant.now().toString())
+                .toString());
+        metadataDao.delete(META_STAGED);
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS " + STAGE_TABLE);
+        }
+        return stats;
+    }
+
+    /**
+     * Staging markers of an earlier, unfinished import. The staging table is unlogged and comes back empty after a
+     * crash, so markers are only trusted while the table still holds at least the rows they account for.
+     */
+    private JSONObject loadStaged() throws SQLException {
+        Optional<String> raw = metadataDao.get(META_STAGED);
+        JSONObject staged = new JSONObject();
+        if (raw.isPresent()) {
+            try {
+                staged = new JSONObject(raw.get());
+            } catch (Exception e) {
+                System.err.println("WARN: bootstrap staging marker unreadable, restaging: " + e.getMessage());
+            }
+        }
+        long expected = 0L;
+        for (String key : staged.keySet()) {
+            JSONObject entry = staged.optJSONObject(key);
+            expected += entry == null ? 0L : entry.optLong("rows", 0L);
+        }
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            long present = 0L;
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + STAGE_TABLE)) {
+                if (rs.next()) {
+                    present = rs.getLong(1);
+                }
+            }
+            if (staged.isEmpty() || present < expected) {
+                if (!staged.isEmpty()) {
+                    System.err.println("WARN: bootstrap staging table lost rows (expected>=" + expected
+                            + ", found=" + present + "), restaging all inputs");
+                }
+                st.execute("TRUNCATE " + STAGE_TABLE);
+                metadataDao.delete(META_STAGED);
+                return new JSONObject();
+            }
+        }
+        return staged;
+    }
+
+    private long stageCsv(CopyStreams copy, int ordinal, Path file) throws Exception {
+        try (InputStream in = openCsv(file)) {
+            String header = readLine(in);
+            String copySql = "COPY " + STAGE_TABLE + "(" + copyColumns(header) + ") FROM STDIN WITH (FORMAT csv)";
+            List<Future<Long>> parts = new ArrayList<>();
+            forEachBlock(in, BLOCK_BYTES, (block, length) ->
+                    parts.add(copy.submit(copySql, ordinal, () -> new ByteArrayInputStream(block, 0, length))));
+            return sum(parts);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Chart responses are parsed on the COPY workers, {@value #REPLAY_FILES_PER_BLOCK} entry files per block.
+     */
+    private long stageReplay(CopyStreams copy, int ordinal, HttpArchive archive) throws Exception {
+        String copySql = "COPY " + STAGE_TABLE + "(ticker, trade_date, open, high, low, close, volume, source) "
+                + "FROM STDIN WITH (FORMAT csv)";
+        List<Path> files = archive.entryFiles();
+        List<Future<Long>> parts = new ArrayList<>();
+        for (int start = 0; start < files.size(); start += REPLAY_FILES_PER_BLOCK) {
+            List<Path> chunk = files.subList(start, Math.min(files.size(), start + REPLAY_FILES_PER_BLOCK));
+            parts.add(copy.submit(copySql, ordinal, () -> {
+                StringBuilder csv = new StringBuilder(1 << 16);
+                for (Path file : chunk) {
+                    archive.read(file).ifPresent(entry -> appendReplayEntry(csv, entry));
+                }
+                return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+            }));
+        }
+        return sum(parts);
+    }
+
+    private static void appendReplayEntry(StringBuilder csv, HttpArchive.Entry entry) {
+        String ticker = replayTicker(entry.url);
+        if (ticker.isEmpty() || entry.status < 200 || entry.status >= 300) {
+            return;
+        }
+        try {
+            appendCsv(csv, ticker, MarketDataService.parseChartBars(entry.body), "yahoo");
+        } catch (RuntimeException e) {
+            System.err.println("WARN: bootstrap skipped unparsable chart url=" + entry.url + ", err=" + e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the deduplicated staging rows into price_daily and rebuilds everything derived from it, all in one
+     * transaction; price_daily and forward_returns are filled without their keys, which are built afterwards.
+     * Rows are inserted in trade_date order, the physical order daily upserts produce, so the BRIN index stays
+     * tight. For a (ticker, trade_date) in several inputs the last input in name order wins, by its staged
+     * input_ordinal rather than by staging order, so restaged and resumed inputs keep that rule. Blocks of one input
+     * are copied concurrently, so duplicates inside a single file keep either copy.
+     */
+    private ImportStats load(int inputs, int skipped, long stagedRows, long stageMillis, long loadStarted)
+            throws SQLException {
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            LocalDate firstDate = null;
+            LocalDate lastDate = null;
+            try (ResultSet rs = st.executeQuery("SELECT MIN(trade_date), MAX(trade_date) FROM " + STAGE_TABLE)) {
+                if (rs.next() && rs.getDate(1) != null) {
+                    firstDate = rs.getDate(1).toLocalDate();
+                    lastDate = rs.getDate(2).toLocalDate();
+                }
+            }
+            if (firstDate != null) {
+                for (int year = firstDate.getYear(); year <= lastDate.getYear(); year++) {
+                    st.execute("CREATE TABLE IF NOT EXISTS price_daily_y" + year + " PARTITION OF price_daily "
+                            + "FOR VALUES FROM ('" + year + "-01-01') TO ('" + (year + 1) + "-01-01')");
+                }
+            }
+            st.execute("ALTER TABLE price_daily DROP CONSTRAINT IF EXISTS price_daily_pkey");
+            st.execute("DROP INDEX IF EXISTS idx_price_daily_trade_date_brin");
+            long loaded = st.executeLargeUpdate(
+                    "INSERT INTO price_daily(ticker, trade_date, open, high, low, close, volume, source) " +
+                    "SELECT ticker, trade_date, o, GREATEST(CASE WHEN high > 0 AND high < 'Infinity'::float8 " +
+                    "THEN high END, o, close), LEAST(CASE WHEN low > 0 AND low < 'Infinity'::float8 THEN low END, " +
+                    "o, close), close, CASE WHEN volume > 0 AND volume < 'Infinity'::float8 THEN volume ELSE 0 END, " +
+                    "COALESCE(source, 'bootstrap') " +
+                    "FROM (SELECT DISTINCT ON (trade_date, ticker) ticker, trade_date, " +
+                    "CASE WHEN open > 0 AND open < 'Infinity'::float8 THEN open ELSE close END AS o, " +
+                    "high, low, close, volume, source FROM " + STAGE_TABLE + " " +
+                    "WHERE ticker <> '' AND trade_date IS NOT NULL AND close > 0 AND close < 'Infinity'::float8 " +
+                    "ORDER BY trade_date, ticker, input_ordinal DESC, seq DESC) s");
+            st.execute("ALTER TABLE price_daily ADD PRIMARY KEY (ticker, trade_date)");
+            st.execute("CREATE INDEX IF NOT EXISTS idx_price_daily_trade_date_brin ON price_daily USING brin (trade_date)");
+            // Leftovers from an earlier price history would shadow the backfills, which only run on empty tables.
+            st.execute("TRUNCATE forward_returns, ticker_latest, price_blob");
+            st.execute("ALTER TABLE forward_returns DROP CONSTRAINT IF EXISTS forward_returns_pkey");
+            st.execute(MigrationRunner.forwardReturnsInsert());
+            st.execute("ALTER TABLE forward_returns ADD PRIMARY KEY (ticker, trade_date)");
+            st.execute(MigrationRunner.tickerLatestBackfill());
+            st.execute("ANALYZE price_daily");
+            st.execute("ANALYZE forward_returns");
+            st.execute("ANALYZE ticker_latest");
+            int tickers = 0;
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM ticker_latest")) {
+                if (rs.next()) {
+                    tickers = rs.getInt(1);
+                }
+            }
+            conn.commit();
+            return new ImportStats(
+                    inputs,
+                    skipped,
+                    stagedRows,
+                    loaded,
+                    tickers,
+                    firstDate,
+                    lastDate,
+                    stageMillis,
+                    (System.nanoTime() - loadStarted) / 1_000_000L
+            );
+        }
+    }
+
+    static List<Path> listInputs(Path source) throws IOException {
+        if (source == null || !Files.exists(source)) {
+            throw new IllegalArgumentException("bootstrap source not found: " + source);
+        }
+        if (Files.isRegularFile(source)) {
+            if (!isCsv(source)) {
+                throw new IllegalArgumentException(unsupported(source));
+            }
+            return List.of(source);
+        }
+        List<Path> csv;
+        List<Path> other;
+        try (Stream<Path> files = Files.list(source)) {
+            List<Path> all = files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            csv = all.stream().filter(BarBootstrapImporter::isCsv).collect(Collectors.toList());
+            other = all.stream().filter(p -> !isCsv(p)).collect(Collectors.toList());
+        }
+        if (!csv.isEmpty()) {
+            return csv;
+        }
+        if (!new HttpArchive(source).entryFiles().isEmpty()) {
+            return List.of(source);
+        }
+        throw new IllegalArgumentException(other.isEmpty() ? "no csv files or http archive entries in " + source
+                : unsupported(other.get(0)));
+    }
+
+    private static boolean isCsv(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".csv") || name.endsWith(".csv.gz");
+    }
+
+    private static String unsupported(Path file) {
+        return "unsupported bootstrap input " + file.getFileName() + " (expected .csv, .csv.gz or an http archive"
+                + " directory; convert Parquet with e.g. duckdb COPY ... TO 'x.csv')";
+    }
+
+    private static InputStream openCsv(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+            in = new GZIPInputStream(in, 1 << 16);
+        }
+        return new BufferedInputStream(in, 1 << 16);
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * COPY column list for a CSV header line; {@code date} is accepted for trade_date.
+     */
+    static String copyColumns(String header) {
+        String line = header == null ? "" : header.replace("\uFEFF", "").trim();
+        Set<String> columns = new LinkedHashSet<>();
+        for (String raw : line.split(",", -1)) {
+            String name = raw.trim().replace("\"", "").toLowerCase(Locale.ROOT);
+            if ("date".equals(name)) {
+                name = "trade_date";
+            }
+            if (!CSV_COLUMNS.contains(name) || !columns.add(name)) {
+                throw new IllegalArgumentException("bad csv header column '" + raw.trim() + "' in: " + line);
+            }
+        }
+        if (!columns.containsAll(List.of("ticker", "trade_date", "close"))) {
+            throw new IllegalArgumentException("csv header needs ticker, trade_date and close: " + line);
+        }
+        return String.join(", ", columns);
+    }
+
+    /**
+     * Stored ticker of a recorded chart URL: {@code .../v8/finance/chart/7203.T?...} becomes {@code 7203.jp};
+     * anything other than a Tokyo listing maps to "".
+     */
+    static String replayTicker(String url) {
+        int at = url == null ? -1 : url.indexOf(CHART_PATH);
+        if (at < 0) {
+            return "";
+        }
+        String symbol = url.substring(at + CHART_PATH.length());
+        int query = symbol.indexOf('?');
+        if (query >= 0) {
+            symbol = symbol.substring(0, query);
+        }
+        symbol = URLDecoder.decode(symbol, StandardCharsets.UTF_8).trim().toUpperCase(Locale.ROOT);
+        if (symbol.length() <= 2 || !symbol.endsWith(".T")) {
+            return "";
+        }
+        return symbol.substring(0, symbol.length() - 2) + ".jp";
+    }
+
+    static void appendCsv(StringBuilder csv, String ticker, List<MarketDataService.DailyBar> bars, String source) {
+        for (MarketDataService.DailyBar bar : bars) {
+            csv.append(ticker).append(',')
+                    .append(bar.date).append(',')
+                    .append(bar.open).append(',')
+                    .append(bar.high).append(',')
+                    .append(bar.low).append(',')
+                    .append(bar.close).append(',')
+                    .append(bar.volume).append(',')
+                    .append(source).append('\n');
+        }
+    }
+
+    interface BlockConsumer {
+        void accept(byte[] block, int length) throws Exception;
+    }
+
+    /**
+     * Cuts {@code in} into blocks of at most {@code blockBytes} that end on a line break (the last one may not),
+     * handing each to {@code consumer} in a buffer it may keep.
+     */
+    static void forEachBlock(InputStream in, int blockBytes, BlockConsumer consumer) throws Exception {
+        byte[] buf = new byte[blockBytes];
+        int len = 0;
+        while (true) {
+            len += in.readNBytes(buf, len, buf.length - len);
+            boolean eof = len < buf.length;
+            if (len == 0) {
+                return;
+            }
+            int cut = len;
+            if (!eof) {
+                cut = 0;
+                for (int i = len - 1; i >= 0; i--) {
+                    if (buf[i] == '\n') {
+                        cut = i + 1;
+                        break;
+                    }
+                }
+                if (cut == 0) {
+                    throw new IOException("csv line longer than " + blockBytes + " bytes");
+                }
+            }
+            byte[] next = new byte[blockBytes];
+            System.arraycopy(buf, cut, next, 0, len - cut);
+            consumer.accept(buf, cut);
+            len -= cut;
+            buf = next;
+            if (eof && len == 0) {
+                return;
+            }
+        }
+    }
+
+    private static long sum(List<Future<Long>> parts) throws Exception {
+        long rows = 0L;
+        for (Future<Long> part : parts) {
+            try {
+                rows += part.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Fixed set of autocommit connections, each running one COPY at a time. At most two blocks per connection are
+     * buffered, which bounds memory to a few dozen megabytes whatever the input size.
+     */
+    private final class CopyStreams implements AutoCloseable {
+        private final ExecutorService executor;
+        private final BlockingQueue<Connection> connections;
+        private final Semaphore inFlight;
+
+        CopyStreams(int count) throws SQLException {
+            this.executor = Executors.newFixedThreadPool(count);
+            this.connections = new ArrayBlockingQueue<>(count);
+            this.inFlight = new Semaphore(count * 2);
+            try {
+                for (int i = 0; i < count; i++) {
+                    Connection conn = database.connect();
+                    // Staged rows are re-checked against the markers on restart, so commits need not wait for WAL.
+                    try (Statement st = conn.createStatement()) {
+                        st.execute("SET synchronous_commit = off");
+                    }
+                    connections.add(conn);
+                }
+            } catch (SQLException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * @param ordinal position of the input in the import, stored with each row for the duplicate rule
+         */
+        Future<Long> submit(String copySql, int ordinal, Callable<InputStream> body) throws InterruptedException {
+            inFlight.acquire();
+            try {
+                return executor.submit(() -> {
+                    Connection conn = connections.take();
+                    try {
+                        try (Statement st = conn.createStatement()) {
+                            st.execute("SET " + INPUT_SETTING + " = " + ordinal);
+                        }
+                        return conn.unwrap(PGConnection.class).getCopyAPI().copyIn(copySql, body.call());
+                    } finally {
+                        connections.put(conn);
+                        inFlight.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (Connection conn : connections) {
+                try {
+                    conn.close();
+                } catch (SQLException e) {
+                    System.err.println("WARN: bootstrap copy connection close failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Value
+    public static class ImportStats {
+        int inputs;
+        int inputsSkipped;
+        long stagedRows;
+        long loadedRows;
+        int tickers;
+        LocalDate firstDate;
+        LocalDate lastDate;
+        long stageMillis;
+        long loadMillis;
+    }
+}
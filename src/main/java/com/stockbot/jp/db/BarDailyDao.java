@@ -2,21 +2,34 @@ package com.stockbot.jp.db;
 
 import com.stockbot.jp.db.mybatis.BarDailyMapper;
 import com.stockbot.jp.db.mybatis.BarDailyRow;
+import com.stockbot.jp.db.mybatis.ForwardReturnKey;
+import com.stockbot.jp.db.mybatis.ForwardReturnRow;
 import com.stockbot.jp.db.mybatis.MyBatisSupport;
+import com.stockbot.jp.db.mybatis.TickerLatestRow;
 import com.stockbot.jp.model.BarDaily;
+import com.stockbot.jp.model.ForwardReturn;
+import com.stockbot.jp.model.TickerLatest;
 import org.apache.ibatis.session.SqlSession;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.OptionalDouble;
 
 /**
  * DAO for daily OHLCV prices.
  */
 public final class BarDailyDao {
+    /**
+     * Keys per forward-return VALUES list; at three bind parameters each this stays well under PgJDBC's limit of
+     * 32767 parameters per statement.
+     */
+    static final int FORWARD_RETURN_KEYS_PER_QUERY = 2000;
+
     private final Database database;
 
     public BarDailyDao(Database database) {
@@ -79,10 +92,14 @@ public final class BarDailyDao {
         if (bars == null || bars.isEmpty()) {
             return;
         }
+        long started = System.nanoTime();
+        int rows = 0;
+        long upsertNanos;
         try (Connection conn = database.connect();
-             SqlSession session = MyBatisSupport.openSession(conn)) {
+             SqlSession session = MyBatisSupport.openBatchSession(conn)) {
             conn.setAutoCommit(false);
             BarDailyMapper mapper = session.getMapper(BarDailyMapper.class);
+            LocalDate firstDate = null;
             for (BarDaily bar : bars) {
                 if (bar == null || bar.tradeDate == null) {
                     continue;
@@ -97,39 +114,49 @@ public final class BarDailyDao {
                         bar.volume,
                         source
                 );
+                rows++;
+                if (firstDate == null || bar.tradeDate.isBefore(firstDate)) {
+                    firstDate = bar.tradeDate;
+                }
+            }
+            session.flushStatements();
+            upsertNanos = System.nanoTime() - started;
+            if (firstDate != null) {
+                mapper.refreshForwardReturns(ticker, firstDate);
+                mapper.refreshTickerLatest(ticker);
+                session.flushStatements();
             }
             conn.commit();
         }
+        database.writeStats().record("price_daily", rows, upsertNanos);
     }
 
     private LocalDate latestTradeDate(String ticker) throws SQLException {
-        try (Connection conn = database.connect();
-             SqlSession session = MyBatisSupport.openSession(conn)) {
-            BarDailyMapper mapper = session.getMapper(BarDailyMapper.class);
-            return mapper.selectLatestTradeDate(ticker);
-        }
+        return database.withMapper(BarDailyMapper.class, mapper -> mapper.selectLatestTradeDate(ticker));
     }
 
+    /**
+     * Newest {@code limit} bars, ascending. Runs on the calling thread's {@link UnitOfWork} when one is open.
+     */
     public List<BarDaily> loadRecentBars(String ticker, int limit) throws SQLException {
-        List<BarDaily> desc = new ArrayList<>();
-        try (Connection conn = database.connect();
-             SqlSession session = MyBatisSupport.openSession(conn)) {
-            BarDailyMapper mapper = session.getMapper(BarDailyMapper.class);
-            List<BarDailyRow> rows = mapper.selectRecentBars(ticker, Math.max(1, limit));
-            for (BarDailyRow row : rows) {
-                if (row == null || row.getTradeDate() == null) {
-                    continue;
-                }
-                desc.add(new BarDaily(
-                        row.getTicker(),
-                        row.getTradeDate(),
-                        n(row.getOpen()),
-                        n(row.getHigh()),
-                        n(row.getLow()),
-                        n(row.getClose()),
-                        n(row.getVolume())
-                ));
+        List<BarDailyRow> rows = database.withMapper(
+                BarDailyMapper.class,
+                mapper -> mapper.selectRecentBars(ticker, Math.max(1, limit))
+        );
+        List<BarDaily> desc = new ArrayList<>(rows.size());
+        for (BarDailyRow row : rows) {
+            if (row == null || row.getTradeDate() == null) {
+                continue;
             }
+            desc.add(new BarDaily(
+                    row.getTicker(),
+                    row.getTradeDate(),
+                    n(row.getOpen()),
+                    n(row.getHigh()),
+                    n(row.getLow()),
+                    n(row.getClose()),
+                    n(row.getVolume())
+            ));
         }
         List<BarDaily> asc = new ArrayList<>(desc.size());
         for (int i = desc.size() - 1; i >= 0; i--) {
@@ -139,15 +166,73 @@ public final class BarDailyDao {
     }
 
     public OptionalDouble closeOnOrAfterWithOffset(String ticker, LocalDate date, int offset) throws SQLException {
+        Double close = database.withMapper(
+                BarDailyMapper.class,
+                mapper -> mapper.selectCloseOnOrAfterWithOffset(ticker, date, Math.max(0, offset))
+        );
+        return close == null ? OptionalDouble.empty() : OptionalDouble.of(close);
+    }
+
+    /**
+     * Looks up forward returns for many (ticker, date) pairs in one round trip. Each entry uses the first
+     * trading day on or after its date; the result is aligned with the inputs and holds null when unknown.
+     */
+    public List<ForwardReturn> loadForwardReturns(List<String> tickers, List<LocalDate> dates) throws SQLException {
+        int size = tickers == null || dates == null ? 0 : Math.min(tickers.size(), dates.size());
+        List<ForwardReturn> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            out.add(null);
+        }
+        List<ForwardReturnKey> keys = forwardReturnKeys(tickers, dates);
+        if (keys.isEmpty()) {
+            return out;
+        }
         try (Connection conn = database.connect();
              SqlSession session = MyBatisSupport.openSession(conn)) {
             BarDailyMapper mapper = session.getMapper(BarDailyMapper.class);
-            Double close = mapper.selectCloseOnOrAfterWithOffset(ticker, date, Math.max(0, offset));
-            if (close == null) {
-                return OptionalDouble.empty();
+            for (List<ForwardReturnKey> batch : batches(keys, FORWARD_RETURN_KEYS_PER_QUERY)) {
+                for (ForwardReturnRow row : mapper.selectForwardReturns(batch)) {
+                    if (row == null || row.getOrd() < 0 || row.getOrd() >= size) {
+                        continue;
+                    }
+                    out.set(row.getOrd(), new ForwardReturn(
+                            row.getTicker(),
+                            row.getTradeDate(),
+                            row.getRet1d(),
+                            row.getRet3d(),
+                            row.getRet5d(),
+                            row.getRet10d(),
+                            row.getRet20d()
+                    ));
+                }
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Lookup keys for the usable (ticker, date) pairs, each carrying its input position as ordinal.
+     */
+    static List<ForwardReturnKey> forwardReturnKeys(List<String> tickers, List<LocalDate> dates) {
+        int size = tickers == null || dates == null ? 0 : Math.min(tickers.size(), dates.size());
+        List<ForwardReturnKey> keys = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            String ticker = tickers.get(i);
+            LocalDate date = dates.get(i);
+            if (ticker != null && !ticker.trim().isEmpty() && date != null) {
+                keys.add(new ForwardReturnKey(i, ticker.trim(), date));
             }
-            return OptionalDouble.of(close);
         }
+        return keys;
+    }
+
+    static <T> List<List<T>> batches(List<T> items, int batchSize) {
+        int step = Math.max(1, batchSize);
+        List<List<T>> out = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += step) {
+            out.add(items.subList(start, Math.min(items.size(), start + step)));
+        }
+        return out;
     }
 
     public int countTickersWithMinBars(List<String> tickers, int minBars) throws SQLException {
@@ -172,6 +257,33 @@ public final class BarDailyDao {
         }
     }
 
+    /**
+     * Every ticker_latest row, keyed by ticker; one query for the whole universe.
+     */
+    public Map<String, TickerLatest> loadTickerLatest() throws SQLException {
+        Map<String, TickerLatest> out = new HashMap<>();
+        try (Connection conn = database.connect();
+             SqlSession session = MyBatisSupport.openSession(conn)) {
+            BarDailyMapper mapper = session.getMapper(BarDailyMapper.class);
+            for (TickerLatestRow row : mapper.selectTickerLatest()) {
+                if (row == null || row.getTicker() == null || row.getLastTradeDate() == null) {
+                    continue;
+                }
+                out.put(row.getTicker(), new TickerLatest(
+                        row.getTicker(),
+                        row.getLastTradeDate(),
+                        row.getBarCount() == null ? 0 : row.getBarCount(),
+                        row.getLastClose() == null ? Double.NaN : row.getLastClose(),
+                        n(row.getAvgVolume20()),
+                        row.getZeroVolumeMask20() == null ? 0 : row.getZeroVolumeMask20(),
+                        row.getFlatMask20() == null ? 0 : row.getFlatMask20(),
+                        Boolean.TRUE.equals(row.getHasShape())
+                ));
+            }
+        }
+        return out;
+    }
+
     private double n(Double value) {
         return value == null ? 0.0 : value;
     }
@@ -1,5 +1,7 @@
 package com.stockbot.jp.db;
 
+import com.stockbot.jp.db.mybatis.MyBatisSupport;
+import org.apache.ibatis.session.SqlSession;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.postgresql.ds.PGSimpleDataSource;
@@ -21,6 +23,9 @@ public final class Database {
     private final String jdbcUrl;
     private final String schema;
     private final boolean sqlLogEnabled;
+    private final DbWriteStats writeStats = new DbWriteStats();
+    private final SqlProfiler sqlProfiler = new SqlProfiler();
+    private final ThreadLocal<UnitOfWork> unitOfWork = new ThreadLocal<>();
 
     public Database(String jdbcUrl, String user, String pass, String schema, boolean sqlLogEnabled) {
         if (isBlank(jdbcUrl)) {
@@ -43,6 +48,8 @@ public final class Database {
         }
         pg.setCurrentSchema(this.schema);
         pg.setApplicationName("stockbot");
+        // Lets PgJDBC fold batched single-row INSERTs into multi-row statements.
+        pg.setReWriteBatchedInserts(true);
         this.dataSource = pg;
     }
 
@@ -52,7 +59,7 @@ public final class Database {
             try (Statement st = raw.createStatement()) {
                 st.execute("SET search_path TO " + schema + ", public");
             }
-            return sqlLogEnabled ? SqlLogProxy.wrapConnection(raw, SQL_LOG) : raw;
+            return sqlLogEnabled ? SqlProfileProxy.wrapConnection(raw, sqlProfiler, SQL_LOG) : raw;
         } catch (SQLException e) {
             String cwd = Paths.get(".").toAbsolutePath().normalize().toString();
             String hint = classifyConnectFailure(e);
@@ -66,6 +73,60 @@ public final class Database {
         }
     }
 
+    /**
+     * Opens a unit of work bound to the calling thread, or joins the one already open on it. Until it is closed,
+     * per-ticker DAO reads on this thread share one connection and one statement-reusing MyBatis session instead
+     * of opening a connection per call.
+     */
+    public UnitOfWork openUnitOfWork() {
+        UnitOfWork current = unitOfWork.get();
+        if (current != null) {
+            current.join();
+            return current;
+        }
+        UnitOfWork unit = new UnitOfWork(this);
+        unitOfWork.set(unit);
+        return unit;
+    }
+
+    void release(UnitOfWork unit) {
+        if (unitOfWork.get() == unit) {
+            unitOfWork.remove();
+        }
+    }
+
+    /**
+     * Runs {@code call} on the calling thread's unit of work when one is open, otherwise on a fresh connection and
+     * session as before.
+     */
+    <M, T> T withMapper(Class<M> type, MapperCall<M, T> call) throws SQLException {
+        UnitOfWork unit = unitOfWork.get();
+        if (unit != null) {
+            return unit.call(type, call, false);
+        }
+        try (Connection conn = connect();
+             SqlSession session = MyBatisSupport.openSession(conn)) {
+            return call.apply(session.getMapper(type));
+        }
+    }
+
+    /**
+     * Like {@link #withMapper}, inside one transaction.
+     */
+    <M, T> T inTransaction(Class<M> type, MapperCall<M, T> call) throws SQLException {
+        UnitOfWork unit = unitOfWork.get();
+        if (unit != null) {
+            return unit.call(type, call, true);
+        }
+        try (Connection conn = connect();
+             SqlSession session = MyBatisSupport.openSession(conn)) {
+            conn.setAutoCommit(false);
+            T out = call.apply(session.getMapper(type));
+            conn.commit();
+            return out;
+        }
+    }
+
     public String dbType() {
         return "POSTGRES";
     }
@@ -74,6 +135,17 @@ public final class Database {
         return schema;
     }
 
+    public DbWriteStats writeStats() {
+        return writeStats;
+    }
+
+    /**
+     * Statement shapes executed on connections from {@link #connect()}; stays empty when SQL logging is disabled.
+     */
+    public SqlProfiler sqlProfiler() {
+        return sqlProfiler;
+    }
+
     public String maskedJdbcUrl() {
         String out = jdbcUrl;
         out = out.replaceAll("(?i)(password=)[^&]+", "$1***");
@@ -110,4 +182,9 @@ public final class Database {
     private String safe(String value) {
         return value == null ? "" : value;
     }
+
+    @FunctionalInterface
+    interface MapperCall<M, T> {
+        T apply(M mapper) throws SQLException;
+    }
 }
@@ -0,0 +1,87 @@
+package com.stockbot.jp.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rows and time spent by the bulk DAO writes, per table, since the last {@link #drain()}.
+ */
+public final class DbWriteStats {
+    private final Map<String, Counter> tables = new ConcurrentSkipListMap<>();
+
+    public void record(String table, long rows, long nanos) {
+        if (rows <= 0L) {
+            return;
+        }
+        Counter counter = tables.computeIfAbsent(table, ignored -> new Counter());
+        counter.rows.add(rows);
+        counter.writes.increment();
+        counter.nanos.add(Math.max(0L, nanos));
+    }
+
+    public List<TableWrite> drain() {
+        List<TableWrite> out = new ArrayList<>();
+        for (String table : tables.keySet()) {
+            Counter counter = tables.remove(table);
+            if (counter != null) {
+                out.add(new TableWrite(table, counter.rows.sum(), counter.writes.sum(), counter.nanos.sum()));
+            }
+        }
+        return out;
+    }
+
+    public static String toNote(List<TableWrite> writes) {
+        StringBuilder sb = new StringBuilder();
+        for (TableWrite write : writes) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(write.toNote());
+        }
+        return sb.toString();
+    }
+
+    private static final class Counter {
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder writes = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+    }
+
+    public static final class TableWrite {
+        public final String table;
+        public final long rows;
+        /**
+         * DAO calls (one transaction each) that wrote the rows.
+         */
+        public final long writes;
+        public final long nanos;
+
+        TableWrite(String table, long rows, long writes, long nanos) {
+            this.table = table;
+            this.rows = rows;
+            this.writes = writes;
+            this.nanos = nanos;
+        }
+
+        public double rowsPerSec() {
+            return nanos <= 0L ? 0.0 : rows * 1_000_000_000.0 / nanos;
+        }
+
+        public String toNote() {
+            return String.format(
+                    Locale.US,
+                    "%s_rows=%d %s_writes=%d %s_rows_per_sec=%.0f",
+                    table,
+                    rows,
+                    table,
+                    writes,
+                    table,
+                    rowsPerSec()
+            );
+        }
+    }
+}
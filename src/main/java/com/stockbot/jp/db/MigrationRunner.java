@@ -49,6 +49,7 @@ public final class MigrationRunner {
     private List<String> buildStatements() {
         List<String> sqls = new ArrayList<>();
         sqls.add("CREATE EXTENSION IF NOT EXISTS vector");
+        sqls.add("CREATE EXTENSION IF NOT EXISTS pg_trgm");
         sqls.add("CREATE SCHEMA IF NOT EXISTS stockbot");
         sqls.add("SET search_path TO stockbot, public");
 
@@ -60,18 +61,53 @@ public final class MigrationRunner {
                 "updated_at TIMESTAMPTZ NOT NULL DEFAULT now()" +
                 ")");
 
-        sqls.add("CREATE TABLE IF NOT EXISTS price_daily (" +
-                "id BIGSERIAL PRIMARY KEY," +
+        sqls.addAll(priceDailyStatements());
+
+        sqls.add("CREATE TABLE IF NOT EXISTS forward_returns (" +
                 "ticker TEXT NOT NULL," +
                 "trade_date DATE NOT NULL," +
-                "open NUMERIC," +
-                "high NUMERIC," +
-                "low NUMERIC," +
-                "close NUMERIC," +
-                "volume NUMERIC," +
-                "source TEXT NULL," +
-                "created_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
-                "UNIQUE (ticker, trade_date)" +
+                "close DOUBLE PRECISION," +
+                "ret_1d DOUBLE PRECISION NULL," +
+                "ret_3d DOUBLE PRECISION NULL," +
+                "ret_5d DOUBLE PRECISION NULL," +
+                "ret_10d DOUBLE PRECISION NULL," +
+                "ret_20d DOUBLE PRECISION NULL," +
+                "updated_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+                "PRIMARY KEY (ticker, trade_date)" +
+                ")");
+        // Tables created before prices moved to float8 keep close as NUMERIC and cast on every refresh.
+        sqls.add("DO $$ BEGIN " +
+                "IF EXISTS (SELECT 1 FROM pg_attribute WHERE attrelid = to_regclass('forward_returns') " +
+                "AND attname = 'close' AND atttypid = 'numeric'::regtype) THEN " +
+                "ALTER TABLE forward_returns ALTER COLUMN close TYPE DOUBLE PRECISION; " +
+                "END IF; END $$");
+        // One-time backfill for databases that already hold prices; later upserts maintain it incrementally.
+        sqls.add(forwardReturnsBackfill());
+
+        sqls.add("CREATE TABLE IF NOT EXISTS ticker_latest (" +
+                "ticker TEXT PRIMARY KEY," +
+                "last_trade_date DATE NOT NULL," +
+                "bar_count INT NOT NULL," +
+                "last_close DOUBLE PRECISION NULL," +
+                "avg_volume_20 DOUBLE PRECISION NULL," +
+                "zero_volume_mask_20 INT NOT NULL DEFAULT 0," +
+                "flat_mask_20 INT NOT NULL DEFAULT 0," +
+                "has_shape BOOLEAN NOT NULL DEFAULT false," +
+                "updated_at TIMESTAMPTZ NOT NULL DEFAULT now()" +
+                ")");
+        // One-time backfill, same facts as BarDailyMapper.refreshTickerLatest; upserts keep it current afterwards.
+        sqls.add(tickerLatestBackfill());
+
+        // Per-ticker, per-year packed copy of price_daily (see BarBlobCodec); rebuilt from price_daily on upsert.
+        sqls.add("CREATE TABLE IF NOT EXISTS price_blob (" +
+                "ticker TEXT NOT NULL," +
+                "year INT NOT NULL," +
+                "bar_count INT NOT NULL," +
+                "first_date DATE NOT NULL," +
+                "last_date DATE NOT NULL," +
+                "payload BYTEA NOT NULL," +
+                "updated_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+                "PRIMARY KEY (ticker, year)" +
                 ")");
 
         sqls.add("CREATE TABLE IF NOT EXISTS indicators_daily (" +
@@ -137,9 +173,21 @@ public final class MigrationRunner {
                 "region TEXT NULL," +
                 "published_at TIMESTAMPTZ NULL," +
                 "embedding VECTOR(1536) NULL," +
+                "fingerprint BIGINT NULL," +
                 "created_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
                 "updated_at TIMESTAMPTZ NOT NULL DEFAULT now()" +
                 ")");
+        sqls.add("ALTER TABLE news_item ADD COLUMN IF NOT EXISTS fingerprint BIGINT NULL");
+
+        sqls.add("CREATE TABLE IF NOT EXISTS news_summary_memo (" +
+                "ticker TEXT NOT NULL," +
+                "model TEXT NOT NULL," +
+                "prompt_version TEXT NOT NULL," +
+                "input_hash TEXT NOT NULL," +
+                "summary_html TEXT NOT NULL," +
+                "created_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+                "PRIMARY KEY (ticker, model, prompt_version, input_hash)" +
+                ")");
 
         sqls.add("CREATE TABLE IF NOT EXISTS metadata (" +
                 "meta_key TEXT PRIMARY KEY," +
@@ -186,8 +234,58 @@ public final class MigrationRunner {
                 "created_at TIMESTAMPTZ NOT NULL DEFAULT now()" +
                 ")");
 
+        sqls.addAll(scanResultsStatements());
+
+        sqls.add("CREATE UNIQUE INDEX IF NOT EXISTS idx_universe_code ON universe(code)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_universe_active ON universe(active)");
+        // The primary key already serves newest-first scans per ticker.
+        sqls.add("DROP INDEX IF EXISTS idx_price_daily_ticker_date");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_price_daily_trade_date_brin ON price_daily USING brin (trade_date)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_indicators_daily_ticker_date ON indicators_daily(ticker, trade_date DESC)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_signals_run_ticker ON signals(run_id, ticker)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_signals_asof ON signals(as_of DESC)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_run_logs_run_id ON run_logs(run_id)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_run_logs_started ON run_logs(started_at DESC)");
+        sqls.add("CREATE INDEX IF NOT EXISTS docs_ticker_published_idx ON docs(ticker, published_at DESC)");
+        sqls.add("DROP INDEX IF EXISTS docs_embedding_ivfflat");
+        sqls.add("CREATE INDEX IF NOT EXISTS docs_embedding_hnsw ON docs USING hnsw (embedding vector_cosine_ops)");
+        sqls.add("CREATE INDEX IF NOT EXISTS docs_title_trgm_idx ON docs USING gin (title gin_trgm_ops)");
+        sqls.add("CREATE INDEX IF NOT EXISTS docs_content_trgm_idx ON docs USING gin (content gin_trgm_ops)");
+        sqls.add("CREATE INDEX IF NOT EXISTS news_item_published_idx ON news_item(published_at DESC)");
+        sqls.add("CREATE INDEX IF NOT EXISTS news_item_lang_region_idx ON news_item(lang, region)");
+        sqls.add("CREATE INDEX IF NOT EXISTS news_item_updated_idx ON news_item(updated_at DESC)");
+        sqls.add("CREATE INDEX IF NOT EXISTS news_summary_memo_created_idx ON news_summary_memo(created_at)");
+        sqls.add("CREATE INDEX IF NOT EXISTS news_item_embedding_ivfflat ON news_item USING ivfflat (embedding vector_cosine_ops) WITH (lists = 100)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_runs_started ON runs(started_at DESC)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_candidates_run_rank ON candidates(run_id, rank_no)");
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_candidates_ticker ON candidates(ticker)");
+        // Per-run summaries read every row of the run through (run_id, ticker); the reason indexes only cost writes.
+        sqls.add("CREATE INDEX IF NOT EXISTS idx_scan_results_run_ticker ON scan_results(run_id, ticker)");
+        sqls.add("DROP INDEX IF EXISTS idx_scan_results_run_failure");
+        sqls.add("DROP INDEX IF EXISTS idx_scan_results_run_insufficient");
+        return sqls;
+    }
+
+    /**
+     * scan_results partitioned by month on created_at (the run's write time) so retention drops whole partitions
+     * (see ScanResultDao.compactBefore), plus scan_result_rollup holding the per-run summary rows that outlive
+     * them. An unpartitioned table from older versions is renamed to scan_results_legacy, copied with its ids and
+     * dropped. Monthly partitions are created from the oldest stored month through next month on every start;
+     * a default partition catches anything outside that range.
+     */
+    static List<String> scanResultsStatements() {
+        List<String> sqls = new ArrayList<>();
+        sqls.add("DO $$ BEGIN " +
+                "IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('scan_results') AND relkind = 'r') THEN " +
+                "ALTER TABLE scan_results RENAME TO scan_results_legacy; " +
+                "ALTER TABLE scan_results_legacy DROP CONSTRAINT IF EXISTS scan_results_pkey; " +
+                "ALTER SEQUENCE IF EXISTS scan_results_id_seq RENAME TO scan_results_legacy_id_seq; " +
+                "DROP INDEX IF EXISTS idx_scan_results_run_ticker; " +
+                "DROP INDEX IF EXISTS idx_scan_results_run_failure; " +
+                "DROP INDEX IF EXISTS idx_scan_results_run_insufficient; " +
+                "END IF; END $$");
         sqls.add("CREATE TABLE IF NOT EXISTS scan_results (" +
-                "id BIGSERIAL PRIMARY KEY," +
+                "id BIGSERIAL," +
                 "run_id BIGINT NOT NULL REFERENCES runs(id) ON DELETE CASCADE," +
                 "ticker TEXT NOT NULL," +
                 "code TEXT NULL," +
@@ -205,28 +303,170 @@ public final class MigrationRunner {
                 "failure_reason TEXT NOT NULL DEFAULT 'none'," +
                 "request_failure_category TEXT NULL," +
                 "error TEXT NULL," +
-                "created_at TIMESTAMPTZ NOT NULL DEFAULT now()" +
+                "created_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+                "PRIMARY KEY (id, created_at)" +
+                ") PARTITION BY RANGE (created_at)");
+        sqls.add("DO $$ DECLARE " +
+                "first_month DATE := (date_trunc('month', CURRENT_DATE) - INTERVAL '1 month')::DATE; " +
+                "last_month DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '1 month')::DATE; " +
+                "oldest DATE; " +
+                "m DATE; " +
+                "BEGIN " +
+                "IF to_regclass('scan_results_legacy') IS NOT NULL THEN " +
+                "EXECUTE 'SELECT date_trunc(''month'', MIN(created_at))::DATE FROM scan_results_legacy' INTO oldest; " +
+                "ELSE " +
+                "SELECT MIN(lower_bound) INTO oldest FROM (" +
+                "SELECT to_date(substring(c.relname FROM 'scan_results_m([0-9]{6})$'), 'YYYYMM') AS lower_bound " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = to_regclass('scan_results')) parts; " +
+                "END IF; " +
+                "m := LEAST(first_month, COALESCE(oldest, first_month)); " +
+                "WHILE m <= last_month LOOP " +
+                "BEGIN " +
+                "EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF scan_results FOR VALUES FROM (%L) TO (%L)', " +
+                "'scan_results_m' || to_char(m, 'YYYYMM'), m, (m + INTERVAL '1 month')::DATE); " +
+                "EXCEPTION WHEN others THEN RAISE NOTICE 'scan_results partition % skipped: %', m, SQLERRM; " +
+                "END; " +
+                "m := (m + INTERVAL '1 month')::DATE; " +
+                "END LOOP; " +
+                "END $$");
+        sqls.add("CREATE TABLE IF NOT EXISTS scan_results_default PARTITION OF scan_results DEFAULT");
+        sqls.add("DO $$ BEGIN " +
+                "IF to_regclass('scan_results_legacy') IS NOT NULL THEN " +
+                "INSERT INTO scan_results SELECT id, run_id, ticker, code, market, data_source, price_timestamp, " +
+                "bars_count, last_close, cache_hit, fetch_latency_ms, fetch_success, indicator_ready, candidate_ready, " +
+                "data_insufficient_reason, failure_reason, request_failure_category, error, created_at " +
+                "FROM scan_results_legacy ON CONFLICT DO NOTHING; " +
+                "PERFORM setval(pg_get_serial_sequence('scan_results', 'id'), " +
+                "GREATEST((SELECT COALESCE(MAX(id), 0) FROM scan_results), 1)); " +
+                "DROP TABLE scan_results_legacy; " +
+                "END IF; END $$");
+        // One row per (run, dimension, value) as produced by ScanResultMapper's GROUPING SETS summary;
+        // dim 'total' carries the coverage columns.
+        sqls.add("CREATE TABLE IF NOT EXISTS scan_result_rollup (" +
+                "run_id BIGINT NOT NULL REFERENCES runs(id) ON DELETE CASCADE," +
+                "dim TEXT NOT NULL," +
+                "value TEXT NOT NULL," +
+                "n INTEGER NOT NULL," +
+                "fetch_coverage INTEGER NOT NULL DEFAULT 0," +
+                "indicator_coverage INTEGER NOT NULL DEFAULT 0," +
+                "ex_filtered_non_tradable INTEGER NOT NULL DEFAULT 0," +
+                "ex_history_short INTEGER NOT NULL DEFAULT 0," +
+                "ex_stale INTEGER NOT NULL DEFAULT 0," +
+                "ex_no_data INTEGER NOT NULL DEFAULT 0," +
+                "tradable_denominator INTEGER NOT NULL DEFAULT 0," +
+                "tradable_indicator_coverage INTEGER NOT NULL DEFAULT 0," +
+                "rolled_up_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+                "PRIMARY KEY (run_id, dim, value)" +
                 ")");
+        return sqls;
+    }
 
-        sqls.add("CREATE UNIQUE INDEX IF NOT EXISTS idx_universe_code ON universe(code)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_universe_active ON universe(active)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_price_daily_ticker_date ON price_daily(ticker, trade_date DESC)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_indicators_daily_ticker_date ON indicators_daily(ticker, trade_date DESC)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_signals_run_ticker ON signals(run_id, ticker)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_signals_asof ON signals(as_of DESC)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_run_logs_run_id ON run_logs(run_id)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_run_logs_started ON run_logs(started_at DESC)");
-        sqls.add("CREATE INDEX IF NOT EXISTS docs_ticker_published_idx ON docs(ticker, published_at DESC)");
-        sqls.add("CREATE INDEX IF NOT EXISTS docs_embedding_ivfflat ON docs USING ivfflat (embedding vector_cosine_ops) WITH (lists = 100)");
-        sqls.add("CREATE INDEX IF NOT EXISTS news_item_published_idx ON news_item(published_at DESC)");
-        sqls.add("CREATE INDEX IF NOT EXISTS news_item_lang_region_idx ON news_item(lang, region)");
-        sqls.add("CREATE INDEX IF NOT EXISTS news_item_embedding_ivfflat ON news_item USING ivfflat (embedding vector_cosine_ops) WITH (lists = 100)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_runs_started ON runs(started_at DESC)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_candidates_run_rank ON candidates(run_id, rank_no)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_candidates_ticker ON candidates(ticker)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_scan_results_run_ticker ON scan_results(run_id, ticker)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_scan_results_run_failure ON scan_results(run_id, failure_reason)");
-        sqls.add("CREATE INDEX IF NOT EXISTS idx_scan_results_run_insufficient ON scan_results(run_id, data_insufficient_reason)");
+    /**
+     * forward_returns for every price_daily row, run only while forward_returns is empty.
+     */
+    static String forwardReturnsBackfill() {
+        return forwardReturnsInsert() + " ON CONFLICT(ticker, trade_date) DO NOTHING";
+    }
+
+    /**
+     * {@link #forwardReturnsBackfill()} without the conflict clause, for loads that rebuild the key afterwards.
+     */
+    static String forwardReturnsInsert() {
+        return "INSERT INTO forward_returns(ticker, trade_date, close, ret_1d, ret_3d, ret_5d, ret_10d, ret_20d) " +
+                "SELECT ticker, trade_date, close, " +
+                "(LEAD(close, 1) OVER w - close) * 100.0 / NULLIF(close, 0), " +
+                "(LEAD(close, 3) OVER w - close) * 100.0 / NULLIF(close, 0), " +
+                "(LEAD(close, 5) OVER w - close) * 100.0 / NULLIF(close, 0), " +
+                "(LEAD(close, 10) OVER w - close) * 100.0 / NULLIF(close, 0), " +
+                "(LEAD(close, 20) OVER w - close) * 100.0 / NULLIF(close, 0) " +
+                "FROM price_daily WHERE NOT EXISTS (SELECT 1 FROM forward_returns) " +
+                "WINDOW w AS (PARTITION BY ticker ORDER BY trade_date)";
+    }
+
+    /**
+     * ticker_latest for every ticker in price_daily, run only while ticker_latest is empty.
+     */
+    static String tickerLatestBackfill() {
+        return "INSERT INTO ticker_latest(ticker, last_trade_date, bar_count, last_close, avg_volume_20, " +
+                "zero_volume_mask_20, flat_mask_20, has_shape) " +
+                "SELECT a.ticker, a.last_trade_date, a.bar_count, r.last_close, r.avg_volume_20, " +
+                "r.zero_volume_mask_20, r.flat_mask_20, a.has_shape " +
+                "FROM (SELECT ticker, MAX(trade_date) AS last_trade_date, COUNT(*) AS bar_count, " +
+                "COALESCE(bool_or((volume > 0 AND volume < 'Infinity'::float8) " +
+                "OR abs(high - low) > 1e-9 OR abs(open - close) > 1e-9), false) AS has_shape " +
+                "FROM price_daily GROUP BY ticker) a " +
+                "JOIN (SELECT ticker, MAX(close) FILTER (WHERE rn = 1) AS last_close, AVG(vol) AS avg_volume_20, " +
+                "COALESCE(SUM(CASE WHEN vol <= 0 THEN 1 << (rn - 1) ELSE 0 END), 0)::int AS zero_volume_mask_20, " +
+                "COALESCE(SUM(CASE WHEN abs(open - close) < 1e-9 AND abs(high - low) < 1e-9 " +
+                "THEN 1 << (rn - 1) ELSE 0 END), 0)::int AS flat_mask_20 " +
+                "FROM (SELECT ticker, open, high, low, close, " +
+                "CASE WHEN volume > 0 AND volume < 'Infinity'::float8 THEN volume ELSE 0 END AS vol, " +
+                "ROW_NUMBER() OVER (PARTITION BY ticker ORDER BY trade_date DESC)::int AS rn " +
+                "FROM price_daily) recent WHERE rn <= 20 GROUP BY ticker) r ON r.ticker = a.ticker " +
+                "WHERE NOT EXISTS (SELECT 1 FROM ticker_latest) " +
+                "ON CONFLICT(ticker) DO NOTHING";
+    }
+
+    /**
+     * price_daily partitioned by calendar year on trade_date, with double precision OHLCV and (ticker, trade_date)
+     * as its only key. An unpartitioned table from older versions is renamed to price_daily_legacy, copied into
+     * the new layout and dropped; the copy resumes on the next start if it was interrupted. Yearly partitions
+     * are created from the oldest stored year through next year on every start, and a default partition
+     * catches anything outside that range.
+     */
+    static List<String> priceDailyStatements() {
+        List<String> sqls = new ArrayList<>();
+        sqls.add("DO $$ BEGIN " +
+                "IF EXISTS (SELECT 1 FROM pg_class WHERE oid = to_regclass('price_daily') AND relkind = 'r') THEN " +
+                "ALTER TABLE price_daily RENAME TO price_daily_legacy; " +
+                "ALTER TABLE price_daily_legacy DROP CONSTRAINT IF EXISTS price_daily_pkey; " +
+                "ALTER TABLE price_daily_legacy DROP CONSTRAINT IF EXISTS price_daily_ticker_trade_date_key; " +
+                "DROP INDEX IF EXISTS idx_price_daily_ticker_date; " +
+                "END IF; END $$");
+        sqls.add("CREATE TABLE IF NOT EXISTS price_daily (" +
+                "ticker TEXT NOT NULL," +
+                "trade_date DATE NOT NULL," +
+                "open DOUBLE PRECISION," +
+                "high DOUBLE PRECISION," +
+                "low DOUBLE PRECISION," +
+                "close DOUBLE PRECISION," +
+                "volume DOUBLE PRECISION," +
+                "source TEXT NULL," +
+                "created_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+                "PRIMARY KEY (ticker, trade_date)" +
+                ") PARTITION BY RANGE (trade_date)");
+        sqls.add("DO $$ DECLARE " +
+                "first_year INT := EXTRACT(YEAR FROM CURRENT_DATE)::INT - 2; " +
+                "last_year INT := EXTRACT(YEAR FROM CURRENT_DATE)::INT + 1; " +
+                "oldest INT; " +
+                "BEGIN " +
+                "IF to_regclass('price_daily_legacy') IS NOT NULL THEN " +
+                "EXECUTE 'SELECT EXTRACT(YEAR FROM MIN(trade_date))::INT FROM price_daily_legacy' INTO oldest; " +
+                "ELSE " +
+                "SELECT EXTRACT(YEAR FROM MIN(lower_bound))::INT INTO oldest FROM (" +
+                "SELECT to_date(substring(c.relname FROM 'price_daily_y([0-9]{4})$'), 'YYYY') AS lower_bound " +
+                "FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "WHERE i.inhparent = to_regclass('price_daily')) parts; " +
+                "END IF; " +
+                "first_year := LEAST(first_year, COALESCE(oldest, first_year)); " +
+                "FOR y IN first_year..last_year LOOP " +
+                "BEGIN " +
+                "EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF price_daily FOR VALUES FROM (%L) TO (%L)', " +
+                "'price_daily_y' || y, make_date(y, 1, 1), make_date(y + 1, 1, 1)); " +
+                "EXCEPTION WHEN others THEN RAISE NOTICE 'price_daily partition % skipped: %', y, SQLERRM; " +
+                "END; " +
+                "END LOOP; " +
+                "END $$");
+        sqls.add("CREATE TABLE IF NOT EXISTS price_daily_default PARTITION OF price_daily DEFAULT");
+        sqls.add("DO $$ BEGIN " +
+                "IF to_regclass('price_daily_legacy') IS NOT NULL THEN " +
+                "INSERT INTO price_daily(ticker, trade_date, open, high, low, close, volume, source, created_at) " +
+                "SELECT ticker, trade_date, open::float8, high::float8, low::float8, close::float8, volume::float8, " +
+                "source, created_at FROM price_daily_legacy " +
+                "ON CONFLICT (ticker, trade_date) DO NOTHING; " +
+                "DROP TABLE price_daily_legacy; " +
+                "END IF; END $$");
         return sqls;
     }
 
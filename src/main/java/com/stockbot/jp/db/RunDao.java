@@ -126,18 +126,62 @@ public final class RunDao {
         }
     }
 
+    /**
+     * Writes one {@code SQL_PROFILE} run_logs row per statement shape: elapsed_ms is the shape's total time, status
+     * is {@code N_PLUS_ONE} for shapes at or above {@code nPlusOneCalls} unbatched calls, otherwise {@code OK}.
+     */
+    public void insertSqlProfile(long runId, List<SqlProfiler.ShapeStat> shapes, long nPlusOneCalls) throws SQLException {
+        if (shapes == null || shapes.isEmpty()) {
+            return;
+        }
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        try (Connection conn = database.connect();
+             SqlSession session = MyBatisSupport.openBatchSession(conn)) {
+            conn.setAutoCommit(false);
+            RunMapper mapper = session.getMapper(RunMapper.class);
+            String mode = mapper.findRunMode(runId);
+            for (SqlProfiler.ShapeStat shape : shapes) {
+                mapper.insertRunLog(RunLogInsertParam.builder()
+                        .runId(Long.toString(runId))
+                        .mode(mode == null ? "UNKNOWN" : mode)
+                        .startedAt(now)
+                        .endedAt(now)
+                        .step("SQL_PROFILE")
+                        .elapsedMs(shape.totalNanos / 1_000_000L)
+                        .status(shape.nPlusOne(nPlusOneCalls) ? "N_PLUS_ONE" : "OK")
+                        .message(String.format(
+                                Locale.US,
+                                "calls=%d statements=%d failures=%d p50_ms=%.2f p95_ms=%.2f max_ms=%.2f shape=%s",
+                                shape.calls,
+                                shape.statements,
+                                shape.failures,
+                                shape.percentileMs(0.50),
+                                shape.percentileMs(0.95),
+                                shape.maxNanos / 1_000_000.0,
+                                shape.shape
+                        ))
+                        .build());
+            }
+            session.flushStatements();
+            conn.commit();
+        }
+    }
+
     public void insertCandidates(long runId, List<ScoredCandidate> candidates) throws SQLException {
         if (candidates == null || candidates.isEmpty()) {
             return;
         }
 
         OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        long started = System.nanoTime();
+        int rank = 1;
+        long candidatesNanos;
         try (Connection conn = database.connect();
-             SqlSession session = MyBatisSupport.openSession(conn)) {
+             SqlSession session = MyBatisSupport.openBatchSession(conn)) {
             conn.setAutoCommit(false);
             RunMapper mapper = session.getMapper(RunMapper.class);
 
-            int rank = 1;
+            // All candidates, then all signals: one JDBC batch per statement.
             for (ScoredCandidate c : candidates) {
                 if (c == null) {
                     continue;
@@ -155,7 +199,14 @@ public final class RunDao {
                         .indicatorsJson(c.indicatorsJson)
                         .createdAt(now)
                         .build());
+            }
+            session.flushStatements();
+            candidatesNanos = System.nanoTime() - started;
 
+            for (ScoredCandidate c : candidates) {
+                if (c == null) {
+                    continue;
+                }
                 mapper.insertSignal(SignalInsertParam.builder()
                         .runId(Long.toString(runId))
                         .ticker(c.ticker)
@@ -167,8 +218,11 @@ public final class RunDao {
                         .reason(c.reasonsJson)
                         .build());
             }
+            session.flushStatements();
             conn.commit();
         }
+        database.writeStats().record("candidates", rank - 1, candidatesNanos);
+        database.writeStats().record("signals", rank - 1, System.nanoTime() - started - candidatesNanos);
     }
 
     public List<RunRow> listRecentRuns(int limit) throws SQLException {
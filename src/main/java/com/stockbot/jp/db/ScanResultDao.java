@@ -2,29 +2,37 @@ package com.stockbot.jp.db;
 
 import com.stockbot.jp.db.mybatis.DataSourceCountRow;
 import com.stockbot.jp.db.mybatis.MyBatisSupport;
-import com.stockbot.jp.db.mybatis.ScanCoverageRow;
-import com.stockbot.jp.db.mybatis.ScanReasonCountRow;
 import com.stockbot.jp.db.mybatis.ScanResultInsertParam;
 import com.stockbot.jp.db.mybatis.ScanResultMapper;
+import com.stockbot.jp.db.mybatis.ScanSummaryRow;
 import com.stockbot.jp.model.DataInsufficientReason;
 import com.stockbot.jp.model.ScanFailureReason;
 import com.stockbot.jp.model.ScanResultSummary;
 import com.stockbot.jp.model.TickerScanResult;
+import lombok.Value;
 import org.apache.ibatis.session.SqlSession;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * DAO for ticker scan diagnostics.
  */
 public final class ScanResultDao {
+    private static final Pattern MONTH_PARTITION = Pattern.compile("scan_results_m(\\d{6})");
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
     private final Database database;
 
     public ScanResultDao(Database database) {
@@ -36,8 +44,10 @@ public final class ScanResultDao {
             return;
         }
         OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        long started = System.nanoTime();
+        int rows = 0;
         try (Connection conn = database.connect();
-             SqlSession session = MyBatisSupport.openSession(conn)) {
+             SqlSession session = MyBatisSupport.openBatchSession(conn)) {
             conn.setAutoCommit(false);
             ScanResultMapper mapper = session.getMapper(ScanResultMapper.class);
             for (TickerScanResult result : results) {
@@ -69,9 +79,14 @@ public final class ScanResultDao {
                         .createdAt(now)
                         .build();
                 mapper.insertScanResult(row);
+                if (++rows % MyBatisSupport.BATCH_FLUSH_ROWS == 0) {
+                    session.flushStatements();
+                }
             }
+            session.flushStatements();
             conn.commit();
         }
+        database.writeStats().record("scan_results", rows, System.nanoTime() - started);
     }
 
     public ScanResultSummary summarizeByRun(long runId) throws SQLException {
@@ -103,42 +118,41 @@ public final class ScanResultDao {
         try (Connection conn = database.connect();
              SqlSession session = MyBatisSupport.openSession(conn)) {
             ScanResultMapper mapper = session.getMapper(ScanResultMapper.class);
-
-            ScanCoverageRow coverage = mapper.selectCoverage(runId);
-            if (coverage != null) {
-                total = coverage.getTotal();
-                fetchCoverage = coverage.getFetchCoverage();
-                indicatorCoverage = coverage.getIndicatorCoverage();
-                breakdownDenominatorExcluded.put("filtered_non_tradable", Math.max(0, coverage.getExFilteredNonTradable()));
-                breakdownDenominatorExcluded.put("history_short", Math.max(0, coverage.getExHistoryShort()));
-                breakdownDenominatorExcluded.put("stale", Math.max(0, coverage.getExStale()));
-                breakdownDenominatorExcluded.put("http_404/no_data", Math.max(0, coverage.getExNoData()));
-                tradableDenominator = coverage.getTradableDenominator();
-                tradableIndicatorCoverage = coverage.getTradableIndicatorCoverage();
-            }
-
-            for (ScanReasonCountRow row : mapper.selectFailureReasonCounts(runId)) {
-                if (row == null) {
+            for (ScanSummaryRow row : loadSummaryRows(mapper, runId)) {
+                if (row == null || row.getDim() == null) {
                     continue;
                 }
-                ScanFailureReason reason = ScanFailureReason.fromLabel(row.getValue());
-                failureCounts.put(reason, row.getN());
-            }
-
-            for (ScanReasonCountRow row : mapper.selectRequestFailureCategoryCounts(runId)) {
-                if (row == null) {
-                    continue;
+                String value = row.getValue() == null ? "" : row.getValue();
+                switch (row.getDim()) {
+                    case "total" -> {
+                        total = row.getN();
+                        fetchCoverage = row.getFetchCoverage();
+                        indicatorCoverage = row.getIndicatorCoverage();
+                        breakdownDenominatorExcluded.put("filtered_non_tradable", Math.max(0, row.getExFilteredNonTradable()));
+                        breakdownDenominatorExcluded.put("history_short", Math.max(0, row.getExHistoryShort()));
+                        breakdownDenominatorExcluded.put("stale", Math.max(0, row.getExStale()));
+                        breakdownDenominatorExcluded.put("http_404/no_data", Math.max(0, row.getExNoData()));
+                        tradableDenominator = row.getTradableDenominator();
+                        tradableIndicatorCoverage = row.getTradableIndicatorCoverage();
+                    }
+                    case "failure_reason" -> {
+                        if (!value.isEmpty()) {
+                            failureCounts.put(ScanFailureReason.fromLabel(value), row.getN());
+                        }
+                    }
+                    case "request_failure_category" -> {
+                        if (!value.isEmpty()) {
+                            requestFailureCounts.put(mapRequestCategory(value), row.getN());
+                        }
+                    }
+                    case "data_insufficient_reason" -> {
+                        if (!value.isEmpty()) {
+                            insufficientCounts.put(DataInsufficientReason.fromText(value), row.getN());
+                        }
+                    }
+                    default -> {
+                    }
                 }
-                ScanFailureReason reason = mapRequestCategory(row.getValue());
-                requestFailureCounts.put(reason, row.getN());
-            }
-
-            for (ScanReasonCountRow row : mapper.selectDataInsufficientReasonCounts(runId)) {
-                if (row == null) {
-                    continue;
-                }
-                DataInsufficientReason reason = DataInsufficientReason.fromText(row.getValue());
-                insufficientCounts.put(reason, row.getN());
             }
         }
 
@@ -164,7 +178,15 @@ public final class ScanResultDao {
         try (Connection conn = database.connect();
              SqlSession session = MyBatisSupport.openSession(conn)) {
             ScanResultMapper mapper = session.getMapper(ScanResultMapper.class);
-            for (DataSourceCountRow row : mapper.selectDataSourceCounts(runId)) {
+            List<DataSourceCountRow> rows = mapper.selectDataSourceCounts(runId);
+            if (rows.isEmpty()) {
+                for (ScanSummaryRow rolled : mapper.selectRollup(runId)) {
+                    if ("data_source".equals(rolled.getDim())) {
+                        rows.add(new DataSourceCountRow(rolled.getValue(), rolled.getN()));
+                    }
+                }
+            }
+            for (DataSourceCountRow row : rows) {
                 if (row == null) {
                     continue;
                 }
@@ -179,6 +201,76 @@ public final class ScanResultDao {
         return Map.copyOf(out);
     }
 
+    /**
+     * Retention for scan_results: stores the summary of every run started before the cutoff in
+     * scan_result_rollup, then drops the monthly partitions that end on or before the cutoff and deletes older
+     * rows from the default partition. Detail rows in the month containing the cutoff stay until that whole
+     * month has expired. Also creates the partitions for this month and the next so writes never land in the
+     * default partition.
+     */
+    public CompactionStats compactBefore(OffsetDateTime cutoff) throws SQLException {
+        LocalDate cutoffDate = cutoff.atZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+        int runsRolledUp;
+        int partitionsDropped = 0;
+        int defaultRowsDeleted;
+        try (Connection conn = database.connect();
+             SqlSession session = MyBatisSupport.openSession(conn)) {
+            conn.setAutoCommit(false);
+            ScanResultMapper mapper = session.getMapper(ScanResultMapper.class);
+            runsRolledUp = mapper.rollupBefore(cutoff);
+            for (String name : mapper.selectPartitionNames()) {
+                LocalDate month = partitionMonth(name);
+                // A day of slack covers partition bounds being in the server's time zone.
+                if (month != null && !month.plusMonths(1).isAfter(cutoffDate.minusDays(1))) {
+                    mapper.dropPartition(name);
+                    partitionsDropped++;
+                }
+            }
+            defaultRowsDeleted = mapper.deleteDefaultBefore(cutoff);
+            conn.commit();
+        }
+        ensureMonthPartitions(LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1), 2);
+        return new CompactionStats(runsRolledUp, partitionsDropped, defaultRowsDeleted);
+    }
+
+    private void ensureMonthPartitions(LocalDate firstMonth, int months) {
+        for (int i = 0; i < months; i++) {
+            LocalDate month = firstMonth.plusMonths(i);
+            try (Connection conn = database.connect();
+                 SqlSession session = MyBatisSupport.openSession(conn)) {
+                conn.setAutoCommit(true);
+                session.getMapper(ScanResultMapper.class)
+                        .createPartition("scan_results_m" + PARTITION_MONTH.format(month), month, month.plusMonths(1));
+            } catch (Exception e) {
+                // Fails when the default partition already holds rows of that month; they stay readable there.
+                System.err.println("WARN: scan_results partition for " + month + " not created: " + e.getMessage());
+            }
+        }
+    }
+
+    private static LocalDate partitionMonth(String name) {
+        Matcher m = MONTH_PARTITION.matcher(name == null ? "" : name);
+        if (!m.matches()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(m.group(1) + "01", DateTimeFormatter.BASIC_ISO_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private List<ScanSummaryRow> loadSummaryRows(ScanResultMapper mapper, long runId) {
+        List<ScanSummaryRow> live = mapper.selectSummary(runId);
+        for (ScanSummaryRow row : live) {
+            if ("total".equals(row.getDim()) && row.getN() > 0) {
+                return live;
+            }
+        }
+        List<ScanSummaryRow> rolled = mapper.selectRollup(runId);
+        return rolled.isEmpty() ? live : rolled;
+    }
+
     private ScanFailureReason mapRequestCategory(String rawCategory) {
         String category = rawCategory == null ? "" : rawCategory.trim().toLowerCase();
         if ("timeout".equals(category)) {
@@ -195,4 +287,11 @@ public final class ScanResultDao {
         }
         return ScanFailureReason.OTHER;
     }
+
+    @Value
+    public static class CompactionStats {
+        int runsRolledUp;
+        int partitionsDropped;
+        int defaultRowsDeleted;
+    }
 }
@@ -12,21 +12,16 @@ import java.sql.Statement;
 import java.util.Locale;
 
 /**
- * 模块说明：SqlLogProxy（class）。
- * 主要职责：承载 db 模块 的关键逻辑，对外提供可复用的调用入口。
- * 使用建议：修改该类型时应同步关注上下游调用，避免影响整体流程稳定性。
+ * Wraps a connection so every statement execute is timed into a {@link SqlProfiler} under its shape. Failures are
+ * logged at WARN; per-statement lines are only written when the {@code SQL} logger is at DEBUG, so profiling costs
+ * a clock read and a few counter increments per call.
  */
-final class SqlLogProxy {
-/**
- * 方法说明：SqlLogProxy，负责初始化对象并装配依赖参数。
- * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
- * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
- */
-    private SqlLogProxy() {
+final class SqlProfileProxy {
+    private SqlProfileProxy() {
     }
 
-    static Connection wrapConnection(Connection delegate, Logger logger) {
-        InvocationHandler handler = new ConnectionHandler(delegate, logger);
+    static Connection wrapConnection(Connection delegate, SqlProfiler profiler, Logger logger) {
+        InvocationHandler handler = new ConnectionHandler(delegate, profiler, logger);
         return (Connection) Proxy.newProxyInstance(
                 Connection.class.getClassLoader(),
                 new Class[]{Connection.class},
@@ -36,18 +31,15 @@ final class SqlLogProxy {
 
     private static final class ConnectionHandler implements InvocationHandler {
         private final Connection delegate;
+        private final SqlProfiler profiler;
         private final Logger logger;
 
-        private ConnectionHandler(Connection delegate, Logger logger) {
+        private ConnectionHandler(Connection delegate, SqlProfiler profiler, Logger logger) {
             this.delegate = delegate;
+            this.profiler = profiler;
             this.logger = logger;
         }
 
-/**
- * 方法说明：invoke，负责执行业务逻辑并产出结果。
- * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
- * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
- */
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
             String name = method.getName();
@@ -58,10 +50,11 @@ final class SqlLogProxy {
                         && args.length > 0
                         && args[0] instanceof String
                         && out instanceof PreparedStatement) {
-                    return wrapPreparedStatement((PreparedStatement) out, (String) args[0], logger);
+                    String sql = (String) args[0];
+                    return wrapPreparedStatement((PreparedStatement) out, sql, profiler.shapeOf(sql), profiler, logger);
                 }
                 if ("createStatement".equals(name) && out instanceof Statement) {
-                    return wrapStatement((Statement) out, logger);
+                    return wrapStatement((Statement) out, profiler, logger);
                 }
                 return out;
             } catch (InvocationTargetException e) {
@@ -70,13 +63,14 @@ final class SqlLogProxy {
         }
     }
 
-/**
- * 方法说明：wrapPreparedStatement，负责执行业务逻辑并产出结果。
- * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
- * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
- */
-    private static PreparedStatement wrapPreparedStatement(PreparedStatement delegate, String sql, Logger logger) {
-        InvocationHandler handler = new PreparedStatementHandler(delegate, sql, logger);
+    private static PreparedStatement wrapPreparedStatement(
+            PreparedStatement delegate,
+            String sql,
+            String shape,
+            SqlProfiler profiler,
+            Logger logger
+    ) {
+        InvocationHandler handler = new PreparedStatementHandler(delegate, sql, shape, profiler, logger);
         return (PreparedStatement) Proxy.newProxyInstance(
                 PreparedStatement.class.getClassLoader(),
                 new Class[]{PreparedStatement.class},
@@ -84,13 +78,8 @@ final class SqlLogProxy {
         );
     }
 
-/**
- * 方法说明：wrapStatement，负责执行业务逻辑并产出结果。
- * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
- * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
- */
-    private static Statement wrapStatement(Statement delegate, Logger logger) {
-        InvocationHandler handler = new StatementHandler(delegate, logger);
+    private static Statement wrapStatement(Statement delegate, SqlProfiler profiler, Logger logger) {
+        InvocationHandler handler = new StatementHandler(delegate, profiler, logger);
         return (Statement) Proxy.newProxyInstance(
                 Statement.class.getClassLoader(),
                 new Class[]{Statement.class},
@@ -99,9 +88,11 @@ final class SqlLogProxy {
     }
 
     private abstract static class AbstractSqlHandler implements InvocationHandler {
+        final SqlProfiler profiler;
         final Logger logger;
 
-        AbstractSqlHandler(Logger logger) {
+        AbstractSqlHandler(SqlProfiler profiler, Logger logger) {
+            this.profiler = profiler;
             this.logger = logger;
         }
 
@@ -114,7 +105,11 @@ final class SqlLogProxy {
                     || "executeLargeBatch".equals(method);
         }
 
-        String normalizeSql(String sql) {
+        boolean isBatchMethod(String method) {
+            return "executeBatch".equals(method) || "executeLargeBatch".equals(method);
+        }
+
+        String truncateSql(String sql) {
             if (sql == null) {
                 return "";
             }
@@ -125,38 +120,16 @@ final class SqlLogProxy {
             return normalized.substring(0, 800) + "...";
         }
 
-        String resultSummary(Object result) {
-            if (result == null) {
-                return "";
-            }
-            if (result instanceof Integer) {
-                return " rows=" + result;
-            }
-            if (result instanceof Long) {
-                return " rows=" + result;
-            }
-            if (result instanceof int[]) {
-                return " batch_size=" + ((int[]) result).length;
-            }
-            if (result instanceof long[]) {
-                return " batch_size=" + ((long[]) result).length;
-            }
-            if (result instanceof Boolean) {
-                return " has_result_set=" + result;
-            }
-            return "";
-        }
-
-        void logSuccess(String method, String sql, long elapsedNanos, Object result) {
-            if (!logger.isInfoEnabled()) {
+        void logSuccess(String method, String sql, long elapsedNanos, int statements) {
+            if (!logger.isDebugEnabled()) {
                 return;
             }
-            logger.info(
-                    "SQL ok method={} elapsed_ms={}{} sql={}",
+            logger.debug(
+                    "SQL ok method={} elapsed_ms={} statements={} sql={}",
                     method,
                     String.format(Locale.US, "%.3f", elapsedNanos / 1_000_000.0),
-                    resultSummary(result),
-                    normalizeSql(sql)
+                    statements,
+                    truncateSql(sql)
             );
         }
 
@@ -166,7 +139,7 @@ final class SqlLogProxy {
                     method,
                     String.format(Locale.US, "%.3f", elapsedNanos / 1_000_000.0),
                     error == null ? "" : error.getMessage(),
-                    normalizeSql(sql)
+                    truncateSql(sql)
             );
         }
     }
@@ -174,24 +147,29 @@ final class SqlLogProxy {
     private static final class PreparedStatementHandler extends AbstractSqlHandler {
         private final PreparedStatement delegate;
         private final String sql;
+        private final String shape;
         private int pendingBatchCount;
 
-        private PreparedStatementHandler(PreparedStatement delegate, String sql, Logger logger) {
-            super(logger);
+        private PreparedStatementHandler(
+                PreparedStatement delegate,
+                String sql,
+                String shape,
+                SqlProfiler profiler,
+                Logger logger
+        ) {
+            super(profiler, logger);
             this.delegate = delegate;
             this.sql = sql == null ? "" : sql;
+            this.shape = shape;
         }
 
-/**
- * 方法说明：invoke，负责执行业务逻辑并产出结果。
- * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
- * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
- */
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
             String name = method.getName();
             if ("addBatch".equals(name) && (args == null || args.length == 0)) {
                 pendingBatchCount++;
+            } else if ("clearBatch".equals(name)) {
+                pendingBatchCount = 0;
             }
             if (!isExecuteMethod(name)) {
                 try {
@@ -201,20 +179,22 @@ final class SqlLogProxy {
                 }
             }
 
+            int statements = 1;
+            if (isBatchMethod(name)) {
+                statements = pendingBatchCount;
+                pendingBatchCount = 0;
+            }
             long started = System.nanoTime();
             try {
                 Object out = method.invoke(delegate, args);
                 long elapsed = System.nanoTime() - started;
-                String resolvedSql = sql;
-                if ("executeBatch".equals(name) || "executeLargeBatch".equals(name)) {
-                    resolvedSql = sql + " [batched_statements=" + pendingBatchCount + "]";
-                    pendingBatchCount = 0;
-                }
-                logSuccess(name, resolvedSql, elapsed, out);
+                profiler.record(shape, elapsed, statements, false);
+                logSuccess(name, sql, elapsed, statements);
                 return out;
             } catch (InvocationTargetException e) {
                 long elapsed = System.nanoTime() - started;
                 Throwable target = e.getTargetException();
+                profiler.record(shape, elapsed, statements, true);
                 logFailure(name, sql, elapsed, target);
                 throw target;
             }
@@ -223,20 +203,26 @@ final class SqlLogProxy {
 
     private static final class StatementHandler extends AbstractSqlHandler {
         private final Statement delegate;
+        private final StringBuilder pendingBatchSql = new StringBuilder();
+        private int pendingBatchCount;
 
-        private StatementHandler(Statement delegate, Logger logger) {
-            super(logger);
+        private StatementHandler(Statement delegate, SqlProfiler profiler, Logger logger) {
+            super(profiler, logger);
             this.delegate = delegate;
         }
 
-/**
- * 方法说明：invoke，负责执行业务逻辑并产出结果。
- * 处理流程：会结合入参与当前上下文执行业务逻辑，并返回结果或更新内部状态。
- * 维护提示：调整此方法时建议同步检查调用方、异常分支与日志输出。
- */
         @Override
         public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
             String name = method.getName();
+            if ("addBatch".equals(name) && args != null && args.length > 0 && args[0] instanceof String) {
+                if (pendingBatchCount == 0) {
+                    pendingBatchSql.append((String) args[0]);
+                }
+                pendingBatchCount++;
+            } else if ("clearBatch".equals(name)) {
+                pendingBatchSql.setLength(0);
+                pendingBatchCount = 0;
+            }
             if (!isExecuteMethod(name)) {
                 try {
                     return method.invoke(delegate, args);
@@ -246,7 +232,14 @@ final class SqlLogProxy {
             }
 
             String sql = "";
-            if (args != null && args.length > 0 && args[0] instanceof String) {
+            int statements = 1;
+            if (isBatchMethod(name)) {
+                // Plain-statement batches are profiled under the shape of their first statement.
+                sql = pendingBatchSql.toString();
+                statements = pendingBatchCount;
+                pendingBatchSql.setLength(0);
+                pendingBatchCount = 0;
+            } else if (args != null && args.length > 0 && args[0] instanceof String) {
                 sql = (String) args[0];
             }
 
@@ -254,11 +247,13 @@ final class SqlLogProxy {
             try {
                 Object out = method.invoke(delegate, args);
                 long elapsed = System.nanoTime() - started;
-                logSuccess(name, sql, elapsed, out);
+                profiler.record(profiler.shapeOf(sql), elapsed, statements, false);
+                logSuccess(name, sql, elapsed, statements);
                 return out;
             } catch (InvocationTargetException e) {
                 long elapsed = System.nanoTime() - started;
                 Throwable target = e.getTargetException();
+                profiler.record(profiler.shapeOf(sql), elapsed, statements, true);
                 logFailure(name, sql, elapsed, target);
                 throw target;
             }
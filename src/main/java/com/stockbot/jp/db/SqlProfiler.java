@@ -0,0 +1,335 @@
+package com.stockbot.jp.db;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Call counts and latency histograms per statement shape for every JDBC execute on {@link Database} connections,
+ * collected into each {@link Recording} open at the time. A shape is the SQL with literals replaced by {@code ?} and
+ * IN / VALUES lists folded, so one query aggregates across arguments and batch sizes.
+ * <p>
+ * Each run opens its own recording, so overlapping runs never consume each other's counters; a recording still sees
+ * every statement on the database while it is open, including those of an overlapping run.
+ */
+public final class SqlProfiler {
+    /**
+     * Upper bounds of the latency buckets in microseconds; one more open-ended bucket follows.
+     */
+    static final long[] BUCKET_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 1_000_000
+    };
+    static final String OTHER_SHAPE = "(other shapes)";
+    private static final int MAX_SHAPES = 2048;
+    private static final int MAX_CACHED_SQL = 4096;
+    private static final int MAX_SHAPE_CHARS = 400;
+    private static final Pattern PARAM_LIST = Pattern.compile("\\(\\?(?:, \\?)+\\)");
+    private static final Pattern ROW_LIST = Pattern.compile("(?i)(VALUES \\([^()]*\\))(?:, \\([^()]*\\))+");
+
+    private final Map<String, String> shapeBySql = new ConcurrentHashMap<>();
+    private final List<Recording> recordings = new CopyOnWriteArrayList<>();
+
+    /**
+     * Shape of {@code sql}, cached for statement texts seen before.
+     */
+    public String shapeOf(String sql) {
+        String raw = sql == null ? "" : sql;
+        String cached = shapeBySql.get(raw);
+        if (cached != null) {
+            return cached;
+        }
+        String shape = normalize(raw);
+        if (shapeBySql.size() < MAX_CACHED_SQL) {
+            shapeBySql.put(raw, shape);
+        }
+        return shape;
+    }
+
+    /**
+     * Starts collecting statements into a new recording, until {@link Recording#stop()}.
+     */
+    public Recording start() {
+        Recording recording = new Recording(this);
+        recordings.add(recording);
+        return recording;
+    }
+
+    /**
+     * @param statements statements sent by the call: the batch size for executeBatch, otherwise 1
+     */
+    public void record(String shape, long nanos, int statements, boolean failed) {
+        for (Recording recording : recordings) {
+            recording.add(shape, nanos, statements, failed);
+        }
+    }
+
+    static int bucketOf(long micros) {
+        for (int i = 0; i < BUCKET_MICROS.length; i++) {
+            if (micros < BUCKET_MICROS[i]) {
+                return i;
+            }
+        }
+        return BUCKET_MICROS.length;
+    }
+
+    /**
+     * Collapses whitespace, replaces string and numeric literals with {@code ?}, folds {@code (?, ?, ...)} lists and
+     * multi-row VALUES to their first row, and caps the length.
+     */
+    static String normalize(String sql) {
+        StringBuilder out = new StringBuilder(Math.min(sql.length(), 1024));
+        int n = sql.length();
+        int i = 0;
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < n && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (out.length() > 0) {
+                    out.append(' ');
+                }
+                continue;
+            }
+            if (c == '\'') {
+                i++;
+                while (i < n) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < n && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+                continue;
+            }
+            if (c == '"') {
+                int end = sql.indexOf('"', i + 1);
+                end = end < 0 ? n : end + 1;
+                out.append(sql, i, end);
+                i = end;
+                continue;
+            }
+            if (Character.isDigit(c) && !continuesWord(out)) {
+                while (i < n && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+                continue;
+            }
+            if (Character.isLetterOrDigit(c) || c == '_' || c == '$') {
+                int start = i;
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_' || sql.charAt(i) == '$')) {
+                    i++;
+                }
+                out.append(sql, start, i);
+                continue;
+            }
+            // Tight punctuation so "(?,?)" and "( ?, ? )" fold alike.
+            if (c == ',') {
+                trimTrailingSpace(out);
+                out.append(", ");
+                i++;
+                while (i < n && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                continue;
+            }
+            if (c == ')') {
+                trimTrailingSpace(out);
+            }
+            out.append(c);
+            i++;
+            if (c == '(') {
+                while (i < n && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+            }
+        }
+        trimTrailingSpace(out);
+        String shape = PARAM_LIST.matcher(out).replaceAll("(?, ...)");
+        shape = ROW_LIST.matcher(shape).replaceAll("$1");
+        return shape.length() <= MAX_SHAPE_CHARS ? shape : shape.substring(0, MAX_SHAPE_CHARS) + "...";
+    }
+
+    private static boolean continuesWord(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char prev = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(prev) || prev == '_' || prev == '$';
+    }
+
+    private static void trimTrailingSpace(StringBuilder out) {
+        if (out.length() > 0 && out.charAt(out.length() - 1) == ' ') {
+            out.setLength(out.length() - 1);
+        }
+    }
+
+    /**
+     * Fixed-width table of {@code stats}, one line per shape after a header line.
+     */
+    public static List<String> toTable(List<ShapeStat> stats, long nPlusOneCalls) {
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format(Locale.US, "%10s %8s %9s %8s %8s %8s %5s  %s",
+                "total_ms", "calls", "stmts", "p50_ms", "p95_ms", "max_ms", "flag", "shape"));
+        for (ShapeStat stat : stats) {
+            lines.add(stat.toLine(nPlusOneCalls));
+        }
+        return lines;
+    }
+
+    /**
+     * Counters of one caller, typically one run. Closing discards whatever was not taken by {@link #stop()}.
+     */
+    public static final class Recording implements AutoCloseable {
+        private final SqlProfiler profiler;
+        private final Map<String, Counter> shapes = new ConcurrentHashMap<>();
+
+        private Recording(SqlProfiler profiler) {
+            this.profiler = profiler;
+        }
+
+        private void add(String shape, long nanos, int statements, boolean failed) {
+            Counter counter = shapes.get(shape);
+            if (counter == null) {
+                String key = shapes.size() < MAX_SHAPES ? shape : OTHER_SHAPE;
+                counter = shapes.computeIfAbsent(key, ignored -> new Counter());
+            }
+            long elapsed = Math.max(0L, nanos);
+            counter.calls.increment();
+            counter.statements.add(Math.max(0, statements));
+            counter.nanos.add(elapsed);
+            counter.maxNanos.accumulate(elapsed);
+            counter.buckets[bucketOf(elapsed / 1_000L)].increment();
+            if (failed) {
+                counter.failures.increment();
+            }
+        }
+
+        /**
+         * Stops collecting and returns the shapes recorded, most total time first; empty once already stopped.
+         */
+        public List<ShapeStat> stop() {
+            if (!profiler.recordings.remove(this)) {
+                return List.of();
+            }
+            List<ShapeStat> out = new ArrayList<>();
+            for (Map.Entry<String, Counter> entry : shapes.entrySet()) {
+                Counter counter = entry.getValue();
+                long[] buckets = new long[counter.buckets.length];
+                for (int i = 0; i < buckets.length; i++) {
+                    buckets[i] = counter.buckets[i].sum();
+                }
+                out.add(new ShapeStat(
+                        entry.getKey(),
+                        counter.calls.sum(),
+                        counter.statements.sum(),
+                        counter.failures.sum(),
+                        counter.nanos.sum(),
+                        counter.maxNanos.get(),
+                        buckets
+                ));
+            }
+            shapes.clear();
+            out.sort(Comparator.comparingLong((ShapeStat s) -> s.totalNanos).reversed().thenComparing(s -> s.shape));
+            return out;
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+
+    private static final class Counter {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private final LongAdder[] buckets = new LongAdder[BUCKET_MICROS.length + 1];
+
+        private Counter() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+    }
+
+    public static final class ShapeStat {
+        public final String shape;
+        /**
+         * JDBC execute calls.
+         */
+        public final long calls;
+        /**
+         * Statements those calls sent; above {@link #calls} when batched.
+         */
+        public final long statements;
+        public final long failures;
+        public final long totalNanos;
+        public final long maxNanos;
+        private final long[] buckets;
+
+        ShapeStat(String shape, long calls, long statements, long failures, long totalNanos, long maxNanos, long[] buckets) {
+            this.shape = shape;
+            this.calls = calls;
+            this.statements = statements;
+            this.failures = failures;
+            this.totalNanos = totalNanos;
+            this.maxNanos = maxNanos;
+            this.buckets = buckets;
+        }
+
+        /**
+         * Upper bound of the histogram bucket holding quantile {@code q}, capped at the slowest call.
+         */
+        public double percentileMs(double q) {
+            long rank = (long) Math.ceil(Math.max(0.0, Math.min(1.0, q)) * calls);
+            long seen = 0L;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0L) {
+                    double bound = i < BUCKET_MICROS.length ? BUCKET_MICROS[i] / 1_000.0 : Double.MAX_VALUE;
+                    return Math.min(bound, maxNanos / 1_000_000.0);
+                }
+            }
+            return 0.0;
+        }
+
+        /**
+         * The same row-at-a-time query issued at least {@code threshold} times, the N+1 pattern: a per-ticker
+         * lookup inside a loop rather than one set-based query or a batch.
+         */
+        public boolean nPlusOne(long threshold) {
+            return threshold > 0L && calls >= threshold && statements <= calls && !OTHER_SHAPE.equals(shape);
+        }
+
+        public String toLine(long nPlusOneCalls) {
+            return String.format(
+                    Locale.US,
+                    "%10.1f %8d %9d %8.2f %8.2f %8.2f %5s  %s",
+                    totalNanos / 1_000_000.0,
+                    calls,
+                    statements,
+                    percentileMs(0.50),
+                    percentileMs(0.95),
+                    maxNanos / 1_000_000.0,
+                    nPlusOne(nPlusOneCalls) ? "N+1" : (failures > 0L ? "ERR" : "-"),
+                    shape
+            );
+        }
+    }
+}
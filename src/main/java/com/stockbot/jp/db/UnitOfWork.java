@@ -0,0 +1,99 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.jp.db.mybatis.MyBatisSupport;
+import org.apache.ibatis.session.SqlSession;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Function;
+
+/**
+ * One connection and one {@code REUSE} MyBatis session shared by the DAO calls a thread makes between
+ * {@link Database#openUnitOfWork()} and {@link #close()}. Reusing the connection keeps PgJDBC's per-connection
+ * statement cache: after {@code prepareThreshold} executions of the same SQL it uses a named server-side statement,
+ * so PostgreSQL skips parsing and can reuse a generic plan. The connection is opened on first use and dropped after
+ * a failed call, so a broken connection costs one call, not the rest of the unit.
+ *
+ * <p>Not thread-safe: each worker thread opens its own. Calls run in autocommit mode unless made through
+ * {@link Database#inTransaction}, which commits before returning.
+ */
+public final class UnitOfWork implements AutoCloseable {
+    private final Database database;
+    private final Connector connector;
+    private final Function<Connection, SqlSession> sessionOpener;
+    private Connection connection;
+    private SqlSession session;
+    private int depth = 1;
+
+    UnitOfWork(Database database) {
+        this(database, database::connect, MyBatisSupport::openReuseSession);
+    }
+
+    UnitOfWork(Database database, Connector connector, Function<Connection, SqlSession> sessionOpener) {
+        this.database = database;
+        this.connector = connector;
+        this.sessionOpener = sessionOpener;
+    }
+
+    void join() {
+        depth++;
+    }
+
+    <M, T> T call(Class<M> type, Database.MapperCall<M, T> call, boolean transactional) throws SQLException {
+        if (session == null) {
+            connection = connector.connect();
+            session = sessionOpener.apply(connection);
+        }
+        boolean ok = false;
+        try {
+            if (transactional) {
+                connection.setAutoCommit(false);
+            }
+            T out = call.apply(session.getMapper(type));
+            if (transactional) {
+                // Straight on the connection: session.commit() would close the cached statements.
+                connection.commit();
+                connection.setAutoCommit(true);
+            }
+            ok = true;
+            return out;
+        } finally {
+            // Results must not outlive the call: other connections keep writing the same rows.
+            if (ok) {
+                session.clearCache();
+            } else {
+                discard();
+            }
+        }
+    }
+
+    private void discard() {
+        SqlSession open = session;
+        session = null;
+        connection = null;
+        if (open != null) {
+            try {
+                open.close();
+            } catch (RuntimeException e) {
+                System.err.println("WARN: unit of work close failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Closes the session and its connection once the outermost holder on this thread closes.
+     */
+    @Override
+    public void close() {
+        if (--depth > 0) {
+            return;
+        }
+        database.release(this);
+        discard();
+    }
+
+    @FunctionalInterface
+    interface Connector {
+        Connection connect() throws SQLException;
+    }
+}
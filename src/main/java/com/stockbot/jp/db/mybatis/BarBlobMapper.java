@@ -0,0 +1,40 @@
+package com.stockbot.jp.db.mybatis;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BarBlobMapper {
+    @Select("SELECT COUNT(*) FROM price_blob WHERE ticker=#{ticker}")
+    int countChunks(@Param("ticker") String ticker);
+
+    @Select("SELECT ticker, trade_date, open, high, low, close, volume " +
+            "FROM price_daily WHERE ticker=#{ticker} AND trade_date>=#{fromDate} ORDER BY trade_date ASC")
+    List<BarDailyRow> selectBarsSince(@Param("ticker") String ticker, @Param("fromDate") LocalDate fromDate);
+
+    @Insert("INSERT INTO price_blob(ticker, year, bar_count, first_date, last_date, payload, updated_at) " +
+            "VALUES(#{ticker}, #{year}, #{barCount}, #{firstDate}, #{lastDate}, #{payload}, now()) " +
+            "ON CONFLICT(ticker, year) DO UPDATE SET bar_count=excluded.bar_count, first_date=excluded.first_date, " +
+            "last_date=excluded.last_date, payload=excluded.payload, updated_at=excluded.updated_at")
+    int upsertChunk(
+            @Param("ticker") String ticker,
+            @Param("year") int year,
+            @Param("barCount") int barCount,
+            @Param("firstDate") LocalDate firstDate,
+            @Param("lastDate") LocalDate lastDate,
+            @Param("payload") byte[] payload
+    );
+
+    /**
+     * Oldest-first chunks covering the newest {@code limit} bars: years are kept while the bars in newer years
+     * are still short of the limit, so older payloads are never sent.
+     */
+    @Select("SELECT year, bar_count, payload FROM (" +
+            "SELECT year, bar_count, payload, SUM(bar_count) OVER (ORDER BY year DESC) - bar_count AS newer_bars " +
+            "FROM price_blob WHERE ticker=#{ticker}" +
+            ") t WHERE newer_bars < #{limit} ORDER BY year ASC")
+    List<BarBlobRow> selectRecentChunks(@Param("ticker") String ticker, @Param("limit") int limit);
+}
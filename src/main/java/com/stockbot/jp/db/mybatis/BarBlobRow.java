@@ -7,7 +7,8 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ScanReasonCountRow {
-    private String value;
-    private int n;
+public class BarBlobRow {
+    private int year;
+    private int barCount;
+    private byte[] payload;
 }
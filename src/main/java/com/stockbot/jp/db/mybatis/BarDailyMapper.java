@@ -39,16 +39,78 @@ public interface BarDailyMapper {
             @Param("offset") int offset
     );
 
+    @Insert("INSERT INTO forward_returns(ticker, trade_date, close, ret_1d, ret_3d, ret_5d, ret_10d, ret_20d, updated_at) " +
+            "SELECT ticker, trade_date, close, " +
+            "(LEAD(close, 1) OVER w - close) * 100.0 / NULLIF(close, 0), " +
+            "(LEAD(close, 3) OVER w - close) * 100.0 / NULLIF(close, 0), " +
+            "(LEAD(close, 5) OVER w - close) * 100.0 / NULLIF(close, 0), " +
+            "(LEAD(close, 10) OVER w - close) * 100.0 / NULLIF(close, 0), " +
+            "(LEAD(close, 20) OVER w - close) * 100.0 / NULLIF(close, 0), now() " +
+            "FROM price_daily WHERE ticker=#{ticker} AND trade_date>=COALESCE((" +
+            "SELECT MIN(trade_date) FROM (SELECT trade_date FROM price_daily " +
+            "WHERE ticker=#{ticker} AND trade_date<#{fromDate} ORDER BY trade_date DESC LIMIT 20) prior_days" +
+            "), #{fromDate}) " +
+            "WINDOW w AS (ORDER BY trade_date) " +
+            "ON CONFLICT(ticker, trade_date) DO UPDATE SET close=excluded.close, ret_1d=excluded.ret_1d, " +
+            "ret_3d=excluded.ret_3d, ret_5d=excluded.ret_5d, ret_10d=excluded.ret_10d, ret_20d=excluded.ret_20d, " +
+            "updated_at=excluded.updated_at")
+    int refreshForwardReturns(@Param("ticker") String ticker, @Param("fromDate") LocalDate fromDate);
+
+    @Select({
+            "<script>",
+            "SELECT q.ord, f.ticker, f.trade_date, f.ret_1d, f.ret_3d, f.ret_5d, f.ret_10d, f.ret_20d FROM (VALUES ",
+            "<foreach collection='keys' item='k' separator=','>",
+            "(#{k.ord}, #{k.ticker}, CAST(#{k.asOf} AS DATE))",
+            "</foreach>",
+            ") AS q(ord, ticker, as_of) CROSS JOIN LATERAL (",
+            "SELECT ticker, trade_date, ret_1d, ret_3d, ret_5d, ret_10d, ret_20d FROM forward_returns ",
+            "WHERE forward_returns.ticker=q.ticker AND forward_returns.trade_date&gt;=q.as_of ",
+            "ORDER BY forward_returns.trade_date ASC LIMIT 1",
+            ") f ORDER BY q.ord",
+            "</script>"
+    })
+    List<ForwardReturnRow> selectForwardReturns(@Param("keys") List<ForwardReturnKey> keys);
+
     @Select({
             "<script>",
             "SELECT COUNT(*) FROM (",
-            "SELECT ticker FROM price_daily WHERE ticker IN ",
+            "SELECT ticker FROM ticker_latest WHERE ticker IN ",
             "<foreach collection='tickers' item='ticker' open='(' separator=',' close=')'>",
             "#{ticker}",
             "</foreach>",
-            "GROUP BY ticker HAVING COUNT(*)&gt;=#{minBars}",
+            "AND bar_count&gt;=#{minBars}",
             ") t",
             "</script>"
     })
     int countTickersWithMinBars(@Param("tickers") List<String> tickers, @Param("minBars") int minBars);
+
+    /**
+     * Recomputes the ticker's ticker_latest row from price_daily; a ticker without bars is left untouched.
+     */
+    @Insert("INSERT INTO ticker_latest(ticker, last_trade_date, bar_count, last_close, avg_volume_20, " +
+            "zero_volume_mask_20, flat_mask_20, has_shape, updated_at) " +
+            "SELECT #{ticker}, a.last_trade_date, a.bar_count, r.last_close, r.avg_volume_20, " +
+            "r.zero_volume_mask_20, r.flat_mask_20, a.has_shape, now() " +
+            "FROM (SELECT MAX(trade_date) AS last_trade_date, COUNT(*) AS bar_count, " +
+            "COALESCE(bool_or((volume > 0 AND volume < 'Infinity'::float8) " +
+            "OR abs(high - low) > 1e-9 OR abs(open - close) > 1e-9), false) AS has_shape " +
+            "FROM price_daily WHERE ticker=#{ticker}) a " +
+            "CROSS JOIN (SELECT MAX(close) FILTER (WHERE rn = 1) AS last_close, AVG(vol) AS avg_volume_20, " +
+            "COALESCE(SUM(CASE WHEN vol <= 0 THEN 1 << (rn - 1) ELSE 0 END), 0)::int AS zero_volume_mask_20, " +
+            "COALESCE(SUM(CASE WHEN abs(open - close) < 1e-9 AND abs(high - low) < 1e-9 " +
+            "THEN 1 << (rn - 1) ELSE 0 END), 0)::int AS flat_mask_20 " +
+            "FROM (SELECT open, high, low, close, " +
+            "CASE WHEN volume > 0 AND volume < 'Infinity'::float8 THEN volume ELSE 0 END AS vol, " +
+            "ROW_NUMBER() OVER (ORDER BY trade_date DESC)::int AS rn " +
+            "FROM price_daily WHERE ticker=#{ticker} ORDER BY trade_date DESC LIMIT 20) recent) r " +
+            "WHERE a.bar_count > 0 " +
+            "ON CONFLICT(ticker) DO UPDATE SET last_trade_date=excluded.last_trade_date, bar_count=excluded.bar_count, " +
+            "last_close=excluded.last_close, avg_volume_20=excluded.avg_volume_20, " +
+            "zero_volume_mask_20=excluded.zero_volume_mask_20, flat_mask_20=excluded.flat_mask_20, " +
+            "has_shape=excluded.has_shape, updated_at=excluded.updated_at")
+    int refreshTickerLatest(@Param("ticker") String ticker);
+
+    @Select("SELECT ticker, last_trade_date, bar_count, last_close, avg_volume_20, zero_volume_mask_20, flat_mask_20, has_shape " +
+            "FROM ticker_latest")
+    List<TickerLatestRow> selectTickerLatest();
 }
@@ -0,0 +1,16 @@
+package com.stockbot.jp.db.mybatis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForwardReturnKey {
+    private int ord;
+    private String ticker;
+    private LocalDate asOf;
+}
@@ -0,0 +1,21 @@
+package com.stockbot.jp.db.mybatis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ForwardReturnRow {
+    private int ord;
+    private String ticker;
+    private LocalDate tradeDate;
+    private Double ret1d;
+    private Double ret3d;
+    private Double ret5d;
+    private Double ret10d;
+    private Double ret20d;
+}
@@ -1,6 +1,7 @@
 package com.stockbot.jp.db.mybatis;
 
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -11,6 +12,11 @@ import java.sql.Connection;
  * Centralized MyBatis bootstrap for JP database mappers.
  */
 public final class MyBatisSupport {
+    /**
+     * Rows queued in a batch session before {@code flushStatements()} sends them.
+     */
+    public static final int BATCH_FLUSH_ROWS = 1000;
+
     private static final SqlSessionFactory FACTORY = buildFactory();
 
     private MyBatisSupport() {
@@ -20,6 +26,24 @@ public final class MyBatisSupport {
         return FACTORY.openSession(connection);
     }
 
+    /**
+     * Session for bulk writes: mapper inserts/updates are queued per statement and sent as one JDBC batch on
+     * {@code flushStatements()}. Callers must flush before committing the connection, and should issue all rows
+     * of one statement before switching to another, since each switch starts a new batch.
+     */
+    public static SqlSession openBatchSession(Connection connection) {
+        return FACTORY.openSession(ExecutorType.BATCH, connection);
+    }
+
+    /**
+     * Session that keeps one JDBC statement per distinct SQL open until it is closed, so a long-lived session on one
+     * connection re-executes the same statements and PgJDBC can switch them to server-side prepared statements.
+     * {@code commit()}, {@code rollback()} and {@code flushStatements()} close the cached statements.
+     */
+    public static SqlSession openReuseSession(Connection connection) {
+        return FACTORY.openSession(ExecutorType.REUSE, connection);
+    }
+
     private static SqlSessionFactory buildFactory() {
         Configuration config = new Configuration();
         config.setMapUnderscoreToCamelCase(true);
@@ -27,9 +51,11 @@ public final class MyBatisSupport {
         config.addMapper(MetadataMapper.class);
         config.addMapper(UniverseMapper.class);
         config.addMapper(BarDailyMapper.class);
+        config.addMapper(BarBlobMapper.class);
         config.addMapper(ScanResultMapper.class);
         config.addMapper(RunMapper.class);
         config.addMapper(NewsItemMapper.class);
+        config.addMapper(NewsSummaryMemoMapper.class);
 
         return new SqlSessionFactoryBuilder().build(config);
     }
@@ -0,0 +1,11 @@
+package com.stockbot.jp.db.mybatis;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class NewsFingerprintRow {
+    private String url;
+    private long fingerprint;
+}
@@ -1,36 +1,44 @@
 package com.stockbot.jp.db.mybatis;
 
-import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
-import java.time.OffsetDateTime;
 import java.util.List;
 
 public interface NewsItemMapper {
-    @Insert("INSERT INTO news_item(url, title, content, source, lang, region, published_at, created_at, updated_at) " +
-            "VALUES(#{url}, #{title}, #{content}, #{source}, #{lang}, #{region}, #{publishedAt}, now(), now()) " +
-            "ON CONFLICT(url) DO UPDATE SET " +
-            "title=excluded.title, " +
-            "content=excluded.content, " +
-            "source=excluded.source, " +
-            "lang=excluded.lang, " +
-            "region=excluded.region, " +
-            "published_at=COALESCE(excluded.published_at, news_item.published_at), " +
-            "embedding=CASE " +
-            "WHEN news_item.title IS DISTINCT FROM excluded.title OR news_item.content IS DISTINCT FROM excluded.content " +
-            "THEN NULL ELSE news_item.embedding END, " +
-            "updated_at=now()")
-    int upsertNewsItem(
-            @Param("url") String url,
-            @Param("title") String title,
-            @Param("content") String content,
-            @Param("source") String source,
-            @Param("lang") String lang,
-            @Param("region") String region,
-            @Param("publishedAt") OffsetDateTime publishedAt
-    );
+    /**
+     * Multi-row upsert that leaves rows with an identical fingerprint untouched; the fingerprint covers every
+     * column written here except the timestamps, so a changed source, lang or region is still written. Returns one
+     * flag per written row: true for inserts, false for updates; skipped rows return nothing.
+     */
+    @Select({
+            "<script>",
+            "INSERT INTO news_item(url, title, content, source, lang, region, published_at, fingerprint, created_at, updated_at) VALUES ",
+            "<foreach collection='items' item='it' separator=','>",
+            "(#{it.url}, #{it.title}, #{it.content}, #{it.source}, #{it.lang}, #{it.region}, #{it.publishedAt}, #{it.fingerprint}, now(), now())",
+            "</foreach>",
+            " ON CONFLICT(url) DO UPDATE SET ",
+            "title=excluded.title, ",
+            "content=excluded.content, ",
+            "source=excluded.source, ",
+            "lang=excluded.lang, ",
+            "region=excluded.region, ",
+            "published_at=COALESCE(excluded.published_at, news_item.published_at), ",
+            "fingerprint=excluded.fingerprint, ",
+            "embedding=CASE ",
+            "WHEN news_item.title IS DISTINCT FROM excluded.title OR news_item.content IS DISTINCT FROM excluded.content ",
+            "THEN NULL ELSE news_item.embedding END, ",
+            "updated_at=now() ",
+            "WHERE news_item.fingerprint IS DISTINCT FROM excluded.fingerprint ",
+            "RETURNING (xmax = 0) AS inserted",
+            "</script>"
+    })
+    List<Boolean> upsertNewsItems(@Param("items") List<NewsItemUpsertParam> items);
+
+    @Select("SELECT url, fingerprint FROM news_item " +
+            "WHERE fingerprint IS NOT NULL AND updated_at >= now() - make_interval(days => #{days})")
+    List<NewsFingerprintRow> selectRecentFingerprints(@Param("days") int days);
 
     @Select("SELECT id, url, title, content, source, lang, region, published_at, " +
             "NULL::text AS embedding_text, 0.0 AS similarity " +
@@ -38,6 +46,9 @@ public interface NewsItemMapper {
             "ORDER BY published_at DESC NULLS LAST, id DESC LIMIT #{limit}")
     List<NewsItemSearchRow> listWithoutEmbedding(@Param("limit") int limit);
 
+    @Select("SELECT COUNT(*) FROM news_item WHERE embedding IS NULL")
+    long countWithoutEmbedding();
+
     @Update("UPDATE news_item SET embedding=CAST(#{vectorLiteral} AS vector), updated_at=now() WHERE id=#{id}")
     int updateEmbedding(@Param("id") long id, @Param("vectorLiteral") String vectorLiteral);
 
@@ -0,0 +1,21 @@
+package com.stockbot.jp.db.mybatis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsItemUpsertParam {
+    private String url;
+    private String title;
+    private String content;
+    private String source;
+    private String lang;
+    private String region;
+    private OffsetDateTime publishedAt;
+    private long fingerprint;
+}
@@ -0,0 +1,34 @@
+package com.stockbot.jp.db.mybatis;
+
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+public interface NewsSummaryMemoMapper {
+    @Select("SELECT summary_html, created_at FROM news_summary_memo " +
+            "WHERE ticker=#{ticker} AND model=#{model} AND prompt_version=#{promptVersion} AND input_hash=#{inputHash} " +
+            "AND created_at >= now() - make_interval(days => #{ttlDays})")
+    NewsSummaryMemoRow selectSummary(
+            @Param("ticker") String ticker,
+            @Param("model") String model,
+            @Param("promptVersion") String promptVersion,
+            @Param("inputHash") String inputHash,
+            @Param("ttlDays") int ttlDays
+    );
+
+    @Insert("INSERT INTO news_summary_memo(ticker, model, prompt_version, input_hash, summary_html, created_at) " +
+            "VALUES(#{ticker}, #{model}, #{promptVersion}, #{inputHash}, #{summaryHtml}, now()) " +
+            "ON CONFLICT(ticker, model, prompt_version, input_hash) DO UPDATE SET " +
+            "summary_html=excluded.summary_html, created_at=excluded.created_at")
+    int upsertSummary(
+            @Param("ticker") String ticker,
+            @Param("model") String model,
+            @Param("promptVersion") String promptVersion,
+            @Param("inputHash") String inputHash,
+            @Param("summaryHtml") String summaryHtml
+    );
+
+    @Delete("DELETE FROM news_summary_memo WHERE created_at < now() - make_interval(days => #{ttlDays})")
+    int deleteOlderThan(@Param("ttlDays") int ttlDays);
+}
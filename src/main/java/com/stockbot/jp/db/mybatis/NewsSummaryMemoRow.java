@@ -0,0 +1,15 @@
+package com.stockbot.jp.db.mybatis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NewsSummaryMemoRow {
+    private String summaryHtml;
+    private OffsetDateTime createdAt;
+}
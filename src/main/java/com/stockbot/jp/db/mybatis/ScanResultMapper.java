@@ -1,9 +1,13 @@
 package com.stockbot.jp.db.mybatis;
 
+import org.apache.ibatis.annotations.Delete;
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 
 public interface ScanResultMapper {
@@ -13,44 +17,83 @@ public interface ScanResultMapper {
             "#{fetchLatencyMs}, #{fetchSuccess}, #{indicatorReady}, #{candidateReady}, #{dataInsufficientReason}, #{failureReason}, #{requestFailureCategory}, #{error}, #{createdAt})")
     int insertScanResult(ScanResultInsertParam row);
 
-    @Select("SELECT COUNT(*) AS total, " +
-            "SUM(CASE WHEN fetch_success THEN 1 ELSE 0 END) AS fetch_coverage, " +
-            "SUM(CASE WHEN indicator_ready THEN 1 ELSE 0 END) AS indicator_coverage, " +
-            "SUM(CASE WHEN LOWER(COALESCE(failure_reason, ''))='filtered_non_tradable' THEN 1 ELSE 0 END) AS ex_filtered_non_tradable, " +
-            "SUM(CASE WHEN LOWER(COALESCE(failure_reason, ''))='history_short' THEN 1 ELSE 0 END) AS ex_history_short, " +
-            "SUM(CASE WHEN LOWER(COALESCE(failure_reason, ''))='stale' THEN 1 ELSE 0 END) AS ex_stale, " +
-            "SUM(CASE WHEN LOWER(COALESCE(failure_reason, ''))='http_404/no_data' OR LOWER(COALESCE(request_failure_category, ''))='no_data' THEN 1 ELSE 0 END) AS ex_no_data, " +
-            "SUM(CASE WHEN NOT (" +
-            "LOWER(COALESCE(failure_reason, ''))='filtered_non_tradable' OR " +
-            "LOWER(COALESCE(failure_reason, ''))='history_short' OR " +
-            "LOWER(COALESCE(failure_reason, ''))='stale' OR " +
-            "LOWER(COALESCE(failure_reason, ''))='http_404/no_data' OR " +
-            "LOWER(COALESCE(request_failure_category, ''))='no_data'" +
-            ") THEN 1 ELSE 0 END) AS tradable_denominator, " +
-            "SUM(CASE WHEN indicator_ready AND NOT (" +
-            "LOWER(COALESCE(failure_reason, ''))='filtered_non_tradable' OR " +
-            "LOWER(COALESCE(failure_reason, ''))='history_short' OR " +
-            "LOWER(COALESCE(failure_reason, ''))='stale' OR " +
-            "LOWER(COALESCE(failure_reason, ''))='http_404/no_data' OR " +
-            "LOWER(COALESCE(request_failure_category, ''))='no_data'" +
-            ") THEN 1 ELSE 0 END) AS tradable_indicator_coverage " +
-            "FROM scan_results WHERE run_id=#{runId}")
-    ScanCoverageRow selectCoverage(@Param("runId") long runId);
-
-    @Select("SELECT failure_reason AS value, COUNT(*) AS n " +
-            "FROM scan_results WHERE run_id=#{runId} AND failure_reason IS NOT NULL AND failure_reason<>'' " +
-            "GROUP BY failure_reason")
-    List<ScanReasonCountRow> selectFailureReasonCounts(@Param("runId") long runId);
-
-    @Select("SELECT request_failure_category AS value, COUNT(*) AS n " +
-            "FROM scan_results WHERE run_id=#{runId} AND request_failure_category IS NOT NULL AND request_failure_category<>'' " +
-            "GROUP BY request_failure_category")
-    List<ScanReasonCountRow> selectRequestFailureCategoryCounts(@Param("runId") long runId);
-
-    @Select("SELECT data_insufficient_reason AS value, COUNT(*) AS n " +
-            "FROM scan_results WHERE run_id=#{runId} AND data_insufficient_reason IS NOT NULL AND data_insufficient_reason<>'' " +
-            "GROUP BY data_insufficient_reason")
-    List<ScanReasonCountRow> selectDataInsufficientReasonCounts(@Param("runId") long runId);
+    /**
+     * Excluded from the tradable denominator: filtered, too short, stale or no data.
+     */
+    String EXCLUDED = "(fr IN ('filtered_non_tradable', 'history_short', 'stale', 'http_404/no_data') OR rfc = 'no_data')";
+
+    /**
+     * One pass over a run's rows: dim 'total' with the coverage columns, then per-value counts for
+     * failure_reason, request_failure_category, data_insufficient_reason and data_source (NULL read as '').
+     */
+    String SUMMARY_COLUMNS = "CASE WHEN GROUPING(failure_reason) = 0 THEN 'failure_reason' " +
+            "WHEN GROUPING(request_failure_category) = 0 THEN 'request_failure_category' " +
+            "WHEN GROUPING(data_insufficient_reason) = 0 THEN 'data_insufficient_reason' " +
+            "WHEN GROUPING(data_source) = 0 THEN 'data_source' ELSE 'total' END AS dim, " +
+            "CASE WHEN GROUPING(failure_reason) = 0 THEN failure_reason " +
+            "WHEN GROUPING(request_failure_category) = 0 THEN request_failure_category " +
+            "WHEN GROUPING(data_insufficient_reason) = 0 THEN data_insufficient_reason " +
+            "WHEN GROUPING(data_source) = 0 THEN data_source ELSE '' END AS value, " +
+            "COUNT(*)::int AS n, " +
+            "COUNT(*) FILTER (WHERE fetch_success)::int AS fetch_coverage, " +
+            "COUNT(*) FILTER (WHERE indicator_ready)::int AS indicator_coverage, " +
+            "COUNT(*) FILTER (WHERE fr = 'filtered_non_tradable')::int AS ex_filtered_non_tradable, " +
+            "COUNT(*) FILTER (WHERE fr = 'history_short')::int AS ex_history_short, " +
+            "COUNT(*) FILTER (WHERE fr = 'stale')::int AS ex_stale, " +
+            "COUNT(*) FILTER (WHERE fr = 'http_404/no_data' OR rfc = 'no_data')::int AS ex_no_data, " +
+            "COUNT(*) FILTER (WHERE NOT " + EXCLUDED + ")::int AS tradable_denominator, " +
+            "COUNT(*) FILTER (WHERE indicator_ready AND NOT " + EXCLUDED + ")::int AS tradable_indicator_coverage ";
+
+    String SUMMARY_SOURCE = "(SELECT run_id, fetch_success, indicator_ready, " +
+            "COALESCE(failure_reason, '') AS failure_reason, " +
+            "COALESCE(request_failure_category, '') AS request_failure_category, " +
+            "COALESCE(data_insufficient_reason, '') AS data_insufficient_reason, " +
+            "COALESCE(data_source, '') AS data_source, " +
+            "LOWER(COALESCE(failure_reason, '')) AS fr, " +
+            "LOWER(COALESCE(request_failure_category, '')) AS rfc " +
+            "FROM scan_results ";
+
+    String SUMMARY_SETS = "GROUPING SETS ((), (failure_reason), (request_failure_category), " +
+            "(data_insufficient_reason), (data_source))";
+
+    @Select("SELECT " + SUMMARY_COLUMNS +
+            "FROM " + SUMMARY_SOURCE + "WHERE run_id=#{runId}) s " +
+            "GROUP BY " + SUMMARY_SETS)
+    List<ScanSummaryRow> selectSummary(@Param("runId") long runId);
+
+    @Select("SELECT dim, value, n, fetch_coverage, indicator_coverage, ex_filtered_non_tradable, ex_history_short, " +
+            "ex_stale, ex_no_data, tradable_denominator, tradable_indicator_coverage " +
+            "FROM scan_result_rollup WHERE run_id=#{runId}")
+    List<ScanSummaryRow> selectRollup(@Param("runId") long runId);
+
+    /**
+     * Stores the summary of every run started before the cutoff that has detail rows and no rollup yet; returns
+     * the number of runs rolled up.
+     */
+    @Select("WITH ins AS (INSERT INTO scan_result_rollup(run_id, dim, value, n, fetch_coverage, indicator_coverage, " +
+            "ex_filtered_non_tradable, ex_history_short, ex_stale, ex_no_data, tradable_denominator, " +
+            "tradable_indicator_coverage) " +
+            "SELECT run_id, " + SUMMARY_COLUMNS +
+            "FROM " + SUMMARY_SOURCE +
+            "WHERE run_id IN (SELECT r.id FROM runs r WHERE r.started_at < #{cutoff} " +
+            "AND NOT EXISTS (SELECT 1 FROM scan_result_rollup x WHERE x.run_id = r.id))) s " +
+            "GROUP BY run_id, " + SUMMARY_SETS + " " +
+            "ON CONFLICT (run_id, dim, value) DO NOTHING RETURNING dim) " +
+            "SELECT COUNT(*) FROM ins WHERE dim = 'total'")
+    int rollupBefore(@Param("cutoff") OffsetDateTime cutoff);
+
+    @Select("SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = to_regclass('scan_results') ORDER BY c.relname")
+    List<String> selectPartitionNames();
+
+    @Update("CREATE TABLE IF NOT EXISTS ${name} PARTITION OF scan_results FOR VALUES FROM ('${from}') TO ('${to}')")
+    int createPartition(@Param("name") String name, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Update("DROP TABLE IF EXISTS ${name}")
+    int dropPartition(@Param("name") String name);
+
+    @Delete("DELETE FROM scan_results_default WHERE created_at < #{cutoff}")
+    int deleteDefaultBefore(@Param("cutoff") OffsetDateTime cutoff);
 
     @Select("SELECT data_source, COUNT(*) AS n FROM scan_results WHERE run_id=#{runId} GROUP BY data_source")
     List<DataSourceCountRow> selectDataSourceCounts(@Param("runId") long runId);
@@ -4,11 +4,17 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+/**
+ * One GROUPING SETS row of a run's scan_results summary, live or from scan_result_rollup. Coverage columns are
+ * read from the {@code dim='total'} row.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ScanCoverageRow {
-    private int total;
+public class ScanSummaryRow {
+    private String dim;
+    private String value;
+    private int n;
     private int fetchCoverage;
     private int indicatorCoverage;
     private int exFilteredNonTradable;
@@ -0,0 +1,21 @@
+package com.stockbot.jp.db.mybatis;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TickerLatestRow {
+    private String ticker;
+    private LocalDate lastTradeDate;
+    private Integer barCount;
+    private Double lastClose;
+    private Double avgVolume20;
+    private Integer zeroVolumeMask20;
+    private Integer flatMask20;
+    private Boolean hasShape;
+}
@@ -0,0 +1,103 @@
+package com.stockbot.jp.model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Daily bars of one ticker as parallel primitive arrays, ascending by trade date. Arrays may be longer than
+ * {@link #size()}; only the first {@code size} entries are valid.
+ */
+public final class BarColumns {
+    public static final BarColumns EMPTY = new BarColumns(0, new int[0], new double[0], new double[0],
+            new double[0], new double[0], new double[0]);
+
+    public final int size;
+    public final int[] epochDays;
+    public final double[] open;
+    public final double[] high;
+    public final double[] low;
+    public final double[] close;
+    public final double[] volume;
+
+    public BarColumns(
+            int size,
+            int[] epochDays,
+            double[] open,
+            double[] high,
+            double[] low,
+            double[] close,
+            double[] volume
+    ) {
+        this.size = size;
+        this.epochDays = epochDays;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    public static BarColumns allocate(int capacity) {
+        int n = Math.max(0, capacity);
+        return new BarColumns(0, new int[n], new double[n], new double[n], new double[n], new double[n], new double[n]);
+    }
+
+    /**
+     * Copies bars with a trade date into columns; input must already be ascending by date without duplicates.
+     */
+    public static BarColumns fromBars(List<BarDaily> bars) {
+        if (bars == null || bars.isEmpty()) {
+            return EMPTY;
+        }
+        BarColumns out = allocate(bars.size());
+        int n = 0;
+        for (BarDaily bar : bars) {
+            if (bar == null || bar.tradeDate == null) {
+                continue;
+            }
+            out.epochDays[n] = (int) bar.tradeDate.toEpochDay();
+            out.open[n] = bar.open;
+            out.high[n] = bar.high;
+            out.low[n] = bar.low;
+            out.close[n] = bar.close;
+            out.volume[n] = bar.volume;
+            n++;
+        }
+        return out.withSize(n);
+    }
+
+    public BarColumns withSize(int newSize) {
+        return new BarColumns(Math.max(0, Math.min(newSize, epochDays.length)), epochDays, open, high, low, close, volume);
+    }
+
+    public LocalDate tradeDate(int index) {
+        return LocalDate.ofEpochDay(epochDays[index]);
+    }
+
+    /**
+     * Last {@code limit} bars as a compact copy.
+     */
+    public BarColumns tail(int limit) {
+        int keep = Math.max(0, Math.min(size, limit));
+        int from = size - keep;
+        return new BarColumns(
+                keep,
+                Arrays.copyOfRange(epochDays, from, size),
+                Arrays.copyOfRange(open, from, size),
+                Arrays.copyOfRange(high, from, size),
+                Arrays.copyOfRange(low, from, size),
+                Arrays.copyOfRange(close, from, size),
+                Arrays.copyOfRange(volume, from, size)
+        );
+    }
+
+    public List<BarDaily> toBars(String ticker) {
+        List<BarDaily> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            out.add(new BarDaily(ticker, tradeDate(i), open[i], high[i], low[i], close[i], volume[i]));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,54 @@
+package com.stockbot.jp.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.OptionalDouble;
+
+/**
+ * Close-to-close forward returns (percent) from the first trading day on or after a date.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PUBLIC)
+@Builder(toBuilder = true)
+public final class ForwardReturn {
+    public final String ticker;
+    public final LocalDate tradeDate;
+    public final Double ret1d;
+    public final Double ret3d;
+    public final Double ret5d;
+    public final Double ret10d;
+    public final Double ret20d;
+
+    public static boolean supports(int tradingDays) {
+        return tradingDays == 1 || tradingDays == 3 || tradingDays == 5 || tradingDays == 10 || tradingDays == 20;
+    }
+
+    public OptionalDouble pct(int tradingDays) {
+        Double value;
+        switch (tradingDays) {
+            case 1:
+                value = ret1d;
+                break;
+            case 3:
+                value = ret3d;
+                break;
+            case 5:
+                value = ret5d;
+                break;
+            case 10:
+                value = ret10d;
+                break;
+            case 20:
+                value = ret20d;
+                break;
+            default:
+                value = null;
+                break;
+        }
+        return value == null || !Double.isFinite(value) ? OptionalDouble.empty() : OptionalDouble.of(value);
+    }
+}
@@ -1,5 +1,6 @@
 package com.stockbot.jp.model;
 
+import com.stockbot.jp.tech.TechScoreResult;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -17,6 +18,26 @@ public final class ScoredCandidate {
     public final double close;
     public final String reasonsJson;
     public final String indicatorsJson;
-}
+    /**
+     * Set by the market scan, which leaves both JSON fields null until the candidate reaches the top list;
+     * null for candidates loaded from the database or a checkpoint.
+     */
+    public final TechScoreResult tech;
 
+    public ScoredCandidate(
+            String ticker,
+            String code,
+            String name,
+            String market,
+            double score,
+            double close,
+            String reasonsJson,
+            String indicatorsJson
+    ) {
+        this(ticker, code, name, market, score, close, reasonsJson, indicatorsJson, null);
+    }
 
+    public boolean jsonPending() {
+        return reasonsJson == null && tech != null;
+    }
+}
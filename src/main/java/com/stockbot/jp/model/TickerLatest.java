@@ -0,0 +1,117 @@
+package com.stockbot.jp.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Per-ticker facts of the stored price history (ticker_latest), enough to decide cache freshness and liquidity
+ * without reading bars. Bit {@code i} of each mask describes the {@code i}-th newest of the last 20 bars.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PUBLIC)
+@Builder(toBuilder = true)
+public final class TickerLatest {
+    public static final int WINDOW = 20;
+
+    public final String ticker;
+    public final LocalDate lastTradeDate;
+    public final int barCount;
+    /**
+     * Close of the newest bar, whatever its value.
+     */
+    public final double lastClose;
+    /**
+     * Mean volume over the newest {@code min(20, barCount)} bars; non-finite or negative volume counts as 0.
+     */
+    public final double avgVolume20;
+    public final int zeroVolumeMask20;
+    /**
+     * Bars with open == close and high == low.
+     */
+    public final int flatMask20;
+    /**
+     * Whether any stored bar has volume or a price range.
+     */
+    public final boolean hasShape;
+
+    public int zeroVolumeDays20() {
+        return Integer.bitCount(zeroVolumeMask20);
+    }
+
+    /**
+     * Flat bars among the newest {@code lookback} bars (at most 20).
+     */
+    public int flatDays(int lookback) {
+        int window = Math.max(0, Math.min(WINDOW, lookback));
+        return Integer.bitCount(flatMask20 & ((1 << window) - 1));
+    }
+
+    /**
+     * Consecutive flat bars ending at the newest one.
+     */
+    public int flatStreak() {
+        return Math.min(Integer.numberOfTrailingZeros(~flatMask20), Math.min(WINDOW, barCount));
+    }
+
+    /**
+     * Same facts computed from bars in memory, ascending by date; null entries count toward the windows but
+     * never set a mask bit.
+     */
+    public static TickerLatest fromBars(String ticker, List<BarDaily> bars) {
+        if (bars == null || bars.isEmpty()) {
+            return new TickerLatest(ticker, null, 0, Double.NaN, 0.0, 0, 0, false);
+        }
+        int n = bars.size();
+        BarDaily last = bars.get(n - 1);
+        LocalDate lastTradeDate = null;
+        boolean hasShape = false;
+        for (int i = n - 1; i >= 0; i--) {
+            BarDaily bar = bars.get(i);
+            if (bar == null) {
+                continue;
+            }
+            if (lastTradeDate == null) {
+                lastTradeDate = bar.tradeDate;
+            }
+            boolean hasVolume = Double.isFinite(bar.volume) && bar.volume > 0.0;
+            boolean hasRange = Math.abs(bar.high - bar.low) > 1e-9 || Math.abs(bar.open - bar.close) > 1e-9;
+            if (hasVolume || hasRange) {
+                hasShape = true;
+                break;
+            }
+        }
+        int window = Math.min(WINDOW, n);
+        double sumVol = 0.0;
+        int zeroMask = 0;
+        int flatMask = 0;
+        for (int k = 0; k < window; k++) {
+            BarDaily bar = bars.get(n - 1 - k);
+            if (bar == null) {
+                continue;
+            }
+            double vol = Double.isFinite(bar.volume) ? Math.max(0.0, bar.volume) : 0.0;
+            sumVol += vol;
+            if (vol <= 0.0) {
+                zeroMask |= 1 << k;
+            }
+            if (Math.abs(bar.open - bar.close) < 1e-9 && Math.abs(bar.high - bar.low) < 1e-9) {
+                flatMask |= 1 << k;
+            }
+        }
+        return new TickerLatest(
+                ticker,
+                last == null ? lastTradeDate : last.tradeDate,
+                n,
+                last == null ? Double.NaN : last.close,
+                sumVol / window,
+                zeroMask,
+                flatMask,
+                hasShape
+        );
+    }
+}
@@ -0,0 +1,79 @@
+package com.stockbot.jp.news;
+
+import java.util.Locale;
+
+/**
+ * Incrementally counts completed top-level {@code <p>} / {@code <ul>} blocks in streamed model output, so a
+ * summary stream can stop once enough sections are closed and be cut back to the last complete block.
+ */
+final class HtmlSectionCounter {
+    private final StringBuilder text = new StringBuilder(1024);
+    private int scanPos;
+    private int depth;
+    private int sections;
+    private int lastSectionEnd = -1;
+
+    /**
+     * Appends one streamed chunk and returns the number of completed top-level sections so far.
+     */
+    int append(String chunk) {
+        if (chunk == null || chunk.isEmpty()) {
+            return sections;
+        }
+        text.append(chunk);
+        while (true) {
+            int open = text.indexOf("<", scanPos);
+            if (open < 0) {
+                scanPos = text.length();
+                return sections;
+            }
+            int close = text.indexOf(">", open);
+            if (close < 0) {
+                scanPos = open;
+                return sections;
+            }
+            onTag(text.substring(open + 1, close), close + 1);
+            scanPos = close + 1;
+        }
+    }
+
+    int sections() {
+        return sections;
+    }
+
+    /**
+     * Text up to the end of the last completed top-level section, or everything when none closed yet.
+     */
+    String completedText() {
+        return lastSectionEnd < 0 ? text.toString() : text.substring(0, lastSectionEnd);
+    }
+
+    String text() {
+        return text.toString();
+    }
+
+    private void onTag(String rawTag, int endOffset) {
+        String tag = rawTag.trim().toLowerCase(Locale.ROOT);
+        boolean closing = tag.startsWith("/");
+        String name = closing ? tag.substring(1).trim() : tag;
+        int space = name.indexOf(' ');
+        if (space > 0) {
+            name = name.substring(0, space);
+        }
+        if (!"p".equals(name) && !"ul".equals(name) && !"ol".equals(name)) {
+            return;
+        }
+        if (!closing) {
+            depth++;
+            return;
+        }
+        if (depth <= 0) {
+            return;
+        }
+        depth--;
+        if (depth == 0) {
+            sections++;
+            lastSectionEnd = endOffset;
+        }
+    }
+}
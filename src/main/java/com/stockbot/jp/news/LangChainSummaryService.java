@@ -1,5 +1,7 @@
 package com.stockbot.jp.news;
 
+import com.stockbot.data.OllamaClient;
+import com.stockbot.data.http.HttpClientEx;
 import com.stockbot.jp.config.Config;
 import dev.langchain4j.model.chat.ChatLanguageModel;
 import dev.langchain4j.model.ollama.OllamaChatModel;
@@ -8,22 +10,60 @@ import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Summarizes clustered events using LangChain4j + Ollama.
+ * Summarizes clustered events using LangChain4j + Ollama. With {@code ai.summary.stream.enabled} the
+ * completion is streamed from /api/generate instead and cut off once enough HTML sections are closed.
  */
 public final class LangChainSummaryService {
     static final String NO_EVENT_HTML = "<p>近期新闻回溯窗口内未发现显著事件聚类。</p>";
+    /**
+     * Bump whenever buildPrompt or the rewrite rules change, so memoized summaries are not reused.
+     */
+    static final String PROMPT_VERSION = "zh-html-v2";
     private final ChatLanguageModel chatModel;
+    private final String modelName;
+    private final OllamaClient streamClient;
+    private final int streamMaxSections;
+    private final long streamDeadlineMs;
+
+    private final AtomicLong streamCalls = new AtomicLong();
+    private final AtomicLong streamEarlyStops = new AtomicLong();
+    private final AtomicLong streamDeadlineStops = new AtomicLong();
+    private final AtomicLong streamErrors = new AtomicLong();
+    private final AtomicLong streamTokens = new AtomicLong();
+    private final AtomicLong streamDecodeMs = new AtomicLong();
+    private final AtomicLong streamTtftSumMs = new AtomicLong();
+    private final AtomicLong streamTtftMaxMs = new AtomicLong();
 
     public LangChainSummaryService(Config config) {
+        this.modelName = config.getString("watchlist.ai.model", "llama3.1:latest");
+        String baseUrl = config.getString("watchlist.ai.base_url", config.getString("ai.base_url", "http://127.0.0.1:11434"));
+        int timeoutSec = Math.max(10, config.getInt("watchlist.ai.timeout_sec", config.getInt("ai.timeout_sec", 180)));
+        this.streamMaxSections = Math.max(1, config.getInt("ai.summary.stream.max_sections", 4));
+        this.streamDeadlineMs = TimeUnit.SECONDS.toMillis(Math.max(1, config.getInt("ai.summary.stream.deadline_sec", 90)));
+        if (config.getBoolean("ai.summary.stream.enabled", true)) {
+            this.streamClient = new OllamaClient(
+                    new HttpClientEx(),
+                    baseUrl,
+                    modelName,
+                    timeoutSec,
+                    Math.max(0, config.getInt("ai.max_tokens", 1200)),
+                    config.getDouble("ai.temperature", 0.2)
+            );
+            this.chatModel = null;
+            return;
+        }
+        this.streamClient = null;
         ChatLanguageModel built;
         try {
             built = OllamaChatModel.builder()
-                    .baseUrl(config.getString("watchlist.ai.base_url", config.getString("ai.base_url", "http://127.0.0.1:11434")))
-                    .modelName(config.getString("watchlist.ai.model", "llama3.1:latest"))
+                    .baseUrl(baseUrl)
+                    .modelName(modelName)
                     .temperature(config.getDouble("ai.temperature", 0.2))
-                    .timeout(Duration.ofSeconds(Math.max(10, config.getInt("watchlist.ai.timeout_sec", config.getInt("ai.timeout_sec", 180)))))
+                    .timeout(Duration.ofSeconds(timeoutSec))
                     .build();
         } catch (Exception e) {
             System.err.println("WARN: failed to initialize LangChain4j Ollama model: " + e.getMessage());
@@ -34,35 +74,144 @@ public final class LangChainSummaryService {
 
     LangChainSummaryService(ChatLanguageModel chatModel) {
         this.chatModel = chatModel;
+        this.modelName = "";
+        this.streamClient = null;
+        this.streamMaxSections = 0;
+        this.streamDeadlineMs = 0L;
+    }
+
+    LangChainSummaryService(OllamaClient streamClient, int streamMaxSections, long streamDeadlineMs) {
+        this.chatModel = null;
+        this.modelName = "";
+        this.streamClient = streamClient;
+        this.streamMaxSections = Math.max(1, streamMaxSections);
+        this.streamDeadlineMs = Math.max(1L, streamDeadlineMs);
+    }
+
+    String modelName() {
+        return modelName;
     }
 
     public String summarize(String ticker, String companyName, List<ClusterInput> clusters) {
         if (clusters == null || clusters.isEmpty()) {
             return NO_EVENT_HTML;
         }
-        if (chatModel == null) {
-            return fallbackSummary(clusters);
+        String generated = generate(ticker, companyName, clusters);
+        return generated == null ? fallbackSummary(clusters) : generated;
+    }
+
+    /**
+     * Model output only: null when the model is unavailable, fails, or does not produce Chinese HTML,
+     * so callers can tell a real summary (worth memoizing) from the outline fallback.
+     */
+    String generate(String ticker, String companyName, List<ClusterInput> clusters) {
+        if (clusters == null || clusters.isEmpty() || (chatModel == null && streamClient == null)) {
+            return null;
         }
 
         String prompt = buildPrompt(ticker, companyName, clusters);
         try {
-            String out = chatModel.generate(prompt);
+            String out = complete(prompt);
             String cleaned = cleanModelOutput(out);
             if (cleaned.isEmpty()) {
-                return fallbackSummary(clusters);
+                return null;
             }
             if (!isMostlyChinese(cleaned)) {
                 String rewritePrompt = buildChineseRewritePrompt(ticker, companyName, cleaned);
-                String rewritten = cleanModelOutput(chatModel.generate(rewritePrompt));
+                String rewritten = cleanModelOutput(complete(rewritePrompt));
                 if (!rewritten.isEmpty() && isMostlyChinese(rewritten)) {
                     return rewritten;
                 }
-                return fallbackSummary(clusters);
+                return null;
             }
             return cleaned;
         } catch (Exception e) {
             System.err.println("WARN: LangChain4j summarize failed ticker=" + safe(ticker) + ", err=" + e.getMessage());
-            return fallbackSummary(clusters);
+            return null;
+        }
+    }
+
+    /**
+     * Streaming counters since the last {@link #resetStreamStats}; empty when streaming is off.
+     */
+    public String streamStatsNote() {
+        long calls = streamCalls.get();
+        if (streamClient == null || calls == 0L) {
+            return "";
+        }
+        long decodeMs = streamDecodeMs.get();
+        return String.format(
+                Locale.US,
+                "stream_calls=%d early_stops=%d deadline_stops=%d stream_errors=%d tokens=%d avg_ttft_ms=%d max_ttft_ms=%d tok_per_sec=%.1f",
+                calls,
+                streamEarlyStops.get(),
+                streamDeadlineStops.get(),
+                streamErrors.get(),
+                streamTokens.get(),
+                streamTtftSumMs.get() / calls,
+                streamTtftMaxMs.get(),
+                decodeMs <= 0L ? 0.0 : streamTokens.get() * 1000.0 / decodeMs
+        );
+    }
+
+    public void resetStreamStats() {
+        streamCalls.set(0L);
+        streamEarlyStops.set(0L);
+        streamDeadlineStops.set(0L);
+        streamErrors.set(0L);
+        streamTokens.set(0L);
+        streamDecodeMs.set(0L);
+        streamTtftSumMs.set(0L);
+        streamTtftMaxMs.set(0L);
+    }
+
+    private String complete(String prompt) {
+        if (streamClient == null) {
+            return chatModel.generate(prompt);
+        }
+        HtmlSectionCounter counter = new HtmlSectionCounter();
+        OllamaClient.StreamResult result = streamClient.generateStream(
+                "",
+                prompt,
+                streamDeadlineMs,
+                chunk -> counter.append(chunk) >= streamMaxSections
+        );
+        recordStream(result);
+        switch (result.stopReason) {
+            case OllamaClient.StreamResult.STOP_DONE:
+                return result.text;
+            case OllamaClient.StreamResult.STOP_CONDITION:
+                return counter.completedText();
+            case OllamaClient.StreamResult.STOP_ERROR:
+                if (counter.sections() == 0) {
+                    throw new IllegalStateException("stream failed: " + result.error);
+                }
+                return counter.completedText();
+            default:
+                return counter.sections() > 0 ? counter.completedText() : "";
+        }
+    }
+
+    private void recordStream(OllamaClient.StreamResult result) {
+        streamCalls.incrementAndGet();
+        streamTokens.addAndGet(result.tokens);
+        if (result.ttftMs >= 0L) {
+            streamTtftSumMs.addAndGet(result.ttftMs);
+            streamTtftMaxMs.accumulateAndGet(result.ttftMs, Math::max);
+            streamDecodeMs.addAndGet(Math.max(0L, result.elapsedMs - result.ttftMs));
+        }
+        switch (result.stopReason) {
+            case OllamaClient.StreamResult.STOP_CONDITION:
+                streamEarlyStops.incrementAndGet();
+                break;
+            case OllamaClient.StreamResult.STOP_DEADLINE:
+                streamDeadlineStops.incrementAndGet();
+                break;
+            case OllamaClient.StreamResult.STOP_ERROR:
+                streamErrors.incrementAndGet();
+                break;
+            default:
+                break;
         }
     }
 
@@ -116,6 +265,16 @@ public final class LangChainSummaryService {
         return sb.toString();
     }
 
+    /**
+     * Cluster outline used when the model is unavailable, fails, or the run's AI budget is spent.
+     */
+    String fallback(List<ClusterInput> clusters) {
+        if (clusters == null || clusters.isEmpty()) {
+            return NO_EVENT_HTML;
+        }
+        return fallbackSummary(clusters);
+    }
+
     private String fallbackSummary(List<ClusterInput> clusters) {
         StringBuilder sb = new StringBuilder(512);
         sb.append("<p><strong>新闻事件聚类要点：</strong></p><ul>");
@@ -214,10 +373,19 @@ public final class LangChainSummaryService {
     public static final class ClusterInput {
         public final String label;
         public final List<String> items;
+        /**
+         * Identity of every member item (e.g. urls), including those not shown in the prompt; memo key only.
+         */
+        public final List<String> memberKeys;
 
         public ClusterInput(String label, List<String> items) {
+            this(label, items, List.of());
+        }
+
+        public ClusterInput(String label, List<String> items, List<String> memberKeys) {
             this.label = label == null ? "" : label;
             this.items = items == null ? List.of() : new ArrayList<>(items);
+            this.memberKeys = memberKeys == null ? List.of() : new ArrayList<>(memberKeys);
         }
     }
 }
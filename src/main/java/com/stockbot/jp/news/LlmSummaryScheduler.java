@@ -0,0 +1,185 @@
+package com.stockbot.jp.news;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Run-scoped queue for LLM summary jobs. Jobs run on a fixed number of workers (match the local Ollama
+ * parallelism), highest priority first, and share one wall-clock budget per run: jobs that would start after
+ * the budget, or are still unfinished when it is awaited past the deadline, resolve to their fallback.
+ */
+public final class LlmSummaryScheduler {
+    private final int parallelism;
+    private final long budgetNanos;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile long deadlineNanos;
+
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger generated = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger budgetFallbacks = new AtomicInteger();
+    private final AtomicLong queueWaitNanos = new AtomicLong();
+    private final AtomicLong maxQueueWaitNanos = new AtomicLong();
+    private final AtomicLong generationNanos = new AtomicLong();
+
+    public LlmSummaryScheduler(int parallelism, int budgetSec) {
+        this.parallelism = Math.max(1, parallelism);
+        this.budgetNanos = TimeUnit.SECONDS.toNanos(Math.max(1, budgetSec));
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                this.parallelism,
+                this.parallelism,
+                30L,
+                TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "llm-summary-" + threadNo.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        beginRun();
+    }
+
+    /**
+     * Starts a new budget window and resets the counters.
+     */
+    public void beginRun() {
+        deadlineNanos = System.nanoTime() + budgetNanos;
+        submitted.set(0);
+        generated.set(0);
+        failed.set(0);
+        budgetFallbacks.set(0);
+        queueWaitNanos.set(0L);
+        maxQueueWaitNanos.set(0L);
+        generationNanos.set(0L);
+    }
+
+    /**
+     * Queues one job; a higher {@code priority} runs earlier. {@code generate} exceptions resolve to fallback.
+     */
+    public CompletableFuture<String> submit(double priority, Supplier<String> generate, Supplier<String> fallback) {
+        submitted.incrementAndGet();
+        Job job = new Job(Double.isFinite(priority) ? priority : 0.0, sequence.incrementAndGet(), generate, fallback);
+        executor.execute(job);
+        return job.future;
+    }
+
+    /**
+     * Waits for the job until the run deadline; afterwards resolves it to {@code fallback} instead.
+     */
+    public String await(CompletableFuture<String> future, Supplier<String> fallback) {
+        if (future == null) {
+            return fallback.get();
+        }
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining <= 0L && !future.isDone()) {
+            return expire(future, fallback);
+        }
+        try {
+            return future.get(Math.max(0L, remaining), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return expire(future, fallback);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return expire(future, fallback);
+        } catch (ExecutionException e) {
+            return fallback.get();
+        }
+    }
+
+    private String expire(CompletableFuture<String> future, Supplier<String> fallback) {
+        String value = fallback.get();
+        budgetFallbacks.incrementAndGet();
+        if (future.complete(value)) {
+            return value;
+        }
+        budgetFallbacks.decrementAndGet();
+        return future.getNow(value);
+    }
+
+    public long queueWaitMs() {
+        return TimeUnit.NANOSECONDS.toMillis(queueWaitNanos.get());
+    }
+
+    public long generationMs() {
+        return TimeUnit.NANOSECONDS.toMillis(generationNanos.get());
+    }
+
+    public String statsNote() {
+        return String.format(
+                Locale.US,
+                "llm_jobs=%d generated=%d failed=%d budget_fallbacks=%d parallelism=%d queue_wait_ms=%d max_queue_wait_ms=%d generation_ms=%d",
+                submitted.get(),
+                generated.get(),
+                failed.get(),
+                budgetFallbacks.get(),
+                parallelism,
+                queueWaitMs(),
+                TimeUnit.NANOSECONDS.toMillis(maxQueueWaitNanos.get()),
+                generationMs()
+        );
+    }
+
+    private final class Job implements Runnable, Comparable<Job> {
+        private final double priority;
+        private final long seq;
+        private final Supplier<String> generate;
+        private final Supplier<String> fallback;
+        private final long enqueuedNanos = System.nanoTime();
+        private final CompletableFuture<String> future = new CompletableFuture<>();
+
+        private Job(double priority, long seq, Supplier<String> generate, Supplier<String> fallback) {
+            this.priority = priority;
+            this.seq = seq;
+            this.generate = generate;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public void run() {
+            if (future.isDone()) {
+                return;
+            }
+            long started = System.nanoTime();
+            long waited = started - enqueuedNanos;
+            queueWaitNanos.addAndGet(waited);
+            maxQueueWaitNanos.accumulateAndGet(waited, Math::max);
+            if (started - deadlineNanos >= 0L) {
+                // Counted before completing, so a caller woken by the future sees it in statsNote().
+                budgetFallbacks.incrementAndGet();
+                if (!future.complete(fallback.get())) {
+                    budgetFallbacks.decrementAndGet();
+                }
+                return;
+            }
+            String value;
+            try {
+                value = generate.get();
+                generated.incrementAndGet();
+            } catch (RuntimeException e) {
+                failed.incrementAndGet();
+                value = fallback.get();
+            } finally {
+                generationNanos.addAndGet(System.nanoTime() - started);
+            }
+            future.complete(value);
+        }
+
+        @Override
+        public int compareTo(Job other) {
+            int byPriority = Double.compare(other.priority, priority);
+            return byPriority != 0 ? byPriority : Long.compare(seq, other.seq);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.stockbot.jp.news;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiPredicate;
+
+/**
+ * Near-duplicate detection and greedy clustering over pre-normalized news embeddings.
+ * Small inputs use an exact scan; larger inputs only score candidates that share a
+ * random-hyperplane LSH band bucket with the probe vector.
+ */
+public final class NewsClusterEngine {
+    static final int DEFAULT_EXACT_SCAN_MAX_ITEMS = 256;
+    private static final long HYPERPLANE_SEED = 0x5EEDC0DEL;
+    private static final double TARGET_RECALL = 0.999;
+    private static final int MAX_SIGNATURE_BITS = 128;
+    private static final int MAX_ROWS_PER_BAND = 16;
+
+    private final int exactScanMaxItems;
+    private final long seed;
+    private final Map<String, HyperplaneLsh> hyperplanes = new ConcurrentHashMap<>();
+
+    public NewsClusterEngine() {
+        this(DEFAULT_EXACT_SCAN_MAX_ITEMS);
+    }
+
+    public NewsClusterEngine(int exactScanMaxItems) {
+        this(exactScanMaxItems, HYPERPLANE_SEED);
+    }
+
+    NewsClusterEngine(int exactScanMaxItems, long seed) {
+        this.exactScanMaxItems = Math.max(0, exactScanMaxItems);
+        this.seed = seed;
+    }
+
+    /**
+     * Keeps the first item of every near-duplicate group in input order, replacing the kept
+     * representative whenever {@code prefer.test(next, kept)} holds.
+     */
+    public List<NewsItemDao.NewsItemRecord> deduplicate(
+            List<NewsItemDao.NewsItemRecord> orderedItems,
+            double threshold,
+            BiPredicate<NewsItemDao.NewsItemRecord, NewsItemDao.NewsItemRecord> prefer
+    ) {
+        List<NewsItemDao.NewsItemRecord> kept = new ArrayList<>();
+        if (orderedItems == null || orderedItems.isEmpty()) {
+            return kept;
+        }
+        SlotIndex index = newIndex(orderedItems, threshold);
+        for (NewsItemDao.NewsItemRecord item : orderedItems) {
+            if (item == null) {
+                continue;
+            }
+            float[] unit = normalize(item.getEmbedding());
+            int duplicateIdx = -1;
+            if (unit != null) {
+                BitSet candidates = index.candidates(unit, kept.size());
+                for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                    if (dot(unit, index.vector(i)) >= threshold) {
+                        duplicateIdx = i;
+                        break;
+                    }
+                }
+            }
+            if (duplicateIdx < 0) {
+                kept.add(item);
+                index.put(kept.size() - 1, unit);
+            } else if (prefer.test(item, kept.get(duplicateIdx))) {
+                kept.set(duplicateIdx, item);
+                index.put(duplicateIdx, unit);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Assigns every item to the most similar existing centroid at or above {@code threshold},
+     * or opens a new cluster. Clusters are returned in creation order.
+     */
+    public List<WatchlistNewsPipeline.NewsCluster> cluster(List<NewsItemDao.NewsItemRecord> items, double threshold) {
+        List<WatchlistNewsPipeline.NewsCluster> clusters = new ArrayList<>();
+        if (items == null || items.isEmpty()) {
+            return clusters;
+        }
+        SlotIndex index = newIndex(items, threshold);
+        for (NewsItemDao.NewsItemRecord item : items) {
+            if (item == null) {
+                continue;
+            }
+            float[] unit = normalize(item.getEmbedding());
+            int best = -1;
+            double bestSim = -1.0;
+            if (unit != null) {
+                BitSet candidates = index.candidates(unit, clusters.size());
+                for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                    double sim = dot(unit, index.vector(i));
+                    if (sim >= threshold && sim > bestSim) {
+                        best = i;
+                        bestSim = sim;
+                    }
+                }
+            }
+            if (best < 0) {
+                WatchlistNewsPipeline.NewsCluster created = WatchlistNewsPipeline.NewsCluster.from(item);
+                clusters.add(created);
+                index.put(clusters.size() - 1, normalize(created.centroid));
+            } else {
+                WatchlistNewsPipeline.NewsCluster target = clusters.get(best);
+                target.add(item);
+                index.put(best, normalize(target.centroid));
+            }
+        }
+        return clusters;
+    }
+
+    /**
+     * Returns "exact" or "lsh" depending on which path an input of this size takes.
+     */
+    public String modeFor(int itemCount) {
+        return itemCount <= exactScanMaxItems ? "exact" : "lsh";
+    }
+
+    /**
+     * Dot product with four independent accumulators so the JIT can pipeline the loop.
+     * Inputs are expected to be unit length; mismatched lengths use the common prefix.
+     */
+    static double dot(float[] a, float[] b) {
+        if (a == null || b == null) {
+            return 0.0;
+        }
+        int size = Math.min(a.length, b.length);
+        int bound = size - (size & 3);
+        double s0 = 0.0;
+        double s1 = 0.0;
+        double s2 = 0.0;
+        double s3 = 0.0;
+        int i = 0;
+        for (; i < bound; i += 4) {
+            s0 += (double) a[i] * b[i];
+            s1 += (double) a[i + 1] * b[i + 1];
+            s2 += (double) a[i + 2] * b[i + 2];
+            s3 += (double) a[i + 3] * b[i + 3];
+        }
+        for (; i < size; i++) {
+            s0 += (double) a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Returns a unit-length copy, or null when the vector is missing or all zero.
+     */
+    static float[] normalize(float[] vector) {
+        if (vector == null || vector.length == 0) {
+            return null;
+        }
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += (double) v * v;
+        }
+        if (!(norm > 0.0) || !Double.isFinite(norm)) {
+            return null;
+        }
+        double scale = 1.0 / Math.sqrt(norm);
+        float[] out = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            out[i] = (float) (vector[i] * scale);
+        }
+        return out;
+    }
+
+    private SlotIndex newIndex(List<NewsItemDao.NewsItemRecord> items, double threshold) {
+        int dim = 0;
+        for (NewsItemDao.NewsItemRecord item : items) {
+            if (item != null && item.getEmbedding() != null) {
+                dim = Math.max(dim, item.getEmbedding().length);
+            }
+        }
+        if (items.size() <= exactScanMaxItems || dim == 0) {
+            return new SlotIndex(null);
+        }
+        int lshDim = dim;
+        HyperplaneLsh lsh = hyperplanes.computeIfAbsent(
+                lshDim + ":" + threshold,
+                ignored -> new HyperplaneLsh(lshDim, threshold, seed)
+        );
+        return new SlotIndex(lsh);
+    }
+
+    /**
+     * Slot-addressed unit vectors plus optional LSH buckets; slot ids mirror list indexes.
+     */
+    private static final class SlotIndex {
+        private final HyperplaneLsh lsh;
+        private final List<float[]> vectors = new ArrayList<>();
+        private final List<long[]> keys = new ArrayList<>();
+        private final Map<Long, BitSet> buckets = new HashMap<>();
+
+        private SlotIndex(HyperplaneLsh lsh) {
+            this.lsh = lsh;
+        }
+
+        float[] vector(int slot) {
+            return vectors.get(slot);
+        }
+
+        void put(int slot, float[] unit) {
+            while (vectors.size() <= slot) {
+                vectors.add(null);
+                keys.add(null);
+            }
+            if (lsh != null) {
+                long[] old = keys.get(slot);
+                if (old != null) {
+                    for (long key : old) {
+                        BitSet bucket = buckets.get(key);
+                        if (bucket != null) {
+                            bucket.clear(slot);
+                        }
+                    }
+                }
+                long[] next = unit == null ? null : lsh.bandKeys(unit);
+                if (next != null) {
+                    for (long key : next) {
+                        buckets.computeIfAbsent(key, ignored -> new BitSet()).set(slot);
+                    }
+                }
+                keys.set(slot, next);
+            }
+            vectors.set(slot, unit);
+        }
+
+        BitSet candidates(float[] unit, int slotCount) {
+            BitSet out = new BitSet(slotCount);
+            if (lsh == null) {
+                for (int i = 0; i < slotCount; i++) {
+                    if (vectors.get(i) != null) {
+                        out.set(i);
+                    }
+                }
+                return out;
+            }
+            for (long key : lsh.bandKeys(unit)) {
+                BitSet bucket = buckets.get(key);
+                if (bucket != null) {
+                    out.or(bucket);
+                }
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Random-hyperplane (SimHash) signatures split into bands. Rows per band are chosen so a
+     * pair exactly at the threshold still collides in at least one band with ~99.9% probability.
+     */
+    static final class HyperplaneLsh {
+        private final int rows;
+        private final int bands;
+        private final float[][] planes;
+
+        HyperplaneLsh(int dim, double threshold, long seed) {
+            double t = Math.max(-1.0, Math.min(1.0, threshold));
+            double bitAgree = 1.0 - Math.acos(t) / Math.PI;
+            int chosenRows = 1;
+            int chosenBands = MAX_SIGNATURE_BITS;
+            for (int r = MAX_ROWS_PER_BAND; r >= 1; r--) {
+                double bandHit = Math.pow(bitAgree, r);
+                int b = bandHit >= 1.0
+                        ? 1
+                        : (int) Math.ceil(Math.log(1.0 - TARGET_RECALL) / Math.log(1.0 - bandHit));
+                if ((long) b * r <= MAX_SIGNATURE_BITS) {
+                    chosenRows = r;
+                    chosenBands = Math.max(1, b);
+                    break;
+                }
+            }
+            this.rows = chosenRows;
+            this.bands = Math.min(chosenBands, MAX_SIGNATURE_BITS / chosenRows);
+            Random random = new Random(seed);
+            this.planes = new float[rows * bands][dim];
+            for (float[] plane : planes) {
+                for (int i = 0; i < dim; i++) {
+                    plane[i] = (float) random.nextGaussian();
+                }
+            }
+        }
+
+        int rows() {
+            return rows;
+        }
+
+        int bands() {
+            return bands;
+        }
+
+        long[] bandKeys(float[] unit) {
+            long[] out = new long[bands];
+            int plane = 0;
+            for (int b = 0; b < bands; b++) {
+                long bits = 0L;
+                for (int r = 0; r < rows; r++, plane++) {
+                    if (dot(unit, planes[plane]) >= 0.0) {
+                        bits |= 1L << r;
+                    }
+                }
+                out[b] = ((long) b << 32) | bits;
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.stockbot.jp.news;
+
+import com.stockbot.data.http.HttpClientEx;
+import com.stockbot.jp.config.Config;
+import com.stockbot.jp.db.MetadataDao;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Background feed poller for daemon mode. Between report runs it re-polls the last planned watchlist feeds
+ * with conditional GETs, upserts changed items into news_item and embeds the backlog, so the report run can
+ * read already-indexed news instead of fetching inline.
+ */
+public final class NewsFeedPoller {
+    static final String META_PLAN = "news.poll.plan";
+    static final String META_STATUS = "news.poll.status";
+
+    private final Config config;
+    private final NewsItemDao newsItemDao;
+    private final MetadataDao metadataDao;
+    private final NewsIngestor newsIngestor;
+    private final OllamaEmbeddingService embeddingService;
+
+    public NewsFeedPoller(Config config, HttpClientEx httpClient, NewsItemDao newsItemDao, MetadataDao metadataDao) {
+        this.config = config;
+        this.newsItemDao = newsItemDao;
+        this.metadataDao = metadataDao;
+        this.newsIngestor = new NewsIngestor(config, httpClient, newsItemDao);
+        this.embeddingService = new OllamaEmbeddingService(config, httpClient, newsItemDao);
+    }
+
+    /**
+     * Polls every planned feed once, embeds up to {@code news.poll.embed_batch} pending items and records the
+     * outcome. Returns false when there is no plan yet (no report run has happened).
+     */
+    public boolean pollOnce() {
+        long started = System.nanoTime();
+        Map<String, List<String>> plan = loadPlan(metadataDao);
+        if (plan.isEmpty()) {
+            return false;
+        }
+        String lang = config.getString("watchlist.news.lang", "ja");
+        String region = config.getString("watchlist.news.region", "JP");
+        NewsIngestor.PollResult result = newsIngestor.poll(plan, lang, region);
+        int embedded = embeddingService.embedMissing(Math.max(1, config.getInt("news.poll.embed_batch", 200)));
+        long backlog = -1L;
+        try {
+            backlog = newsItemDao.countWithoutEmbedding();
+        } catch (Exception e) {
+            System.err.println("WARN: news poll backlog count failed err=" + e.getMessage());
+        }
+        long elapsedMs = (System.nanoTime() - started) / 1_000_000L;
+
+        JSONObject status = new JSONObject();
+        status.put("completed_at", Instant.now().toString());
+        status.put("tickers", new JSONArray(plan.keySet()));
+        status.put("feeds", result.getFeeds());
+        status.put("not_modified", result.getNotModified());
+        status.put("changed", result.getChanged());
+        status.put("failed", result.getFailed());
+        status.put("upserted", result.getUpserted());
+        status.put("unchanged_items", result.getUnchangedItems());
+        status.put("embedded", embedded);
+        status.put("backlog", backlog);
+        status.put("elapsed_ms", elapsedMs);
+        try {
+            metadataDao.put(META_STATUS, status.toString());
+        } catch (Exception e) {
+            System.err.println("WARN: news poll status write failed err=" + e.getMessage());
+        }
+        System.out.println(String.format(
+                Locale.US,
+                "[NEWS_POLL] tickers=%d feeds=%d not_modified=%d changed=%d failed=%d upserted=%d unchanged_items=%d embedded=%d backlog=%d elapsed_ms=%d",
+                plan.size(),
+                result.getFeeds(),
+                result.getNotModified(),
+                result.getChanged(),
+                result.getFailed(),
+                result.getUpserted(),
+                result.getUnchangedItems(),
+                embedded,
+                backlog,
+                elapsedMs
+        ));
+        return true;
+    }
+
+    /**
+     * Persists the report run's ticker -> queries plan so the poller knows which feeds to keep warm.
+     */
+    public static void savePlan(MetadataDao metadataDao, Map<String, List<String>> queriesByTicker) {
+        if (metadataDao == null || queriesByTicker == null || queriesByTicker.isEmpty()) {
+            return;
+        }
+        JSONObject root = new JSONObject();
+        for (Map.Entry<String, List<String>> entry : queriesByTicker.entrySet()) {
+            root.put(entry.getKey(), new JSONArray(entry.getValue() == null ? List.of() : entry.getValue()));
+        }
+        try {
+            metadataDao.put(META_PLAN, root.toString());
+        } catch (Exception e) {
+            System.err.println("WARN: news poll plan write failed err=" + e.getMessage());
+        }
+    }
+
+    static Map<String, List<String>> loadPlan(MetadataDao metadataDao) {
+        Map<String, List<String>> out = new LinkedHashMap<>();
+        try {
+            Optional<String> raw = metadataDao.get(META_PLAN);
+            if (raw.isEmpty() || raw.get().isBlank()) {
+                return out;
+            }
+            JSONObject root = new JSONObject(raw.get());
+            for (String ticker : root.keySet()) {
+                JSONArray arr = root.optJSONArray(ticker);
+                List<String> queries = new ArrayList<>();
+                for (int i = 0; arr != null && i < arr.length(); i++) {
+                    queries.add(arr.optString(i, ""));
+                }
+                out.put(ticker, queries);
+            }
+        } catch (Exception e) {
+            System.err.println("WARN: news poll plan read failed err=" + e.getMessage());
+        }
+        return out;
+    }
+
+    /**
+     * Returns the last completed poll when it is at most {@code maxLag} old and covers every requested ticker.
+     */
+    public static Optional<Status> freshStatus(MetadataDao metadataDao, Iterable<String> tickers, Duration maxLag) {
+        if (metadataDao == null) {
+            return Optional.empty();
+        }
+        try {
+            Optional<String> raw = metadataDao.get(META_STATUS);
+            if (raw.isEmpty() || raw.get().isBlank()) {
+                return Optional.empty();
+            }
+            Status status = Status.fromJson(new JSONObject(raw.get()));
+            if (status.lag().compareTo(maxLag) > 0) {
+                return Optional.empty();
+            }
+            for (String ticker : tickers) {
+                if (!status.tickers.contains(ticker)) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(status);
+        } catch (Exception e) {
+            System.err.println("WARN: news poll status read failed err=" + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public static final class Status {
+        public final Instant completedAt;
+        public final List<String> tickers;
+        public final long backlog;
+
+        Status(Instant completedAt, List<String> tickers, long backlog) {
+            this.completedAt = completedAt;
+            this.tickers = tickers == null ? List.of() : List.copyOf(tickers);
+            this.backlog = backlog;
+        }
+
+        public Duration lag() {
+            return Duration.between(completedAt, Instant.now());
+        }
+
+        public String note() {
+            return String.format(Locale.US, "source=poller poll_lag_sec=%d backlog=%d", lag().getSeconds(), backlog);
+        }
+
+        static Status fromJson(JSONObject json) {
+            List<String> tickers = new ArrayList<>();
+            JSONArray arr = json.optJSONArray("tickers");
+            for (int i = 0; arr != null && i < arr.length(); i++) {
+                tickers.add(arr.optString(i, ""));
+            }
+            return new Status(Instant.parse(json.getString("completed_at")), tickers, json.optLong("backlog", -1L));
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.stockbot.jp.news;
+
+import com.stockbot.data.http.HttpClientEx;
+import com.stockbot.data.rss.RssParser;
+import com.stockbot.model.NewsItem;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Run-scoped RSS fetcher shared by every watchlist ticker. Identical feed URLs are fetched once per run
+ * on one bounded executor, and each host gets its own concurrency cap. Fetches over a host's cap wait in that
+ * host's queue rather than on an executor thread, so a slow host never holds workers other hosts could use.
+ */
+final class NewsFetchPlanner {
+    private final HttpClientEx httpClient;
+    private final int perHostLimit;
+    private final long cacheTtlNanos;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, HostQueue> hostQueues = new ConcurrentHashMap<>();
+    private final Map<String, CachedFetch> fetches = new ConcurrentHashMap<>();
+    private final Map<String, HttpClientEx.ConditionalResponse> validators = new ConcurrentHashMap<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicLong unique = new AtomicLong();
+
+    NewsFetchPlanner(HttpClientEx httpClient, int maxConcurrency, int perHostLimit, int cacheTtlSec) {
+        this.httpClient = httpClient;
+        this.perHostLimit = Math.max(1, perHostLimit);
+        this.cacheTtlNanos = TimeUnit.SECONDS.toNanos(Math.max(1, cacheTtlSec));
+        int threads = Math.max(1, maxConcurrency);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                30L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "news-fetch-" + threadNo.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Drops cached feeds and counters; call once at the start of each run.
+     */
+    void beginRun() {
+        fetches.clear();
+        requested.set(0L);
+        unique.set(0L);
+    }
+
+    /**
+     * Returns the shared result for this feed, starting the fetch only if no caller in the run asked for it yet.
+     */
+    CompletableFuture<List<NewsItem>> fetch(String url, int limit, int timeoutSec) {
+        requested.incrementAndGet();
+        return obtain(url, limit, timeoutSec);
+    }
+
+    /**
+     * Starts a fetch ahead of time without counting it as a request.
+     */
+    void prefetch(String url, int limit, int timeoutSec) {
+        obtain(url, limit, timeoutSec);
+    }
+
+    private CompletableFuture<List<NewsItem>> obtain(String url, int limit, int timeoutSec) {
+        String key = url + "#" + Math.max(1, limit);
+        long now = System.nanoTime();
+        CachedFetch cached = fetches.compute(key, (ignored, old) -> {
+            if (old != null && now - old.createdNanos < cacheTtlNanos) {
+                return old;
+            }
+            unique.incrementAndGet();
+            return new CachedFetch(
+                    submit(url, () -> load(url, limit, timeoutSec)),
+                    now
+            );
+        });
+        return cached.future;
+    }
+
+    long requestedCount() {
+        return requested.get();
+    }
+
+    long uniqueCount() {
+        return unique.get();
+    }
+
+    String statsNote() {
+        long total = requested.get();
+        long fetched = unique.get();
+        return String.format(
+                Locale.US,
+                "feeds_requested=%d feeds_unique=%d feeds_shared=%d",
+                total,
+                fetched,
+                Math.max(0L, total - fetched)
+        );
+    }
+
+    /**
+     * Conditional fetch for the background poller. ETag/Last-Modified validators are remembered per URL for the
+     * planner's lifetime (not per run), so an unchanged feed costs a single 304 round trip.
+     */
+    CompletableFuture<FeedPoll> poll(String url, int limit, int timeoutSec) {
+        return submit(url, () -> loadConditional(url, limit, timeoutSec));
+    }
+
+    private <T> CompletableFuture<T> submit(String url, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        hostQueues.computeIfAbsent(hostOf(url), ignored -> new HostQueue()).offer(() -> {
+            try {
+                future.complete(task.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    private FeedPoll loadConditional(String url, int limit, int timeoutSec) {
+        if (httpClient == null) {
+            return FeedPoll.failed();
+        }
+        try {
+            HttpClientEx.ConditionalResponse previous = validators.get(url);
+            HttpClientEx.ConditionalResponse resp = httpClient.getConditional(
+                    url,
+                    timeoutSec,
+                    previous == null ? null : previous.etag,
+                    previous == null ? null : previous.lastModified
+            );
+            if (resp.notModified) {
+                return new FeedPoll(true, false, List.of());
+            }
+            List<NewsItem> items = RssParser.parse(resp.body, Math.max(1, limit));
+            if (resp.etag != null || resp.lastModified != null) {
+                validators.put(url, new HttpClientEx.ConditionalResponse(false, "", resp.etag, resp.lastModified));
+            }
+            return new FeedPoll(false, false, items);
+        } catch (Exception ignored) {
+            return FeedPoll.failed();
+        }
+    }
+
+    private List<NewsItem> load(String url, int limit, int timeoutSec) {
+        if (httpClient == null) {
+            return List.of();
+        }
+        try {
+            return httpClient.getStream(url, timeoutSec, null, body -> RssParser.parse(body, Math.max(1, limit)));
+        } catch (Exception ignored) {
+            return List.of();
+        }
+    }
+
+    private String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            return host == null ? "" : host.toLowerCase(Locale.ROOT);
+        } catch (Exception ignored) {
+            return "";
+        }
+    }
+
+    /**
+     * Fetches of one host: at most {@code perHostLimit} are on the executor, the rest wait here and are handed to it
+     * as running ones finish.
+     */
+    private final class HostQueue {
+        private final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+
+        void offer(Runnable task) {
+            synchronized (this) {
+                if (running >= perHostLimit) {
+                    waiting.add(task);
+                    return;
+                }
+                running++;
+            }
+            start(task);
+        }
+
+        private void start(Runnable task) {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } finally {
+                    next();
+                }
+            });
+        }
+
+        private void next() {
+            Runnable task;
+            synchronized (this) {
+                task = waiting.poll();
+                if (task == null) {
+                    running--;
+                    return;
+                }
+            }
+            start(task);
+        }
+    }
+
+    static final class FeedPoll {
+        final boolean notModified;
+        final boolean failed;
+        final List<NewsItem> items;
+
+        private FeedPoll(boolean notModified, boolean failed, List<NewsItem> items) {
+            this.notModified = notModified;
+            this.failed = failed;
+            this.items = items == null ? List.of() : items;
+        }
+
+        static FeedPoll failed() {
+            return new FeedPoll(false, true, List.of());
+        }
+    }
+
+    private static final class CachedFetch {
+        private final CompletableFuture<List<NewsItem>> future;
+        private final long createdNanos;
+
+        private CachedFetch(CompletableFuture<List<NewsItem>> future, long createdNanos) {
+            this.future = future;
+            this.createdNanos = createdNanos;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.stockbot.jp.news;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.OffsetDateTime;
+import java.util.Locale;
+
+/**
+ * Exact in-memory set of (url, fingerprint) keys already stored in news_item, so unchanged items can be
+ * dropped before they reach the database. Keys are 64-bit hashes in an open-addressing table; the set is
+ * cleared when it reaches {@code maxEntries}, after which the database-side fingerprint guard still applies.
+ */
+final class NewsFingerprintCache {
+    private static final long EMPTY = 0L;
+
+    private final int maxEntries;
+    private long[] table;
+    private int size;
+    private boolean warmed;
+
+    NewsFingerprintCache(int maxEntries) {
+        this.maxEntries = Math.max(16, maxEntries);
+        this.table = new long[64];
+    }
+
+    /**
+     * Hash of every column the news_item upsert writes: normalized title and content, publish time, and the
+     * source, lang and region labels as stored. Kept in news_item.fingerprint; a change to any of them is written.
+     */
+    static long fingerprint(
+            String title,
+            String content,
+            OffsetDateTime publishedAt,
+            String source,
+            String lang,
+            String region
+    ) {
+        String published = publishedAt == null ? "" : Long.toString(publishedAt.toEpochSecond());
+        return hash64(normalize(title) + '\n' + normalize(content) + '\n' + published + '\n'
+                + label(source) + '\n' + label(lang) + '\n' + label(region));
+    }
+
+    static long key(String url, long fingerprint) {
+        long h = hash64(url == null ? "" : url) ^ (fingerprint * 0x9E3779B97F4A7C15L);
+        return h == EMPTY ? 1L : h;
+    }
+
+    synchronized boolean isWarmed() {
+        return warmed;
+    }
+
+    synchronized void markWarmed() {
+        warmed = true;
+    }
+
+    synchronized boolean contains(long key) {
+        long k = key == EMPTY ? 1L : key;
+        int mask = table.length - 1;
+        for (int i = mix(k) & mask; ; i = (i + 1) & mask) {
+            long slot = table[i];
+            if (slot == EMPTY) {
+                return false;
+            }
+            if (slot == k) {
+                return true;
+            }
+        }
+    }
+
+    synchronized void add(long key) {
+        long k = key == EMPTY ? 1L : key;
+        if (size >= maxEntries) {
+            table = new long[64];
+            size = 0;
+        }
+        if ((size + 1) * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        int mask = table.length - 1;
+        for (int i = mix(k) & mask; ; i = (i + 1) & mask) {
+            long slot = table[i];
+            if (slot == k) {
+                return;
+            }
+            if (slot == EMPTY) {
+                table[i] = k;
+                size++;
+                return;
+            }
+        }
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = table;
+        table = new long[capacity];
+        int mask = capacity - 1;
+        for (long k : old) {
+            if (k == EMPTY) {
+                continue;
+            }
+            int i = mix(k) & mask;
+            while (table[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            table[i] = k;
+        }
+    }
+
+    private static int mix(long k) {
+        long h = k ^ (k >>> 33);
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    private static String normalize(String value) {
+        return value == null
+                ? ""
+                : value.replace('\u3000', ' ').replaceAll("\\s+", " ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String label(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static long hash64(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return ByteBuffer.wrap(digest.digest(text.getBytes(StandardCharsets.UTF_8))).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+}
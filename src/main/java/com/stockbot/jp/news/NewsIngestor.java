@@ -1,7 +1,6 @@
 package com.stockbot.jp.news;
 
 import com.stockbot.data.http.HttpClientEx;
-import com.stockbot.data.rss.RssParser;
 import com.stockbot.jp.config.Config;
 import com.stockbot.model.NewsItem;
 import lombok.Builder;
@@ -19,14 +18,11 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Callable;
-import java.util.concurrent.CompletionService;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * RSS multi-source ingestion with Jsoup text cleanup into news_item.
@@ -68,14 +64,78 @@ public final class NewsIngestor {
             "--"
     );
 
+    private static final Map<String, String> STATIC_FEED_URLS = Map.ofEntries(
+            Map.entry("cnbc", "https://www.cnbc.com/id/100003114/device/rss/rss.html"),
+            Map.entry("marketwatch", "https://feeds.marketwatch.com/marketwatch/topstories/"),
+            Map.entry("wsj", "https://feeds.a.dj.com/rss/RSSMarketsMain.xml"),
+            Map.entry("nytimes", "https://rss.nytimes.com/services/xml/rss/nyt/Business.xml"),
+            Map.entry("yahoonews", "https://news.yahoo.com/rss"),
+            Map.entry("investing", "https://www.investing.com/rss/news.rss"),
+            Map.entry("ft", "https://www.ft.com/companies?format=rss"),
+            Map.entry("guardian", "https://www.theguardian.com/business/rss"),
+            Map.entry("seekingalpha", "https://seekingalpha.com/feed.xml")
+    );
+
     private final Config config;
-    private final HttpClientEx httpClient;
     private final NewsItemDao newsItemDao;
+    private final NewsFetchPlanner fetchPlanner;
+    private final AtomicLong runInserted = new AtomicLong();
+    private final AtomicLong runChanged = new AtomicLong();
+    private final AtomicLong runUnchanged = new AtomicLong();
 
     public NewsIngestor(Config config, HttpClientEx httpClient, NewsItemDao newsItemDao) {
         this.config = config;
-        this.httpClient = httpClient;
         this.newsItemDao = newsItemDao;
+        this.fetchPlanner = new NewsFetchPlanner(
+                httpClient,
+                resolveTuningProfile().newsConcurrent,
+                config.getInt("news.fetch.per_host_max", 4),
+                config.getInt("news.fetch.run_cache_ttl_sec", 900)
+        );
+    }
+
+    /**
+     * Starts a new run: clears the shared feed cache and queues every feed the given tickers will ask for,
+     * so identical URLs across tickers are fetched once. Keys are tickers, values their news queries.
+     */
+    public void planRun(Map<String, List<String>> queriesByTicker, String lang, String region) {
+        fetchPlanner.beginRun();
+        runInserted.set(0L);
+        runChanged.set(0L);
+        runUnchanged.set(0L);
+        if (queriesByTicker == null || queriesByTicker.isEmpty()) {
+            return;
+        }
+        int timeoutSec = Math.max(5, config.getInt("news.fetch.timeout_sec", 25));
+        TuningProfile tuning = resolveTuningProfile();
+        Set<String> enabledSources = enabledSources();
+        for (Map.Entry<String, List<String>> entry : queriesByTicker.entrySet()) {
+            List<String> normalizedQueries = normalizeQueries(entry.getKey(), entry.getValue(), tuning.queryVariants);
+            for (FetchTask task : buildFetchTasks(
+                    entry.getKey(),
+                    normalizedQueries,
+                    enabledSources,
+                    safe(lang),
+                    safe(region),
+                    tuning.maxResultsPerVariant
+            )) {
+                fetchPlanner.prefetch(task.url, task.fetchLimit, timeoutSec);
+            }
+        }
+    }
+
+    /**
+     * Requested vs. actually fetched feed counts and new/changed/unchanged item counts since the last
+     * {@link #planRun}.
+     */
+    public String fetchStatsNote() {
+        return fetchPlanner.statsNote() + String.format(
+                Locale.US,
+                " items_new=%d items_changed=%d items_unchanged=%d",
+                runInserted.get(),
+                runChanged.get(),
+                runUnchanged.get()
+        );
     }
 
     public IngestResult ingest(String ticker, List<String> queries, String lang, String region) {
@@ -92,20 +152,100 @@ public final class NewsIngestor {
                 enabledSources,
                 safe(lang),
                 safe(region),
-                tuning.maxResultsPerVariant,
-                timeoutSec
+                tuning.maxResultsPerVariant
         );
-        executeFetchTasks(tasks, tuning.newsConcurrent, merged, safe(lang), safe(region));
+        executeFetchTasks(tasks, timeoutSec, merged, safe(lang), safe(region));
 
-        int upserted = 0;
+        NewsItemDao.UpsertStats stats = new NewsItemDao.UpsertStats(0, 0, 0);
         try {
-            upserted = newsItemDao.upsertAll(new ArrayList<>(merged.values()));
+            stats = newsItemDao.upsertAll(new ArrayList<>(merged.values()));
         } catch (SQLException e) {
             System.err.println("WARN: news upsert failed ticker=" + safe(ticker) + ", err=" + e.getMessage());
         }
+        runInserted.addAndGet(stats.getInserted());
+        runChanged.addAndGet(stats.getChanged());
+        runUnchanged.addAndGet(stats.getUnchanged());
 
         String sourceLabel = String.join("+", enabledSources);
-        return new IngestResult(merged.size(), upserted, sourceLabel.isEmpty() ? "google" : sourceLabel);
+        return new IngestResult(
+                merged.size(),
+                stats.written(),
+                sourceLabel.isEmpty() ? "google" : sourceLabel,
+                stats.getInserted(),
+                stats.getChanged(),
+                stats.getUnchanged()
+        );
+    }
+
+    /**
+     * One background poll over every planned feed using conditional GETs. Items from changed feeds go through
+     * each ticker's relevance filter and are upserted in one batch; news_item rows are not ticker-scoped.
+     */
+    public PollResult poll(Map<String, List<String>> queriesByTicker, String lang, String region) {
+        if (queriesByTicker == null || queriesByTicker.isEmpty()) {
+            return new PollResult(0, 0, 0, 0, 0, 0, 0);
+        }
+        int timeoutSec = Math.max(5, config.getInt("news.fetch.timeout_sec", 25));
+        TuningProfile tuning = resolveTuningProfile();
+        Set<String> enabledSources = enabledSources();
+        Map<String, CompletableFuture<NewsFetchPlanner.FeedPoll>> polls = new LinkedHashMap<>();
+        List<FetchTask> tasks = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : queriesByTicker.entrySet()) {
+            List<String> normalizedQueries = normalizeQueries(entry.getKey(), entry.getValue(), tuning.queryVariants);
+            for (FetchTask task : buildFetchTasks(
+                    entry.getKey(),
+                    normalizedQueries,
+                    enabledSources,
+                    safe(lang),
+                    safe(region),
+                    tuning.maxResultsPerVariant
+            )) {
+                tasks.add(task);
+                polls.computeIfAbsent(
+                        task.url + "#" + task.fetchLimit,
+                        ignored -> fetchPlanner.poll(task.url, task.fetchLimit, timeoutSec)
+                );
+            }
+        }
+
+        LinkedHashMap<String, NewsItemDao.UpsertItem> merged = new LinkedHashMap<>();
+        for (FetchTask task : tasks) {
+            NewsFetchPlanner.FeedPoll result = polls.get(task.url + "#" + task.fetchLimit).join();
+            List<NewsItem> fetched = result.items;
+            if (task.relevanceTokens != null) {
+                fetched = filterByRelevance(fetched, task.relevanceTokens, task.resultLimit);
+            }
+            mergeFetched(merged, fetched, safe(lang), safe(region));
+        }
+        int notModified = 0;
+        int failed = 0;
+        for (CompletableFuture<NewsFetchPlanner.FeedPoll> future : polls.values()) {
+            NewsFetchPlanner.FeedPoll result = future.join();
+            if (result.notModified) {
+                notModified++;
+            } else if (result.failed) {
+                failed++;
+            }
+        }
+
+        NewsItemDao.UpsertStats stats = new NewsItemDao.UpsertStats(0, 0, 0);
+        if (!merged.isEmpty()) {
+            try {
+                stats = newsItemDao.upsertAll(new ArrayList<>(merged.values()));
+            } catch (SQLException e) {
+                System.err.println("WARN: news poll upsert failed err=" + e.getMessage());
+            }
+        }
+        int feeds = polls.size();
+        return new PollResult(
+                feeds,
+                notModified,
+                feeds - notModified - failed,
+                failed,
+                merged.size(),
+                stats.written(),
+                stats.getUnchanged()
+        );
     }
 
     TuningSnapshot tuningSnapshot() {
@@ -126,7 +266,7 @@ public final class NewsIngestor {
 
     private void executeFetchTasks(
             List<FetchTask> tasks,
-            int requestedConcurrency,
+            int timeoutSec,
             LinkedHashMap<String, NewsItemDao.UpsertItem> merged,
             String lang,
             String region
@@ -134,56 +274,36 @@ public final class NewsIngestor {
         if (tasks == null || tasks.isEmpty()) {
             return;
         }
-        int poolSize = Math.max(1, Math.min(requestedConcurrency, tasks.size()));
-        ExecutorService pool = Executors.newFixedThreadPool(poolSize);
-        CompletionService<FetchTaskResult> completion = new ExecutorCompletionService<>(pool);
-        int submitted = 0;
-        try {
-            for (FetchTask task : tasks) {
-                if (task == null || task.fetcher == null) {
-                    continue;
+        List<CompletableFuture<List<NewsItem>>> futures = new ArrayList<>(tasks.size());
+        for (FetchTask task : tasks) {
+            futures.add(fetchPlanner.fetch(task.url, task.fetchLimit, timeoutSec));
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            FetchTask task = tasks.get(i);
+            try {
+                List<NewsItem> fetched = futures.get(i).get();
+                if (task.relevanceTokens != null) {
+                    fetched = filterByRelevance(fetched, task.relevanceTokens, task.resultLimit);
                 }
-                completion.submit(() -> runFetchTask(task));
-                submitted++;
-            }
-            for (int i = 0; i < submitted; i++) {
-                Future<FetchTaskResult> future = completion.take();
-                try {
-                    FetchTaskResult result = future.get();
-                    if (result == null || result.items == null || result.items.isEmpty()) {
-                        continue;
-                    }
-                    mergeFetched(merged, result.items, lang, region);
-                } catch (ExecutionException e) {
-                    Throwable cause = e.getCause() == null ? e : e.getCause();
-                    System.err.println("WARN: news fetch task failed err=" + cause.getMessage());
+                if (fetched == null || fetched.isEmpty()) {
+                    continue;
                 }
+                List<NewsItem> sorted = new ArrayList<>(fetched);
+                sorted.sort(Comparator.comparing(this::publishedAtOrMin).reversed());
+                mergeFetched(merged, sorted, lang, region);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                System.err.println(String.format(
+                        Locale.US,
+                        "WARN: news fetch source=%s query=%s failed err=%s",
+                        safe(task.source),
+                        safe(task.query),
+                        safe(cause.getMessage())
+                ));
             }
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        } finally {
-            pool.shutdown();
-        }
-    }
-
-    private FetchTaskResult runFetchTask(FetchTask task) {
-        try {
-            List<NewsItem> fetched = task.fetcher.call();
-            if (fetched == null || fetched.isEmpty()) {
-                return new FetchTaskResult(task.source, task.query, List.of());
-            }
-            List<NewsItem> sorted = new ArrayList<>(fetched);
-            sorted.sort(Comparator.comparing(this::publishedAtOrMin).reversed());
-            return new FetchTaskResult(task.source, task.query, sorted);
-        } catch (Exception e) {
-            System.err.println(String.format(
-                    Locale.US,
-                    "WARN: news fetch source=%s query=%s failed err=%s",
-                    safe(task.source),
-                    safe(task.query),
-                    safe(e.getMessage())
-            ));
-            return new FetchTaskResult(task.source, task.query, List.of());
         }
     }
 
@@ -193,109 +313,40 @@ public final class NewsIngestor {
             Set<String> enabledSources,
             String lang,
             String region,
-            int maxResultsPerVariant,
-            int timeoutSec
+            int maxResultsPerVariant
     ) {
         List<FetchTask> tasks = new ArrayList<>();
         Set<String> relevanceTokens = buildRelevanceTokens(ticker, queries);
+        int limit = Math.max(1, maxResultsPerVariant);
         for (String source : enabledSources) {
             if ("google".equals(source)) {
                 for (String query : queries) {
-                    tasks.add(new FetchTask(
-                            source,
-                            query,
-                            () -> fetchGoogle(query, lang, region, maxResultsPerVariant, timeoutSec)
-                    ));
+                    tasks.add(new FetchTask(source, query, googleUrl(query, lang, region), limit, limit, null));
                 }
                 continue;
             }
             if ("bing".equals(source)) {
                 for (String query : queries) {
-                    tasks.add(new FetchTask(
-                            source,
-                            query,
-                            () -> fetchBing(query, lang, region, maxResultsPerVariant, timeoutSec)
-                    ));
+                    tasks.add(new FetchTask(source, query, bingUrl(query, lang, region), limit, limit, null));
                 }
                 continue;
             }
             if ("yahoo".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        normalizeToken(ticker),
-                        () -> fetchYahoo(ticker, lang, region, maxResultsPerVariant, timeoutSec)
-                ));
-                continue;
-            }
-            if ("cnbc".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        "",
-                        () -> filterByRelevance(fetchRss("https://www.cnbc.com/id/100003114/device/rss/rss.html", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
-                ));
-                continue;
-            }
-            if ("marketwatch".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        "",
-                        () -> filterByRelevance(fetchRss("https://feeds.marketwatch.com/marketwatch/topstories/", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
-                ));
-                continue;
-            }
-            if ("wsj".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        "",
-                        () -> filterByRelevance(fetchRss("https://feeds.a.dj.com/rss/RSSMarketsMain.xml", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
-                ));
-                continue;
-            }
-            if ("nytimes".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        "",
-                        () -> filterByRelevance(fetchRss("https://rss.nytimes.com/services/xml/rss/nyt/Business.xml", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
-                ));
-                continue;
-            }
-            if ("yahoonews".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        "",
-                        () -> filterByRelevance(fetchRss("https://news.yahoo.com/rss", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
-                ));
-                continue;
-            }
-            if ("investing".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        "",
-                        () -> filterByRelevance(fetchRss("https://www.investing.com/rss/news.rss", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
-                ));
-                continue;
-            }
-            if ("ft".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        "",
-                        () -> filterByRelevance(fetchRss("https://www.ft.com/companies?format=rss", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
-                ));
-                continue;
-            }
-            if ("guardian".equals(source)) {
-                tasks.add(new FetchTask(
-                        source,
-                        "",
-                        () -> filterByRelevance(fetchRss("https://www.theguardian.com/business/rss", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
-                ));
+                String url = yahooUrl(ticker, lang, region);
+                if (!url.isEmpty()) {
+                    tasks.add(new FetchTask(source, normalizeToken(ticker), url, limit, limit, null));
+                }
                 continue;
             }
-            if ("seekingalpha".equals(source)) {
+            String staticUrl = STATIC_FEED_URLS.get(source);
+            if (staticUrl != null) {
                 tasks.add(new FetchTask(
                         source,
                         "",
-                        () -> filterByRelevance(fetchRss("https://seekingalpha.com/feed.xml", staticFeedFetchLimit(maxResultsPerVariant), timeoutSec), relevanceTokens, maxResultsPerVariant)
+                        staticUrl,
+                        staticFeedFetchLimit(maxResultsPerVariant),
+                        limit,
+                        relevanceTokens
                 ));
             }
         }
@@ -414,61 +465,34 @@ public final class NewsIngestor {
         return a.getPublishedAt().isAfter(b.getPublishedAt());
     }
 
-    private List<NewsItem> fetchGoogle(String query, String lang, String region, int limit, int timeoutSec) {
-        try {
-            String q = URLEncoder.encode(safe(query), StandardCharsets.UTF_8);
-            String language = safe(lang).isEmpty() ? "en" : lang;
-            String reg = safe(region).isEmpty() ? "US" : region.toUpperCase(Locale.ROOT);
-            String url = "https://news.google.com/rss/search?q=" + q
-                    + "&hl=" + language
-                    + "&gl=" + reg
-                    + "&ceid=" + reg + ":" + language;
-            String xml = httpClient.getText(url, timeoutSec);
-            return RssParser.parse(xml, Math.max(1, limit));
-        } catch (Exception ignored) {
-            return List.of();
-        }
-    }
-
-    private List<NewsItem> fetchBing(String query, String lang, String region, int limit, int timeoutSec) {
-        try {
-            String q = URLEncoder.encode(safe(query), StandardCharsets.UTF_8);
-            String language = safe(lang).isEmpty() ? "en" : lang.toLowerCase(Locale.ROOT);
-            String reg = safe(region).isEmpty() ? "us" : region.toLowerCase(Locale.ROOT);
-            String url = "https://www.bing.com/news/search?q=" + q + "&format=rss&setlang=" + language + "-" + reg;
-            String xml = httpClient.getText(url, timeoutSec);
-            return RssParser.parse(xml, Math.max(1, limit));
-        } catch (Exception ignored) {
-            return List.of();
-        }
+    private String googleUrl(String query, String lang, String region) {
+        String q = URLEncoder.encode(safe(query), StandardCharsets.UTF_8);
+        String language = safe(lang).isEmpty() ? "en" : lang;
+        String reg = safe(region).isEmpty() ? "US" : region.toUpperCase(Locale.ROOT);
+        return "https://news.google.com/rss/search?q=" + q
+                + "&hl=" + language
+                + "&gl=" + reg
+                + "&ceid=" + reg + ":" + language;
     }
 
-    private List<NewsItem> fetchYahoo(String ticker, String lang, String region, int limit, int timeoutSec) {
-        try {
-            String normalizedTicker = safe(ticker).trim();
-            if (normalizedTicker.isEmpty()) {
-                return List.of();
-            }
-            String t = URLEncoder.encode(normalizedTicker, StandardCharsets.UTF_8);
-            String reg = safe(region).isEmpty() ? "US" : region.toUpperCase(Locale.ROOT);
-            String language = safe(lang).isEmpty() ? "en" : lang.toLowerCase(Locale.ROOT);
-            String url = "https://feeds.finance.yahoo.com/rss/2.0/headline?s=" + t
-                    + "&region=" + reg
-                    + "&lang=" + language + "-" + reg.toLowerCase(Locale.ROOT);
-            String xml = httpClient.getText(url, timeoutSec);
-            return RssParser.parse(xml, Math.max(1, limit));
-        } catch (Exception ignored) {
-            return List.of();
-        }
+    private String bingUrl(String query, String lang, String region) {
+        String q = URLEncoder.encode(safe(query), StandardCharsets.UTF_8);
+        String language = safe(lang).isEmpty() ? "en" : lang.toLowerCase(Locale.ROOT);
+        String reg = safe(region).isEmpty() ? "us" : region.toLowerCase(Locale.ROOT);
+        return "https://www.bing.com/news/search?q=" + q + "&format=rss&setlang=" + language + "-" + reg;
     }
 
-    private List<NewsItem> fetchRss(String url, int limit, int timeoutSec) {
-        try {
-            String xml = httpClient.getText(url, timeoutSec);
-            return RssParser.parse(xml, Math.max(1, limit));
-        } catch (Exception ignored) {
-            return List.of();
+    private String yahooUrl(String ticker, String lang, String region) {
+        String normalizedTicker = safe(ticker).trim();
+        if (normalizedTicker.isEmpty()) {
+            return "";
         }
+        String t = URLEncoder.encode(normalizedTicker, StandardCharsets.UTF_8);
+        String reg = safe(region).isEmpty() ? "US" : region.toUpperCase(Locale.ROOT);
+        String language = safe(lang).isEmpty() ? "en" : lang.toLowerCase(Locale.ROOT);
+        return "https://feeds.finance.yahoo.com/rss/2.0/headline?s=" + t
+                + "&region=" + reg
+                + "&lang=" + language + "-" + reg.toLowerCase(Locale.ROOT);
     }
 
     private List<NewsItem> filterByRelevance(List<NewsItem> items, Set<String> tokens, int limit) {
@@ -739,14 +763,21 @@ public final class NewsIngestor {
     private static final class FetchTask {
         String source;
         String query;
-        Callable<List<NewsItem>> fetcher;
+        String url;
+        int fetchLimit;
+        int resultLimit;
+        Set<String> relevanceTokens;
     }
 
     @Value
-    private static final class FetchTaskResult {
-        String source;
-        String query;
-        List<NewsItem> items;
+    public static final class PollResult {
+        int feeds;
+        int notModified;
+        int changed;
+        int failed;
+        int fetchedItems;
+        int upserted;
+        int unchangedItems;
     }
 
     @Value
@@ -754,12 +785,29 @@ public final class NewsIngestor {
         public final int fetchedCount;
         public final int upsertedCount;
         public final String sourceLabel;
+        public final int newCount;
+        public final int changedCount;
+        public final int unchangedCount;
 
-        @Builder(toBuilder = true)
         public IngestResult(int fetchedCount, int upsertedCount, String sourceLabel) {
+            this(fetchedCount, upsertedCount, sourceLabel, 0, 0, 0);
+        }
+
+        @Builder(toBuilder = true)
+        public IngestResult(
+                int fetchedCount,
+                int upsertedCount,
+                String sourceLabel,
+                int newCount,
+                int changedCount,
+                int unchangedCount
+        ) {
             this.fetchedCount = Math.max(0, fetchedCount);
             this.upsertedCount = Math.max(0, upsertedCount);
             this.sourceLabel = sourceLabel == null ? "" : sourceLabel;
+            this.newCount = Math.max(0, newCount);
+            this.changedCount = Math.max(0, changedCount);
+            this.unchangedCount = Math.max(0, unchangedCount);
         }
     }
 }
@@ -2,8 +2,10 @@ package com.stockbot.jp.news;
 
 import com.stockbot.jp.db.Database;
 import com.stockbot.jp.db.mybatis.MyBatisSupport;
+import com.stockbot.jp.db.mybatis.NewsFingerprintRow;
 import com.stockbot.jp.db.mybatis.NewsItemMapper;
 import com.stockbot.jp.db.mybatis.NewsItemSearchRow;
+import com.stockbot.jp.db.mybatis.NewsItemUpsertParam;
 import lombok.Builder;
 import lombok.Value;
 import org.apache.ibatis.session.SqlSession;
@@ -12,14 +14,15 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 
 /**
- * DAO for news_item persistence and pgvector search.
+ * DAO for news_item persistence and pgvector search. Not final so load tests can swap in an in-memory store.
  */
-public final class NewsItemDao {
+public class NewsItemDao {
     private static final Set<String> INVALID_TEXT_TOKENS = Set.of(
             "",
             "null",
@@ -33,45 +36,112 @@ public final class NewsItemDao {
             "--"
     );
 
+    private static final int UPSERT_BATCH_ROWS = 500;
+    private static final int FINGERPRINT_WARM_DAYS = 14;
+    private static final int FINGERPRINT_CACHE_MAX = 200_000;
+
     private final Database database;
+    private final NewsFingerprintCache fingerprints = new NewsFingerprintCache(FINGERPRINT_CACHE_MAX);
 
     public NewsItemDao(Database database) {
         this.database = database;
     }
 
-    public int upsertAll(List<UpsertItem> items) throws SQLException {
+    /**
+     * Drops items whose (url, fingerprint) is already known, then writes the rest in multi-row batches.
+     * Rows whose stored fingerprint matches are left untouched, so unchanged items never bump updated_at.
+     */
+    public UpsertStats upsertAll(List<UpsertItem> items) throws SQLException {
         if (items == null || items.isEmpty()) {
-            return 0;
+            return new UpsertStats(0, 0, 0);
+        }
+        warmFingerprints();
+
+        LinkedHashMap<String, NewsItemUpsertParam> pending = new LinkedHashMap<>();
+        int unchanged = 0;
+        for (UpsertItem item : items) {
+            if (item == null) {
+                continue;
+            }
+            String normalizedUrl = normalizeForStorage(item.getUrl());
+            String normalizedTitle = normalizeForStorage(item.getTitle());
+            if (isBlank(normalizedUrl) || isBlank(normalizedTitle)) {
+                continue;
+            }
+            String normalizedContent = normalizeForStorage(item.getContent());
+            String source = blankTo(normalizeForStorage(item.getSource()), "rss");
+            String lang = normalizeForStorage(item.getLang());
+            String region = normalizeForStorage(item.getRegion());
+            long fingerprint = NewsFingerprintCache.fingerprint(
+                    normalizedTitle,
+                    normalizedContent,
+                    item.getPublishedAt(),
+                    source,
+                    lang,
+                    region
+            );
+            if (fingerprints.contains(NewsFingerprintCache.key(normalizedUrl, fingerprint))) {
+                unchanged++;
+                continue;
+            }
+            pending.put(normalizedUrl, new NewsItemUpsertParam(
+                    normalizedUrl,
+                    normalizedTitle,
+                    normalizedContent,
+                    source,
+                    lang,
+                    region,
+                    item.getPublishedAt(),
+                    fingerprint
+            ));
+        }
+        if (pending.isEmpty()) {
+            return new UpsertStats(0, 0, unchanged);
         }
 
-        int affected = 0;
+        int inserted = 0;
+        int changed = 0;
+        long started = System.nanoTime();
+        List<NewsItemUpsertParam> rows = new ArrayList<>(pending.values());
         try (Connection conn = database.connect();
              SqlSession session = MyBatisSupport.openSession(conn)) {
             conn.setAutoCommit(false);
             NewsItemMapper mapper = session.getMapper(NewsItemMapper.class);
-            for (UpsertItem item : items) {
-                if (item == null) {
-                    continue;
+            for (int from = 0; from < rows.size(); from += UPSERT_BATCH_ROWS) {
+                List<NewsItemUpsertParam> chunk = rows.subList(from, Math.min(rows.size(), from + UPSERT_BATCH_ROWS));
+                for (Boolean isInsert : mapper.upsertNewsItems(chunk)) {
+                    if (Boolean.TRUE.equals(isInsert)) {
+                        inserted++;
+                    } else {
+                        changed++;
+                    }
                 }
-                String normalizedUrl = normalizeForStorage(item.getUrl());
-                String normalizedTitle = normalizeForStorage(item.getTitle());
-                if (isBlank(normalizedUrl) || isBlank(normalizedTitle)) {
-                    continue;
-                }
-                mapper.upsertNewsItem(
-                        normalizedUrl,
-                        normalizedTitle,
-                        normalizeForStorage(item.getContent()),
-                        blankTo(normalizeForStorage(item.getSource()), "rss"),
-                        normalizeForStorage(item.getLang()),
-                        normalizeForStorage(item.getRegion()),
-                        item.getPublishedAt()
-                );
-                affected++;
             }
             conn.commit();
         }
-        return affected;
+        database.writeStats().record("news_item", rows.size(), System.nanoTime() - started);
+        for (NewsItemUpsertParam row : rows) {
+            fingerprints.add(NewsFingerprintCache.key(row.getUrl(), row.getFingerprint()));
+        }
+        return new UpsertStats(inserted, changed, unchanged + rows.size() - inserted - changed);
+    }
+
+    private void warmFingerprints() {
+        synchronized (fingerprints) {
+            if (fingerprints.isWarmed()) {
+                return;
+            }
+            fingerprints.markWarmed();
+            try (Connection conn = database.connect();
+                 SqlSession session = MyBatisSupport.openSession(conn)) {
+                NewsItemMapper mapper = session.getMapper(NewsItemMapper.class);
+                for (NewsFingerprintRow row : mapper.selectRecentFingerprints(FINGERPRINT_WARM_DAYS)) {
+                    fingerprints.add(NewsFingerprintCache.key(row.getUrl(), row.getFingerprint()));
+                }
+            } catch (Exception e) {
+                System.err.println("WARN: news fingerprint warmup failed err=" + e.getMessage());
+            }
+        }
     }
 
     public List<NewsItemRecord> listWithoutEmbedding(int limit) throws SQLException {
@@ -87,6 +157,14 @@ public final class NewsItemDao {
         return out;
     }
 
+    public long countWithoutEmbedding() throws SQLException {
+        try (Connection conn = database.connect();
+             SqlSession session = MyBatisSupport.openSession(conn)) {
+            NewsItemMapper mapper = session.getMapper(NewsItemMapper.class);
+            return mapper.countWithoutEmbedding();
+        }
+    }
+
     public void updateEmbedding(long id, float[] embedding) throws SQLException {
         String literal = toVectorLiteral(embedding);
         if (literal == null) {
@@ -227,6 +305,17 @@ public final class NewsItemDao {
         OffsetDateTime publishedAt;
     }
 
+    @Value
+    public static class UpsertStats {
+        int inserted;
+        int changed;
+        int unchanged;
+
+        public int written() {
+            return inserted + changed;
+        }
+    }
+
     @Value
     public static class SearchOptions {
         int topK;
@@ -0,0 +1,219 @@
+package com.stockbot.jp.news;
+
+import com.stockbot.jp.db.Database;
+import com.stockbot.jp.db.mybatis.MyBatisSupport;
+import com.stockbot.jp.db.mybatis.NewsSummaryMemoMapper;
+import com.stockbot.jp.db.mybatis.NewsSummaryMemoRow;
+import org.apache.ibatis.session.SqlSession;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Memo of generated cluster summaries keyed by (ticker, model, prompt version, input hash). The input hash
+ * covers every cluster label, prompt line and member url, so a cluster that gains or loses items misses the
+ * memo and is summarized again. A process-wide LRU sits in front of news_summary_memo for daemon reruns; it
+ * outlives the per-run runners, so its capacity is taken once, from the first memo created in the process. LRU
+ * entries keep their row's creation time and expire with the same TTL as the table.
+ */
+public final class NewsSummaryMemoDao {
+    private static final Map<String, Memo> LRU = new LinkedHashMap<>(256, 0.75f, true);
+    /**
+     * Zero until the first memo is created; guarded by {@code LRU}.
+     */
+    private static int lruCapacity;
+
+    private final Database database;
+    private final int ttlDays;
+    private final LongSupplier clockMillis;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+    private final AtomicInteger stored = new AtomicInteger();
+
+    /**
+     * {@code database} may be null, in which case only the in-memory LRU is used. {@code lruEntries} only sizes
+     * the LRU when this is the first memo in the process; later memos share it as it is.
+     */
+    public NewsSummaryMemoDao(Database database, int ttlDays, int lruEntries) {
+        this(database, ttlDays, lruEntries, System::currentTimeMillis);
+    }
+
+    NewsSummaryMemoDao(Database database, int ttlDays, int lruEntries, LongSupplier clockMillis) {
+        this.database = database;
+        this.ttlDays = Math.max(1, ttlDays);
+        this.clockMillis = clockMillis;
+        synchronized (LRU) {
+            if (lruCapacity == 0) {
+                lruCapacity = Math.max(16, lruEntries);
+            }
+        }
+    }
+
+    /**
+     * Resets the per-run counters and drops LRU entries and rows older than the TTL.
+     */
+    public void beginRun() {
+        hits.set(0);
+        misses.set(0);
+        stored.set(0);
+        long now = clockMillis.getAsLong();
+        synchronized (LRU) {
+            Iterator<Memo> it = LRU.values().iterator();
+            while (it.hasNext()) {
+                if (expired(it.next(), now)) {
+                    it.remove();
+                }
+            }
+        }
+        if (database == null) {
+            return;
+        }
+        try (Connection conn = database.connect(); SqlSession session = MyBatisSupport.openSession(conn)) {
+            conn.setAutoCommit(false);
+            session.getMapper(NewsSummaryMemoMapper.class).deleteOlderThan(ttlDays);
+            conn.commit();
+        } catch (Exception e) {
+            System.err.println("WARN: summary memo prune failed err=" + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the memoized summary, or null on a miss.
+     */
+    public String get(String ticker, String model, String promptVersion, String inputHash) {
+        String key = lruKey(ticker, model, promptVersion, inputHash);
+        Memo cached;
+        synchronized (LRU) {
+            cached = LRU.get(key);
+            if (cached != null && expired(cached, clockMillis.getAsLong())) {
+                LRU.remove(key);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.summaryHtml;
+        }
+        if (database != null) {
+            try (Connection conn = database.connect(); SqlSession session = MyBatisSupport.openSession(conn)) {
+                NewsSummaryMemoRow row = session.getMapper(NewsSummaryMemoMapper.class)
+                        .selectSummary(ticker, model, promptVersion, inputHash, ttlDays);
+                if (row != null && row.getSummaryHtml() != null && !row.getSummaryHtml().isBlank()) {
+                    long createdAt = row.getCreatedAt() == null
+                            ? clockMillis.getAsLong()
+                            : row.getCreatedAt().toInstant().toEpochMilli();
+                    remember(key, new Memo(row.getSummaryHtml(), createdAt));
+                    hits.incrementAndGet();
+                    return row.getSummaryHtml();
+                }
+            } catch (Exception e) {
+                System.err.println("WARN: summary memo read failed ticker=" + ticker + ", err=" + e.getMessage());
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(String ticker, String model, String promptVersion, String inputHash, String summaryHtml) {
+        if (summaryHtml == null || summaryHtml.isBlank()) {
+            return;
+        }
+        remember(lruKey(ticker, model, promptVersion, inputHash), new Memo(summaryHtml, clockMillis.getAsLong()));
+        stored.incrementAndGet();
+        if (database == null) {
+            return;
+        }
+        try (Connection conn = database.connect(); SqlSession session = MyBatisSupport.openSession(conn)) {
+            conn.setAutoCommit(false);
+            session.getMapper(NewsSummaryMemoMapper.class)
+                    .upsertSummary(ticker, model, promptVersion, inputHash, summaryHtml);
+            conn.commit();
+        } catch (Exception e) {
+            System.err.println("WARN: summary memo write failed ticker=" + ticker + ", err=" + e.getMessage());
+        }
+    }
+
+    public String statsNote() {
+        return String.format(Locale.US, "memo_hits=%d memo_misses=%d memo_stored=%d", hits.get(), misses.get(), stored.get());
+    }
+
+    /**
+     * SHA-256 over the company name and the ordered clusters, including each cluster's member keys.
+     */
+    static String inputHash(String companyName, List<LangChainSummaryService.ClusterInput> clusters) {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append(companyName == null ? "" : companyName.trim()).append('\u0001');
+        List<LangChainSummaryService.ClusterInput> safeClusters = clusters == null ? List.of() : clusters;
+        for (LangChainSummaryService.ClusterInput cluster : safeClusters) {
+            if (cluster == null) {
+                continue;
+            }
+            sb.append(cluster.label).append('\u0002');
+            for (String item : cluster.items) {
+                sb.append(item == null ? "" : item).append('\u0003');
+            }
+            List<String> keys = new ArrayList<>(cluster.memberKeys);
+            keys.sort(null);
+            for (String key : keys) {
+                sb.append(key).append('\u0004');
+            }
+            sb.append('\u0001');
+        }
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(sb.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+    }
+
+    /**
+     * Empties the LRU and lets the next memo created size it again.
+     */
+    static void clearLru() {
+        synchronized (LRU) {
+            LRU.clear();
+            lruCapacity = 0;
+        }
+    }
+
+    private boolean expired(Memo memo, long nowMillis) {
+        return nowMillis - memo.createdAtMillis >= TimeUnit.DAYS.toMillis(ttlDays);
+    }
+
+    private static void remember(String key, Memo value) {
+        synchronized (LRU) {
+            LRU.put(key, value);
+            while (LRU.size() > lruCapacity) {
+                String eldest = LRU.keySet().iterator().next();
+                LRU.remove(eldest);
+            }
+        }
+    }
+
+    private static final class Memo {
+        private final String summaryHtml;
+        private final long createdAtMillis;
+
+        private Memo(String summaryHtml, long createdAtMillis) {
+            this.summaryHtml = summaryHtml;
+            this.createdAtMillis = createdAtMillis;
+        }
+    }
+
+    private static String lruKey(String ticker, String model, String promptVersion, String inputHash) {
+        return ticker + '\u0001' + model + '\u0001' + promptVersion + '\u0001' + inputHash;
+    }
+}
@@ -5,6 +5,7 @@ import com.stockbot.data.http.HttpClientEx;
 import com.stockbot.jp.config.Config;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -72,6 +73,28 @@ public final class OllamaEmbeddingService {
         return normalizeDimensionAndLength(raw, vectorDim);
     }
 
+    /**
+     * Batch form of {@link #embedText(String)}; the result is aligned with {@code rawTexts}.
+     */
+    public List<float[]> embedTexts(List<String> rawTexts) {
+        List<float[]> out = new ArrayList<>();
+        if (rawTexts == null || rawTexts.isEmpty()) {
+            return out;
+        }
+        List<String> texts = new ArrayList<>(rawTexts.size());
+        for (String rawText : rawTexts) {
+            texts.add(normalizeText(rawText));
+        }
+        List<float[]> raw = ollamaClient.embedBatch(embedModel, texts);
+        for (int i = 0; i < texts.size(); i++) {
+            float[] vector = i < raw.size() ? raw.get(i) : null;
+            out.add(texts.get(i).isEmpty() || vector == null || vector.length == 0
+                    ? new float[0]
+                    : normalizeDimensionAndLength(vector, vectorDim));
+        }
+        return out;
+    }
+
     private String buildEmbeddingText(String title, String content) {
         StringBuilder sb = new StringBuilder();
         if (title != null && !title.trim().isEmpty()) {
@@ -14,7 +14,9 @@ import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * End-to-end watchlist news pipeline:
@@ -40,7 +42,11 @@ public final class WatchlistNewsPipeline {
     private final NewsIngestor newsIngestor;
     private final OllamaEmbeddingService embeddingService;
     private final LangChainSummaryService summaryService;
+    private final NewsClusterEngine clusterEngine;
+    private final LlmSummaryScheduler summaryScheduler;
+    private final NewsSummaryMemoDao summaryMemo;
     private final RunTelemetry telemetry;
+    private volatile boolean feedsIndexed;
 
     public WatchlistNewsPipeline(Config config, HttpClientEx httpClient, NewsItemDao newsItemDao) {
         this(config, httpClient, newsItemDao, null);
@@ -51,15 +57,63 @@ public final class WatchlistNewsPipeline {
             HttpClientEx httpClient,
             NewsItemDao newsItemDao,
             RunTelemetry telemetry
+    ) {
+        this(config, httpClient, newsItemDao, null, telemetry);
+    }
+
+    /**
+     * {@code summaryMemo} may be null to always regenerate cluster summaries.
+     */
+    public WatchlistNewsPipeline(
+            Config config,
+            HttpClientEx httpClient,
+            NewsItemDao newsItemDao,
+            NewsSummaryMemoDao summaryMemo,
+            RunTelemetry telemetry
     ) {
         this.config = config;
         this.newsItemDao = newsItemDao;
         this.newsIngestor = new NewsIngestor(config, httpClient, newsItemDao);
         this.embeddingService = new OllamaEmbeddingService(config, httpClient, newsItemDao);
         this.summaryService = new LangChainSummaryService(config);
+        this.summaryScheduler = new LlmSummaryScheduler(
+                config.getInt("ai.summary.parallelism", 1),
+                config.getInt("ai.summary.budget_sec", 900)
+        );
+        this.summaryMemo = summaryMemo;
+        this.clusterEngine = new NewsClusterEngine(
+                config.getInt("news.cluster.exact_scan_max_items", NewsClusterEngine.DEFAULT_EXACT_SCAN_MAX_ITEMS)
+        );
         this.telemetry = telemetry;
     }
 
+    /**
+     * Plans the run's feed fetches for all tickers up front; see {@link NewsIngestor#planRun}.
+     */
+    public void planRun(Map<String, List<String>> queriesByTicker, String lang, String region) {
+        planRun(queriesByTicker, lang, region, false);
+    }
+
+    /**
+     * With {@code feedsIndexed} the background poller has already ingested these feeds, so the run reads
+     * news_item only and skips inline fetching.
+     */
+    public void planRun(Map<String, List<String>> queriesByTicker, String lang, String region, boolean feedsIndexed) {
+        this.feedsIndexed = feedsIndexed;
+        summaryScheduler.beginRun();
+        summaryService.resetStreamStats();
+        if (summaryMemo != null) {
+            summaryMemo.beginRun();
+        }
+        if (!feedsIndexed) {
+            newsIngestor.planRun(queriesByTicker, lang, region);
+        }
+    }
+
+    public String fetchStatsNote() {
+        return feedsIndexed ? "" : newsIngestor.fetchStatsNote();
+    }
+
     public PipelineResult processTicker(
             String ticker,
             String companyName,
@@ -68,12 +122,31 @@ public final class WatchlistNewsPipeline {
             List<String> queries,
             String lang,
             String region
+    ) {
+        return processTicker(ticker, companyName, industryZh, industryEn, queries, lang, region, 0.0);
+    }
+
+    /**
+     * Same as the overload above, but the cluster summary is queued on the run's {@link LlmSummaryScheduler}
+     * with {@code summaryPriority} (higher runs first); resolve it with {@link #awaitSummary}.
+     */
+    public PipelineResult processTicker(
+            String ticker,
+            String companyName,
+            String industryZh,
+            String industryEn,
+            List<String> queries,
+            String lang,
+            String region,
+            double summaryPriority
     ) {
         int queryCount = queries == null ? 0 : queries.size();
         startStep(RunTelemetry.STEP_NEWS_FETCH);
         NewsIngestor.IngestResult ingestResult;
         try {
-            ingestResult = newsIngestor.ingest(ticker, queries, lang, region);
+            ingestResult = feedsIndexed
+                    ? new NewsIngestor.IngestResult(0, 0, "poller")
+                    : newsIngestor.ingest(ticker, queries, lang, region);
             endStep(RunTelemetry.STEP_NEWS_FETCH, queryCount, ingestResult.fetchedCount, 0);
         } catch (RuntimeException e) {
             endStep(RunTelemetry.STEP_NEWS_FETCH, queryCount, 0, 1, e.getClass().getSimpleName());
@@ -142,27 +215,16 @@ public final class WatchlistNewsPipeline {
         if (deduped.size() > topK) {
             deduped = new ArrayList<>(deduped.subList(0, topK));
         }
-        endStep(RunTelemetry.STEP_TEXT_CLEAN, matches.size(), deduped.size(), 0);
+        endStep(
+                RunTelemetry.STEP_TEXT_CLEAN,
+                matches.size(),
+                deduped.size(),
+                0,
+                "dedup_mode=" + clusterEngine.modeFor(matches.size())
+        );
 
         List<NewsCluster> clusters = cluster(deduped, clusterThreshold);
-        startStep(RunTelemetry.STEP_AI_SUMMARY);
-        String summaryHtml;
-        try {
-            summaryHtml = summaryService.summarize(
-                    ticker,
-                    companyName,
-                    toSummaryClusters(clusters)
-            );
-            endStep(
-                    RunTelemetry.STEP_AI_SUMMARY,
-                    clusters.size(),
-                    summaryHtml == null || summaryHtml.isBlank() ? 0 : 1,
-                    0
-            );
-        } catch (RuntimeException e) {
-            endStep(RunTelemetry.STEP_AI_SUMMARY, clusters.size(), 0, 1, e.getClass().getSimpleName());
-            throw e;
-        }
+        CompletableFuture<String> summaryFuture = submitSummary(ticker, companyName, clusters, summaryPriority);
         List<String> digestLines = buildDigestLines(clusters);
         List<NewsItem> topNews = toNewsItems(deduped);
         incrementNewsStats(ingestResult.fetchedCount, deduped.size(), clusters.size());
@@ -170,7 +232,7 @@ public final class WatchlistNewsPipeline {
         return new PipelineResult(
                 topNews,
                 digestLines,
-                summaryHtml,
+                summaryFuture,
                 ingestResult.sourceLabel + "->pgvector",
                 ingestResult.fetchedCount,
                 embedded,
@@ -178,32 +240,90 @@ public final class WatchlistNewsPipeline {
         );
     }
 
+    /**
+     * Resolves a summary from {@link #processTicker}, falling back to the cluster outline once the run's AI
+     * time budget is spent.
+     */
+    public String awaitSummary(PipelineResult result) {
+        if (result == null) {
+            return "";
+        }
+        return summaryScheduler.await(result.summaryFuture, () -> summaryService.fallback(toSummaryClusters(result.clusters)));
+    }
+
+    /**
+     * Queue wait vs. generation totals for the run's summary jobs.
+     */
+    public String summaryStatsNote() {
+        String note = summaryScheduler.statsNote();
+        if (summaryMemo != null) {
+            note = note + " " + summaryMemo.statsNote();
+        }
+        String streamNote = summaryService.streamStatsNote();
+        return streamNote.isEmpty() ? note : note + " " + streamNote;
+    }
+
+    private CompletableFuture<String> submitSummary(
+            String ticker,
+            String companyName,
+            List<NewsCluster> clusters,
+            double priority
+    ) {
+        List<LangChainSummaryService.ClusterInput> inputs = toSummaryClusters(clusters);
+        if (inputs.isEmpty()) {
+            return CompletableFuture.completedFuture(LangChainSummaryService.NO_EVENT_HTML);
+        }
+        String model = summaryService.modelName();
+        String inputHash = summaryMemo == null ? "" : NewsSummaryMemoDao.inputHash(companyName, inputs);
+        if (summaryMemo != null) {
+            String memo = summaryMemo.get(ticker, model, LangChainSummaryService.PROMPT_VERSION, inputHash);
+            if (memo != null) {
+                recordStep(RunTelemetry.STEP_AI_SUMMARY, 0L, clusters.size(), 1, 0, "memo_hit");
+                return CompletableFuture.completedFuture(memo);
+            }
+        }
+        return summaryScheduler.submit(
+                priority,
+                () -> {
+                    long started = System.nanoTime();
+                    try {
+                        String generated = summaryService.generate(ticker, companyName, inputs);
+                        if (generated != null && summaryMemo != null) {
+                            summaryMemo.put(ticker, model, LangChainSummaryService.PROMPT_VERSION, inputHash, generated);
+                        }
+                        String html = generated == null ? summaryService.fallback(inputs) : generated;
+                        recordStep(
+                                RunTelemetry.STEP_AI_SUMMARY,
+                                (System.nanoTime() - started) / 1_000_000L,
+                                clusters.size(),
+                                html == null || html.isBlank() ? 0 : 1,
+                                0,
+                                ""
+                        );
+                        return html;
+                    } catch (RuntimeException e) {
+                        recordStep(
+                                RunTelemetry.STEP_AI_SUMMARY,
+                                (System.nanoTime() - started) / 1_000_000L,
+                                clusters.size(),
+                                0,
+                                1,
+                                e.getClass().getSimpleName()
+                        );
+                        throw e;
+                    }
+                },
+                () -> summaryService.fallback(inputs)
+        );
+    }
+
     private List<NewsItemDao.NewsItemRecord> deduplicate(List<NewsItemDao.NewsItemRecord> items, double threshold) {
         List<NewsItemDao.NewsItemRecord> sorted = new ArrayList<>(items);
         sorted.sort(Comparator
                 .comparing((NewsItemDao.NewsItemRecord it) -> timestampOrMin(it.getPublishedAt())).reversed()
                 .thenComparingInt((NewsItemDao.NewsItemRecord it) -> safe(it.getContent()).length()).reversed());
 
-        List<NewsItemDao.NewsItemRecord> kept = new ArrayList<>();
-        for (NewsItemDao.NewsItemRecord item : sorted) {
-            if (item == null) {
-                continue;
-            }
-            int duplicateIdx = -1;
-            for (int i = 0; i < kept.size(); i++) {
-                double sim = cosine(item.getEmbedding(), kept.get(i).getEmbedding());
-                if (sim >= threshold) {
-                    duplicateIdx = i;
-                    break;
-                }
-            }
-            if (duplicateIdx < 0) {
-                kept.add(item);
-            } else if (prefer(item, kept.get(duplicateIdx))) {
-                kept.set(duplicateIdx, item);
-            }
-        }
-        return kept;
+        return clusterEngine.deduplicate(sorted, threshold, this::prefer);
     }
 
     private boolean prefer(NewsItemDao.NewsItemRecord next, NewsItemDao.NewsItemRecord old) {
@@ -227,28 +347,7 @@ public final class WatchlistNewsPipeline {
     }
 
     private List<NewsCluster> cluster(List<NewsItemDao.NewsItemRecord> items, double threshold) {
-        List<NewsCluster> clusters = new ArrayList<>();
-        for (NewsItemDao.NewsItemRecord item : items) {
-            if (item == null) {
-                continue;
-            }
-            int best = -1;
-            double bestSim = -1.0;
-            for (int i = 0; i < clusters.size(); i++) {
-                NewsCluster cluster = clusters.get(i);
-                double sim = cosine(item.getEmbedding(), cluster.centroid);
-                if (sim >= threshold && sim > bestSim) {
-                    best = i;
-                    bestSim = sim;
-                }
-            }
-            if (best < 0) {
-                clusters.add(NewsCluster.from(item));
-            } else {
-                clusters.get(best).add(item);
-            }
-        }
-
+        List<NewsCluster> clusters = clusterEngine.cluster(items, threshold);
         for (NewsCluster cluster : clusters) {
             cluster.refreshLabel();
         }
@@ -269,7 +368,11 @@ public final class WatchlistNewsPipeline {
                 NewsItemDao.NewsItemRecord item = cluster.items.get(i);
                 lines.add(safe(item.getTitle()));
             }
-            out.add(new LangChainSummaryService.ClusterInput(cluster.label, lines));
+            List<String> memberKeys = new ArrayList<>(cluster.items.size());
+            for (NewsItemDao.NewsItemRecord item : cluster.items) {
+                memberKeys.add(safe(item.getUrl()));
+            }
+            out.add(new LangChainSummaryService.ClusterInput(cluster.label, lines, memberKeys));
         }
         return out;
     }
@@ -358,27 +461,6 @@ public final class WatchlistNewsPipeline {
         }
     }
 
-    private double cosine(float[] a, float[] b) {
-        if (a == null || b == null || a.length == 0 || b.length == 0) {
-            return 0.0;
-        }
-        int size = Math.min(a.length, b.length);
-        double dot = 0.0;
-        double na = 0.0;
-        double nb = 0.0;
-        for (int i = 0; i < size; i++) {
-            double va = a[i];
-            double vb = b[i];
-            dot += va * vb;
-            na += va * va;
-            nb += vb * vb;
-        }
-        if (na <= 0.0 || nb <= 0.0) {
-            return 0.0;
-        }
-        return dot / Math.sqrt(na * nb);
-    }
-
     private OffsetDateTime timestampOrMin(OffsetDateTime value) {
         return value == null ? OffsetDateTime.MIN : value;
     }
@@ -434,6 +516,13 @@ public final class WatchlistNewsPipeline {
         telemetry.endStep(stepName, itemsIn, itemsOut, errorCount, optionalNote);
     }
 
+    private void recordStep(String stepName, long elapsedMs, long itemsIn, long itemsOut, long errorCount, String note) {
+        if (telemetry == null) {
+            return;
+        }
+        telemetry.recordStep(stepName, elapsedMs, itemsIn, itemsOut, errorCount, note);
+    }
+
     private void incrementNewsStats(int rawInc, int dedupInc, int clusterInc) {
         if (telemetry == null) {
             return;
@@ -445,7 +534,7 @@ public final class WatchlistNewsPipeline {
     public static final class PipelineResult {
         public final List<NewsItem> newsItems;
         public final List<String> digestLines;
-        public final String summaryHtml;
+        public final CompletableFuture<String> summaryFuture;
         public final String sourceLabel;
         public final int ingestedCount;
         public final int embeddedCount;
@@ -455,7 +544,7 @@ public final class WatchlistNewsPipeline {
         public PipelineResult(
                 List<NewsItem> newsItems,
                 List<String> digestLines,
-                String summaryHtml,
+                CompletableFuture<String> summaryFuture,
                 String sourceLabel,
                 int ingestedCount,
                 int embeddedCount,
@@ -463,7 +552,7 @@ public final class WatchlistNewsPipeline {
         ) {
             this.newsItems = newsItems == null ? List.of() : List.copyOf(newsItems);
             this.digestLines = digestLines == null ? List.of() : List.copyOf(digestLines);
-            this.summaryHtml = summaryHtml == null ? "" : summaryHtml;
+            this.summaryFuture = summaryFuture == null ? CompletableFuture.completedFuture("") : summaryFuture;
             this.sourceLabel = sourceLabel == null ? "" : sourceLabel;
             this.ingestedCount = Math.max(0, ingestedCount);
             this.embeddedCount = Math.max(0, embeddedCount);
@@ -474,7 +563,7 @@ public final class WatchlistNewsPipeline {
             return new PipelineResult(
                     List.of(),
                     List.of(),
-                    LangChainSummaryService.NO_EVENT_HTML,
+                    CompletableFuture.completedFuture(LangChainSummaryService.NO_EVENT_HTML),
                     sourceLabel,
                     ingestedCount,
                     embeddedCount,
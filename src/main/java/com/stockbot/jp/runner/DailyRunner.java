@@ -16,11 +16,16 @@ import com.stockbot.model.NewsItem;
 import com.stockbot.model.StockContext;
 import com.stockbot.scoring.GatePolicy;
 import com.stockbot.jp.config.Config;
+import com.stockbot.jp.data.BarArchive;
+import com.stockbot.jp.db.BarBlobDao;
 import com.stockbot.jp.db.BarDailyDao;
+import com.stockbot.jp.db.DbWriteStats;
 import com.stockbot.jp.db.MetadataDao;
 import com.stockbot.jp.db.RunDao;
 import com.stockbot.jp.db.ScanResultDao;
+import com.stockbot.jp.db.SqlProfiler;
 import com.stockbot.jp.db.UniverseDao;
+import com.stockbot.jp.db.UnitOfWork;
 import com.stockbot.jp.data.TickerNameResolver;
 import com.stockbot.jp.model.BarDaily;
 import com.stockbot.jp.model.DataInsufficientReason;
@@ -29,11 +34,14 @@ import com.stockbot.jp.model.RunRow;
 import com.stockbot.jp.model.ScanFailureReason;
 import com.stockbot.jp.model.ScanResultSummary;
 import com.stockbot.jp.model.ScoredCandidate;
+import com.stockbot.jp.model.TickerLatest;
 import com.stockbot.jp.model.TickerScanResult;
 import com.stockbot.jp.model.UniverseRecord;
 import com.stockbot.jp.model.UniverseUpdateResult;
 import com.stockbot.jp.model.WatchlistAnalysis;
+import com.stockbot.jp.news.NewsFeedPoller;
 import com.stockbot.jp.news.NewsItemDao;
+import com.stockbot.jp.news.NewsSummaryMemoDao;
 import com.stockbot.jp.news.WatchlistNewsPipeline;
 import com.stockbot.jp.output.ReportBuilder;
 import com.stockbot.jp.strategy.ReasonJsonBuilder;
@@ -52,15 +60,20 @@ import com.stockbot.utils.TextFormatter;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.sql.SQLException;
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.time.ZoneId;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
@@ -80,6 +93,9 @@ import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 
 public final class DailyRunner {
     public static final String RUN_MODE_DAILY = "DAILY";
@@ -193,6 +209,15 @@ public final class DailyRunner {
     private final UniverseDao universeDao;
     private final MetadataDao metadataDao;
     private final BarDailyDao barDailyDao;
+    /**
+     * Packed price history maintained next to price_daily when {@code price.blob.enabled}; null otherwise.
+     */
+    private final BarBlobDao barBlobDao;
+    private final boolean barBlobReads;
+    /**
+     * Local mmap bar archive read before price_daily when {@code scan.archive.enabled}; null otherwise.
+     */
+    private final BarArchive barArchive;
     private final RunDao runDao;
     private final ScanResultDao scanResultDao;
     private final TechScoreEngine techScoreEngine;
@@ -216,6 +241,13 @@ public final class DailyRunner {
     private final int fetchRetryMax;
     private final int fetchRetryBackoffMs;
     private final int maxBars;
+    private final LongAdder scanCacheReadNanos = new LongAdder();
+    private final LongAdder scanArchiveHits = new LongAdder();
+    private final LongAdder scanCacheReads = new LongAdder();
+    /**
+     * ticker_latest rows loaded at market scan start; null outside a scan or when the summary is unavailable.
+     */
+    private volatile Map<String, TickerLatest> tickerSummaries;
     private static final DateTimeFormatter NEWS_TS_FMT = DateTimeFormatter.ofPattern("MM-dd HH:mm");
     private static final Set<String> VECTOR_QUERY_STOPWORDS = Set.of(
             "stock", "stocks", "market", "news", "company", "companies",
@@ -282,7 +314,10 @@ public DailyRunner(
         this.reasonJsonBuilder = new ReasonJsonBuilder();
         this.reportBuilder = new ReportBuilder(config);
         this.legacyHttp = new HttpClientEx();
-        this.marketDataService = new MarketDataService(legacyHttp);
+        this.marketDataService = new MarketDataService(
+                legacyHttp,
+                config.getString("yahoo.chart.base_url", MarketDataService.DEFAULT_CHART_BASE_URL)
+        );
         this.industryService = new IndustryService(legacyHttp);
         this.eventMemoryService = eventMemoryService;
         VectorSearchService vectorSearchService = eventMemoryService == null ? null : eventMemoryService.vectorSearchService();
@@ -360,8 +395,17 @@ public DailyRunner(
                 Math.max(0, config.getInt("ai.max_tokens", config.getInt("watchlist.ai.max_tokens", 80)))
         );
         this.telemetry = telemetry;
+        this.barBlobDao = config.getBoolean("price.blob.enabled", false) ? new BarBlobDao(runDao.database()) : null;
+        this.barBlobReads = barBlobDao != null && config.getBoolean("price.blob.read_enabled", true);
         NewsItemDao newsItemDao = new NewsItemDao(runDao.database());
-        this.watchlistNewsPipeline = new WatchlistNewsPipeline(config, legacyHttp, newsItemDao, telemetry);
+        NewsSummaryMemoDao summaryMemo = config.getBoolean("ai.summary.memo.enabled", true)
+                ? new NewsSummaryMemoDao(
+                        runDao.database(),
+                        config.getInt("ai.summary.memo.ttl_days", 7),
+                        config.getInt("ai.summary.memo.lru_entries", 512)
+                )
+                : null;
+        this.watchlistNewsPipeline = new WatchlistNewsPipeline(config, legacyHttp, newsItemDao, summaryMemo, telemetry);
         this.tickerResolver = new TickerResolver(config.getString("watchlist.default_market_for_alpha", "US"));
         this.tickerNameResolver = new TickerNameResolver(config, legacyHttp);
         this.nonJpHandling = parseNonJpHandling(config.getString("watchlist.non_jp_handling", "PROCESS_SEPARATELY"));
@@ -371,6 +415,15 @@ public DailyRunner(
         this.fetchRetryMax = Math.max(0, config.getInt("fetch.retry.max", 2));
         this.fetchRetryBackoffMs = Math.max(50, config.getInt("fetch.retry.backoff_ms", 400));
         this.maxBars = Math.max(60, Math.max(config.getInt("yahoo.max_bars_per_ticker", 420), Math.max(fetchBarsMarket, fetchBarsWatchlist)));
+        String archiveDir = config.getString("scan.archive.dir", "");
+        this.barArchive = config.getBoolean("scan.archive.enabled", true)
+                ? new BarArchive(
+                        archiveDir.isBlank()
+                                ? config.getPath("outputs.dir").resolve("cache").resolve("bars")
+                                : config.workingDir().resolve(archiveDir).normalize(),
+                        maxBars
+                )
+                : null;
     }
 
 public DailyRunOutcome run(boolean forceUniverseUpdate, Integer topNOverride) throws Exception {
@@ -389,6 +442,7 @@ public DailyRunOutcome run(
     ) throws Exception {
         Instant startedAt = Instant.now();
         long runId = runDao.startRun(RUN_MODE_DAILY, "JP all-market scanner");
+        SqlProfiler.Recording sqlRecording = runDao.database().sqlProfiler().start();
         if (telemetry != null) {
             telemetry.setRunId(runId);
         }
@@ -418,6 +472,7 @@ public DailyRunOutcome run(
                     Math.max(scan.topN, config.getInt("scan.top_n", 15))
             );
             runDao.insertCandidates(runId, scan.topCandidates);
+            recordDbWriteStats();
 
             ZoneId zoneId = ZoneId.of(config.getString("app.zone", "Asia/Tokyo"));
             Path reportDir = config.getPath("report.dir");
@@ -489,6 +544,7 @@ public DailyRunOutcome run(
                     watchlistCandidates.size(),
                     scan.marketReferenceCandidates.size()
             );
+            recordSqlProfile(runId, sqlRecording);
             runDao.finishRun(
                     runId,
                     scan.partialRun ? "PARTIAL" : "SUCCESS",
@@ -499,6 +555,7 @@ public DailyRunOutcome run(
                     reportPath.toString(),
                     notes
             );
+            compactScanResults();
             System.out.println(String.format(
                     Locale.US,
                     "Watchlist analysis complete. analyzed=%d",
@@ -532,8 +589,11 @@ public DailyRunOutcome run(
             if (telemetry != null) {
                 telemetry.incrementErrors(1);
             }
+            recordSqlProfile(runId, sqlRecording);
             safeFinishFailed(runId, e);
             throw e;
+        } finally {
+            sqlRecording.close();
         }
     }
 
@@ -544,6 +604,7 @@ public DailyRunOutcome runMarketScanOnly(
     ) throws Exception {
         Instant startedAt = Instant.now();
         long runId = runDao.startRun(RUN_MODE_MARKET_SCAN, "JP all-market background scanner");
+        SqlProfiler.Recording sqlRecording = runDao.database().sqlProfiler().start();
         if (telemetry != null) {
             telemetry.setRunId(runId);
         }
@@ -564,6 +625,7 @@ public DailyRunOutcome runMarketScanOnly(
                 throw e;
             }
             runDao.insertCandidates(runId, scan.topCandidates);
+            recordDbWriteStats();
             String notes = String.format(
                     Locale.US,
                     "background_scan=true; universe_update=%s; failures=%d; message=%s; batch_progress=%d/%d; partial=%s; watchlist=0; market_ref_top=%d",
@@ -575,6 +637,7 @@ public DailyRunOutcome runMarketScanOnly(
                     scan.partialRun,
                     scan.marketReferenceCandidates.size()
             );
+            recordSqlProfile(runId, sqlRecording);
             runDao.finishRun(
                     runId,
                     scan.partialRun ? "PARTIAL" : "SUCCESS",
@@ -585,6 +648,7 @@ public DailyRunOutcome runMarketScanOnly(
                     null,
                     notes
             );
+            compactScanResults();
             return new DailyRunOutcome(
                     runId,
                     startedAt,
@@ -607,14 +671,18 @@ public DailyRunOutcome runMarketScanOnly(
             if (telemetry != null) {
                 telemetry.incrementErrors(1);
             }
+            recordSqlProfile(runId, sqlRecording);
             safeFinishFailed(runId, e);
             throw e;
+        } finally {
+            sqlRecording.close();
         }
     }
 
 public DailyRunOutcome runWatchlistReportFromLatestMarket(List<String> watchlist) throws Exception {
         Instant startedAt = Instant.now();
         long runId = runDao.startRun(RUN_MODE_DAILY_REPORT, "watchlist report merged with latest market scan");
+        SqlProfiler.Recording sqlRecording = runDao.database().sqlProfiler().start();
         if (telemetry != null) {
             telemetry.setRunId(runId);
         }
@@ -715,6 +783,7 @@ public DailyRunOutcome runWatchlistReportFromLatestMarket(List<String> watchlist
             telemetryEnd(RunTelemetry.STEP_HTML_RENDER, watchlistCandidates.size(), 1, 0);
 
             runDao.insertCandidates(runId, topCandidates);
+            recordDbWriteStats();
             String notes = String.format(
                     Locale.US,
                     "merged_from_run=%d(%s); watchlist=%d; market_ref_top=%d",
@@ -723,6 +792,7 @@ public DailyRunOutcome runWatchlistReportFromLatestMarket(List<String> watchlist
                     watchlistCandidates.size(),
                     marketReferenceCandidates.size()
             );
+            recordSqlProfile(runId, sqlRecording);
             runDao.finishRun(
                     runId,
                     "SUCCESS",
@@ -760,8 +830,11 @@ public DailyRunOutcome runWatchlistReportFromLatestMarket(List<String> watchlist
             if (telemetry != null) {
                 telemetry.incrementErrors(1);
             }
+            recordSqlProfile(runId, sqlRecording);
             safeFinishFailed(runId, e);
             throw e;
+        } finally {
+            sqlRecording.close();
         }
     }
 
@@ -797,28 +870,42 @@ private MarketScanSnapshot executeMarketScan(
             System.out.println("Data source priority: cache(fresh) -> yahoo -> cache");
         }
 
-        for (int offset = 0; offset < allowedThisRun; offset++) {
-            int segmentIndex = state.nextSegmentIndex;
-            MarketSegment segment = plan.segments.get(segmentIndex);
-            System.out.println(String.format(
-                    Locale.US,
-                    "Batch segment %d/%d market=%s size=%d",
-                    segmentIndex + 1,
-                    plan.segments.size(),
-                    segment.segmentKey,
-                    segment.records.size()
-            ));
-            ScanStats segmentStats = scanUniverse(
-                    runId,
-                    segment.records,
-                    topN,
-                    segmentIndex + 1,
-                    plan.segments.size(),
-                    segment.segmentKey
-            );
-            state.stats.merge(segmentStats);
-            state.nextSegmentIndex = segmentIndex + 1;
-            saveCheckpoint(plan, state, topN);
+        tickerSummaries = loadTickerSummaries(universe);
+        try {
+            for (int offset = 0; offset < allowedThisRun; offset++) {
+                int segmentIndex = state.nextSegmentIndex;
+                MarketSegment segment = plan.segments.get(segmentIndex);
+                System.out.println(String.format(
+                        Locale.US,
+                        "Batch segment %d/%d market=%s size=%d",
+                        segmentIndex + 1,
+                        plan.segments.size(),
+                        segment.segmentKey,
+                        segment.records.size()
+                ));
+                ScanStats segmentStats = scanUniverse(
+                        runId,
+                        segment.records,
+                        topN,
+                        segmentIndex + 1,
+                        plan.segments.size(),
+                        segment.segmentKey
+                );
+                state.stats.merge(segmentStats);
+                state.nextSegmentIndex = segmentIndex + 1;
+                saveCheckpoint(plan, state, topN);
+            }
+        } finally {
+            tickerSummaries = null;
+            closeBarArchive();
+        }
+
+        if (state.stats.tickersTimed > 0) {
+            String timing = state.stats.timingNote();
+            System.out.println("Scan timing: " + timing);
+            if (telemetry != null) {
+                telemetry.setStepNote(RunTelemetry.STEP_MARKET_FETCH, timing);
+            }
         }
 
         boolean completedAllSegments = state.nextSegmentIndex >= plan.segments.size();
@@ -826,6 +913,7 @@ private MarketScanSnapshot executeMarketScan(
             clearCheckpoint(plan);
         }
 
+        state.stats.materializeTop(this::withCandidateJson);
         List<ScoredCandidate> rankedTop = new ArrayList<>(state.stats.topCandidates());
         rankedTop.sort(Comparator.comparingDouble((ScoredCandidate c) -> c.score).reversed());
         List<ScoredCandidate> top = rankedTop.size() <= topN
@@ -880,7 +968,9 @@ private List<WatchlistAnalysis> analyzeWatchlist(List<String> watchlist, List<Un
         }
 
         System.out.println(String.format(Locale.US, "Watchlist analysis start. size=%d", watchItems.size()));
+        Map<String, List<String>> plannedNewsQueries = planWatchlistNews(watchItems, byCode, byTicker);
         List<WatchlistAnalysis> out = new ArrayList<>();
+        Map<Integer, WatchlistNewsPipeline.PipelineResult> pendingSummaries = new LinkedHashMap<>();
         for (int i = 0; i < watchItems.size(); i++) {
             String watchItem = watchItems.get(i);
             TickerSpec tickerSpec = tickerResolver.resolve(watchItem);
@@ -914,13 +1004,23 @@ private List<WatchlistAnalysis> analyzeWatchlist(List<String> watchlist, List<Un
                 PriceFetchTrace priceTrace = fetchWatchPriceTrace(record.ticker, yahooTicker);
                 logPriceTrace(record.ticker, priceTrace);
 
-                LegacyWatchResult legacy = buildLegacyWatchResult(record, watchItem, yahooTicker, priceTrace);
                 telemetryStart(RunTelemetry.STEP_INDICATORS);
                 WatchlistScanResult technical = scanWatchRecord(record, watchItem, priceTrace);
                 long indicatorIn = priceTrace == null ? 0 : Math.max(0, priceTrace.barsCount);
                 long indicatorOut = technical != null && technical.indicatorReady ? 1 : 0;
                 long indicatorErr = technical == null ? 1 : (safeText(technical.error).isEmpty() ? 0 : 1);
                 telemetryEnd(RunTelemetry.STEP_INDICATORS, indicatorIn, indicatorOut, indicatorErr);
+                LegacyWatchResult legacy = buildLegacyWatchResult(
+                        record,
+                        watchItem,
+                        yahooTicker,
+                        priceTrace,
+                        plannedNewsQueries.get(yahooTicker),
+                        technical == null || technical.candidate == null ? 0.0 : safeDouble(technical.candidate.score)
+                );
+                if (legacy.pendingSummary != null) {
+                    pendingSummaries.put(out.size(), legacy.pendingSummary);
+                }
                 TickerNameResolver.ResolvedTickerName resolvedName =
                         tickerNameResolver.resolve(tickerSpec.normalized, tickerSpec.market.name());
                 String industryEn = normalizeUnknownText(industryService.industryOf(yahooTicker), "-");
@@ -1037,6 +1137,8 @@ private List<WatchlistAnalysis> analyzeWatchlist(List<String> watchlist, List<Un
             ));
         }
 
+        resolvePendingSummaries(out, pendingSummaries);
+
         Set<String> suspectTickers = detectPriceSuspects(out);
         if (!suspectTickers.isEmpty()) {
             List<WatchlistAnalysis> flagged = new ArrayList<>(out.size());
@@ -1069,9 +1171,194 @@ private List<WatchlistAnalysis> analyzeWatchlist(List<String> watchlist, List<Un
                 telemetry.setAiUsage(true, "triggered_items=" + triggered);
             }
         }
+        recordMemorySearchStats();
+        if (telemetry != null && !plannedNewsQueries.isEmpty()) {
+            telemetry.setStepNote(RunTelemetry.STEP_NEWS_FETCH, watchlistNewsPipeline.fetchStatsNote());
+        }
         return out;
     }
 
+    /**
+     * Fills in cluster summaries queued during the watchlist loop. Waiting is bounded by the run's AI budget;
+     * summaries not ready by then fall back to the cluster outline.
+     */
+    private void resolvePendingSummaries(
+            List<WatchlistAnalysis> rows,
+            Map<Integer, WatchlistNewsPipeline.PipelineResult> pendingSummaries
+    ) {
+        if (pendingSummaries.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Integer, WatchlistNewsPipeline.PipelineResult> entry : pendingSummaries.entrySet()) {
+            String summaryText = TextFormatter.toPlainText(safeText(watchlistNewsPipeline.awaitSummary(entry.getValue())));
+            if (summaryText.isBlank()) {
+                summaryText = "聚类摘要暂不可用。";
+            }
+            WatchlistAnalysis row = rows.get(entry.getKey());
+            rows.set(entry.getKey(), copyWatchRow(row, row.priceSuspect, trimChars(summaryText, watchlistMaxAiChars)));
+        }
+        String note = watchlistNewsPipeline.summaryStatsNote();
+        System.out.println("[AI_SUMMARY] " + note);
+        if (telemetry != null) {
+            telemetry.setStepNote(RunTelemetry.STEP_AI_SUMMARY, note);
+        }
+    }
+
+    /**
+     * Builds every processable watch item's news queries before the per-item loop and hands them to the
+     * news pipeline, so feeds shared across tickers are fetched once per run.
+     */
+    private Map<String, List<String>> planWatchlistNews(
+            List<String> watchItems,
+            Map<String, UniverseRecord> byCode,
+            Map<String, UniverseRecord> byTicker
+    ) {
+        Map<String, List<String>> planned = new LinkedHashMap<>();
+        for (String watchItem : watchItems) {
+            TickerSpec tickerSpec = tickerResolver.resolve(watchItem);
+            if (!tickerSpec.isOk()
+                    || (tickerSpec.market != TickerSpec.Market.JP && nonJpHandling == NonJpHandling.SKIP_WITH_REASON)) {
+                continue;
+            }
+            UniverseRecord record = resolveJpWatchRecord(tickerSpec, byCode, byTicker);
+            String yahooTicker = toYahooTicker(tickerSpec, record);
+            if (planned.containsKey(yahooTicker)) {
+                continue;
+            }
+            try {
+                planned.put(yahooTicker, planNewsQueries(record, watchItem, yahooTicker));
+            } catch (RuntimeException e) {
+                System.err.println("WARN: news query planning failed ticker=" + safeText(yahooTicker) + ", err=" + e.getMessage());
+            }
+        }
+        NewsFeedPoller.savePlan(metadataDao, planned);
+        Optional<NewsFeedPoller.Status> pollStatus = config.getBoolean("news.poll.enabled", false)
+                ? NewsFeedPoller.freshStatus(
+                        metadataDao,
+                        planned.keySet(),
+                        Duration.ofMinutes(Math.max(1, config.getInt("news.poll.max_lag_min", 30)))
+                )
+                : Optional.empty();
+        watchlistNewsPipeline.planRun(
+                planned,
+                config.getString("watchlist.news.lang", "ja"),
+                config.getString("watchlist.news.region", "JP"),
+                pollStatus.isPresent()
+        );
+        if (telemetry != null && pollStatus.isPresent()) {
+            telemetry.setStepNote(RunTelemetry.STEP_NEWS_FETCH, pollStatus.get().note());
+        }
+        return planned;
+    }
+
+    /**
+     * Rolls scan_results older than {@code scan.results.retention_days} into scan_result_rollup and drops their
+     * partitions; 0 keeps every row.
+     */
+    private void compactScanResults() {
+        int retentionDays = config.getInt("scan.results.retention_days", 90);
+        if (retentionDays <= 0) {
+            return;
+        }
+        OffsetDateTime cutoff = OffsetDateTime.now(ZoneOffset.UTC).minusDays(retentionDays);
+        try {
+            ScanResultDao.CompactionStats stats = scanResultDao.compactBefore(cutoff);
+            System.out.println(String.format(
+                    Locale.US,
+                    "Scan results retention: cutoff=%s runs_rolled_up=%d partitions_dropped=%d default_rows_deleted=%d",
+                    cutoff.toLocalDate(),
+                    stats.getRunsRolledUp(),
+                    stats.getPartitionsDropped(),
+                    stats.getDefaultRowsDeleted()
+            ));
+        } catch (Exception e) {
+            System.err.println("WARN: scan_results retention failed: " + e.getMessage());
+        }
+    }
+
+    private void recordDbWriteStats() {
+        List<DbWriteStats.TableWrite> writes = runDao.database().writeStats().drain();
+        if (writes.isEmpty()) {
+            return;
+        }
+        long rows = 0L;
+        long nanos = 0L;
+        for (DbWriteStats.TableWrite write : writes) {
+            rows += write.rows;
+            nanos += write.nanos;
+        }
+        String note = DbWriteStats.toNote(writes);
+        System.out.println("DB writes: " + note);
+        if (telemetry != null) {
+            telemetry.recordStep(RunTelemetry.STEP_DB_WRITE, nanos / 1_000_000L, rows, rows, 0, note);
+        }
+    }
+
+    /**
+     * Stops the run's SQL recording and publishes its statement shapes: the slowest {@code db.sql_profile.top_n} plus
+     * every N+1 suspect go into the run summary and run_logs. Called once the run's report, AI and news work is done,
+     * right before the run row is finished.
+     */
+    private void recordSqlProfile(long runId, SqlProfiler.Recording recording) {
+        List<SqlProfiler.ShapeStat> shapes = recording.stop();
+        if (shapes.isEmpty()) {
+            return;
+        }
+        int topN = Math.max(1, config.getInt("db.sql_profile.top_n", 10));
+        long nPlusOneCalls = config.getInt("db.sql_profile.n_plus_one_calls", 500);
+        List<SqlProfiler.ShapeStat> top = new ArrayList<>();
+        long calls = 0L;
+        long nanos = 0L;
+        long failures = 0L;
+        int nPlusOne = 0;
+        for (SqlProfiler.ShapeStat shape : shapes) {
+            calls += shape.calls;
+            nanos += shape.totalNanos;
+            failures += shape.failures;
+            boolean suspect = shape.nPlusOne(nPlusOneCalls);
+            if (suspect) {
+                nPlusOne++;
+            }
+            if (top.size() < topN || suspect) {
+                top.add(shape);
+            }
+        }
+        String note = String.format(Locale.US, "shapes=%d calls=%d n_plus_one=%d", shapes.size(), calls, nPlusOne);
+        List<String> table = SqlProfiler.toTable(top, nPlusOneCalls);
+        System.out.println("SQL profile: " + note);
+        for (String line : table) {
+            System.out.println("  " + line);
+        }
+        if (telemetry != null) {
+            telemetry.recordStep(RunTelemetry.STEP_SQL_PROFILE, nanos / 1_000_000L, calls, shapes.size(), failures, note);
+            telemetry.setSection("sql_top_shapes", table);
+        }
+        try {
+            runDao.insertSqlProfile(runId, top, nPlusOneCalls);
+        } catch (Exception e) {
+            System.err.println("WARN: sql profile write failed: " + e.getMessage());
+        }
+    }
+
+    private void recordMemorySearchStats() {
+        VectorSearchService vectorSearchService = eventMemoryService == null ? null : eventMemoryService.vectorSearchService();
+        if (telemetry == null || vectorSearchService == null) {
+            return;
+        }
+        VectorSearchService.SearchStats stats = vectorSearchService.drainStats();
+        if (stats.totalQueries() <= 0L && stats.embedCalls <= 0L) {
+            return;
+        }
+        telemetry.recordStep(
+                RunTelemetry.STEP_MEMORY_SEARCH,
+                stats.totalElapsedMs(),
+                stats.totalQueries(),
+                stats.vectorQueries,
+                stats.embedFailures,
+                stats.toNote()
+        );
+    }
+
 private String toWatchStatus(WatchlistScanResult result, double minScore) {
         if (!result.error.isEmpty()) {
             return "ERROR";
@@ -1761,12 +2048,15 @@ private LegacyWatchResult buildLegacyWatchResult(
             UniverseRecord record,
             String watchItem,
             String yahooTicker,
-            PriceFetchTrace priceTrace
+            PriceFetchTrace priceTrace,
+            List<String> plannedQueries,
+            double summaryPriority
     ) {
         StockContext sc = new StockContext(yahooTicker);
         String error = "";
         String newsSourceLabel = "";
         List<String> clusterDigestLines = List.of();
+        WatchlistNewsPipeline.PipelineResult pendingSummary = null;
         try {
             List<DailyPrice> history = toDailyPrices(priceTrace == null ? List.of() : priceTrace.bars);
             if (history.isEmpty()) {
@@ -1782,50 +2072,9 @@ private LegacyWatchResult buildLegacyWatchResult(
             sc.prevClose = pair.prev;
             sc.pctChange = computePctChange(sc.lastClose, sc.prevClose);
 
-            List<String> baseQueries = buildNewsQueries(record, watchItem, yahooTicker);
-            List<String> effectiveQueries = baseQueries;
-            int droppedInvalid = 0;
-            boolean vectorQueryExpandEnabled = config.getBoolean("news.vector.query_expand.enabled", true);
-            int vectorQueryTopK = Math.max(1, resolveAutoTunedNewsInt(
-                    "news.vector.query_expand.top_k",
-                    config.getInt("news.vector.query_expand.top_k", 8),
-                    12,
-                    8
-            ));
-            int vectorQueryMaxExtra = Math.max(0, resolveAutoTunedNewsInt(
-                    "news.vector.query_expand.max_extra_queries",
-                    config.getInt("news.vector.query_expand.max_extra_queries", 2),
-                    4,
-                    2
-            ));
-            int vectorQueryRounds = Math.max(1, resolveAutoTunedNewsInt(
-                    "news.vector.query_expand.rounds",
-                    config.getInt("news.vector.query_expand.rounds", 2),
-                    3,
-                    2
-            ));
-            int vectorQuerySeedCount = Math.max(1, resolveAutoTunedNewsInt(
-                    "news.vector.query_expand.seed_count",
-                    config.getInt("news.vector.query_expand.seed_count", 3),
-                    4,
-                    3
-            ));
-            VectorSearchService vectorSearchService = eventMemoryService == null ? null : eventMemoryService.vectorSearchService();
-            if (vectorQueryExpandEnabled && vectorSearchService != null && vectorQueryMaxExtra > 0) {
-                effectiveQueries = expandNewsQueriesByVector(
-                        vectorSearchService,
-                        yahooTicker,
-                        baseQueries,
-                        vectorQueryTopK,
-                        vectorQueryMaxExtra,
-                        vectorQueryRounds,
-                        vectorQuerySeedCount
-                );
-            }
-            List<String> cleanedQueries = sanitizeNewsQueryList(effectiveQueries);
-            droppedInvalid = Math.max(0, (effectiveQueries == null ? 0 : effectiveQueries.size()) - cleanedQueries.size());
-            effectiveQueries = cleanedQueries;
-            logNewsQueryPlan(yahooTicker, baseQueries, effectiveQueries, droppedInvalid);
+            List<String> effectiveQueries = plannedQueries == null
+                    ? planNewsQueries(record, watchItem, yahooTicker)
+                    : plannedQueries;
             String companyName = resolveCompanyLocalName(record, yahooTicker);
             String industryEn = normalizeUnknownText(industryService.industryOf(yahooTicker), "");
             String industryZh = normalizeUnknownText(industryService.industryZhOf(yahooTicker), "");
@@ -1836,22 +2085,19 @@ private LegacyWatchResult buildLegacyWatchResult(
                     industryEn,
                     effectiveQueries,
                     config.getString("watchlist.news.lang", "ja"),
-                    config.getString("watchlist.news.region", "JP")
+                    config.getString("watchlist.news.region", "JP"),
+                    summaryPriority
             );
             sc.news.addAll(newsResult.newsItems);
             newsSourceLabel = safeText(newsResult.sourceLabel);
             clusterDigestLines = newsResult.digestLines == null ? List.of() : newsResult.digestLines;
-            boolean hasRelevantNews = !newsResult.newsItems.isEmpty();
-
-            String summaryText = TextFormatter.toPlainText(safeText(newsResult.summaryHtml));
-            if (summaryText.isBlank()) {
-                summaryText = hasRelevantNews
-                        ? "聚类摘要暂不可用。"
-                        : "回溯窗口内未发现显著事件聚类。";
+            if (newsResult.newsItems.isEmpty()) {
+                sc.aiSummary = "回溯窗口内未发现显著事件聚类。";
+            } else {
+                // Resolved after the watchlist loop; see resolvePendingSummaries.
+                sc.aiSummary = "";
+                pendingSummary = newsResult;
             }
-            sc.aiSummary = hasRelevantNews
-                    ? summaryText
-                    : "回溯窗口内未发现显著事件聚类。";
         } catch (Exception e) {
             String msg = safeText(e.getMessage());
             if (msg.isEmpty()) {
@@ -1868,7 +2114,7 @@ private LegacyWatchResult buildLegacyWatchResult(
                     error
             ));
         }
-        return new LegacyWatchResult(sc, error, newsSourceLabel, clusterDigestLines);
+        return new LegacyWatchResult(sc, error, newsSourceLabel, clusterDigestLines, pendingSummary);
     }
 
 private List<BarDaily> toBarsFromYahoo(String jpTicker, List<MarketDataService.DailyBar> history) {
@@ -1910,6 +2156,54 @@ private List<DailyPrice> toDailyPrices(List<BarDaily> bars) {
         return out;
     }
 
+    private List<String> planNewsQueries(UniverseRecord record, String watchItem, String yahooTicker) {
+        List<String> baseQueries = buildNewsQueries(record, watchItem, yahooTicker);
+        List<String> effectiveQueries = baseQueries;
+        int droppedInvalid = 0;
+        boolean vectorQueryExpandEnabled = config.getBoolean("news.vector.query_expand.enabled", true);
+        int vectorQueryTopK = Math.max(1, resolveAutoTunedNewsInt(
+                "news.vector.query_expand.top_k",
+                config.getInt("news.vector.query_expand.top_k", 8),
+                12,
+                8
+        ));
+        int vectorQueryMaxExtra = Math.max(0, resolveAutoTunedNewsInt(
+                "news.vector.query_expand.max_extra_queries",
+                config.getInt("news.vector.query_expand.max_extra_queries", 2),
+                4,
+                2
+        ));
+        int vectorQueryRounds = Math.max(1, resolveAutoTunedNewsInt(
+                "news.vector.query_expand.rounds",
+                config.getInt("news.vector.query_expand.rounds", 2),
+                3,
+                2
+        ));
+        int vectorQuerySeedCount = Math.max(1, resolveAutoTunedNewsInt(
+                "news.vector.query_expand.seed_count",
+                config.getInt("news.vector.query_expand.seed_count", 3),
+                4,
+                3
+        ));
+        VectorSearchService vectorSearchService = eventMemoryService == null ? null : eventMemoryService.vectorSearchService();
+        if (vectorQueryExpandEnabled && vectorSearchService != null && vectorQueryMaxExtra > 0) {
+            effectiveQueries = expandNewsQueriesByVector(
+                    vectorSearchService,
+                    yahooTicker,
+                    baseQueries,
+                    vectorQueryTopK,
+                    vectorQueryMaxExtra,
+                    vectorQueryRounds,
+                    vectorQuerySeedCount
+            );
+        }
+        List<String> cleanedQueries = sanitizeNewsQueryList(effectiveQueries);
+        droppedInvalid = Math.max(0, (effectiveQueries == null ? 0 : effectiveQueries.size()) - cleanedQueries.size());
+        effectiveQueries = cleanedQueries;
+        logNewsQueryPlan(yahooTicker, baseQueries, effectiveQueries, droppedInvalid);
+        return effectiveQueries;
+    }
+
     private List<String> buildNewsQueries(UniverseRecord record, String watchItem, String yahooTicker) {
         LinkedHashSet<String> queries = new LinkedHashSet<>();
         String recordName = normalizeNewsQueryToken(record == null ? "" : record.name);
@@ -2043,11 +2337,22 @@ private List<DailyPrice> toDailyPrices(List<BarDaily> bars) {
             }
 
             LinkedHashMap<String, Double> hintScores = new LinkedHashMap<>();
-            for (String seed : seeds) {
-                List<VectorSearchService.DocMatch> matches = searchVectorNews(vectorSearchService, seed, topK, tickerFilter);
-                if (matches.isEmpty() && !tickerFilter.isEmpty()) {
-                    matches = searchVectorNews(vectorSearchService, seed, topK, "");
+            List<List<VectorSearchService.DocMatch>> seedMatches = searchVectorNews(vectorSearchService, seeds, topK, tickerFilter);
+            if (!tickerFilter.isEmpty()) {
+                List<Integer> emptySlots = new ArrayList<>();
+                List<String> retrySeeds = new ArrayList<>();
+                for (int i = 0; i < seeds.size(); i++) {
+                    if (seedMatches.get(i).isEmpty()) {
+                        emptySlots.add(i);
+                        retrySeeds.add(seeds.get(i));
+                    }
+                }
+                List<List<VectorSearchService.DocMatch>> retried = searchVectorNews(vectorSearchService, retrySeeds, topK, "");
+                for (int i = 0; i < emptySlots.size(); i++) {
+                    seedMatches.set(emptySlots.get(i), retried.get(i));
                 }
+            }
+            for (List<VectorSearchService.DocMatch> matches : seedMatches) {
                 int rank = 0;
                 for (VectorSearchService.DocMatch match : matches) {
                     double weight = 1.0 / (1.0 + rank);
@@ -2167,32 +2472,44 @@ private List<DailyPrice> toDailyPrices(List<BarDaily> bars) {
         return out;
     }
 
-    private List<VectorSearchService.DocMatch> searchVectorNews(
+    private List<List<VectorSearchService.DocMatch>> searchVectorNews(
             VectorSearchService vectorSearchService,
-            String seed,
+            List<String> seeds,
             int topK,
             String tickerFilter
     ) {
-        if (vectorSearchService == null) {
-            return List.of();
-        }
-        String keyword = normalizeVectorQuery(seed);
-        if (keyword.isEmpty()) {
-            return List.of();
-        }
-        try {
-            return vectorSearchService.searchSimilar(
+        List<List<VectorSearchService.DocMatch>> out = new ArrayList<>();
+        List<VectorSearchService.Query> queries = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < seeds.size(); i++) {
+            out.add(List.of());
+            String keyword = normalizeVectorQuery(seeds.get(i));
+            if (keyword.isEmpty()) {
+                continue;
+            }
+            slots.add(i);
+            queries.add(new VectorSearchService.Query(
                     keyword,
-                    Math.max(1, topK),
+                    null,
                     new VectorSearchService.SearchFilters(
                             "NEWS",
                             tickerFilter == null || tickerFilter.isEmpty() ? null : tickerFilter,
                             null
                     )
-            );
+            ));
+        }
+        if (vectorSearchService == null || queries.isEmpty()) {
+            return out;
+        }
+        try {
+            List<List<VectorSearchService.DocMatch>> matches = vectorSearchService.searchSimilarBatch(queries, Math.max(1, topK));
+            for (int i = 0; i < slots.size(); i++) {
+                out.set(slots.get(i), matches.get(i));
+            }
         } catch (Exception ignored) {
-            return List.of();
+            // Query expansion is best effort; fall back to the base queries.
         }
+        return out;
     }
 
     private void collectVectorHints(Map<String, Double> hintScores, VectorSearchService.DocMatch match, double weight) {
@@ -2508,6 +2825,10 @@ private Set<String> detectPriceSuspects(List<WatchlistAnalysis> rows) {
     }
 
 private WatchlistAnalysis copyWatchRowWithSuspect(WatchlistAnalysis row, boolean suspect) {
+        return copyWatchRow(row, suspect, row.aiSummary);
+    }
+
+    private WatchlistAnalysis copyWatchRow(WatchlistAnalysis row, boolean suspect, String aiSummary) {
         return new WatchlistAnalysis(
                 row.watchItem,
                 row.code,
@@ -2537,7 +2858,7 @@ private WatchlistAnalysis copyWatchRowWithSuspect(WatchlistAnalysis row, boolean
                 row.gateReason,
                 row.newsCount,
                 row.newsSource,
-                row.aiSummary,
+                aiSummary,
                 row.newsDigests,
                 row.technicalScore,
                 row.technicalStatus,
@@ -3406,7 +3727,10 @@ private ScanStats scanUniverse(
         int threads = Math.max(1, config.getInt("fetch.concurrent", config.getInt("scan.threads", 8)));
         int logEvery = Math.max(0, config.getInt("scan.progress.log_every", 100));
         long startedNanos = System.nanoTime();
-        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        scanCacheReadNanos.reset();
+        scanArchiveHits.reset();
+        scanCacheReads.reset();
+        ExecutorService pool = newScanPool(threads);
         CompletionService<TickerScanResult> completion = new ExecutorCompletionService<>(pool);
         for (UniverseRecord record : universe) {
             completion.submit(new TickerTask(record));
@@ -3414,7 +3738,7 @@ private ScanStats scanUniverse(
 
         ScanStats stats = new ScanStats(topN);
         List<TickerScanResult> scanRows = new ArrayList<>(total);
-        try {
+        try (UnitOfWork ignored = openUnitOfWork()) {
             for (int i = 0; i < total; i++) {
                 Future<TickerScanResult> future = completion.take();
                 try {
@@ -3439,6 +3763,8 @@ private ScanStats scanUniverse(
                                             initialDays,
                                             recentDays
                                     );
+                                    refreshBarBlob(result.universe.ticker, result.bars, upsertedBars);
+                                    appendBarArchive(result.universe, result.bars);
                                     long upsertNanos = System.nanoTime() - upsertStarted;
                                     stats.recordUpsert(upsertNanos, upsertedBars);
                                 } catch (SQLException e) {
@@ -3473,11 +3799,18 @@ private ScanStats scanUniverse(
         } finally {
             pool.shutdown();
         }
+        long scanResultsStarted = System.nanoTime();
         try {
             scanResultDao.insertBatch(runId, scanRows);
         } catch (SQLException e) {
             System.err.println("WARN: failed to persist scan_results for run_id=" + runId + ", err=" + e.getMessage());
         }
+        stats.scanResultsNanosTotal = System.nanoTime() - scanResultsStarted;
+        stats.cacheReadNanosTotal = scanCacheReadNanos.sum();
+        stats.archiveHitCount = (int) scanArchiveHits.sum();
+        stats.cacheReadCount = (int) scanCacheReads.sum();
+        stats.scanWallNanosTotal = System.nanoTime() - startedNanos;
+        stats.tickersTimed = total;
         return stats;
     }
 
@@ -3631,13 +3964,60 @@ private TickerScanResult scanTicker(UniverseRecord universe) {
             boolean cachePreferEnabled = config.getBoolean("scan.cache.prefer_enabled", true);
             int cacheFreshDays = Math.max(0, config.getInt("scan.cache.fresh_days", 2));
             boolean retryWhenCacheExists = config.getBoolean("scan.network.retry_when_cache_exists", false);
+            Map<String, TickerLatest> summaries = tickerSummaries;
+            TickerLatest summary = summaries == null ? null : summaries.get(universe.ticker);
+            boolean summaryFresh = isSummaryFreshEnough(summary, minHistoryBars, cacheFreshDays);
+
+            if (summaryFresh
+                    && config.getBoolean("scan.prefilter.non_tradable", false)
+                    && !isTradableAndLiquid(summary)) {
+                return TickerScanResult.failed(
+                        universe,
+                        "filtered_non_tradable",
+                        0L,
+                        0L,
+                        "cache",
+                        false,
+                        "",
+                        nanosToMillis(System.nanoTime() - started),
+                        true,
+                        summary.barCount,
+                        summary.lastTradeDate,
+                        summary.lastClose,
+                        true,
+                        DataInsufficientReason.NONE,
+                        ScanFailureReason.FILTERED_NON_TRADABLE
+                );
+            }
+
+            if (cachePreferEnabled && barArchive != null) {
+                List<BarDaily> archived = readBarArchive(universe);
+                if (isCacheFreshEnough(archived, minHistoryBars, cacheFreshDays) && hasScreeningShape(archived)) {
+                    scanArchiveHits.increment();
+                    return evaluateBars(
+                            universe,
+                            archived,
+                            0L,
+                            0L,
+                            "cache",
+                            false,
+                            "",
+                            nanosToMillis(System.nanoTime() - started),
+                            ScanFailureReason.NONE
+                    );
+                }
+            }
 
-            List<BarDaily> cachedBars = loadCachedBars(universe.ticker);
-            boolean cacheHasScreeningShape = hasScreeningShape(cachedBars);
+            // With summaries loaded, price_daily is read up front only when it can serve the scan by itself;
+            // otherwise it is read after Yahoo fails, and not at all for tickers without stored bars.
+            List<BarDaily> cachedBars = cachePreferEnabled && (summaries == null || summaryFresh)
+                    ? readCachedBars(universe.ticker)
+                    : null;
             String yahooTicker = toYahooTicker(universe);
-            if (cachePreferEnabled
+            if (cachedBars != null
                     && isCacheFreshEnough(cachedBars, minHistoryBars, cacheFreshDays)
-                    && cacheHasScreeningShape) {
+                    && hasScreeningShape(cachedBars)) {
+                writeBarArchive(universe, cachedBars);
                 return evaluateBars(
                         universe,
                         cachedBars,
@@ -3651,14 +4031,16 @@ private TickerScanResult scanTicker(UniverseRecord universe) {
                 );
             }
 
+            long fetchStarted = System.nanoTime();
             YahooFetchResult yahooFetch = fetchBarsFromYahoo(universe.ticker, yahooTicker, fetchBarsMarket, "market");
+            long fetchNanos = System.nanoTime() - fetchStarted;
             List<BarDaily> yahooBars = yahooFetch.bars;
             boolean yahooHasScreeningShape = hasScreeningShape(yahooBars);
             if (!yahooBars.isEmpty() && yahooHasScreeningShape) {
                 return evaluateBars(
                         universe,
                         yahooBars,
-                        0L,
+                        fetchNanos,
                         0L,
                         "yahoo",
                         yahooFetch.requestFailed,
@@ -3667,12 +4049,15 @@ private TickerScanResult scanTicker(UniverseRecord universe) {
                         requestFailureReason(yahooFetch.requestFailureCategory)
                 );
             }
+            if (cachedBars == null) {
+                cachedBars = summaries != null && summary == null ? List.of() : readCachedBars(universe.ticker);
+            }
 
             if (!cachedBars.isEmpty() && !retryWhenCacheExists) {
                 return evaluateBars(
                         universe,
                         cachedBars,
-                        0L,
+                        fetchNanos,
                         0L,
                         "cache",
                         yahooFetch.requestFailed,
@@ -3686,7 +4071,7 @@ private TickerScanResult scanTicker(UniverseRecord universe) {
                 return evaluateBars(
                         universe,
                         yahooBars,
-                        0L,
+                        fetchNanos,
                         0L,
                         "yahoo",
                         yahooFetch.requestFailed,
@@ -3700,7 +4085,7 @@ private TickerScanResult scanTicker(UniverseRecord universe) {
                 return evaluateBars(
                         universe,
                         cachedBars,
-                        0L,
+                        fetchNanos,
                         0L,
                         "cache",
                         true,
@@ -3713,7 +4098,7 @@ private TickerScanResult scanTicker(UniverseRecord universe) {
             return TickerScanResult.failed(
                     universe,
                     "fetch_failed:" + safeText(yahooFetch.requestFailureCategory),
-                    0L,
+                    fetchNanos,
                     0L,
                     "yahoo",
                     true,
@@ -3789,8 +4174,7 @@ private TickerScanResult evaluateBars(
 
         try {
             TechScoreResult tech = techScoreEngine.evaluate(universe.ticker, universe.name, bars);
-            String reasonsJson = reasonJsonBuilder.buildReasonsJson(tech, config.getDouble("scan.min_score", 55.0));
-            String indicatorsJson = reasonJsonBuilder.buildIndicatorsJson(tech);
+            // JSON is built by withCandidateJson only for candidates that reach the top list.
             ScoredCandidate candidate = new ScoredCandidate(
                     universe.ticker,
                     universe.code,
@@ -3798,8 +4182,9 @@ private TickerScanResult evaluateBars(
                     universe.market,
                     tech.getTrendStrength(),
                     tech.getPrice(),
-                    reasonsJson,
-                    indicatorsJson
+                    null,
+                    null,
+                    tech
             );
 
             DataInsufficientReason insufficientReason = tech.getDataStatus() == DataStatus.MISSING
@@ -3846,6 +4231,13 @@ private TickerScanResult evaluateBars(
         }
     }
 
+private ScoredCandidate withCandidateJson(ScoredCandidate candidate) {
+        return candidate.toBuilder()
+                .reasonsJson(reasonJsonBuilder.buildReasonsJson(candidate.tech, config.getDouble("scan.min_score", 55.0)))
+                .indicatorsJson(reasonJsonBuilder.buildIndicatorsJson(candidate.tech))
+                .build();
+    }
+
 private LocalDate lastTradeDateOf(List<BarDaily> bars) {
         if (bars == null || bars.isEmpty()) {
             return null;
@@ -3899,7 +4291,10 @@ private boolean isBarsFreshEnough(List<BarDaily> bars, int freshDays) {
         if (bars == null || bars.isEmpty()) {
             return false;
         }
-        LocalDate latest = lastTradeDateOf(bars);
+        return isTradeDateFreshEnough(lastTradeDateOf(bars), freshDays);
+    }
+
+    private boolean isTradeDateFreshEnough(LocalDate latest, int freshDays) {
         if (latest == null) {
             return false;
         }
@@ -3923,6 +4318,16 @@ private boolean isCacheFreshEnough(List<BarDaily> bars, int minHistoryBars, int
         return isBarsFreshEnough(bars, freshDays);
     }
 
+    /**
+     * Summary counterpart of {@code isCacheFreshEnough && hasScreeningShape}.
+     */
+    private boolean isSummaryFreshEnough(TickerLatest summary, int minHistoryBars, int freshDays) {
+        return summary != null
+                && summary.barCount >= minHistoryBars
+                && summary.hasShape
+                && isTradeDateFreshEnough(summary.lastTradeDate, freshDays);
+    }
+
     private boolean hasScreeningShape(List<BarDaily> bars) {
         if (bars == null || bars.isEmpty()) {
             return false;
@@ -3944,64 +4349,131 @@ private boolean isTradableAndLiquid(List<BarDaily> bars) {
         if (bars == null || bars.isEmpty()) {
             return false;
         }
-        int n = bars.size();
-        BarDaily last = bars.get(n - 1);
-        if (last == null || !Double.isFinite(last.close) || last.close <= 0.0) {
+        return isTradableAndLiquid(TickerLatest.fromBars(null, bars));
+    }
+
+    /**
+     * Liquidity rules on per-ticker facts, so ticker_latest can apply them without loading bars. The flat-day
+     * lookback is capped at the 20 bars the summary keeps.
+     */
+    private boolean isTradableAndLiquid(TickerLatest summary) {
+        if (summary == null || summary.barCount <= 0) {
             return false;
         }
-
-        double minPrice = config.getDouble("scan.tradable.min_price", config.getDouble("scan.min_price", 100.0));
-        if (last.close < minPrice) {
+        if (!Double.isFinite(summary.lastClose) || summary.lastClose <= 0.0) {
             return false;
         }
 
-        int volumeWindow = Math.min(20, n);
-        if (volumeWindow <= 0) {
+        double minPrice = config.getDouble("scan.tradable.min_price", config.getDouble("scan.min_price", 100.0));
+        if (summary.lastClose < minPrice) {
             return false;
         }
-        double sumVol = 0.0;
-        int zeroVolDays = 0;
-        for (int i = n - volumeWindow; i < n; i++) {
-            BarDaily bar = bars.get(i);
-            if (bar == null) {
-                continue;
-            }
-            double vol = Double.isFinite(bar.volume) ? Math.max(0.0, bar.volume) : 0.0;
-            sumVol += vol;
-            if (vol <= 0.0) {
-                zeroVolDays++;
-            }
-        }
-        double avgVol20 = sumVol / volumeWindow;
+
         double minAvgVol20 = config.getDouble("scan.tradable.min_avg_volume_20", 50000.0);
-        if (avgVol20 < minAvgVol20) {
+        if (summary.avgVolume20 < minAvgVol20) {
             return false;
         }
 
         int maxZeroVolDays = Math.max(0, config.getInt("scan.tradable.max_zero_volume_days_20", 3));
-        if (zeroVolDays > maxZeroVolDays) {
+        if (summary.zeroVolumeDays20() > maxZeroVolDays) {
             return false;
         }
 
         int flatLookbackDays = Math.max(1, config.getInt("scan.tradable.flat_lookback_days", 5));
-        int lookback = Math.min(flatLookbackDays, n);
-        int flatDays = 0;
-        for (int i = n - lookback; i < n; i++) {
-            BarDaily bar = bars.get(i);
-            if (bar == null) {
+        int maxFlatDays = Math.max(0, config.getInt("scan.tradable.max_flat_days", 3));
+        return summary.flatDays(flatLookbackDays) <= maxFlatDays;
+    }
+
+private List<BarDaily> readCachedBars(String ticker) {
+        long cacheStarted = System.nanoTime();
+        List<BarDaily> bars = loadCachedBars(ticker);
+        scanCacheReadNanos.add(System.nanoTime() - cacheStarted);
+        scanCacheReads.increment();
+        return bars;
+    }
+
+    /**
+     * Loads ticker_latest once and prints how the universe splits before any per-ticker I/O. Returns null when
+     * disabled or unreadable, which makes scanTicker read price_daily for every ticker as before.
+     */
+    private Map<String, TickerLatest> loadTickerSummaries(List<UniverseRecord> universe) {
+        if (!config.getBoolean("scan.summary.enabled", true)) {
+            return null;
+        }
+        Map<String, TickerLatest> summaries;
+        try {
+            summaries = barDailyDao.loadTickerLatest();
+        } catch (SQLException e) {
+            System.err.println("WARN: ticker_latest load failed, reading price_daily per ticker: " + e.getMessage());
+            return null;
+        }
+        int minHistoryBars = Math.max(120, config.getInt("scan.min_history_bars", 180));
+        int cacheFreshDays = Math.max(0, config.getInt("scan.cache.fresh_days", 2));
+        int stored = 0;
+        int fresh = 0;
+        int nonTradable = 0;
+        for (UniverseRecord record : universe) {
+            TickerLatest summary = summaries.get(record.ticker);
+            if (summary == null) {
                 continue;
             }
-            boolean openCloseFlat = Math.abs(bar.open - bar.close) < 1e-9;
-            boolean highLowFlat = Math.abs(bar.high - bar.low) < 1e-9;
-            if (openCloseFlat && highLowFlat) {
-                flatDays++;
+            stored++;
+            if (isSummaryFreshEnough(summary, minHistoryBars, cacheFreshDays)) {
+                fresh++;
+                if (!isTradableAndLiquid(summary)) {
+                    nonTradable++;
+                }
             }
         }
-        int maxFlatDays = Math.max(0, config.getInt("scan.tradable.max_flat_days", 3));
-        return flatDays <= maxFlatDays;
+        System.out.println(String.format(
+                Locale.US,
+                "Scan plan: universe=%d stored=%d cache_fresh=%d need_fetch=%d non_tradable_fresh=%d prefilter=%s",
+                universe.size(),
+                stored,
+                fresh,
+                universe.size() - fresh,
+                nonTradable,
+                config.getBoolean("scan.prefilter.non_tradable", false) ? "on" : "off"
+        ));
+        return summaries;
+    }
+
+/**
+     * Unit of work for a stretch of per-ticker DAO calls on the calling thread, or null when
+     * {@code db.unit_of_work.enabled=false} (try-with-resources accepts null).
+     */
+    private UnitOfWork openUnitOfWork() {
+        if (runDao == null || !config.getBoolean("db.unit_of_work.enabled", true)) {
+            return null;
+        }
+        return runDao.database().openUnitOfWork();
+    }
+
+    /**
+     * Scan pool whose threads each hold one unit of work for their lifetime, so cached-bar reads reuse one
+     * connection and its prepared statements across every ticker the thread scans.
+     */
+    private ExecutorService newScanPool(int threads) {
+        ThreadFactory defaults = Executors.defaultThreadFactory();
+        return Executors.newFixedThreadPool(threads, task -> defaults.newThread(() -> {
+            try (UnitOfWork ignored = openUnitOfWork()) {
+                task.run();
+            }
+        }));
     }
 
 private List<BarDaily> loadCachedBars(String ticker) {
+        if (barBlobReads) {
+            try {
+                List<BarDaily> packed = barBlobDao.loadRecentBars(ticker, maxBars);
+                // Short results are either genuinely short histories or years not packed yet; price_daily decides.
+                if (packed.size() >= maxBars) {
+                    return packed;
+                }
+            } catch (SQLException | IllegalArgumentException e) {
+                System.err.println("WARN: price_blob read failed ticker=" + ticker + ", err=" + e.getMessage());
+            }
+        }
         try {
             return barDailyDao.loadRecentBars(ticker, maxBars);
         } catch (SQLException ignored) {
@@ -4009,6 +4481,112 @@ private List<BarDaily> loadCachedBars(String ticker) {
         }
     }
 
+    private List<BarDaily> readBarArchive(UniverseRecord universe) {
+        try {
+            return barArchive.read(normalizeMarket(universe.market), universe.ticker);
+        } catch (IOException e) {
+            System.err.println("WARN: bar archive read failed ticker=" + universe.ticker + ", err=" + e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * Seeds the archive with bars served from price_daily so the next scan of the ticker skips the database.
+     */
+    private void writeBarArchive(UniverseRecord universe, List<BarDaily> bars) {
+        if (barArchive == null) {
+            return;
+        }
+        try {
+            barArchive.write(normalizeMarket(universe.market), universe.ticker, bars);
+        } catch (IOException e) {
+            System.err.println("WARN: bar archive write failed ticker=" + universe.ticker + ", err=" + e.getMessage());
+        }
+    }
+
+    private void appendBarArchive(UniverseRecord universe, List<BarDaily> bars) {
+        if (barArchive == null) {
+            return;
+        }
+        try {
+            barArchive.append(normalizeMarket(universe.market), universe.ticker, bars);
+        } catch (IOException e) {
+            System.err.println("WARN: bar archive append failed ticker=" + universe.ticker + ", err=" + e.getMessage());
+        }
+    }
+
+    private void closeBarArchive() {
+        if (barArchive == null) {
+            return;
+        }
+        try {
+            barArchive.close();
+        } catch (IOException e) {
+            System.err.println("WARN: bar archive close failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rewrites the local bar archive of every active ticker from price_daily.
+     *
+     * @return number of tickers archived
+     */
+    public int rebuildBarArchive() throws Exception {
+        if (barArchive == null) {
+            System.err.println("WARN: bar archive disabled (scan.archive.enabled=false)");
+            return 0;
+        }
+        Map<String, List<String>> byMarket = new LinkedHashMap<>();
+        for (UniverseRecord record : universeDao.listActive(config.getInt("scan.max_universe_size", 0))) {
+            byMarket.computeIfAbsent(normalizeMarket(record.market), k -> new ArrayList<>()).add(record.ticker);
+        }
+        int written = 0;
+        try (UnitOfWork ignored = openUnitOfWork()) {
+            for (Map.Entry<String, List<String>> e : byMarket.entrySet()) {
+                int count = barArchive.rebuild(e.getKey(), e.getValue(), ticker -> barDailyDao.loadRecentBars(ticker, maxBars));
+                System.out.println(String.format(
+                        Locale.US,
+                        "Bar archive rebuilt market=%s tickers=%d/%d dir=%s",
+                        e.getKey(),
+                        count,
+                        e.getValue().size(),
+                        barArchive.dir().toAbsolutePath()
+                ));
+                written += count;
+            }
+        } finally {
+            closeBarArchive();
+        }
+        return written;
+    }
+
+    /**
+     * Re-packs price_blob from the earliest of the {@code upsertedBars} newest bars; upsertBarsIncremental always
+     * writes a date-ordered tail of {@code bars}. Failures leave price_daily authoritative and are only logged.
+     */
+    private void refreshBarBlob(String ticker, List<BarDaily> bars, int upsertedBars) {
+        if (barBlobDao == null || upsertedBars <= 0 || bars == null) {
+            return;
+        }
+        LocalDate fromDate = null;
+        int seen = 0;
+        for (int i = bars.size() - 1; i >= 0 && seen < upsertedBars; i--) {
+            BarDaily bar = bars.get(i);
+            if (bar == null || bar.tradeDate == null) {
+                continue;
+            }
+            seen++;
+            if (fromDate == null || bar.tradeDate.isBefore(fromDate)) {
+                fromDate = bar.tradeDate;
+            }
+        }
+        try {
+            barBlobDao.refresh(ticker, fromDate);
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("WARN: price_blob refresh failed ticker=" + ticker + ", err=" + e.getMessage());
+        }
+    }
+
 private void safeFinishFailed(long runId, Exception e) {
         try {
             String message = e.getClass().getSimpleName() + ": " + e.getMessage();
@@ -4093,6 +4671,7 @@ private void saveCheckpoint(BatchPlan plan, BatchState state, int topN) throws S
         if (!plan.resumeEnabled) {
             return;
         }
+        state.stats.materializeTop(this::withCandidateJson);
         BatchCheckpoint checkpoint = BatchCheckpoint.fromState(plan, state, topN);
         metadataDao.put(plan.checkpointKey, checkpoint.toJson().toString());
     }
@@ -4262,17 +4841,20 @@ private String universeSignature(List<UniverseRecord> universe) {
         final String error;
         final String newsSourceLabel;
         final List<String> clusterDigestLines;
+        final WatchlistNewsPipeline.PipelineResult pendingSummary;
 
         private LegacyWatchResult(
                 StockContext context,
                 String error,
                 String newsSourceLabel,
-                List<String> clusterDigestLines
+                List<String> clusterDigestLines,
+                WatchlistNewsPipeline.PipelineResult pendingSummary
         ) {
             this.context = context;
             this.error = error == null ? "" : error;
             this.newsSourceLabel = newsSourceLabel == null ? "" : newsSourceLabel;
             this.clusterDigestLines = clusterDigestLines == null ? List.of() : List.copyOf(clusterDigestLines);
+            this.pendingSummary = pendingSummary;
         }
     }
 
@@ -4411,6 +4993,14 @@ private String universeSignature(List<UniverseRecord> universe) {
         int parseCount;
         int upsertOps;
         long upsertBarCount;
+        long cacheReadNanosTotal;
+        int archiveHitCount;
+        int cacheReadCount;
+        long scanResultsNanosTotal;
+        long scanWallNanosTotal;
+        int tickersTimed;
+        long[] fetchLatencyMicros = new long[256];
+        int fetchLatencyCount;
         int sourceYahooCount;
         int sourceCacheCount;
         int sourceUnknownCount;
@@ -4458,6 +5048,15 @@ private String universeSignature(List<UniverseRecord> universe) {
             parseCount += other.parseCount;
             upsertOps += other.upsertOps;
             upsertBarCount += other.upsertBarCount;
+            cacheReadNanosTotal += other.cacheReadNanosTotal;
+            archiveHitCount += other.archiveHitCount;
+            cacheReadCount += other.cacheReadCount;
+            scanResultsNanosTotal += other.scanResultsNanosTotal;
+            scanWallNanosTotal += other.scanWallNanosTotal;
+            tickersTimed += other.tickersTimed;
+            for (int i = 0; i < other.fetchLatencyCount; i++) {
+                addFetchLatency(other.fetchLatencyMicros[i]);
+            }
             sourceYahooCount += other.sourceYahooCount;
             sourceCacheCount += other.sourceCacheCount;
             sourceUnknownCount += other.sourceUnknownCount;
@@ -4473,6 +5072,10 @@ private String universeSignature(List<UniverseRecord> universe) {
             }
         }
 
+        void materializeTop(UnaryOperator<ScoredCandidate> materializer) {
+            topCandidates.replaceAll(candidate -> candidate.jsonPending() ? materializer.apply(candidate) : candidate);
+        }
+
         List<ScoredCandidate> topCandidates() {
             List<ScoredCandidate> copy = new ArrayList<>(topCandidates);
             copy.sort(Comparator.comparingDouble((ScoredCandidate c) -> c.score).reversed());
@@ -4491,6 +5094,7 @@ private void addTopCandidate(ScoredCandidate candidate) {
             if (downloadNanos > 0L) {
                 downloadNanosTotal += downloadNanos;
                 downloadCount++;
+                addFetchLatency(downloadNanos / 1_000L);
             }
             if (parseNanos > 0L) {
                 parseNanosTotal += parseNanos;
@@ -4507,6 +5111,49 @@ private void addTopCandidate(ScoredCandidate candidate) {
             }
         }
 
+        private void addFetchLatency(long micros) {
+            if (fetchLatencyCount == fetchLatencyMicros.length) {
+                fetchLatencyMicros = Arrays.copyOf(fetchLatencyMicros, fetchLatencyCount * 2);
+            }
+            fetchLatencyMicros[fetchLatencyCount++] = micros;
+        }
+
+        /**
+         * Nearest-rank percentile of per-ticker Yahoo fetch time (retries included), in milliseconds.
+         */
+        double fetchLatencyPercentileMs(double percentile) {
+            if (fetchLatencyCount == 0) {
+                return 0.0;
+            }
+            long[] sorted = Arrays.copyOf(fetchLatencyMicros, fetchLatencyCount);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1_000.0;
+        }
+
+        long dbNanosTotal() {
+            return cacheReadNanosTotal + upsertNanosTotal + scanResultsNanosTotal;
+        }
+
+        String timingNote() {
+            double wallSec = scanWallNanosTotal / 1_000_000_000.0;
+            return String.format(
+                    Locale.US,
+                    "tickers_per_sec=%.1f fetch_ms_p50=%.1f fetch_ms_p95=%.1f fetch_ms_p99=%.1f fetches=%d archive_hits=%d db_cache_reads=%d db_read_s=%.2f db_upsert_s=%.2f db_scan_results_s=%.2f db_time_share=%.1f%%",
+                    wallSec <= 0.0 ? 0.0 : tickersTimed / wallSec,
+                    fetchLatencyPercentileMs(50.0),
+                    fetchLatencyPercentileMs(95.0),
+                    fetchLatencyPercentileMs(99.0),
+                    fetchLatencyCount,
+                    archiveHitCount,
+                    cacheReadCount,
+                    cacheReadNanosTotal / 1_000_000_000.0,
+                    upsertNanosTotal / 1_000_000_000.0,
+                    scanResultsNanosTotal / 1_000_000_000.0,
+                    scanWallNanosTotal <= 0L ? 0.0 : dbNanosTotal() * 100.0 / scanWallNanosTotal
+            );
+        }
+
         void recordUpsert(long upsertNanos, int bars) {
             upsertNanosTotal += Math.max(0L, upsertNanos);
             upsertOps++;
@@ -2,6 +2,7 @@ package com.stockbot.jp.vector;
 
 import com.stockbot.jp.config.Config;
 import com.stockbot.jp.db.BarDailyDao;
+import com.stockbot.jp.model.ForwardReturn;
 import com.stockbot.model.NewsItem;
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -17,7 +18,6 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.OptionalDouble;
 import java.util.Set;
 
 /**
@@ -40,6 +40,10 @@ public final class EventMemoryService {
         return vectorSearchService;
     }
 
+    /**
+     * Builds news-similarity and signal-memory insights for one ticker. All docs of the call are upserted in one
+     * batch and all similarity lookups run as one batched search, so matches never include docs of this call.
+     */
     public MemoryInsights buildInsights(
             String watchItem,
             String ticker,
@@ -51,14 +55,88 @@ public final class EventMemoryService {
             String technicalReasonsJson,
             Instant asOf
     ) {
-        NewsSimilaritySummary newsSummary = buildNewsSimilarity(watchItem, ticker, industryZh, industryEn, news);
-        SignalExplanationSummary signalSummary = buildSignalExplanation(
-                ticker,
-                technicalStatus,
-                risk,
-                technicalReasonsJson,
-                asOf
-        );
+        int maxNewsItems = Math.max(1, config.getInt("vector.memory.news.max_items", 3));
+        int newsTopK = Math.max(2, config.getInt("vector.memory.news.top_k", 8));
+        int signalTopK = Math.max(2, config.getInt("vector.memory.signal.top_k", 6));
+        String normalizedTicker = normalizeTicker(ticker);
+        String reasonText = buildReasonText(technicalStatus, risk, technicalReasonsJson);
+
+        List<VectorSearchService.Doc> docs = new ArrayList<>();
+        List<VectorSearchService.Query> queries = new ArrayList<>();
+        if (news != null) {
+            for (NewsItem item : news) {
+                if (docs.size() >= maxNewsItems) {
+                    break;
+                }
+                if (item == null) {
+                    continue;
+                }
+                String title = normalizeText(item.title);
+                if (title.isEmpty()) {
+                    continue;
+                }
+                Instant publishedAt = item.publishedAt == null ? null : item.publishedAt.toInstant();
+                docs.add(new VectorSearchService.Doc(
+                        "NEWS",
+                        trimToNull(ticker),
+                        trimToNull(title),
+                        buildNewsDocContent(watchItem, ticker, industryZh, industryEn, item, publishedAt),
+                        null,
+                        trimToNull(item.source),
+                        publishedAt,
+                        null,
+                        null
+                ));
+                queries.add(new VectorSearchService.Query(
+                        title,
+                        null,
+                        new VectorSearchService.SearchFilters("NEWS", null, null)
+                ));
+            }
+        }
+        int analyzedNews = docs.size();
+        if (!reasonText.isEmpty()) {
+            docs.add(new VectorSearchService.Doc(
+                    "AI_REPORT",
+                    trimToNull(normalizedTicker),
+                    trimToNull(normalizedTicker + " " + normalizeText(technicalStatus) + " signal reason"),
+                    buildSignalDocContent(normalizedTicker, technicalStatus, risk, reasonText, asOf),
+                    null,
+                    "stockbot",
+                    asOf,
+                    null,
+                    null
+            ));
+            queries.add(new VectorSearchService.Query(
+                    reasonText,
+                    null,
+                    new VectorSearchService.SearchFilters("AI_REPORT", null, null)
+            ));
+        }
+        if (docs.isEmpty()) {
+            return MemoryInsights.empty();
+        }
+
+        Set<String> ownHashes;
+        try {
+            ownHashes = new LinkedHashSet<>(vectorSearchService.upsertDocs(docs));
+        } catch (Exception e) {
+            return failedInsights(analyzedNews, reasonText, "upsert:" + e.getClass().getSimpleName());
+        }
+
+        List<List<VectorSearchService.DocMatch>> results;
+        try {
+            results = vectorSearchService.searchSimilarBatch(queries, Math.max(newsTopK, signalTopK));
+        } catch (Exception e) {
+            return failedInsights(analyzedNews, reasonText, "search:" + e.getClass().getSimpleName());
+        }
+
+        NewsSimilaritySummary newsSummary = analyzedNews <= 0
+                ? NewsSimilaritySummary.empty()
+                : buildNewsSimilarity(analyzedNews, results.subList(0, analyzedNews), newsTopK, ownHashes);
+        SignalExplanationSummary signalSummary = reasonText.isEmpty()
+                ? SignalExplanationSummary.empty()
+                : buildSignalExplanation(technicalStatus, results.get(analyzedNews), signalTopK, ownHashes, asOf);
         return new MemoryInsights(newsSummary, signalSummary);
     }
 
@@ -103,19 +181,22 @@ public final class EventMemoryService {
         return topKeys(tickerHits, 10);
     }
 
+    private MemoryInsights failedInsights(int analyzedNews, String reasonText, String error) {
+        NewsSimilaritySummary newsSummary = analyzedNews <= 0
+                ? NewsSimilaritySummary.empty()
+                : NewsSimilaritySummary.withError(analyzedNews, error);
+        SignalExplanationSummary signalSummary = reasonText.isEmpty()
+                ? SignalExplanationSummary.empty()
+                : SignalExplanationSummary.withError(error);
+        return new MemoryInsights(newsSummary, signalSummary);
+    }
+
     private NewsSimilaritySummary buildNewsSimilarity(
-            String watchItem,
-            String ticker,
-            String industryZh,
-            String industryEn,
-            List<NewsItem> news
+            int analyzedNews,
+            List<List<VectorSearchService.DocMatch>> matchesPerNews,
+            int topK,
+            Set<String> ownHashes
     ) {
-        if (news == null || news.isEmpty()) {
-            return NewsSimilaritySummary.empty();
-        }
-
-        int maxNewsItems = Math.max(1, config.getInt("vector.memory.news.max_items", 3));
-        int topK = Math.max(2, config.getInt("vector.memory.news.top_k", 8));
         int maxCases = Math.max(1, config.getInt("vector.memory.news.max_cases", 5));
         Set<String> seenMatchHashes = new LinkedHashSet<>();
         Map<String, Integer> tickerHits = new LinkedHashMap<>();
@@ -124,60 +205,17 @@ public final class EventMemoryService {
         ReturnStats stats1d = new ReturnStats();
         ReturnStats stats3d = new ReturnStats();
         ReturnStats stats5d = new ReturnStats();
-
-        int analyzedNews = 0;
+        List<String> eventTickers = new ArrayList<>();
+        List<LocalDate> eventDates = new ArrayList<>();
         int matchedEvents = 0;
-        String error = "";
-
-        for (NewsItem item : news) {
-            if (analyzedNews >= maxNewsItems) {
-                break;
-            }
-            if (item == null) {
-                continue;
-            }
-            String title = normalizeText(item.title);
-            if (title.isEmpty()) {
-                continue;
-            }
-            analyzedNews++;
-            Instant publishedAt = item.publishedAt == null ? null : item.publishedAt.toInstant();
 
-            String insertedHash;
-            try {
-                insertedHash = vectorSearchService.upsertDoc(new VectorSearchService.Doc(
-                        "NEWS",
-                        trimToNull(ticker),
-                        trimToNull(title),
-                        buildNewsDocContent(watchItem, ticker, industryZh, industryEn, item, publishedAt),
-                        null,
-                        trimToNull(item.source),
-                        publishedAt,
-                        null,
-                        null
-                ));
-            } catch (Exception e) {
-                error = joinError(error, "upsert:" + e.getClass().getSimpleName());
-                continue;
-            }
-
-            List<VectorSearchService.DocMatch> matches;
-            try {
-                matches = vectorSearchService.searchSimilar(
-                        title,
-                        topK,
-                        new VectorSearchService.SearchFilters("NEWS", null, null)
-                );
-            } catch (Exception e) {
-                error = joinError(error, "search:" + e.getClass().getSimpleName());
-                continue;
-            }
-
-            for (VectorSearchService.DocMatch match : matches) {
+        for (List<VectorSearchService.DocMatch> matches : matchesPerNews) {
+            List<VectorSearchService.DocMatch> top = matches.subList(0, Math.min(topK, matches.size()));
+            for (VectorSearchService.DocMatch match : top) {
                 if (match == null || safe(match.contentHash).isEmpty()) {
                     continue;
                 }
-                if (match.contentHash.equals(insertedHash)) {
+                if (ownHashes.contains(match.contentHash)) {
                     continue;
                 }
                 if (!seenMatchHashes.add(match.contentHash)) {
@@ -222,11 +260,13 @@ public final class EventMemoryService {
                     representativeCases.add(caseLine);
                 }
 
-                appendForwardReturns(stats1d, hitTicker, match.publishedAt, 1);
-                appendForwardReturns(stats3d, hitTicker, match.publishedAt, 3);
-                appendForwardReturns(stats5d, hitTicker, match.publishedAt, 5);
+                if (!hitTicker.isEmpty() && match.publishedAt != null) {
+                    eventTickers.add(hitTicker);
+                    eventDates.add(LocalDate.ofInstant(match.publishedAt, marketZone));
+                }
             }
         }
+        appendForwardReturns(eventTickers, eventDates, stats1d, stats3d, stats5d);
 
         return new NewsSimilaritySummary(
                 analyzedNews,
@@ -237,60 +277,25 @@ public final class EventMemoryService {
                 topKeys(tickerHits, 8),
                 topKeys(industryHits, 6),
                 representativeCases,
-                error
+                ""
         );
     }
 
     private SignalExplanationSummary buildSignalExplanation(
-            String ticker,
             String technicalStatus,
-            String risk,
-            String technicalReasonsJson,
+            List<VectorSearchService.DocMatch> matches,
+            int topK,
+            Set<String> ownHashes,
             Instant asOf
     ) {
-        String reasonText = buildReasonText(technicalStatus, risk, technicalReasonsJson);
-        if (reasonText.isEmpty()) {
-            return SignalExplanationSummary.empty();
-        }
-
-        String normalizedTicker = normalizeTicker(ticker);
-        int topK = Math.max(2, config.getInt("vector.memory.signal.top_k", 6));
         int maxCases = Math.max(1, config.getInt("vector.memory.signal.max_cases", 5));
-        String hash;
-        try {
-            hash = vectorSearchService.upsertDoc(new VectorSearchService.Doc(
-                    "AI_REPORT",
-                    trimToNull(normalizedTicker),
-                    trimToNull(normalizedTicker + " " + normalizeText(technicalStatus) + " signal reason"),
-                    buildSignalDocContent(normalizedTicker, technicalStatus, risk, reasonText, asOf),
-                    null,
-                    "stockbot",
-                    asOf,
-                    null,
-                    null
-            ));
-        } catch (Exception e) {
-            return SignalExplanationSummary.withError("upsert:" + e.getClass().getSimpleName());
-        }
-
-        List<VectorSearchService.DocMatch> matches;
-        try {
-            matches = vectorSearchService.searchSimilar(
-                    reasonText,
-                    topK,
-                    new VectorSearchService.SearchFilters("AI_REPORT", null, null)
-            );
-        } catch (Exception e) {
-            return SignalExplanationSummary.withError("search:" + e.getClass().getSimpleName());
-        }
-
         int similarCount = 0;
         List<String> cases = new ArrayList<>();
-        for (VectorSearchService.DocMatch match : matches) {
+        for (VectorSearchService.DocMatch match : matches.subList(0, Math.min(topK, matches.size()))) {
             if (match == null || safe(match.contentHash).isEmpty()) {
                 continue;
             }
-            if (match.contentHash.equals(hash)) {
+            if (ownHashes.contains(match.contentHash)) {
                 continue;
             }
             if (asOf != null && match.publishedAt != null && !match.publishedAt.isBefore(asOf)) {
@@ -318,17 +323,24 @@ public final class EventMemoryService {
         );
     }
 
-    private void appendForwardReturns(ReturnStats stats, String ticker, Instant publishedAt, int offsetDays) {
-        if (stats == null || ticker == null || ticker.trim().isEmpty() || publishedAt == null) {
+    private void appendForwardReturns(
+            List<String> tickers,
+            List<LocalDate> dates,
+            ReturnStats stats1d,
+            ReturnStats stats3d,
+            ReturnStats stats5d
+    ) {
+        if (tickers.isEmpty()) {
             return;
         }
         try {
-            LocalDate date = LocalDate.ofInstant(publishedAt, marketZone);
-            OptionalDouble base = barDailyDao.closeOnOrAfterWithOffset(ticker, date, 0);
-            OptionalDouble target = barDailyDao.closeOnOrAfterWithOffset(ticker, date, offsetDays);
-            if (base.isPresent() && target.isPresent() && base.getAsDouble() > 0.0) {
-                double pct = (target.getAsDouble() - base.getAsDouble()) * 100.0 / base.getAsDouble();
-                stats.add(pct);
+            for (ForwardReturn row : barDailyDao.loadForwardReturns(tickers, dates)) {
+                if (row == null) {
+                    continue;
+                }
+                row.pct(1).ifPresent(stats1d::add);
+                row.pct(3).ifPresent(stats3d::add);
+                row.pct(5).ifPresent(stats5d::add);
             }
         } catch (SQLException ignored) {
             // Best effort. Missing bars should not break report generation.
@@ -528,18 +540,6 @@ public final class EventMemoryService {
         return "";
     }
 
-    private String joinError(String base, String suffix) {
-        String left = safe(base);
-        String right = safe(suffix);
-        if (left.isEmpty()) {
-            return right;
-        }
-        if (right.isEmpty()) {
-            return left;
-        }
-        return left + "|" + right;
-    }
-
     private String safe(String value) {
         return value == null ? "" : value.trim();
     }
@@ -621,6 +621,20 @@ public final class EventMemoryService {
                     ""
             );
         }
+
+        static NewsSimilaritySummary withError(int analyzedNews, String error) {
+            return new NewsSimilaritySummary(
+                    analyzedNews,
+                    0,
+                    new ReturnStats(),
+                    new ReturnStats(),
+                    new ReturnStats(),
+                    List.of(),
+                    List.of(),
+                    List.of(),
+                    error
+            );
+        }
     }
 
     private static final class SignalExplanationSummary {
@@ -13,26 +13,63 @@ import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Minimal pgvector-backed document search service.
+ * When a {@link TextEmbedder} is configured, docs are embedded at upsert time and text queries are
+ * embedded before searching, so the keyword (trigram-indexed ILIKE) path is only a fallback.
  */
 public final class VectorSearchService {
+    private static final int EMBED_FAILURE_TRIP = 3;
+    private static final long EMBED_COOLDOWN_NANOS = 300_000_000_000L;
+
     private final Database database;
+    private final TextEmbedder embedder;
+    private final AtomicInteger consecutiveEmbedFailures = new AtomicInteger();
+    private final AtomicLong embedDisabledUntilNanos = new AtomicLong();
+    private final AtomicLong vectorQueries = new AtomicLong();
+    private final AtomicLong vectorStatements = new AtomicLong();
+    private final AtomicLong vectorNanos = new AtomicLong();
+    private final AtomicLong textQueries = new AtomicLong();
+    private final AtomicLong textNanos = new AtomicLong();
+    private final AtomicLong embedCalls = new AtomicLong();
+    private final AtomicLong embedNanos = new AtomicLong();
+    private final AtomicLong embedFailures = new AtomicLong();
 
     public VectorSearchService(Database database) {
+        this(database, null);
+    }
+
+    public VectorSearchService(Database database, TextEmbedder embedder) {
         this.database = database;
+        this.embedder = embedder;
     }
 
     public String upsertDoc(Doc doc) throws SQLException {
-        if (doc == null || isBlank(doc.docType) || isBlank(doc.content)) {
-            throw new IllegalArgumentException("doc_type and content are required");
-        }
+        return upsertDocs(List.of(doc)).get(0);
+    }
 
-        String contentHash = isBlank(doc.contentHash) ? sha256(doc.content) : doc.contentHash.trim();
-        String embeddingLiteral = toVectorLiteral(doc.embedding);
+    /**
+     * Upserts docs on one connection with a single JDBC batch and returns their content hashes in input order.
+     * Docs without an embedding are embedded in one embedder call, skipping rows that already have a vector.
+     */
+    public List<String> upsertDocs(List<Doc> docs) throws SQLException {
+        if (docs == null || docs.isEmpty()) {
+            return List.of();
+        }
+        List<String> hashes = new ArrayList<>(docs.size());
+        for (Doc doc : docs) {
+            if (doc == null || isBlank(doc.docType) || isBlank(doc.content)) {
+                throw new IllegalArgumentException("doc_type and content are required");
+            }
+            hashes.add(isBlank(doc.contentHash) ? sha256(doc.content) : doc.contentHash.trim());
+        }
 
         String sql = "INSERT INTO docs(doc_type, ticker, title, content, lang, source, published_at, content_hash, embedding) " +
                 "VALUES(?, ?, ?, ?, ?, ?, ?, ?, CASE WHEN ? IS NULL THEN NULL ELSE CAST(? AS vector) END) " +
@@ -41,22 +78,28 @@ public final class VectorSearchService {
                 "lang=excluded.lang, source=excluded.source, published_at=excluded.published_at, " +
                 "embedding=COALESCE(excluded.embedding, docs.embedding)";
 
-        try (Connection conn = database.connect();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-            ps.setString(1, doc.docType);
-            ps.setString(2, trimToNull(doc.ticker));
-            ps.setString(3, trimToNull(doc.title));
-            ps.setString(4, doc.content);
-            ps.setString(5, trimToNull(doc.lang));
-            ps.setString(6, trimToNull(doc.source));
-            ps.setObject(7, toOffsetDateTime(doc.publishedAt));
-            ps.setString(8, contentHash);
-            ps.setString(9, embeddingLiteral);
-            ps.setString(10, embeddingLiteral);
-            ps.executeUpdate();
+        try (Connection conn = database.connect()) {
+            List<float[]> embeddings = resolveDocEmbeddings(conn, docs, hashes);
+            try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                for (int i = 0; i < docs.size(); i++) {
+                    Doc doc = docs.get(i);
+                    String embeddingLiteral = toVectorLiteral(embeddings.get(i));
+                    ps.setString(1, doc.docType);
+                    ps.setString(2, trimToNull(doc.ticker));
+                    ps.setString(3, trimToNull(doc.title));
+                    ps.setString(4, doc.content);
+                    ps.setString(5, trimToNull(doc.lang));
+                    ps.setString(6, trimToNull(doc.source));
+                    ps.setObject(7, toOffsetDateTime(doc.publishedAt));
+                    ps.setString(8, hashes.get(i));
+                    ps.setString(9, embeddingLiteral);
+                    ps.setString(10, embeddingLiteral);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
         }
-
-        return contentHash;
+        return hashes;
     }
 
     public List<DocMatch> searchSimilar(String text, int topK, SearchFilters filters) throws SQLException {
@@ -64,33 +107,266 @@ public final class VectorSearchService {
     }
 
     public List<DocMatch> searchSimilar(String text, float[] queryEmbedding, int topK, SearchFilters filters) throws SQLException {
+        return searchSimilarBatch(List.of(new Query(text, queryEmbedding, filters)), topK).get(0);
+    }
+
+    /**
+     * Runs every query that has (or can be given) an embedding in one LATERAL top-k statement and the rest
+     * through the keyword fallback. The result list is aligned with {@code queries}.
+     */
+    public List<List<DocMatch>> searchSimilarBatch(List<Query> queries, int topK) throws SQLException {
+        if (queries == null || queries.isEmpty()) {
+            return List.of();
+        }
         int limit = Math.max(1, topK);
-        if (queryEmbedding != null && queryEmbedding.length > 0) {
-            return searchByVector(queryEmbedding, limit, filters);
+        List<float[]> vectors = resolveQueryEmbeddings(queries);
+        List<List<DocMatch>> out = new ArrayList<>(queries.size());
+        List<Integer> vectorSlots = vectorSlots(vectors);
+        boolean[] viaVector = new boolean[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            out.add(List.of());
+        }
+        for (int slot : vectorSlots) {
+            viaVector[slot] = true;
+        }
+
+        if (!vectorSlots.isEmpty()) {
+            long started = System.nanoTime();
+            try {
+                List<List<DocMatch>> batch = searchByVectorBatch(queries, vectors, vectorSlots, limit);
+                for (int i = 0; i < vectorSlots.size(); i++) {
+                    out.set(vectorSlots.get(i), batch.get(i));
+                }
+            } finally {
+                vectorQueries.addAndGet(vectorSlots.size());
+                vectorStatements.incrementAndGet();
+                vectorNanos.addAndGet(System.nanoTime() - started);
+            }
         }
-        return searchByText(text, limit, filters);
+
+        for (int i = 0; i < queries.size(); i++) {
+            if (viaVector[i]) {
+                continue;
+            }
+            Query query = queries.get(i);
+            long started = System.nanoTime();
+            try {
+                out.set(i, searchByText(query == null ? null : query.text, limit, query == null ? null : query.filters));
+            } finally {
+                textQueries.incrementAndGet();
+                textNanos.addAndGet(System.nanoTime() - started);
+            }
+        }
+        return out;
     }
 
-    private List<DocMatch> searchByVector(float[] queryEmbedding, int topK, SearchFilters filters) throws SQLException {
-        StringBuilder sql = new StringBuilder();
-        sql.append("SELECT id, doc_type, ticker, title, content, lang, source, published_at, content_hash, ")
-                .append("embedding <=> CAST(? AS vector) AS distance ")
-                .append("FROM docs WHERE embedding IS NOT NULL");
+    /**
+     * Returns query counters accumulated since the previous call and resets them.
+     */
+    public SearchStats drainStats() {
+        return new SearchStats(
+                vectorQueries.getAndSet(0L),
+                vectorStatements.getAndSet(0L),
+                vectorNanos.getAndSet(0L),
+                textQueries.getAndSet(0L),
+                textNanos.getAndSet(0L),
+                embedCalls.getAndSet(0L),
+                embedNanos.getAndSet(0L),
+                embedFailures.getAndSet(0L)
+        );
+    }
 
-        List<Object> params = new ArrayList<>();
-        params.add(toVectorLiteral(queryEmbedding));
-        appendFilters(sql, params, filters);
-        sql.append(" ORDER BY embedding <=> CAST(? AS vector) LIMIT ?");
-        params.add(toVectorLiteral(queryEmbedding));
-        params.add(topK);
+    private List<float[]> resolveDocEmbeddings(Connection conn, List<Doc> docs, List<String> hashes) throws SQLException {
+        List<float[]> out = new ArrayList<>(docs.size());
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < docs.size(); i++) {
+            float[] given = docs.get(i).embedding;
+            boolean hasGiven = given != null && given.length > 0;
+            out.add(hasGiven ? given : null);
+            if (!hasGiven && embedder != null) {
+                pending.add(i);
+            }
+        }
+        if (pending.isEmpty()) {
+            return out;
+        }
+        Set<String> alreadyEmbedded = findEmbeddedHashes(conn, hashes);
+        List<Integer> toEmbed = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (int i : pending) {
+            if (alreadyEmbedded.contains(hashes.get(i))) {
+                continue;
+            }
+            toEmbed.add(i);
+            texts.add(joinForEmbedding(docs.get(i).title, docs.get(i).content));
+        }
+        List<float[]> vectors = embedAll(texts);
+        for (int i = 0; i < toEmbed.size(); i++) {
+            out.set(toEmbed.get(i), vectors.get(i));
+        }
+        return out;
+    }
+
+    List<float[]> resolveQueryEmbeddings(List<Query> queries) {
+        List<float[]> out = new ArrayList<>(queries.size());
+        List<Integer> pending = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < queries.size(); i++) {
+            Query query = queries.get(i);
+            float[] given = query == null ? null : query.embedding;
+            boolean hasGiven = given != null && given.length > 0;
+            out.add(hasGiven ? given : null);
+            if (!hasGiven && embedder != null && query != null && !isBlank(query.text)) {
+                pending.add(i);
+                texts.add(query.text);
+            }
+        }
+        List<float[]> vectors = embedAll(texts);
+        for (int i = 0; i < pending.size(); i++) {
+            out.set(pending.get(i), vectors.get(i));
+        }
+        return out;
+    }
+
+    private List<float[]> embedAll(List<String> texts) {
+        List<float[]> out = new ArrayList<>(texts.size());
+        if (texts.isEmpty()) {
+            return out;
+        }
+        if (embedder == null || System.nanoTime() - embedDisabledUntilNanos.get() < 0L) {
+            for (int i = 0; i < texts.size(); i++) {
+                out.add(null);
+            }
+            return out;
+        }
+        long started = System.nanoTime();
+        List<float[]> raw;
+        try {
+            raw = embedder.embedAll(texts);
+        } catch (RuntimeException e) {
+            raw = List.of();
+        }
+        embedCalls.addAndGet(texts.size());
+        embedNanos.addAndGet(System.nanoTime() - started);
+        for (int i = 0; i < texts.size(); i++) {
+            float[] vector = i < raw.size() ? raw.get(i) : null;
+            if (vector == null || vector.length == 0) {
+                embedFailures.incrementAndGet();
+                if (consecutiveEmbedFailures.incrementAndGet() >= EMBED_FAILURE_TRIP) {
+                    // Stop paying the embedding timeout on every call while the model server is down.
+                    embedDisabledUntilNanos.set(System.nanoTime() + EMBED_COOLDOWN_NANOS);
+                    consecutiveEmbedFailures.set(0);
+                }
+                out.add(null);
+            } else {
+                consecutiveEmbedFailures.set(0);
+                out.add(vector);
+            }
+        }
+        return out;
+    }
 
+    private Set<String> findEmbeddedHashes(Connection conn, List<String> hashes) throws SQLException {
+        Set<String> out = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT content_hash FROM docs WHERE content_hash = ANY(?) AND embedding IS NOT NULL")) {
+            ps.setArray(1, conn.createArrayOf("text", hashes.toArray()));
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    out.add(rs.getString(1));
+                }
+            }
+        }
+        return out;
+    }
+
+    private String joinForEmbedding(String title, String content) {
+        String head = trimToNull(title);
+        String body = trimToNull(content);
+        if (head == null) {
+            return body == null ? "" : body;
+        }
+        return body == null ? head : head + "\n\n" + body;
+    }
+
+    /**
+     * Positions of the queries that have an embedding and go through the vector statement; the others fall back to
+     * keyword search.
+     */
+    static List<Integer> vectorSlots(List<float[]> vectors) {
+        List<Integer> slots = new ArrayList<>();
+        for (int i = 0; i < vectors.size(); i++) {
+            float[] vector = vectors.get(i);
+            if (vector != null && vector.length > 0) {
+                slots.add(i);
+            }
+        }
+        return slots;
+    }
+
+    /**
+     * Parallel arrays bound to the vector statement's unnest: vector literal, doc type, ticker and lang per slot,
+     * with absent filters as null.
+     */
+    static String[][] vectorBatchParams(List<Query> queries, List<float[]> vectors, List<Integer> slots) {
+        int size = slots.size();
+        String[] vectorLiterals = new String[size];
+        String[] docTypes = new String[size];
+        String[] tickers = new String[size];
+        String[] langs = new String[size];
+        for (int i = 0; i < size; i++) {
+            int slot = slots.get(i);
+            SearchFilters filters = queries.get(slot) == null ? null : queries.get(slot).filters;
+            vectorLiterals[i] = toVectorLiteral(vectors.get(slot));
+            docTypes[i] = filters == null || isBlank(filters.docType) ? null : filters.docType.trim().toUpperCase(Locale.ROOT);
+            tickers[i] = filters == null ? null : trimToNull(filters.ticker);
+            langs[i] = filters == null ? null : trimToNull(filters.lang);
+        }
+        return new String[][]{vectorLiterals, docTypes, tickers, langs};
+    }
+
+    private List<List<DocMatch>> searchByVectorBatch(
+            List<Query> queries,
+            List<float[]> vectors,
+            List<Integer> slots,
+            int topK
+    ) throws SQLException {
+        int size = slots.size();
+        String[][] params = vectorBatchParams(queries, vectors, slots);
+
+        String sql = "SELECT q.ord, d.id, d.doc_type, d.ticker, d.title, d.content, d.lang, d.source, " +
+                "d.published_at, d.content_hash, d.distance " +
+                "FROM unnest(?::text[], ?::text[], ?::text[], ?::text[]) WITH ORDINALITY AS q(vec, doc_type, ticker, lang, ord) " +
+                "CROSS JOIN LATERAL (" +
+                "SELECT docs.id, docs.doc_type, docs.ticker, docs.title, docs.content, docs.lang, docs.source, " +
+                "docs.published_at, docs.content_hash, docs.embedding <=> CAST(q.vec AS vector) AS distance " +
+                "FROM docs WHERE docs.embedding IS NOT NULL " +
+                "AND (q.doc_type IS NULL OR docs.doc_type = q.doc_type) " +
+                "AND (q.ticker IS NULL OR docs.ticker = q.ticker) " +
+                "AND (q.lang IS NULL OR docs.lang = q.lang) " +
+                "ORDER BY docs.embedding <=> CAST(q.vec AS vector) LIMIT ?" +
+                ") d ORDER BY q.ord, d.distance";
+
+        List<List<DocMatch>> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            out.add(new ArrayList<>());
+        }
         try (Connection conn = database.connect();
-             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
-            bind(ps, params);
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setArray(i + 1, conn.createArrayOf("text", params[i]));
+            }
+            ps.setInt(5, topK);
             try (ResultSet rs = ps.executeQuery()) {
-                return toMatches(rs);
+                while (rs.next()) {
+                    int ord = (int) rs.getLong("ord");
+                    if (ord >= 1 && ord <= size) {
+                        out.get(ord - 1).add(toMatch(rs));
+                    }
+                }
             }
         }
+        return out;
     }
 
     private List<DocMatch> searchByText(String text, int topK, SearchFilters filters) throws SQLException {
@@ -142,23 +418,27 @@ public final class VectorSearchService {
     private List<DocMatch> toMatches(ResultSet rs) throws SQLException {
         List<DocMatch> out = new ArrayList<>();
         while (rs.next()) {
-            Timestamp ts = rs.getTimestamp("published_at");
-            out.add(new DocMatch(
-                    rs.getLong("id"),
-                    rs.getString("doc_type"),
-                    rs.getString("ticker"),
-                    rs.getString("title"),
-                    rs.getString("content"),
-                    rs.getString("lang"),
-                    rs.getString("source"),
-                    ts == null ? null : ts.toInstant(),
-                    rs.getString("content_hash"),
-                    rs.getObject("distance") == null ? null : rs.getDouble("distance")
-            ));
+            out.add(toMatch(rs));
         }
         return out;
     }
 
+    private DocMatch toMatch(ResultSet rs) throws SQLException {
+        Timestamp ts = rs.getTimestamp("published_at");
+        return new DocMatch(
+                rs.getLong("id"),
+                rs.getString("doc_type"),
+                rs.getString("ticker"),
+                rs.getString("title"),
+                rs.getString("content"),
+                rs.getString("lang"),
+                rs.getString("source"),
+                ts == null ? null : ts.toInstant(),
+                rs.getString("content_hash"),
+                rs.getObject("distance") == null ? null : rs.getDouble("distance")
+        );
+    }
+
     private void bind(PreparedStatement ps, List<Object> params) throws SQLException {
         for (int i = 0; i < params.size(); i++) {
             ps.setObject(i + 1, params.get(i));
@@ -169,7 +449,7 @@ public final class VectorSearchService {
         return instant == null ? null : instant.atOffset(ZoneOffset.UTC);
     }
 
-    private String toVectorLiteral(float[] embedding) {
+    private static String toVectorLiteral(float[] embedding) {
         if (embedding == null || embedding.length == 0) {
             return null;
         }
@@ -199,7 +479,7 @@ public final class VectorSearchService {
         }
     }
 
-    private String trimToNull(String value) {
+    private static String trimToNull(String value) {
         if (value == null) {
             return null;
         }
@@ -207,10 +487,102 @@ public final class VectorSearchService {
         return out.isEmpty() ? null : out;
     }
 
-    private boolean isBlank(String value) {
+    private static boolean isBlank(String value) {
         return value == null || value.trim().isEmpty();
     }
 
+    /**
+     * Produces an embedding for free text; an empty or null result means "unavailable".
+     */
+    @FunctionalInterface
+    public interface TextEmbedder {
+        float[] embed(String text);
+
+        /**
+         * Embeds several texts; implementations backed by a batch endpoint should override this.
+         */
+        default List<float[]> embedAll(List<String> texts) {
+            List<float[]> out = new ArrayList<>(texts.size());
+            for (String text : texts) {
+                out.add(embed(text));
+            }
+            return out;
+        }
+    }
+
+    /**
+     * One similarity query: free text, an optional precomputed embedding and filters.
+     */
+    public static final class Query {
+        public final String text;
+        public final float[] embedding;
+        public final SearchFilters filters;
+
+        public Query(String text, float[] embedding, SearchFilters filters) {
+            this.text = text;
+            this.embedding = embedding;
+            this.filters = filters;
+        }
+    }
+
+    public static final class SearchStats {
+        public final long vectorQueries;
+        public final long vectorStatements;
+        public final long vectorNanos;
+        public final long textQueries;
+        public final long textNanos;
+        public final long embedCalls;
+        public final long embedNanos;
+        public final long embedFailures;
+
+        SearchStats(
+                long vectorQueries,
+                long vectorStatements,
+                long vectorNanos,
+                long textQueries,
+                long textNanos,
+                long embedCalls,
+                long embedNanos,
+                long embedFailures
+        ) {
+            this.vectorQueries = vectorQueries;
+            this.vectorStatements = vectorStatements;
+            this.vectorNanos = vectorNanos;
+            this.textQueries = textQueries;
+            this.textNanos = textNanos;
+            this.embedCalls = embedCalls;
+            this.embedNanos = embedNanos;
+            this.embedFailures = embedFailures;
+        }
+
+        public long totalQueries() {
+            return vectorQueries + textQueries;
+        }
+
+        public long totalElapsedMs() {
+            return (vectorNanos + textNanos + embedNanos) / 1_000_000L;
+        }
+
+        public String toNote() {
+            return String.format(
+                    Locale.US,
+                    "vector=%d vector_statements=%d vector_avg_ms=%.1f text=%d text_avg_ms=%.1f embed=%d embed_avg_ms=%.1f embed_failed=%d",
+                    vectorQueries,
+                    vectorStatements,
+                    avgMs(vectorNanos, vectorStatements),
+                    textQueries,
+                    avgMs(textNanos, textQueries),
+                    embedCalls,
+                    avgMs(embedNanos, embedCalls),
+                    embedFailures
+            );
+        }
+
+        private static double avgMs(long nanos, long count) {
+            return count <= 0L ? 0.0 : nanos / 1_000_000.0 / count;
+        }
+    }
+
     public static final class Doc {
         public final String docType;
         public final String ticker;
@@ -3,7 +3,9 @@ package com.stockbot.core;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class RunTelemetryTest {
@@ -27,4 +29,34 @@ class RunTelemetryTest {
         assertTrue(summary.contains("steps:"));
         assertTrue(summary.contains(RunTelemetry.STEP_NEWS_FETCH));
     }
+
+    @Test
+    void recordStepShouldAccumulateExternallyMeasuredDurations() {
+        RunTelemetry telemetry = new RunTelemetry(7L, "ONCE", "manual", Instant.parse("2026-02-23T00:00:00Z"));
+        telemetry.recordStep(RunTelemetry.STEP_MEMORY_SEARCH, 40L, 5, 3, 0, "vector=3 text=2");
+        telemetry.recordStep(RunTelemetry.STEP_MEMORY_SEARCH, 10L, 1, 1, 1, "");
+
+        RunTelemetry.StepRecord record = telemetry.stepRecords().get(0);
+
+        assertEquals(RunTelemetry.STEP_MEMORY_SEARCH, record.name());
+        assertEquals(50L, record.elapsedMs());
+        assertEquals(6L, record.itemsIn());
+        assertEquals(4L, record.itemsOut());
+        assertEquals(1L, record.errorCount());
+        assertEquals("vector=3 text=2", record.optionalNote());
+    }
+
+    @Test
+    void sectionsShouldPrintAfterStepsAndReplaceByName() {
+        RunTelemetry telemetry = new RunTelemetry(9L, "ONCE", "manual", Instant.parse("2026-02-23T00:00:00Z"));
+        telemetry.recordStep(RunTelemetry.STEP_SQL_PROFILE, 12L, 40, 2, 0, "shapes=2");
+        telemetry.setSection("sql_top_shapes", List.of("old"));
+        telemetry.setSection("sql_top_shapes", List.of("header", "row"));
+
+        String summary = telemetry.getSummary();
+
+        assertTrue(summary.endsWith("sql_top_shapes:\n  header\n  row"));
+        assertTrue(summary.indexOf("steps:") < summary.indexOf("sql_top_shapes:"));
+        assertTrue(!summary.contains("old"));
+    }
 }
@@ -0,0 +1,82 @@
+package com.stockbot.data;
+
+import com.stockbot.data.http.HttpClientEx;
+import com.stockbot.jp.model.BarDaily;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link MarketDataService#fetchDailyHistoryBars} JSON parsing on a Yahoo-shaped chart response, with the HTTP
+ * call replaced by a canned body so only parsing and bar construction are measured. Run with
+ * {@code mvn -Pbench test -Dbench.include=ChartParseBenchmark}, or directly after {@code mvn test-compile}:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test.cp
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) com.stockbot.data.ChartParseBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChartParseBenchmark {
+    @Param({"520", "2500"})
+    public int bars;
+
+    private MarketDataService service;
+
+    @Setup(Level.Trial)
+    public void load() {
+        service = cannedService(YahooStandInServer.syntheticChart("8035.T", bars));
+    }
+
+    @Benchmark
+    public List<MarketDataService.DailyBar> parseChart() {
+        return service.fetchDailyHistoryBars("8035.T", "2y", "1d");
+    }
+
+    /**
+     * Chart fixture as the scanner sees it after parsing: {@code count} daily bars for {@code ticker}.
+     */
+    public static List<BarDaily> barFixture(String ticker, int count) {
+        List<MarketDataService.DailyBar> parsed = cannedService(YahooStandInServer.syntheticChart(ticker, count))
+                .fetchDailyHistoryBars(ticker, "2y", "1d");
+        List<BarDaily> out = new ArrayList<>(parsed.size());
+        for (MarketDataService.DailyBar bar : parsed) {
+            out.add(new BarDaily(ticker, bar.date, bar.open, bar.high, bar.low, bar.close, bar.volume));
+        }
+        return out;
+    }
+
+    private static MarketDataService cannedService(String body) {
+        return new MarketDataService(new HttpClientEx(null) {
+            @Override
+            public String getText(String url, int timeoutSeconds) {
+                return body;
+            }
+        });
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ChartParseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,314 @@
+package com.stockbot.data;
+
+import com.stockbot.data.http.HttpArchive;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process stand-in for Yahoo's {@code /v8/finance/chart/{symbol}} endpoint, for scan load tests. A request is
+ * answered from an {@link HttpArchive} recording when one exists for the equivalent upstream URL, otherwise with
+ * a deterministic synthetic random walk per symbol. Latency is log-normal around a median; a fraction of
+ * requests get HTTP 429, and a fraction stall and then drop the connection without a response, which the
+ * client sees the same way as an upstream timeout. {@code parallelism} workers bound concurrent responses.
+ */
+public final class YahooStandInServer implements AutoCloseable {
+    private static final String CHART_PATH = "/v8/finance/chart/";
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final AtomicLong requestSeq = new AtomicLong();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger rateLimited = new AtomicInteger();
+    private final AtomicInteger timeouts = new AtomicInteger();
+    private final AtomicInteger archiveHits = new AtomicInteger();
+
+    private YahooStandInServer(Options options) throws IOException {
+        this.options = options;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(options.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "yahoo-standin-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(workers);
+        server.createContext(CHART_PATH, this::handle);
+    }
+
+    public static YahooStandInServer start(Options options) throws IOException {
+        YahooStandInServer standIn = new YahooStandInServer(options);
+        standIn.server.start();
+        return standIn;
+    }
+
+    /**
+     * Value for {@code yahoo.chart.base_url}.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    public int requests() {
+        return requests.get();
+    }
+
+    public int rateLimited() {
+        return rateLimited.get();
+    }
+
+    public int timeouts() {
+        return timeouts.get();
+    }
+
+    public int archiveHits() {
+        return archiveHits.get();
+    }
+
+    public String statsNote() {
+        return String.format(
+                "standin_requests=%d standin_429=%d standin_timeouts=%d standin_replayed=%d",
+                requests(),
+                rateLimited(),
+                timeouts(),
+                archiveHits()
+        );
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    /**
+     * Synthetic chart response in Yahoo's shape: {@code bars} trading days ending today, seeded by symbol so
+     * every run and every test sees the same series.
+     */
+    public static String syntheticChart(String symbol, int bars) {
+        SplittableRandom random = new SplittableRandom(symbol.hashCode() * 0x9E3779B97F4A7C15L);
+        Deque<LocalDate> days = new ArrayDeque<>(bars);
+        LocalDate day = LocalDate.now(ZoneOffset.UTC);
+        while (days.size() < bars) {
+            if (day.getDayOfWeek() != DayOfWeek.SATURDAY && day.getDayOfWeek() != DayOfWeek.SUNDAY) {
+                days.addFirst(day);
+            }
+            day = day.minusDays(1);
+        }
+        JSONArray timestamps = new JSONArray();
+        JSONArray opens = new JSONArray();
+        JSONArray highs = new JSONArray();
+        JSONArray lows = new JSONArray();
+        JSONArray closes = new JSONArray();
+        JSONArray volumes = new JSONArray();
+        double close = 500.0 + random.nextDouble() * 4500.0;
+        double drift = (random.nextDouble() - 0.45) * 0.002;
+        for (LocalDate d : days) {
+            double open = close * (1.0 + random.nextGaussian() * 0.005);
+            close = Math.max(1.0, close * (1.0 + drift + random.nextGaussian() * 0.018));
+            double high = Math.max(open, close) * (1.0 + Math.abs(random.nextGaussian()) * 0.006);
+            double low = Math.min(open, close) * (1.0 - Math.abs(random.nextGaussian()) * 0.006);
+            timestamps.put(d.atStartOfDay(ZoneOffset.UTC).toEpochSecond());
+            opens.put(round2(open));
+            highs.put(round2(high));
+            lows.put(round2(low));
+            closes.put(round2(close));
+            volumes.put(100_000L + random.nextLong(5_000_000L));
+        }
+        JSONObject quote = new JSONObject()
+                .put("open", opens)
+                .put("high", highs)
+                .put("low", lows)
+                .put("close", closes)
+                .put("volume", volumes);
+        JSONObject result = new JSONObject()
+                .put("meta", new JSONObject().put("symbol", symbol).put("currency", "JPY"))
+                .put("timestamp", timestamps)
+                .put("indicators", new JSONObject().put("quote", new JSONArray().put(quote)));
+        return new JSONObject()
+                .put("chart", new JSONObject().put("result", new JSONArray().put(result)).put("error", JSONObject.NULL))
+                .toString();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        SplittableRandom random = new SplittableRandom(options.seed + requestSeq.incrementAndGet());
+        try {
+            sleepMs(sample(random, options.latencyMedianMs));
+            double roll = random.nextDouble();
+            if (roll < options.timeoutRate) {
+                timeouts.incrementAndGet();
+                sleepMs(options.stallMs);
+                return;
+            }
+            if (roll < options.timeoutRate + options.rateLimitRate) {
+                rateLimited.incrementAndGet();
+                send(exchange, 429, "application/json", "{\"chart\":{\"result\":null,\"error\":{\"code\":\"Too Many Requests\"}}}");
+                return;
+            }
+            URI uri = exchange.getRequestURI();
+            Optional<HttpArchive.Entry> recorded = replay(uri);
+            if (recorded.isPresent()) {
+                archiveHits.incrementAndGet();
+                HttpArchive.Entry entry = recorded.get();
+                send(exchange, entry.status, entry.contentType.isEmpty() ? "application/json" : entry.contentType, entry.body);
+                return;
+            }
+            String symbol = uri.getPath().substring(CHART_PATH.length());
+            send(exchange, 200, "application/json", syntheticChart(symbol, barsFor(uri.getRawQuery())));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private Optional<HttpArchive.Entry> replay(URI uri) {
+        if (options.archive == null) {
+            return Optional.empty();
+        }
+        String query = uri.getRawQuery();
+        String upstream = options.upstreamBaseUrl + uri.getRawPath() + (query == null ? "" : "?" + query);
+        return options.archive.lookup(upstream);
+    }
+
+    private int barsFor(String query) {
+        String range = "";
+        if (query != null) {
+            for (String part : query.split("&")) {
+                if (part.startsWith("range=")) {
+                    range = part.substring("range=".length());
+                }
+            }
+        }
+        int bars;
+        switch (range) {
+            case "1y":
+                bars = 250;
+                break;
+            case "5y":
+                bars = 1250;
+                break;
+            case "10y":
+            case "max":
+                bars = 2500;
+                break;
+            default:
+                bars = 500;
+                break;
+        }
+        return Math.min(bars, options.maxBars);
+    }
+
+    private long sample(SplittableRandom random, long medianMs) {
+        if (medianMs <= 0L) {
+            return 0L;
+        }
+        return Math.round(medianMs * Math.exp(options.latencySigma * random.nextGaussian()));
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleepMs(long ms) {
+        if (ms <= 0L) {
+            return;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Load profile; latency is the median of a log-normal with {@code latencySigma}.
+     */
+    public static final class Options {
+        int parallelism = 64;
+        long latencyMedianMs = 120L;
+        double latencySigma = 0.5;
+        double rateLimitRate = 0.0;
+        double timeoutRate = 0.0;
+        long stallMs = 2_000L;
+        int maxBars = 2500;
+        HttpArchive archive;
+        String upstreamBaseUrl = MarketDataService.DEFAULT_CHART_BASE_URL;
+        long seed = 42L;
+
+        public Options parallelism(int value) {
+            this.parallelism = Math.max(1, value);
+            return this;
+        }
+
+        public Options latencyMedianMs(long value) {
+            this.latencyMedianMs = Math.max(0L, value);
+            return this;
+        }
+
+        public Options latencySigma(double value) {
+            this.latencySigma = Math.max(0.0, value);
+            return this;
+        }
+
+        public Options rateLimitRate(double value) {
+            this.rateLimitRate = Math.max(0.0, Math.min(1.0, value));
+            return this;
+        }
+
+        public Options timeoutRate(double value) {
+            this.timeoutRate = Math.max(0.0, Math.min(1.0, value));
+            return this;
+        }
+
+        public Options stallMs(long value) {
+            this.stallMs = Math.max(0L, value);
+            return this;
+        }
+
+        public Options maxBars(int value) {
+            this.maxBars = Math.max(1, value);
+            return this;
+        }
+
+        /**
+         * Serves recordings from {@code archive}; requests are looked up as if sent to {@code upstreamBaseUrl}.
+         */
+        public Options replay(HttpArchive archive, String upstreamBaseUrl) {
+            this.archive = archive;
+            this.upstreamBaseUrl = upstreamBaseUrl == null ? MarketDataService.DEFAULT_CHART_BASE_URL : upstreamBaseUrl;
+            return this;
+        }
+
+        public Options seed(long value) {
+            this.seed = value;
+            return this;
+        }
+    }
+}
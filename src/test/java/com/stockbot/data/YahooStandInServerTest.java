@@ -0,0 +1,74 @@
+package com.stockbot.data;
+
+import com.stockbot.data.http.HttpArchive;
+import com.stockbot.data.http.HttpClientEx;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class YahooStandInServerTest {
+
+    @Test
+    void syntheticChartShouldParseAndBeDeterministic() throws Exception {
+        try (YahooStandInServer standIn = YahooStandInServer.start(fast())) {
+            MarketDataService service = new MarketDataService(new HttpClientEx(null), standIn.baseUrl());
+
+            List<MarketDataService.DailyBar> first = service.fetchDailyHistoryBars("7203.T", "2y", "1d");
+            List<MarketDataService.DailyBar> second = service.fetchDailyHistoryBars("7203.T", "2y", "1d");
+
+            assertEquals(500, first.size());
+            assertEquals(first.get(first.size() - 1).close, second.get(second.size() - 1).close);
+            assertTrue(first.get(0).date.isBefore(first.get(first.size() - 1).date));
+            assertEquals(2, standIn.requests());
+        }
+    }
+
+    @Test
+    void recordedResponsesShouldBeReplayedInsteadOfSyntheticOnes(@TempDir Path dir) throws Exception {
+        HttpArchive archive = new HttpArchive(dir);
+        String upstream = "https://upstream.example.com";
+        archive.record(upstream + "/v8/finance/chart/7203.T?range=2y&interval=1d", 200, "application/json",
+                YahooStandInServer.syntheticChart("7203.T", 3));
+
+        try (YahooStandInServer standIn = YahooStandInServer.start(fast().replay(archive, upstream))) {
+            HttpClientEx recording = new HttpClientEx(new HttpArchive(dir.resolve("live")));
+            MarketDataService service = new MarketDataService(recording, standIn.baseUrl());
+
+            assertEquals(3, service.fetchDailyHistoryBars("7203.T", "2y", "1d").size());
+            assertEquals(500, service.fetchDailyHistoryBars("6758.T", "2y", "1d").size());
+            assertEquals(1, standIn.archiveHits());
+
+            Optional<HttpArchive.Entry> recorded = new HttpArchive(dir.resolve("live"))
+                    .lookup(standIn.baseUrl() + "/v8/finance/chart/6758.T?range=2y&interval=1d");
+            assertTrue(recorded.isPresent());
+            assertEquals(200, recorded.get().status);
+            assertEquals(YahooStandInServer.syntheticChart("6758.T", 500), recorded.get().body);
+        }
+    }
+
+    @Test
+    void injectedRateLimitShouldSurfaceAsHttp429() throws Exception {
+        try (YahooStandInServer standIn = YahooStandInServer.start(fast().rateLimitRate(1.0))) {
+            MarketDataService service = new MarketDataService(new HttpClientEx(null), standIn.baseUrl());
+
+            RuntimeException error = assertThrows(RuntimeException.class,
+                    () -> service.fetchDailyHistoryBars("7203.T", "2y", "1d"));
+
+            assertTrue(error.getMessage().contains("HTTP 429"));
+            assertEquals(1, standIn.rateLimited());
+        }
+    }
+
+    private static YahooStandInServer.Options fast() {
+        return new YahooStandInServer.Options()
+                .parallelism(4)
+                .latencyMedianMs(0L);
+    }
+}
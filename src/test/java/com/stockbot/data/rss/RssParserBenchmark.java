@@ -0,0 +1,89 @@
+package com.stockbot.data.rss;
+
+import com.stockbot.model.NewsItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming parser vs the previous DOM approach on the recorded Google News / Yahoo Finance feeds in
+ * src/test/resources/rss. Run after {@code mvn test-compile}:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test.cp
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) com.stockbot.data.rss.RssParserBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RssParserBenchmark {
+    @Param({"google_news_ja.xml", "yahoo_finance_8035.xml"})
+    public String feed;
+
+    @Param({"10", "100"})
+    public int maxItems;
+
+    private byte[] bytes;
+    private String text;
+
+    @Setup(Level.Trial)
+    public void load() throws Exception {
+        bytes = RssParserTest.resource(feed);
+        text = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<NewsItem> staxStream() {
+        return RssParser.parse(new ByteArrayInputStream(bytes), maxItems);
+    }
+
+    @Benchmark
+    public List<NewsItem> staxString() {
+        return RssParser.parse(text, maxItems);
+    }
+
+    /**
+     * Baseline: String -> bytes -> full DOM, then the first maxItems items.
+     */
+    @Benchmark
+    public List<String> domBaseline() throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance()
+                .newDocumentBuilder()
+                .parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        NodeList items = doc.getElementsByTagName("item");
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < items.getLength() && out.size() < maxItems; i++) {
+            NodeList titles = ((Element) items.item(i)).getElementsByTagName("title");
+            out.add(titles.getLength() == 0 ? "" : titles.item(0).getTextContent());
+        }
+        return out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(RssParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
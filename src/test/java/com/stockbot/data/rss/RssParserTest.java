@@ -0,0 +1,118 @@
+package com.stockbot.data.rss;
+
+import com.stockbot.model.NewsItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RssParserTest {
+
+    @Test
+    void shouldParseRecordedFeedsFromStream() throws Exception {
+        List<NewsItem> google = parseResource("google_news_ja.xml", 200);
+        List<NewsItem> yahoo = parseResource("yahoo_finance_8035.xml", 200);
+
+        assertEquals(100, google.size());
+        assertEquals(20, yahoo.size());
+        NewsItem first = google.get(0);
+        assertTrue(first.link.startsWith("https://news.google.com/rss/articles/"));
+        assertFalse(first.source.isEmpty());
+        assertTrue(first.title.endsWith(" - " + first.source));
+        assertNotNull(first.publishedAt);
+        assertTrue(first.description.contains("<a href="));
+        assertEquals("finance.yahoo.com", yahoo.get(0).source);
+        assertNotNull(yahoo.get(0).publishedAt);
+        assertTrue(yahoo.get(0).description.contains("\"demand\" signals & margins"));
+    }
+
+    @Test
+    void shouldStopReadingOnceMaxItemsAreCollected() throws Exception {
+        byte[] xml = resource("google_news_ja.xml");
+        CountingInputStream in = new CountingInputStream(new ByteArrayInputStream(xml));
+
+        List<NewsItem> items = RssParser.parse(in, 5);
+
+        assertEquals(5, items.size());
+        assertEquals(parseResource("google_news_ja.xml", 200).get(4).link, items.get(4).link);
+        assertTrue(in.read < xml.length / 2, "read=" + in.read + " total=" + xml.length);
+    }
+
+    @Test
+    void shouldNotResolveExternalEntities() {
+        String xml = "<?xml version=\"1.0\"?>"
+                + "<!DOCTYPE rss [<!ENTITY xxe SYSTEM \"file:///etc/hostname\">]>"
+                + "<rss><channel><item><title>&xxe;</title><link>https://a.example.com/x</link></item></channel></rss>";
+
+        List<NewsItem> items = RssParser.parse(xml, 10);
+
+        for (NewsItem item : items) {
+            assertEquals("", item.title);
+        }
+    }
+
+    @Test
+    void shouldFallBackToTitleSuffixAndLinkHost() {
+        String xml = "<rss><channel>"
+                + "<item><title>Profit beats forecast - Nikkei Asia</title><link>https://asia.nikkei.com/a</link>"
+                + "<pubDate>not a date</pubDate></item>"
+                + "<item><title>Plain headline</title><link> https://www.reuters.com/b </link></item>"
+                + "</channel></rss>";
+
+        List<NewsItem> items = RssParser.parse(xml, 10);
+
+        assertEquals(2, items.size());
+        assertEquals("Nikkei Asia", items.get(0).source);
+        assertEquals(null, items.get(0).publishedAt);
+        assertEquals("www.reuters.com", items.get(1).source);
+        assertEquals("https://www.reuters.com/b", items.get(1).link);
+        assertTrue(RssParser.parse("<rss><channel><item><title>cut", 10).isEmpty());
+    }
+
+    private static List<NewsItem> parseResource(String name, int maxItems) throws IOException {
+        return RssParser.parse(new ByteArrayInputStream(resource(name)), maxItems);
+    }
+
+    static byte[] resource(String name) throws IOException {
+        try (InputStream in = RssParserTest.class.getResourceAsStream("/rss/" + name)) {
+            if (in == null) {
+                throw new IOException("missing fixture " + name);
+            }
+            return in.readAllBytes();
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private int read;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                read++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) {
+                read += n;
+            }
+            return n;
+        }
+    }
+}
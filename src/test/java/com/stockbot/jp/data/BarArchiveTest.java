@@ -0,0 +1,109 @@
+package com.stockbot.jp.data;
+
+import com.stockbot.data.ChartParseBenchmark;
+import com.stockbot.jp.model.BarDaily;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BarArchiveTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void write_shouldKeepNewestCapacityBarsAndSurviveReopen() throws Exception {
+        List<BarDaily> bars = bars("7203.jp", 300);
+        try (BarArchive archive = new BarArchive(dir, 260)) {
+            assertTrue(archive.write("Prime", "7203.jp", bars));
+            assertEquals(bars.subList(40, 300), archive.read("Prime", "7203.jp"));
+        }
+
+        try (BarArchive reopened = new BarArchive(dir, 260)) {
+            assertEquals(bars.subList(40, 300), reopened.read("Prime", "7203.jp"));
+            assertTrue(reopened.read("Prime", "6758.jp").isEmpty());
+            assertTrue(reopened.read("Growth", "7203.jp").isEmpty());
+        }
+        assertTrue(Files.exists(dir.resolve("bars_prime.bin")));
+    }
+
+    @Test
+    void append_shouldReplaceOverlappingDatesAndKeepOlderBars() throws Exception {
+        List<BarDaily> bars = bars("6758.jp", 200);
+        List<BarDaily> revised = new ArrayList<>();
+        for (BarDaily bar : bars.subList(190, 200)) {
+            revised.add(bar.toBuilder().close(bar.close + 1.0).build());
+        }
+        try (BarArchive archive = new BarArchive(dir, 520)) {
+            archive.write("Prime", "6758.jp", bars.subList(0, 195));
+            archive.append("Prime", "6758.jp", revised);
+
+            List<BarDaily> expected = new ArrayList<>(bars.subList(0, 190));
+            expected.addAll(revised);
+            assertEquals(expected, archive.read("Prime", "6758.jp"));
+        }
+    }
+
+    @Test
+    void write_shouldGrowBeyondInitialSlotsAndResetOnCapacityChange() throws Exception {
+        try (BarArchive archive = new BarArchive(dir, 120)) {
+            for (int i = 0; i < 150; i++) {
+                archive.write("Standard", (1300 + i) + ".jp", bars((1300 + i) + ".jp", 130));
+            }
+            assertEquals(120, archive.read("Standard", "1300.jp").size());
+            assertEquals(bars("1449.jp", 130).subList(10, 130), archive.read("Standard", "1449.jp"));
+        }
+        try (BarArchive reopened = new BarArchive(dir, 120)) {
+            assertEquals(bars("1420.jp", 130).subList(10, 130), reopened.read("Standard", "1420.jp"));
+        }
+        try (BarArchive resized = new BarArchive(dir, 200)) {
+            assertTrue(resized.read("Standard", "1420.jp").isEmpty());
+        }
+    }
+
+    @Test
+    void write_shouldNotReuseSlotsAppendedByAnotherWriter() throws Exception {
+        try (BarArchive first = new BarArchive(dir, 60);
+             BarArchive second = new BarArchive(dir, 60)) {
+            first.write("Prime", "7203.jp", bars("7203.jp", 60));
+            // Opened before that write; still allocates after it, and grows the file past first's mapping.
+            for (int i = 0; i < 100; i++) {
+                second.write("Prime", (1300 + i) + ".jp", bars((1300 + i) + ".jp", 60));
+            }
+            first.write("Prime", "6758.jp", bars("6758.jp", 60));
+
+            assertEquals(bars("7203.jp", 60), first.read("Prime", "7203.jp"));
+            assertEquals(bars("7203.jp", 60), second.read("Prime", "7203.jp"));
+            assertEquals(bars("1399.jp", 60), first.read("Prime", "1399.jp"));
+            assertTrue(second.read("Prime", "6758.jp").isEmpty());
+        }
+        try (BarArchive reopened = new BarArchive(dir, 60)) {
+            assertEquals(bars("7203.jp", 60), reopened.read("Prime", "7203.jp"));
+            assertEquals(bars("1300.jp", 60), reopened.read("Prime", "1300.jp"));
+            assertEquals(bars("6758.jp", 60), reopened.read("Prime", "6758.jp"));
+        }
+    }
+
+    @Test
+    void write_shouldRejectTickerThatDoesNotFitSlotHeader() throws Exception {
+        try (BarArchive archive = new BarArchive(dir, 60)) {
+            assertFalse(archive.write("Prime", "X".repeat(40), bars("X", 10)));
+        }
+    }
+
+    private static List<BarDaily> bars(String ticker, int count) {
+        List<BarDaily> out = new ArrayList<>();
+        for (BarDaily bar : ChartParseBenchmark.barFixture(ticker, count)) {
+            out.add(bar.toBuilder().ticker(ticker).build());
+        }
+        return out;
+    }
+}
@@ -0,0 +1,31 @@
+package com.stockbot.jp.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AnalyticsExporterTest {
+
+    @Test
+    void exportableRuns_shouldStopAtFirstUnfinishedRun() {
+        Map<Long, Boolean> finished = new TreeMap<>(Map.of(7L, true, 5L, true, 6L, true, 8L, false, 9L, true));
+        assertEquals(List.of(5L, 6L, 7L), AnalyticsExporter.exportableRuns(finished));
+        assertTrue(AnalyticsExporter.exportableRuns(new TreeMap<>(Map.of(3L, false, 4L, true))).isEmpty());
+    }
+
+    @Test
+    void months_shouldCoverBothEndsInclusive() {
+        assertEquals(
+                List.of(LocalDate.of(2024, 11, 1), LocalDate.of(2024, 12, 1), LocalDate.of(2025, 1, 1)),
+                AnalyticsExporter.months(LocalDate.of(2024, 11, 30), LocalDate.of(2025, 1, 2))
+        );
+        assertEquals(List.of(LocalDate.of(2025, 3, 1)), AnalyticsExporter.months(LocalDate.of(2025, 3, 9), LocalDate.of(2025, 3, 9)));
+        assertTrue(AnalyticsExporter.months(null, LocalDate.of(2025, 3, 9)).isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.data.ChartParseBenchmark;
+import com.stockbot.jp.model.BarColumns;
+import com.stockbot.jp.model.BarDaily;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BarBlobCodecTest {
+
+    @Test
+    void encode_shouldRoundTripParsedBarsBitForBit() {
+        List<BarDaily> bars = ChartParseBenchmark.barFixture("7203.T", 260);
+        BarColumns columns = BarColumns.fromBars(bars);
+
+        byte[] payload = BarBlobCodec.encode(columns, 0, columns.size);
+        BarColumns decoded = BarBlobCodec.decode(payload);
+
+        assertEquals(columns.size, BarBlobCodec.count(payload));
+        assertEquals(bars, decoded.toBars("7203.T"));
+        assertTrue(payload.length < columns.size * 6 * 8 / 2, "payload bytes=" + payload.length);
+    }
+
+    @Test
+    void encode_shouldKeepValuesThatAreNotDecimalExact() {
+        BarColumns columns = BarColumns.fromBars(List.of(
+                new BarDaily("X", LocalDate.of(2024, 12, 30), 1234.5, 1240.0, 1200.25, 1238.0, 1_200_300.0),
+                new BarDaily("X", LocalDate.of(2025, 1, 6), 0.1 + 0.2, Math.PI, -0.0, Double.NaN, 1e300),
+                new BarDaily("X", LocalDate.of(2025, 1, 7), 1.0 / 3.0, 1239.0001, 0.0, 1237.5, 0.0)
+        ));
+
+        BarColumns decoded = BarBlobCodec.decode(BarBlobCodec.encode(columns, 0, columns.size));
+
+        assertArrayEquals(columns.epochDays, decoded.epochDays);
+        assertBits(columns.open, decoded.open);
+        assertBits(columns.high, decoded.high);
+        assertBits(columns.low, decoded.low);
+        assertBits(columns.close, decoded.close);
+        assertBits(columns.volume, decoded.volume);
+    }
+
+    @Test
+    void decodeInto_shouldConcatenateChunksAtOffset() {
+        BarColumns columns = BarColumns.fromBars(ChartParseBenchmark.barFixture("6758.T", 120));
+        byte[] older = BarBlobCodec.encode(columns, 0, 70);
+        byte[] newer = BarBlobCodec.encode(columns, 70, columns.size);
+
+        BarColumns out = BarColumns.allocate(BarBlobCodec.count(older) + BarBlobCodec.count(newer));
+        int filled = BarBlobCodec.decodeInto(older, out, 0);
+        filled += BarBlobCodec.decodeInto(newer, out, filled);
+
+        assertEquals(columns.toBars("6758.T"), out.withSize(filled).toBars("6758.T"));
+        assertEquals(columns.toBars("6758.T").subList(100, 120), out.withSize(filled).tail(20).toBars("6758.T"));
+    }
+
+    @Test
+    void encode_shouldRejectUnorderedDates() {
+        BarColumns columns = BarColumns.fromBars(List.of(
+                new BarDaily("X", LocalDate.of(2025, 1, 7), 1, 1, 1, 1, 1),
+                new BarDaily("X", LocalDate.of(2025, 1, 6), 1, 1, 1, 1, 1)
+        ));
+
+        assertThrows(IllegalArgumentException.class, () -> BarBlobCodec.encode(columns, 0, columns.size));
+    }
+
+    @Test
+    void decode_shouldAcceptEmptyChunkAndRejectUnknownVersion() {
+        BarColumns empty = BarBlobCodec.decode(BarBlobCodec.encode(BarColumns.EMPTY, 0, 0));
+
+        assertEquals(0, empty.size);
+        assertThrows(IllegalArgumentException.class, () -> BarBlobCodec.decode(new byte[]{9, 0, 0}));
+    }
+
+    private static void assertBits(double[] expected, double[] actual) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(expected[i]), Double.doubleToRawLongBits(actual[i]), "index " + i);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.data.MarketDataService;
+import com.stockbot.data.http.HttpArchive;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BarBootstrapImporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void copyColumns_shouldMapHeaderAndRejectUnknownColumns() {
+        assertEquals(
+                "ticker, trade_date, open, high, low, close, volume",
+                BarBootstrapImporter.copyColumns("\uFEFFTicker,\"Date\",Open,High,Low,Close,Volume\r")
+        );
+        assertEquals("close, trade_date, ticker", BarBootstrapImporter.copyColumns("close,trade_date,ticker"));
+        assertThrows(IllegalArgumentException.class, () -> BarBootstrapImporter.copyColumns("ticker,date,close,market"));
+        assertThrows(IllegalArgumentException.class, () -> BarBootstrapImporter.copyColumns("ticker,date,date,close"));
+        assertThrows(IllegalArgumentException.class, () -> BarBootstrapImporter.copyColumns("ticker,date,open"));
+    }
+
+    @Test
+    void forEachBlock_shouldCutOnLineBreaksAndKeepEveryByte() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            csv.append(i).append(".jp,2024-01-0").append(i % 9 + 1).append(",1,2,0.5,1.5,").append(i * 10).append('\n');
+        }
+        csv.append("tail.jp,2024-02-01,1,1,1,1,0");
+        byte[] input = csv.toString().getBytes(StandardCharsets.UTF_8);
+        List<String> blocks = new ArrayList<>();
+
+        BarBootstrapImporter.forEachBlock(new ByteArrayInputStream(input), 256,
+                (block, length) -> blocks.add(new String(block, 0, length, StandardCharsets.UTF_8)));
+
+        assertTrue(blocks.size() > 10);
+        assertEquals(csv.toString(), String.join("", blocks));
+        for (String block : blocks.subList(0, blocks.size() - 1)) {
+            assertTrue(block.length() <= 256 && block.endsWith("\n"));
+        }
+        assertThrows(Exception.class, () -> BarBootstrapImporter.forEachBlock(
+                new ByteArrayInputStream("x".repeat(300).getBytes(StandardCharsets.UTF_8)), 256, (block, length) -> { }));
+    }
+
+    @Test
+    void replayTicker_shouldMapTokyoChartUrlsOnly() {
+        assertEquals("7203.jp", BarBootstrapImporter.replayTicker(
+                "https://query1.finance.yahoo.com/v8/finance/chart/7203.T?range=2y&interval=1d"));
+        assertEquals("130A.jp", BarBootstrapImporter.replayTicker("http://localhost:8080/v8/finance/chart/130a.t"));
+        assertEquals("", BarBootstrapImporter.replayTicker("https://query1.finance.yahoo.com/v8/finance/chart/%5EN225?range=5y"));
+        assertEquals("", BarBootstrapImporter.replayTicker("https://example.com/news.rss"));
+    }
+
+    @Test
+    void appendCsv_shouldWriteOneLinePerParsedBar() {
+        String body = "{\"chart\":{\"result\":[{\"timestamp\":[1704412800,1704499200],"
+                + "\"indicators\":{\"quote\":[{\"open\":[100.0,null],\"high\":[110.0,null],\"low\":[95.0,null],"
+                + "\"close\":[105.0,106.5],\"volume\":[1200,null]}]}}]}}";
+        StringBuilder csv = new StringBuilder();
+
+        BarBootstrapImporter.appendCsv(csv, "7203.jp", MarketDataService.parseChartBars(body), "yahoo");
+
+        assertEquals(
+                "7203.jp,2024-01-05,100.0,110.0,95.0,105.0,1200.0,yahoo\n"
+                        + "7203.jp,2024-01-06,106.5,106.5,106.5,106.5,0.0,yahoo\n",
+                csv.toString()
+        );
+        assertEquals(LocalDate.of(2024, 1, 5), MarketDataService.parseChartBars(body).get(0).date);
+    }
+
+    @Test
+    void listInputs_shouldPreferCsvThenHttpArchiveAndRejectParquet() throws Exception {
+        Path csvDir = Files.createDirectories(dir.resolve("csv"));
+        Files.writeString(csvDir.resolve("standard.csv.gz"), "");
+        Files.writeString(csvDir.resolve("prime.csv"), "ticker,date,close\n");
+        Files.writeString(csvDir.resolve("README.txt"), "");
+        assertEquals(
+                List.of(csvDir.resolve("prime.csv"), csvDir.resolve("standard.csv.gz")),
+                BarBootstrapImporter.listInputs(csvDir)
+        );
+
+        Path replay = dir.resolve("replay");
+        new HttpArchive(replay).record("https://query1.finance.yahoo.com/v8/finance/chart/7203.T", 200, "", "{}");
+        assertEquals(List.of(replay), BarBootstrapImporter.listInputs(replay));
+
+        Path parquet = Files.createDirectories(dir.resolve("parquet"));
+        Files.writeString(parquet.resolve("prime.parquet"), "");
+        assertThrows(IllegalArgumentException.class, () -> BarBootstrapImporter.listInputs(parquet));
+        assertThrows(IllegalArgumentException.class, () -> BarBootstrapImporter.listInputs(dir.resolve("missing")));
+    }
+}
@@ -0,0 +1,85 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.jp.db.mybatis.BarDailyMapper;
+import com.stockbot.jp.db.mybatis.ForwardReturnKey;
+import com.stockbot.jp.model.ForwardReturn;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BarDailyDaoTest {
+
+    @Test
+    void forwardReturnKeys_shouldKeepInputPositionsAndSkipUnusablePairs() {
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        List<ForwardReturnKey> keys = BarDailyDao.forwardReturnKeys(
+                Arrays.asList(" 7203.jp ", "", null, "6758.jp", "9984.jp"),
+                Arrays.asList(day, day, day, null, day.plusDays(1))
+        );
+
+        assertEquals(2, keys.size());
+        assertEquals(new ForwardReturnKey(0, "7203.jp", day), keys.get(0));
+        assertEquals(new ForwardReturnKey(4, "9984.jp", day.plusDays(1)), keys.get(1));
+        assertTrue(BarDailyDao.forwardReturnKeys(List.of("7203.jp"), List.of()).isEmpty());
+    }
+
+    @Test
+    void batches_shouldSplitIntoFullBatchesAndOneRemainder() {
+        List<Integer> items = new ArrayList<>();
+        for (int i = 0; i < 2 * BarDailyDao.FORWARD_RETURN_KEYS_PER_QUERY + 1; i++) {
+            items.add(i);
+        }
+
+        List<List<Integer>> batches = BarDailyDao.batches(items, BarDailyDao.FORWARD_RETURN_KEYS_PER_QUERY);
+
+        assertEquals(3, batches.size());
+        assertEquals(BarDailyDao.FORWARD_RETURN_KEYS_PER_QUERY, batches.get(1).size());
+        assertEquals(List.of(items.size() - 1), batches.get(2));
+        assertEquals(List.of(List.of(1, 2)), BarDailyDao.batches(List.of(1, 2), 5));
+        assertEquals(List.of(List.of(1), List.of(2)), BarDailyDao.batches(List.of(1, 2), 0));
+        assertTrue(BarDailyDao.batches(List.of(), 10).isEmpty());
+    }
+
+    @Test
+    void selectForwardReturns_shouldBindThreeParametersPerKeyInOneValuesList() {
+        Configuration config = new Configuration();
+        config.addMapper(BarDailyMapper.class);
+        LocalDate day = LocalDate.of(2024, 3, 1);
+        List<ForwardReturnKey> keys = List.of(
+                new ForwardReturnKey(0, "7203.jp", day),
+                new ForwardReturnKey(3, "6758.jp", day)
+        );
+
+        BoundSql sql = config.getMappedStatement(BarDailyMapper.class.getName() + ".selectForwardReturns")
+                .getBoundSql(Map.of("keys", keys));
+
+        String text = sql.getSql().replaceAll("\\s+", " ");
+        assertEquals(6, sql.getParameterMappings().size());
+        assertEquals(2, text.split("CAST\\(\\? AS DATE\\)", -1).length - 1);
+        assertTrue(text.contains("forward_returns.trade_date>=q.as_of"));
+        assertTrue(text.endsWith("ORDER BY q.ord"));
+    }
+
+    @Test
+    void pct_shouldOnlyAnswerStoredFiniteHorizons() {
+        ForwardReturn row = new ForwardReturn("7203.jp", LocalDate.of(2024, 3, 1), 1.5, null, Double.NaN, -2.0, 4.0);
+
+        assertEquals(1.5, row.pct(1).getAsDouble(), 1e-9);
+        assertFalse(row.pct(3).isPresent());
+        assertFalse(row.pct(5).isPresent());
+        assertEquals(-2.0, row.pct(10).getAsDouble(), 1e-9);
+        assertFalse(row.pct(7).isPresent());
+        assertFalse(ForwardReturn.supports(7));
+        assertTrue(ForwardReturn.supports(20));
+    }
+}
@@ -0,0 +1,35 @@
+package com.stockbot.jp.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DbWriteStatsTest {
+
+    @Test
+    void drain_shouldSumPerTableAndReset() {
+        DbWriteStats stats = new DbWriteStats();
+        stats.record("scan_results", 2000, 250_000_000L);
+        stats.record("price_daily", 520, 100_000_000L);
+        stats.record("price_daily", 480, 100_000_000L);
+        stats.record("signals", 0, 5_000_000L);
+
+        List<DbWriteStats.TableWrite> writes = stats.drain();
+
+        assertEquals(2, writes.size());
+        assertEquals("price_daily", writes.get(0).table);
+        assertEquals(1000, writes.get(0).rows);
+        assertEquals(2, writes.get(0).writes);
+        assertEquals(5000.0, writes.get(0).rowsPerSec(), 1e-9);
+        assertEquals(8000.0, writes.get(1).rowsPerSec(), 1e-9);
+        assertEquals(
+                "price_daily_rows=1000 price_daily_writes=2 price_daily_rows_per_sec=5000 "
+                        + "scan_results_rows=2000 scan_results_writes=1 scan_results_rows_per_sec=8000",
+                DbWriteStats.toNote(writes)
+        );
+        assertTrue(stats.drain().isEmpty());
+    }
+}
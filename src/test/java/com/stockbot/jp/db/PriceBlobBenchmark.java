@@ -0,0 +1,172 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.data.ChartParseBenchmark;
+import com.stockbot.jp.model.BarColumns;
+import com.stockbot.jp.model.BarDaily;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * price_daily ({@link BarDailyDao#loadRecentBars}) against price_blob ({@link BarBlobDao#loadRecentColumns}) for the
+ * same synthetic universe: bytes stored, rows fetched per ticker, read latency and pure decode time per ticker.
+ * Uses a scratch schema (price_bench_blob, dropped and recreated) in the target database. Run after
+ * {@code mvn test-compile}:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test.cp
+ * java -Dbench.db.url=jdbc:postgresql://localhost:5432/stockbot_bench -Dbench.db.user=postgres -Dbench.tickers=1000 \
+ *      -cp target/test-classes:target/classes:$(cat target/test.cp) com.stockbot.jp.db.PriceBlobBenchmark
+ * </pre>
+ */
+public final class PriceBlobBenchmark {
+    private static final String PRICE_BLOB_DDL = "CREATE TABLE price_blob (" +
+            "ticker TEXT NOT NULL," +
+            "year INT NOT NULL," +
+            "bar_count INT NOT NULL," +
+            "first_date DATE NOT NULL," +
+            "last_date DATE NOT NULL," +
+            "payload BYTEA NOT NULL," +
+            "updated_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+            "PRIMARY KEY (ticker, year)" +
+            ")";
+
+    private PriceBlobBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5432/stockbot_bench");
+        String user = System.getProperty("bench.db.user", "postgres");
+        String password = System.getProperty("bench.db.password", "");
+        int tickers = Integer.getInteger("bench.tickers", 1000);
+        int bars = Integer.getInteger("bench.bars", 520);
+        int rounds = Integer.getInteger("bench.read_rounds", 3);
+
+        Database database = new Database(url, user, password, "price_bench_blob", false);
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS " + database.schema() + " CASCADE");
+            st.execute("CREATE SCHEMA " + database.schema());
+            st.execute("SET search_path TO " + database.schema() + ", public");
+            for (String sql : MigrationRunner.priceDailyStatements()) {
+                st.execute(sql);
+            }
+            st.execute("CREATE INDEX idx_price_daily_trade_date_brin ON price_daily USING brin (trade_date)");
+            st.execute(PriceDailyLayoutBenchmark.FORWARD_RETURNS_DDL);
+            st.execute(PRICE_BLOB_DDL);
+        }
+        BarDailyDao rowDao = new BarDailyDao(database);
+        BarBlobDao blobDao = new BarBlobDao(database);
+
+        List<String> symbols = new ArrayList<>(tickers);
+        long packNanos = 0L;
+        for (int i = 0; i < tickers; i++) {
+            String ticker = (1300 + i) + ".jp";
+            List<BarDaily> series = ChartParseBenchmark.barFixture(ticker, bars);
+            symbols.add(ticker);
+            rowDao.upsertBars(ticker, series, "bench");
+            long started = System.nanoTime();
+            blobDao.refresh(ticker, series.get(0).tradeDate);
+            packNanos += System.nanoTime() - started;
+        }
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            st.execute("VACUUM ANALYZE price_daily");
+            st.execute("VACUUM ANALYZE price_blob");
+        }
+
+        long[] rowMicros = new long[tickers * rounds];
+        long[] blobMicros = new long[tickers * rounds];
+        int n = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (String symbol : symbols) {
+                long started = System.nanoTime();
+                List<BarDaily> fromRows = rowDao.loadRecentBars(symbol, bars);
+                rowMicros[n] = (System.nanoTime() - started) / 1_000L;
+                started = System.nanoTime();
+                BarColumns fromBlob = blobDao.loadRecentColumns(symbol, bars);
+                blobMicros[n] = (System.nanoTime() - started) / 1_000L;
+                n++;
+                if (round == 0 && !fromRows.equals(fromBlob.toBars(symbol))) {
+                    throw new IllegalStateException("price_blob differs from price_daily for " + symbol);
+                }
+            }
+        }
+        Arrays.sort(rowMicros);
+        Arrays.sort(blobMicros);
+
+        long chunks;
+        long payloadBytes;
+        List<byte[]> payloads = new ArrayList<>();
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            try (ResultSet rs = st.executeQuery("SELECT COUNT(*), SUM(octet_length(payload)) FROM price_blob")) {
+                rs.next();
+                chunks = rs.getLong(1);
+                payloadBytes = rs.getLong(2);
+            }
+            try (ResultSet rs = st.executeQuery("SELECT payload FROM price_blob WHERE ticker='" + symbols.get(0) + "'")) {
+                while (rs.next()) {
+                    payloads.add(rs.getBytes(1));
+                }
+            }
+        }
+        double decodeMicros = decodeMicrosPerTicker(payloads, 20_000);
+
+        System.out.println(String.format(
+                Locale.US,
+                "[BENCH] store=price_daily tickers=%d bars=%d rows_per_ticker=%d table_mb=%.1f "
+                        + "read_ms_p50=%.2f read_ms_p95=%.2f read_ms_p99=%.2f",
+                tickers, bars, bars, relationBytes(database, "price_daily") / (1024.0 * 1024.0),
+                percentile(rowMicros, 50.0), percentile(rowMicros, 95.0), percentile(rowMicros, 99.0)
+        ));
+        System.out.println(String.format(
+                Locale.US,
+                "[BENCH] store=price_blob tickers=%d bars=%d rows_per_ticker=%.1f table_mb=%.1f payload_bytes_per_bar=%.2f "
+                        + "read_ms_p50=%.2f read_ms_p95=%.2f read_ms_p99=%.2f decode_us_per_ticker=%.1f pack_ms_per_ticker=%.2f",
+                tickers, bars, chunks / (double) tickers, relationBytes(database, "price_blob") / (1024.0 * 1024.0),
+                payloadBytes / (double) (tickers * (long) bars),
+                percentile(blobMicros, 50.0), percentile(blobMicros, 95.0), percentile(blobMicros, 99.0),
+                decodeMicros, packNanos / 1_000_000.0 / tickers
+        ));
+    }
+
+    private static double decodeMicrosPerTicker(List<byte[]> payloads, int iterations) {
+        int total = 0;
+        for (byte[] payload : payloads) {
+            total += BarBlobCodec.count(payload);
+        }
+        long sink = 0L;
+        long started = 0L;
+        for (int i = -iterations; i < iterations; i++) {
+            if (i == 0) {
+                started = System.nanoTime();
+            }
+            BarColumns out = BarColumns.allocate(total);
+            int filled = 0;
+            for (byte[] payload : payloads) {
+                filled += BarBlobCodec.decodeInto(payload, out, filled);
+            }
+            sink += out.epochDays[filled - 1];
+        }
+        double micros = (System.nanoTime() - started) / 1_000.0 / iterations;
+        return sink == 42L ? micros + 1e-9 : micros;
+    }
+
+    private static double percentile(long[] sortedMicros, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sortedMicros.length);
+        return sortedMicros[Math.max(0, Math.min(sortedMicros.length - 1, rank - 1))] / 1_000.0;
+    }
+
+    private static long relationBytes(Database database, String table) throws SQLException {
+        try (Connection conn = database.connect();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(
+                     "SELECT GREATEST(pg_total_relation_size('" + table + "'), COALESCE((" +
+                             "SELECT SUM(pg_total_relation_size(relid)) FROM pg_partition_tree('" + table + "')), 0))")) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.data.ChartParseBenchmark;
+import com.stockbot.jp.model.BarDaily;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bulk upsert and {@link BarDailyDao#loadRecentBars} (selectRecentBars) against the pre-partitioning price_daily
+ * layout (NUMERIC columns, surrogate id, UNIQUE plus a duplicate DESC index) and the current one from
+ * {@link MigrationRunner#priceDailyStatements()}. Each layout gets its own scratch schema (dropped and recreated:
+ * price_bench_legacy, price_bench_partitioned) in the target database. Run after {@code mvn test-compile}:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test.cp
+ * java -Dbench.db.url=jdbc:postgresql://localhost:5432/stockbot_bench -Dbench.db.user=postgres -Dbench.tickers=1000 \
+ *      -cp target/test-classes:target/classes:$(cat target/test.cp) com.stockbot.jp.db.PriceDailyLayoutBenchmark
+ * </pre>
+ */
+public final class PriceDailyLayoutBenchmark {
+    private static final List<String> LEGACY_DDL = List.of(
+            "CREATE TABLE price_daily (" +
+                    "id BIGSERIAL PRIMARY KEY," +
+                    "ticker TEXT NOT NULL," +
+                    "trade_date DATE NOT NULL," +
+                    "open NUMERIC," +
+                    "high NUMERIC," +
+                    "low NUMERIC," +
+                    "close NUMERIC," +
+                    "volume NUMERIC," +
+                    "source TEXT NULL," +
+                    "created_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+                    "UNIQUE (ticker, trade_date)" +
+                    ")",
+            "CREATE INDEX idx_price_daily_ticker_date ON price_daily(ticker, trade_date DESC)"
+    );
+    static final String FORWARD_RETURNS_DDL = "CREATE TABLE forward_returns (" +
+            "ticker TEXT NOT NULL," +
+            "trade_date DATE NOT NULL," +
+            "close NUMERIC," +
+            "ret_1d DOUBLE PRECISION NULL," +
+            "ret_3d DOUBLE PRECISION NULL," +
+            "ret_5d DOUBLE PRECISION NULL," +
+            "ret_10d DOUBLE PRECISION NULL," +
+            "ret_20d DOUBLE PRECISION NULL," +
+            "updated_at TIMESTAMPTZ NOT NULL DEFAULT now()," +
+            "PRIMARY KEY (ticker, trade_date)" +
+            ")";
+
+    private PriceDailyLayoutBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5432/stockbot_bench");
+        String user = System.getProperty("bench.db.user", "postgres");
+        String password = System.getProperty("bench.db.password", "");
+        int tickers = Integer.getInteger("bench.tickers", 1000);
+        int bars = Integer.getInteger("bench.bars", 520);
+        int rounds = Integer.getInteger("bench.read_rounds", 3);
+
+        List<String> symbols = new ArrayList<>(tickers);
+        List<List<BarDaily>> series = new ArrayList<>(tickers);
+        for (int i = 0; i < tickers; i++) {
+            String ticker = (1300 + i) + ".jp";
+            symbols.add(ticker);
+            series.add(ChartParseBenchmark.barFixture(ticker, bars));
+        }
+
+        List<String> partitioned = new ArrayList<>(MigrationRunner.priceDailyStatements());
+        partitioned.add("CREATE INDEX idx_price_daily_trade_date_brin ON price_daily USING brin (trade_date)");
+        run("legacy", new Database(url, user, password, "price_bench_legacy", false), LEGACY_DDL, symbols, series, bars, rounds);
+        run("partitioned", new Database(url, user, password, "price_bench_partitioned", false), partitioned, symbols, series, bars, rounds);
+    }
+
+    private static void run(
+            String label,
+            Database database,
+            List<String> ddl,
+            List<String> symbols,
+            List<List<BarDaily>> series,
+            int bars,
+            int rounds
+    ) throws SQLException {
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            st.execute("DROP SCHEMA IF EXISTS " + database.schema() + " CASCADE");
+            st.execute("CREATE SCHEMA " + database.schema());
+            st.execute("SET search_path TO " + database.schema() + ", public");
+            for (String sql : ddl) {
+                st.execute(sql);
+            }
+            st.execute(FORWARD_RETURNS_DDL);
+        }
+        BarDailyDao dao = new BarDailyDao(database);
+
+        long upsertStarted = System.nanoTime();
+        long rows = 0L;
+        for (int i = 0; i < symbols.size(); i++) {
+            dao.upsertBars(symbols.get(i), series.get(i), "bench");
+            rows += series.get(i).size();
+        }
+        double upsertSec = (System.nanoTime() - upsertStarted) / 1_000_000_000.0;
+
+        // Second pass rewrites the most recent 10 bars per ticker, like a daily incremental scan.
+        long incrementalStarted = System.nanoTime();
+        for (int i = 0; i < symbols.size(); i++) {
+            List<BarDaily> all = series.get(i);
+            dao.upsertBars(symbols.get(i), all.subList(Math.max(0, all.size() - 10), all.size()), "bench");
+        }
+        double incrementalSec = (System.nanoTime() - incrementalStarted) / 1_000_000_000.0;
+
+        try (Connection conn = database.connect(); Statement st = conn.createStatement()) {
+            st.execute("VACUUM ANALYZE price_daily");
+        }
+
+        long[] readMicros = new long[symbols.size() * rounds];
+        int n = 0;
+        for (int round = 0; round < rounds; round++) {
+            for (String symbol : symbols) {
+                long started = System.nanoTime();
+                List<BarDaily> loaded = dao.loadRecentBars(symbol, bars);
+                readMicros[n++] = (System.nanoTime() - started) / 1_000L;
+                if (loaded.size() != bars) {
+                    throw new IllegalStateException(label + " read " + loaded.size() + " bars for " + symbol);
+                }
+            }
+        }
+        Arrays.sort(readMicros);
+
+        System.out.println(String.format(
+                Locale.US,
+                "[BENCH] layout=%s tickers=%d bars=%d bulk_upsert_s=%.2f bulk_rows_per_sec=%.0f incremental_upsert_s=%.2f "
+                        + "read_ms_p50=%.2f read_ms_p95=%.2f read_ms_p99=%.2f table_mb=%.1f",
+                label,
+                symbols.size(),
+                bars,
+                upsertSec,
+                rows / Math.max(0.001, upsertSec),
+                incrementalSec,
+                percentile(readMicros, 50.0),
+                percentile(readMicros, 95.0),
+                percentile(readMicros, 99.0),
+                tableBytes(database) / (1024.0 * 1024.0)
+        ));
+    }
+
+    private static double percentile(long[] sortedMicros, double p) {
+        int rank = (int) Math.ceil(p / 100.0 * sortedMicros.length);
+        return sortedMicros[Math.max(0, Math.min(sortedMicros.length - 1, rank - 1))] / 1_000.0;
+    }
+
+    private static long tableBytes(Database database) throws SQLException {
+        try (Connection conn = database.connect();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(
+                     "SELECT GREATEST(pg_total_relation_size('price_daily'), COALESCE((" +
+                             "SELECT SUM(pg_total_relation_size(relid)) FROM pg_partition_tree('price_daily')), 0))")) {
+            return rs.next() ? rs.getLong(1) : 0L;
+        }
+    }
+}
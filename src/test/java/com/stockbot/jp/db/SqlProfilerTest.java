@@ -0,0 +1,99 @@
+package com.stockbot.jp.db;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SqlProfilerTest {
+
+    @Test
+    void normalize_shouldReplaceLiteralsAndFoldLists() {
+        assertEquals(
+                "SELECT * FROM price_daily_y2024 WHERE ticker = ? AND trade_date >= ? LIMIT ?",
+                SqlProfiler.normalize("SELECT *\n  FROM price_daily_y2024\n WHERE ticker = '7203.jp'  AND trade_date >= 'it''s' LIMIT 260")
+        );
+        assertEquals(
+                "SELECT id FROM runs WHERE id IN (?, ...) AND score > -?",
+                SqlProfiler.normalize("SELECT id FROM runs WHERE id IN ( 1,2 , 3 ) AND score > -1.5")
+        );
+        assertEquals(
+                SqlProfiler.normalize("INSERT INTO t (a, b) VALUES (?, ?)"),
+                SqlProfiler.normalize("INSERT INTO t (a, b) VALUES (?, ?), (?, ?), (?,?)")
+        );
+        assertEquals("SELECT \"Col1\" FROM t1", SqlProfiler.normalize("SELECT \"Col1\" FROM t1"));
+    }
+
+    @Test
+    void stop_shouldAggregateShapesAndEstimatePercentiles() {
+        SqlProfiler profiler = new SqlProfiler();
+        SqlProfiler.Recording recording = profiler.start();
+        String select = profiler.shapeOf("SELECT close FROM price_daily WHERE ticker = '1301.jp'");
+        assertEquals(select, profiler.shapeOf("SELECT close FROM price_daily WHERE ticker = '7203.jp'"));
+        for (int i = 0; i < 99; i++) {
+            profiler.record(select, 200_000L, 1, false);
+        }
+        profiler.record(select, 30_000_000L, 1, true);
+        String insert = profiler.shapeOf("INSERT INTO scan_results (ticker) VALUES (?)");
+        profiler.record(insert, 80_000_000L, 2000, false);
+
+        List<SqlProfiler.ShapeStat> stats = recording.stop();
+
+        assertEquals(2, stats.size());
+        assertEquals(insert, stats.get(0).shape);
+        SqlProfiler.ShapeStat s = stats.get(1);
+        assertEquals(100L, s.calls);
+        assertEquals(1L, s.failures);
+        assertEquals(0.25, s.percentileMs(0.50), 1e-9);
+        assertEquals(0.25, s.percentileMs(0.95), 1e-9);
+        assertEquals(30.0, s.percentileMs(1.0), 1e-9);
+        assertTrue(recording.stop().isEmpty());
+    }
+
+    @Test
+    void record_shouldFeedEveryOpenRecordingIndependently() {
+        SqlProfiler profiler = new SqlProfiler();
+        profiler.record("SELECT 1", 1_000L, 1, false);
+        SqlProfiler.Recording first = profiler.start();
+        profiler.record("SELECT 1", 1_000L, 1, false);
+        SqlProfiler.Recording second = profiler.start();
+        profiler.record("SELECT 1", 1_000L, 1, false);
+
+        List<SqlProfiler.ShapeStat> firstStats = first.stop();
+        profiler.record("SELECT 1", 1_000L, 1, false);
+        List<SqlProfiler.ShapeStat> secondStats = second.stop();
+
+        assertEquals(2L, firstStats.get(0).calls);
+        assertEquals(2L, secondStats.get(0).calls);
+        second.close();
+        assertTrue(second.stop().isEmpty());
+    }
+
+    @Test
+    void nPlusOne_shouldFlagRepeatedUnbatchedShapesOnly() {
+        SqlProfiler profiler = new SqlProfiler();
+        SqlProfiler.Recording recording = profiler.start();
+        for (int i = 0; i < 3000; i++) {
+            profiler.record("SELECT * FROM price_daily WHERE ticker = ? ORDER BY trade_date DESC LIMIT ?", 50_000L, 1, false);
+        }
+        for (int i = 0; i < 3000; i++) {
+            profiler.record("INSERT INTO price_daily VALUES (?)", 50_000L, 500, false);
+        }
+
+        List<SqlProfiler.ShapeStat> stats = recording.stop();
+        SqlProfiler.ShapeStat batched = stats.get(0).shape.startsWith("INSERT") ? stats.get(0) : stats.get(1);
+        SqlProfiler.ShapeStat lookup = stats.get(0) == batched ? stats.get(1) : stats.get(0);
+
+        assertTrue(lookup.nPlusOne(1000));
+        assertFalse(lookup.nPlusOne(5000));
+        assertFalse(lookup.nPlusOne(0));
+        assertFalse(batched.nPlusOne(1000));
+        List<String> table = SqlProfiler.toTable(stats, 1000);
+        assertEquals(3, table.size());
+        assertTrue(table.get(0).contains("p95_ms"));
+        assertTrue(table.stream().anyMatch(line -> line.contains(" N+1  SELECT * FROM price_daily")));
+    }
+}
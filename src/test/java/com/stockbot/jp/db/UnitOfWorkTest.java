@@ -0,0 +1,118 @@
+package com.stockbot.jp.db;
+
+import com.stockbot.jp.db.mybatis.MetadataMapper;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class UnitOfWorkTest {
+
+    private final Database database = new Database("jdbc:postgresql://127.0.0.1:1/none", "u", "p", "stockbot", false);
+
+    @Test
+    void openUnitOfWork_shouldJoinOnSameThreadUntilOutermostClose() throws Exception {
+        UnitOfWork outer = database.openUnitOfWork();
+        UnitOfWork inner = database.openUnitOfWork();
+        assertSame(outer, inner);
+        inner.close();
+        assertSame(outer, database.openUnitOfWork());
+        outer.close();
+        outer.close();
+
+        UnitOfWork next = database.openUnitOfWork();
+        assertNotSame(outer, next);
+        UnitOfWork[] other = new UnitOfWork[1];
+        Thread thread = new Thread(() -> {
+            try (UnitOfWork unit = database.openUnitOfWork()) {
+                other[0] = unit;
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotSame(next, other[0]);
+        next.close();
+    }
+
+    @Test
+    void call_shouldReuseSessionClearItsCacheAndCommitOnTheConnection() throws Exception {
+        List<String> calls = new ArrayList<>();
+        int[] connects = new int[1];
+        UnitOfWork unit = new UnitOfWork(
+                database,
+                () -> {
+                    connects[0]++;
+                    return stub(Connection.class, "conn", calls);
+                },
+                conn -> stub(SqlSession.class, "session", calls)
+        );
+
+        assertEquals("a", unit.call(MetadataMapper.class, mapper -> "a", false));
+        assertEquals("b", unit.call(MetadataMapper.class, mapper -> "b", true));
+        unit.close();
+
+        assertEquals(1, connects[0]);
+        assertEquals(List.of(
+                "session.getMapper", "session.clearCache",
+                "conn.setAutoCommit(false)", "session.getMapper", "conn.commit", "conn.setAutoCommit(true)", "session.clearCache",
+                "session.close"
+        ), calls);
+    }
+
+    @Test
+    void call_shouldDropConnectionAfterFailureAndReconnectOnNextCall() throws Exception {
+        List<String> calls = new ArrayList<>();
+        int[] connects = new int[1];
+        UnitOfWork unit = new UnitOfWork(
+                database,
+                () -> {
+                    connects[0]++;
+                    return stub(Connection.class, "conn", calls);
+                },
+                conn -> stub(SqlSession.class, "session", calls)
+        );
+
+        assertThrows(SQLException.class, () -> unit.call(MetadataMapper.class, mapper -> {
+            throw new SQLException("broken pipe");
+        }, true));
+        assertEquals(List.of("conn.setAutoCommit(false)", "session.getMapper", "session.close"), calls);
+
+        calls.clear();
+        assertEquals("ok", unit.call(MetadataMapper.class, mapper -> "ok", false));
+        assertEquals(2, connects[0]);
+        assertEquals(List.of("session.getMapper", "session.clearCache"), calls);
+        unit.close();
+    }
+
+    @Test
+    void call_shouldPropagateConnectFailureAndStayUsable() {
+        try (UnitOfWork ignored = database.openUnitOfWork()) {
+            assertThrows(SQLException.class, () -> database.withMapper(MetadataMapper.class, mapper -> "unused"));
+            assertThrows(SQLException.class, () -> database.inTransaction(MetadataMapper.class, mapper -> "unused"));
+        }
+    }
+
+    /**
+     * Records every call as {@code name.method} (with a boolean argument in parentheses) and returns null/false.
+     */
+    private static <T> T stub(Class<T> type, String name, List<String> calls) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, (proxy, method, args) -> {
+            String call = name + "." + method.getName();
+            if (args != null && args.length == 1 && args[0] instanceof Boolean) {
+                call += "(" + args[0] + ")";
+            }
+            calls.add(call);
+            Class<?> returns = method.getReturnType();
+            return returns == boolean.class ? Boolean.FALSE : returns == int.class ? 0 : null;
+        }));
+    }
+}
@@ -0,0 +1,71 @@
+package com.stockbot.jp.model;
+
+import com.stockbot.data.ChartParseBenchmark;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TickerLatestTest {
+
+    @Test
+    void fromBars_shouldSummarizeNewestTwentyBars() {
+        List<BarDaily> bars = new ArrayList<>(ChartParseBenchmark.barFixture("7203.T", 60));
+        int n = bars.size();
+        bars.set(n - 1, flat(bars.get(n - 1), 0.0));
+        bars.set(n - 2, flat(bars.get(n - 2), 1200.0));
+        bars.set(n - 4, flat(bars.get(n - 4), 0.0));
+        bars.set(n - 25, flat(bars.get(n - 25), 0.0));
+
+        TickerLatest summary = TickerLatest.fromBars("7203.T", bars);
+
+        double sumVol = 0.0;
+        for (BarDaily bar : bars.subList(n - 20, n)) {
+            sumVol += bar.volume;
+        }
+        assertEquals(bars.get(n - 1).tradeDate, summary.lastTradeDate);
+        assertEquals(n, summary.barCount);
+        assertEquals(bars.get(n - 1).close, summary.lastClose);
+        assertEquals(sumVol / 20.0, summary.avgVolume20, 1e-6);
+        assertEquals(0b1001, summary.zeroVolumeMask20);
+        assertEquals(0b1011, summary.flatMask20);
+        assertEquals(2, summary.zeroVolumeDays20());
+        assertEquals(2, summary.flatDays(2));
+        assertEquals(3, summary.flatDays(5));
+        assertEquals(3, summary.flatDays(400));
+        assertEquals(2, summary.flatStreak());
+        assertTrue(summary.hasShape);
+    }
+
+    @Test
+    void fromBars_shouldHandleShortAndShapelessHistory() {
+        LocalDate day = LocalDate.of(2025, 3, 3);
+        List<BarDaily> bars = List.of(
+                new BarDaily("X", day, 500.0, 500.0, 500.0, 500.0, 0.0),
+                new BarDaily("X", day.plusDays(1), 500.0, 500.0, 500.0, 500.0, Double.NaN),
+                new BarDaily("X", day.plusDays(2), 500.0, 500.0, 500.0, 500.0, -5.0)
+        );
+
+        TickerLatest summary = TickerLatest.fromBars("X", bars);
+
+        assertEquals(3, summary.barCount);
+        assertEquals(0.0, summary.avgVolume20);
+        assertEquals(0b111, summary.zeroVolumeMask20);
+        assertEquals(3, summary.flatStreak());
+        assertFalse(summary.hasShape);
+
+        TickerLatest empty = TickerLatest.fromBars("X", List.of());
+        assertEquals(0, empty.barCount);
+        assertEquals(0, empty.flatStreak());
+        assertFalse(empty.hasShape);
+    }
+
+    private static BarDaily flat(BarDaily bar, double volume) {
+        return bar.toBuilder().open(bar.close).high(bar.close).low(bar.close).volume(volume).build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.stockbot.jp.news;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * news_item stand-in for load tests: keeps rows in memory and answers searchSimilar with an exact cosine scan.
+ */
+final class InMemoryNewsItemDao extends NewsItemDao {
+    private final List<NewsItemRecord> rows = new CopyOnWriteArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    InMemoryNewsItemDao() {
+        super(null);
+    }
+
+    void add(String url, String title, String content, String lang, String region, OffsetDateTime publishedAt) {
+        rows.add(NewsItemRecord.builder()
+                .id(ids.incrementAndGet())
+                .url(url)
+                .title(title)
+                .content(content)
+                .source("standin")
+                .lang(lang)
+                .region(region)
+                .publishedAt(publishedAt)
+                .build());
+    }
+
+    int size() {
+        return rows.size();
+    }
+
+    @Override
+    public UpsertStats upsertAll(List<UpsertItem> items) {
+        int inserted = 0;
+        for (UpsertItem item : items) {
+            add(item.getUrl(), item.getTitle(), item.getContent(), item.getLang(), item.getRegion(), item.getPublishedAt());
+            inserted++;
+        }
+        return new UpsertStats(inserted, 0, 0);
+    }
+
+    @Override
+    public List<NewsItemRecord> listWithoutEmbedding(int limit) {
+        List<NewsItemRecord> out = new ArrayList<>();
+        for (NewsItemRecord row : rows) {
+            if (row.getEmbedding().length == 0) {
+                out.add(row);
+                if (out.size() >= limit) {
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public long countWithoutEmbedding() {
+        return rows.stream().filter(row -> row.getEmbedding().length == 0).count();
+    }
+
+    @Override
+    public synchronized void updateEmbedding(long id, float[] embedding) {
+        for (int i = 0; i < rows.size(); i++) {
+            NewsItemRecord row = rows.get(i);
+            if (row.getId() == id) {
+                rows.set(i, row.toBuilder().embedding(embedding.clone()).build());
+                return;
+            }
+        }
+    }
+
+    @Override
+    public List<NewsItemRecord> searchSimilar(float[] queryEmbedding, SearchOptions options) {
+        OffsetDateTime cutoff = OffsetDateTime.now().minusDays(Math.max(1, options.getLookbackDays()));
+        List<NewsItemRecord> out = new ArrayList<>();
+        for (NewsItemRecord row : rows) {
+            if (row.getEmbedding().length == 0 || (row.getPublishedAt() != null && row.getPublishedAt().isBefore(cutoff))) {
+                continue;
+            }
+            if (!options.getLang().isEmpty() && !options.getLang().equalsIgnoreCase(row.getLang())) {
+                continue;
+            }
+            out.add(row.toBuilder().similarity(cosine(queryEmbedding, row.getEmbedding())).build());
+        }
+        out.sort(Comparator.comparingDouble(NewsItemRecord::getSimilarity).reversed());
+        return out.size() > options.getTopK() ? new ArrayList<>(out.subList(0, options.getTopK())) : out;
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        int n = Math.min(a.length, b.length);
+        double dot = 0.0;
+        double na = 0.0;
+        double nb = 0.0;
+        for (int i = 0; i < n; i++) {
+            dot += a[i] * b[i];
+            na += a[i] * a[i];
+            nb += b[i] * b[i];
+        }
+        return na == 0.0 || nb == 0.0 ? 0.0 : dot / Math.sqrt(na * nb);
+    }
+}
@@ -0,0 +1,118 @@
+package com.stockbot.jp.news;
+
+import com.stockbot.data.OllamaClient;
+import com.stockbot.data.http.HttpClientEx;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LangChainSummaryServiceStreamingTest {
+
+    @Test
+    void streamShouldStopOnceEnoughSectionsAreClosed() {
+        StreamingHttpClient http = new StreamingHttpClient(
+                "<p>", "要点：订单与需求同步改善。", "</p>", "<ul><li>", "北美订单显著增长，利润率持续提升。", "</li></ul>",
+                "<p>", "风险提示：汇率波动。", "</p>", "<p>", "多余的段落不应被读取。", "</p>"
+        );
+        LangChainSummaryService service = new LangChainSummaryService(
+                new OllamaClient(http, "http://ollama.test", "m", 30, 0, 0.2),
+                3,
+                60_000L
+        );
+
+        String html = service.summarize(
+                "8035.T",
+                "东京电子",
+                List.of(new LangChainSummaryService.ClusterInput("订单", List.of("北美订单增长")))
+        );
+
+        assertTrue(html.endsWith("风险提示：汇率波动。</p>"));
+        assertFalse(html.contains("多余的段落"));
+        assertEquals(9, http.linesRead);
+        assertTrue(http.lastRequest.getBoolean("stream"));
+        assertEquals(0.2, http.lastRequest.getJSONObject("options").getDouble("temperature"), 1e-9);
+        assertTrue(service.streamStatsNote().startsWith("stream_calls=1 early_stops=1 deadline_stops=0 stream_errors=0 tokens=9"));
+    }
+
+    @Test
+    void streamErrorWithoutCompleteSectionShouldFallBack() {
+        StreamingHttpClient http = new StreamingHttpClient();
+        http.fail = true;
+        LangChainSummaryService service = new LangChainSummaryService(
+                new OllamaClient(http, "http://ollama.test", "m", 30, 0),
+                3,
+                60_000L
+        );
+
+        String html = service.summarize(
+                "6758.T",
+                "索尼集团",
+                List.of(new LangChainSummaryService.ClusterInput("盈利", List.of("盈利预期上修")))
+        );
+
+        assertTrue(html.contains("新闻事件聚类要点"));
+        assertFalse(http.lastRequest.has("options"));
+        assertTrue(service.streamStatsNote().contains("stream_errors=1"));
+    }
+
+    @Test
+    void sectionCounterShouldHandleTagsSplitAcrossChunks() {
+        HtmlSectionCounter counter = new HtmlSectionCounter();
+
+        assertEquals(0, counter.append("<p>一"));
+        assertEquals(0, counter.append("</"));
+        assertEquals(1, counter.append("p><ul><li>a</li>"));
+        assertEquals(1, counter.append("<li>b</li></u"));
+        assertEquals(2, counter.append("l><p class=\"x\">tail"));
+        assertEquals("<p>一</p><ul><li>a</li><li>b</li></ul>", counter.completedText());
+    }
+
+    private static final class StreamingHttpClient extends HttpClientEx {
+        private final String[] pieces;
+        private boolean fail;
+        private int linesRead;
+        private JSONObject lastRequest;
+
+        private StreamingHttpClient(String... pieces) {
+            this.pieces = pieces;
+        }
+
+        @Override
+        public <T> T postJsonStream(String url, String json, int timeoutSeconds, BodyReader<T> reader) throws Exception {
+            lastRequest = new JSONObject(json);
+            if (fail) {
+                throw new RuntimeException("HTTP 500 for " + url);
+            }
+            StringBuilder ndjson = new StringBuilder();
+            for (String piece : pieces) {
+                ndjson.append(new JSONObject().put("response", piece).put("done", false)).append('\n');
+            }
+            ndjson.append(new JSONObject().put("response", "").put("done", true).put("eval_count", pieces.length)).append('\n');
+            byte[] bytes = ndjson.toString().getBytes(StandardCharsets.UTF_8);
+            InputStream body = new ByteArrayInputStream(bytes) {
+                @Override
+                public synchronized int read(byte[] b, int off, int len) {
+                    int n = super.read(b, off, Math.min(len, 1));
+                    if (n > 0 && b[off] == '\n') {
+                        linesRead++;
+                    }
+                    return n;
+                }
+
+                @Override
+                public synchronized int available() {
+                    return 0;
+                }
+            };
+            return reader.read(body);
+        }
+    }
+}
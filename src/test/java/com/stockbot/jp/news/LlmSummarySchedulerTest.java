@@ -0,0 +1,82 @@
+package com.stockbot.jp.news;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LlmSummarySchedulerTest {
+
+    @Test
+    void queuedJobsShouldRunHighestPriorityFirst() throws Exception {
+        LlmSummaryScheduler scheduler = new LlmSummaryScheduler(1, 60);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<String> blocker = scheduler.submit(0.0, () -> {
+            await(release);
+            return "blocker";
+        }, () -> "fallback");
+        CompletableFuture<String> low = scheduler.submit(1.0, () -> record(order, "low"), () -> "fallback");
+        CompletableFuture<String> high = scheduler.submit(9.0, () -> record(order, "high"), () -> "fallback");
+        CompletableFuture<String> mid = scheduler.submit(5.0, () -> record(order, "mid"), () -> "fallback");
+        release.countDown();
+
+        assertEquals("blocker", scheduler.await(blocker, () -> "fallback"));
+        assertEquals("low", scheduler.await(low, () -> "fallback"));
+        assertEquals("high", high.get(5, TimeUnit.SECONDS));
+        assertEquals("mid", mid.get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("high", "mid", "low"), order);
+        assertTrue(scheduler.statsNote().startsWith("llm_jobs=4 generated=4 failed=0 budget_fallbacks=0 parallelism=1"));
+    }
+
+    @Test
+    void exhaustedBudgetShouldResolveToFallback() throws Exception {
+        LlmSummaryScheduler scheduler = new LlmSummaryScheduler(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> slow = scheduler.submit(1.0, () -> {
+            await(release);
+            return "late";
+        }, () -> "fallback-slow");
+        CompletableFuture<String> queued = scheduler.submit(0.0, () -> "never", () -> "fallback-queued");
+
+        assertEquals("fallback-slow", scheduler.await(slow, () -> "fallback-slow"));
+        release.countDown();
+        assertEquals("fallback-queued", queued.get(5, TimeUnit.SECONDS));
+        assertEquals("fallback-slow", slow.get());
+        assertTrue(scheduler.statsNote().contains("budget_fallbacks=2"));
+        assertTrue(scheduler.statsNote().contains("failed=0"));
+    }
+
+    @Test
+    void failingJobShouldUseFallback() {
+        LlmSummaryScheduler scheduler = new LlmSummaryScheduler(2, 60);
+
+        CompletableFuture<String> job = scheduler.submit(1.0, () -> {
+            throw new IllegalStateException("model down");
+        }, () -> "outline");
+
+        assertEquals("outline", scheduler.await(job, () -> "other"));
+        assertTrue(scheduler.statsNote().contains("failed=1"));
+    }
+
+    private static String record(List<String> order, String name) {
+        order.add(name);
+        return name;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.stockbot.jp.news;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dedup and clustering of one ticker's retrieved news, as done by {@link WatchlistNewsPipeline}, on
+ * embedding-sized vectors grouped around a few topics. 60 items takes the exact path, 600 the LSH path.
+ * Run with {@code mvn -Pbench test -Dbench.include=NewsClusterBenchmark}, or directly after
+ * {@code mvn test-compile}:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test.cp
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) com.stockbot.jp.news.NewsClusterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NewsClusterBenchmark {
+    @Param({"1536"})
+    public int dimension;
+
+    @Param({"60", "600"})
+    public int items;
+
+    private final NewsClusterEngine engine = new NewsClusterEngine();
+    private List<NewsItemDao.NewsItemRecord> records;
+
+    @Setup(Level.Trial)
+    public void load() {
+        SplittableRandom random = new SplittableRandom(42L);
+        int topics = Math.max(2, items / 12);
+        List<float[]> centers = new ArrayList<>(topics);
+        for (int t = 0; t < topics; t++) {
+            float[] center = new float[dimension];
+            for (int i = 0; i < dimension; i++) {
+                center[i] = (float) random.nextGaussian();
+            }
+            centers.add(center);
+        }
+        OffsetDateTime base = OffsetDateTime.of(2026, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        records = new ArrayList<>(items);
+        for (int n = 0; n < items; n++) {
+            float[] center = centers.get(n % topics);
+            float[] v = new float[dimension];
+            double noise = n % 5 == 0 ? 0.05 : 0.4;
+            for (int i = 0; i < dimension; i++) {
+                v[i] = (float) (center[i] + noise * random.nextGaussian());
+            }
+            records.add(NewsItemDao.NewsItemRecord.builder()
+                    .id(n + 1L)
+                    .url("https://news.example.com/" + n)
+                    .title("topic-" + (n % topics) + "-" + n)
+                    .publishedAt(base.plusMinutes(n))
+                    .embedding(v)
+                    .similarity(1.0 - 0.0001 * n)
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public List<NewsItemDao.NewsItemRecord> deduplicate() {
+        return engine.deduplicate(records, 0.97, (a, b) -> a.getSimilarity() > b.getSimilarity());
+    }
+
+    @Benchmark
+    public List<WatchlistNewsPipeline.NewsCluster> cluster() {
+        return engine.cluster(records, 0.90);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(NewsClusterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
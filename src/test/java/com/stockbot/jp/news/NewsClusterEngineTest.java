@@ -0,0 +1,150 @@
+package com.stockbot.jp.news;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NewsClusterEngineTest {
+
+    @Test
+    void exactAndLshPathsShouldMatchBruteForceDedup() {
+        List<NewsItemDao.NewsItemRecord> items = fixture(40, 12, 64, 0.05, 7L);
+
+        List<Long> expected = ids(bruteForceDedup(items, 0.97));
+        List<Long> exact = ids(new NewsClusterEngine(Integer.MAX_VALUE).deduplicate(items, 0.97, (a, b) -> a.getId() > b.getId()));
+        List<Long> lsh = ids(new NewsClusterEngine(0).deduplicate(items, 0.97, (a, b) -> a.getId() > b.getId()));
+
+        assertEquals(expected, exact);
+        assertEquals(expected, lsh);
+        assertTrue(expected.size() < items.size());
+    }
+
+    @Test
+    void exactAndLshPathsShouldMatchBruteForceClusters() {
+        List<NewsItemDao.NewsItemRecord> items = fixture(30, 10, 64, 0.18, 11L);
+
+        List<List<Long>> expected = bruteForceCluster(items, 0.90);
+        List<List<Long>> exact = clusterIds(new NewsClusterEngine(Integer.MAX_VALUE).cluster(items, 0.90));
+        List<List<Long>> lsh = clusterIds(new NewsClusterEngine(0).cluster(items, 0.90));
+
+        assertEquals(expected, exact);
+        assertEquals(expected, lsh);
+        assertTrue(expected.size() < items.size());
+    }
+
+    @Test
+    void dotShouldHandleTailAndMissingVectors() {
+        float[] a = NewsClusterEngine.normalize(new float[]{1f, 2f, 3f, 4f, 5f});
+        assertEquals(1.0, NewsClusterEngine.dot(a, a), 1e-6);
+        assertEquals(0.0, NewsClusterEngine.dot(a, null), 0.0);
+        assertEquals(null, NewsClusterEngine.normalize(new float[]{0f, 0f}));
+    }
+
+    private static List<NewsItemDao.NewsItemRecord> fixture(int perTopic, int topics, int dim, double noise, long seed) {
+        Random random = new Random(seed);
+        List<float[]> centers = new ArrayList<>();
+        for (int t = 0; t < topics; t++) {
+            float[] center = new float[dim];
+            for (int i = 0; i < dim; i++) {
+                center[i] = (float) random.nextGaussian();
+            }
+            centers.add(center);
+        }
+        OffsetDateTime base = OffsetDateTime.of(2026, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        List<NewsItemDao.NewsItemRecord> out = new ArrayList<>();
+        long id = 1L;
+        for (int n = 0; n < perTopic; n++) {
+            for (int t = 0; t < topics; t++) {
+                float[] center = centers.get(t);
+                float[] v = new float[dim];
+                for (int i = 0; i < dim; i++) {
+                    v[i] = (float) (center[i] + noise * random.nextGaussian());
+                }
+                out.add(NewsItemDao.NewsItemRecord.builder()
+                        .id(id)
+                        .title("topic-" + t + "-" + n)
+                        .publishedAt(base.plusMinutes(id))
+                        .embedding(v)
+                        .similarity(1.0 - 0.001 * id)
+                        .build());
+                id++;
+            }
+        }
+        return out;
+    }
+
+    private static List<NewsItemDao.NewsItemRecord> bruteForceDedup(List<NewsItemDao.NewsItemRecord> items, double threshold) {
+        List<NewsItemDao.NewsItemRecord> kept = new ArrayList<>();
+        for (NewsItemDao.NewsItemRecord item : items) {
+            int duplicateIdx = -1;
+            for (int i = 0; i < kept.size(); i++) {
+                if (cosine(item.getEmbedding(), kept.get(i).getEmbedding()) >= threshold) {
+                    duplicateIdx = i;
+                    break;
+                }
+            }
+            if (duplicateIdx < 0) {
+                kept.add(item);
+            } else if (item.getId() > kept.get(duplicateIdx).getId()) {
+                kept.set(duplicateIdx, item);
+            }
+        }
+        return kept;
+    }
+
+    private static List<List<Long>> bruteForceCluster(List<NewsItemDao.NewsItemRecord> items, double threshold) {
+        List<WatchlistNewsPipeline.NewsCluster> clusters = new ArrayList<>();
+        for (NewsItemDao.NewsItemRecord item : items) {
+            int best = -1;
+            double bestSim = -1.0;
+            for (int i = 0; i < clusters.size(); i++) {
+                double sim = cosine(item.getEmbedding(), clusters.get(i).centroid);
+                if (sim >= threshold && sim > bestSim) {
+                    best = i;
+                    bestSim = sim;
+                }
+            }
+            if (best < 0) {
+                clusters.add(WatchlistNewsPipeline.NewsCluster.from(item));
+            } else {
+                clusters.get(best).add(item);
+            }
+        }
+        return clusterIds(clusters);
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0.0;
+        double na = 0.0;
+        double nb = 0.0;
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            dot += (double) a[i] * b[i];
+            na += (double) a[i] * a[i];
+            nb += (double) b[i] * b[i];
+        }
+        return na <= 0.0 || nb <= 0.0 ? 0.0 : dot / Math.sqrt(na * nb);
+    }
+
+    private static List<Long> ids(List<NewsItemDao.NewsItemRecord> items) {
+        List<Long> out = new ArrayList<>();
+        for (NewsItemDao.NewsItemRecord item : items) {
+            out.add(item.getId());
+        }
+        return out;
+    }
+
+    private static List<List<Long>> clusterIds(List<WatchlistNewsPipeline.NewsCluster> clusters) {
+        List<List<Long>> out = new ArrayList<>();
+        for (WatchlistNewsPipeline.NewsCluster cluster : clusters) {
+            out.add(ids(cluster.items));
+        }
+        return out;
+    }
+}
@@ -0,0 +1,128 @@
+package com.stockbot.jp.news;
+
+import com.stockbot.data.http.HttpClientEx;
+import com.stockbot.model.NewsItem;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NewsFetchPlannerTest {
+
+    @Test
+    void identicalFeedsShouldBeFetchedOncePerRun() throws Exception {
+        CountingHttpClient http = new CountingHttpClient();
+        NewsFetchPlanner planner = new NewsFetchPlanner(http, 4, 2, 900);
+        planner.beginRun();
+
+        planner.prefetch("https://news.example.com/rss?q=chip", 8, 5);
+        List<NewsItem> first = planner.fetch("https://news.example.com/rss?q=chip", 8, 5).get();
+        List<NewsItem> second = planner.fetch("https://news.example.com/rss?q=chip", 8, 5).get();
+        planner.fetch("https://news.example.com/rss?q=auto", 8, 5).get();
+
+        assertEquals(1, first.size());
+        assertEquals(first, second);
+        assertEquals(2, http.calls.get());
+        assertEquals(3L, planner.requestedCount());
+        assertEquals(2L, planner.uniqueCount());
+        assertEquals("feeds_requested=3 feeds_unique=2 feeds_shared=1", planner.statsNote());
+
+        planner.beginRun();
+        planner.fetch("https://news.example.com/rss?q=chip", 8, 5).get();
+        assertEquals(3, http.calls.get());
+    }
+
+    @Test
+    void pollShouldReuseValidatorsAcrossRuns() throws Exception {
+        CountingHttpClient http = new CountingHttpClient();
+        NewsFetchPlanner planner = new NewsFetchPlanner(http, 2, 1, 900);
+
+        NewsFetchPlanner.FeedPoll first = planner.poll("https://news.example.com/rss?q=chip", 8, 5).get();
+        planner.beginRun();
+        NewsFetchPlanner.FeedPoll second = planner.poll("https://news.example.com/rss?q=chip", 8, 5).get();
+
+        assertFalse(first.notModified);
+        assertEquals(1, first.items.size());
+        assertTrue(second.notModified);
+        assertTrue(second.items.isEmpty());
+        assertEquals("\"v1\"", http.lastEtag);
+    }
+
+    @Test
+    void busyHostShouldNotHoldWorkersFromOtherHosts() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger slowRunning = new AtomicInteger();
+        AtomicInteger slowPeak = new AtomicInteger();
+        CountingHttpClient http = new CountingHttpClient() {
+            @Override
+            public String getText(String url, int timeoutSeconds, Map<String, String> headers) {
+                if (url.contains("slow.example.com")) {
+                    slowPeak.accumulateAndGet(slowRunning.incrementAndGet(), Math::max);
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        slowRunning.decrementAndGet();
+                    }
+                }
+                return super.getText(url, timeoutSeconds, headers);
+            }
+        };
+        NewsFetchPlanner planner = new NewsFetchPlanner(http, 2, 1, 900);
+        planner.beginRun();
+
+        List<CompletableFuture<List<NewsItem>>> slow = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            slow.add(planner.fetch("https://slow.example.com/rss?q=" + i, 8, 5));
+        }
+        List<NewsItem> fast = planner.fetch("https://news.example.com/rss?q=chip", 8, 5).get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, fast.size());
+        assertFalse(slow.get(2).isDone());
+        release.countDown();
+        for (CompletableFuture<List<NewsItem>> future : slow) {
+            assertEquals(1, future.get(5, TimeUnit.SECONDS).size());
+        }
+        assertEquals(1, slowPeak.get());
+    }
+
+    private static class CountingHttpClient extends HttpClientEx {
+        private volatile String lastEtag;
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public <T> T getStream(String url, int timeoutSeconds, Map<String, String> headers, BodyReader<T> reader) throws Exception {
+            return reader.read(new ByteArrayInputStream(getText(url, timeoutSeconds, headers).getBytes(StandardCharsets.UTF_8)));
+        }
+
+        @Override
+        public String getText(String url, int timeoutSeconds, Map<String, String> headers) {
+            calls.incrementAndGet();
+            return "<rss><channel><item><title>Chip demand</title>"
+                    + "<link>https://news.example.com/a</link>"
+                    + "<pubDate>Mon, 02 Feb 2026 09:00:00 GMT</pubDate></item></channel></rss>";
+        }
+
+        @Override
+        public ConditionalResponse getConditional(String url, int timeoutSeconds, String etag, String lastModified) {
+            lastEtag = etag;
+            if ("\"v1\"".equals(etag)) {
+                return new ConditionalResponse(true, "", etag, lastModified);
+            }
+            return new ConditionalResponse(false, getText(url, timeoutSeconds, Map.of()), "\"v1\"", null);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.stockbot.jp.news;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NewsFingerprintCacheTest {
+
+    @Test
+    void fingerprintShouldIgnoreCaseAndWhitespaceButNotContent() {
+        OffsetDateTime published = OffsetDateTime.of(2026, 2, 2, 9, 0, 0, 0, ZoneOffset.UTC);
+        long base = NewsFingerprintCache.fingerprint("Chip Demand  Rises", "Body", published, "rss", "ja", "JP");
+
+        assertEquals(base, NewsFingerprintCache.fingerprint(" chip demand　rises ", "body", published, "rss", "ja", "JP"));
+        assertEquals(base, NewsFingerprintCache.fingerprint("Chip Demand Rises", "Body", published.withOffsetSameInstant(ZoneOffset.ofHours(9)), "rss", "ja", "JP"));
+        assertNotEquals(base, NewsFingerprintCache.fingerprint("Chip Demand Rises", "Body updated", published, "rss", "ja", "JP"));
+        assertNotEquals(base, NewsFingerprintCache.fingerprint("Chip Demand Rises", "Body", null, "rss", "ja", "JP"));
+    }
+
+    @Test
+    void fingerprintShouldChangeWithSourceLangAndRegion() {
+        long base = NewsFingerprintCache.fingerprint("t", "c", null, "rss", "ja", "JP");
+
+        assertNotEquals(base, NewsFingerprintCache.fingerprint("t", "c", null, "nikkei", "ja", "JP"));
+        assertNotEquals(base, NewsFingerprintCache.fingerprint("t", "c", null, "rss", "en", "JP"));
+        assertNotEquals(base, NewsFingerprintCache.fingerprint("t", "c", null, "rss", "ja", "US"));
+        assertNotEquals(base, NewsFingerprintCache.fingerprint("t", "c", null, "rss", "ja", null));
+        assertNotEquals(
+                NewsFingerprintCache.fingerprint("t", "c", null, "rss", "", "ja"),
+                NewsFingerprintCache.fingerprint("t", "c", null, "rss", "ja", "")
+        );
+    }
+
+    @Test
+    void setShouldGrowAndResetAtCapacity() {
+        NewsFingerprintCache cache = new NewsFingerprintCache(1_000);
+        long fp = NewsFingerprintCache.fingerprint("t", "c", null, "rss", "ja", "JP");
+        for (int i = 0; i < 999; i++) {
+            cache.add(NewsFingerprintCache.key("https://a.example.com/" + i, fp));
+        }
+
+        assertEquals(999, cache.size());
+        assertTrue(cache.contains(NewsFingerprintCache.key("https://a.example.com/500", fp)));
+        assertFalse(cache.contains(NewsFingerprintCache.key("https://a.example.com/500", fp + 1)));
+        assertFalse(cache.contains(NewsFingerprintCache.key("https://b.example.com/500", fp)));
+
+        cache.add(NewsFingerprintCache.key("https://a.example.com/999", fp));
+        cache.add(NewsFingerprintCache.key("https://a.example.com/1000", fp));
+        assertEquals(1, cache.size());
+        assertFalse(cache.contains(NewsFingerprintCache.key("https://a.example.com/500", fp)));
+    }
+}
@@ -0,0 +1,103 @@
+package com.stockbot.jp.news;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NewsSummaryMemoDaoTest {
+
+    @BeforeEach
+    void clear() {
+        NewsSummaryMemoDao.clearLru();
+    }
+
+    @Test
+    void inputHashShouldChangeWhenClusterGainsAMember() {
+        List<LangChainSummaryService.ClusterInput> before = List.of(new LangChainSummaryService.ClusterInput(
+                "Chip demand rises",
+                List.of("Chip demand rises"),
+                List.of("https://a.example.com/1", "https://b.example.com/2")
+        ));
+        List<LangChainSummaryService.ClusterInput> reordered = List.of(new LangChainSummaryService.ClusterInput(
+                "Chip demand rises",
+                List.of("Chip demand rises"),
+                List.of("https://b.example.com/2", "https://a.example.com/1")
+        ));
+        List<LangChainSummaryService.ClusterInput> grown = List.of(new LangChainSummaryService.ClusterInput(
+                "Chip demand rises",
+                List.of("Chip demand rises"),
+                List.of("https://a.example.com/1", "https://b.example.com/2", "https://c.example.com/3")
+        ));
+
+        String base = NewsSummaryMemoDao.inputHash("Tokyo Electron", before);
+        assertEquals(base, NewsSummaryMemoDao.inputHash("Tokyo Electron", reordered));
+        assertNotEquals(base, NewsSummaryMemoDao.inputHash("Tokyo Electron", grown));
+        assertNotEquals(base, NewsSummaryMemoDao.inputHash("Advantest", before));
+    }
+
+    @Test
+    void memoryOnlyMemoShouldHitByModelAndPromptVersion() {
+        NewsSummaryMemoDao memo = new NewsSummaryMemoDao(null, 7, 16);
+        memo.beginRun();
+
+        assertNull(memo.get("8035.T", "llama3.1", "v1", "h1"));
+        memo.put("8035.T", "llama3.1", "v1", "h1", "<p>摘要</p>");
+
+        assertEquals("<p>摘要</p>", memo.get("8035.T", "llama3.1", "v1", "h1"));
+        assertNull(memo.get("8035.T", "llama3.1", "v2", "h1"));
+        assertNull(memo.get("8035.T", "qwen2.5", "v1", "h1"));
+        assertTrue(memo.statsNote().startsWith("memo_hits=1 memo_misses=3 memo_stored=1"));
+    }
+
+    @Test
+    void lruShouldEvictLeastRecentlyUsed() {
+        NewsSummaryMemoDao memo = new NewsSummaryMemoDao(null, 7, 16);
+        for (int i = 0; i < 16; i++) {
+            memo.put("T" + i, "m", "v1", "h", "<p>" + i + "</p>");
+        }
+        memo.get("T0", "m", "v1", "h");
+        memo.put("T16", "m", "v1", "h", "<p>16</p>");
+
+        assertEquals("<p>0</p>", memo.get("T0", "m", "v1", "h"));
+        assertNull(memo.get("T1", "m", "v1", "h"));
+        assertEquals("<p>16</p>", memo.get("T16", "m", "v1", "h"));
+    }
+
+    @Test
+    void lruEntriesShouldExpireWithTheTtl() {
+        long[] now = {1_000_000L};
+        NewsSummaryMemoDao memo = new NewsSummaryMemoDao(null, 7, 16, () -> now[0]);
+        memo.put("8035.T", "m", "v1", "h1", "<p>old</p>");
+        now[0] += TimeUnit.DAYS.toMillis(3);
+        memo.put("8035.T", "m", "v1", "h2", "<p>new</p>");
+
+        now[0] += TimeUnit.DAYS.toMillis(5);
+        assertNull(memo.get("8035.T", "m", "v1", "h1"));
+        assertEquals("<p>new</p>", memo.get("8035.T", "m", "v1", "h2"));
+
+        now[0] += TimeUnit.DAYS.toMillis(2);
+        memo.beginRun();
+        assertNull(memo.get("8035.T", "m", "v1", "h2"));
+    }
+
+    @Test
+    void laterMemosShouldShareTheLruWithoutResizingIt() {
+        NewsSummaryMemoDao first = new NewsSummaryMemoDao(null, 7, 16);
+        for (int i = 0; i < 16; i++) {
+            first.put("T" + i, "m", "v1", "h", "<p>" + i + "</p>");
+        }
+        NewsSummaryMemoDao second = new NewsSummaryMemoDao(null, 7, 4096);
+
+        assertEquals("<p>3</p>", second.get("T3", "m", "v1", "h"));
+        second.put("T16", "m", "v1", "h", "<p>16</p>");
+        assertNull(first.get("T0", "m", "v1", "h"));
+        assertEquals("<p>16</p>", first.get("T16", "m", "v1", "h"));
+    }
+}
@@ -0,0 +1,325 @@
+package com.stockbot.jp.news;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process HTTP stand-in for Ollama's /api/generate, /api/embed and /api/embeddings, for load tests that
+ * must not depend on a GPU. Latency is drawn from a log-normal distribution around a median, generation is
+ * paced at a fixed token rate, a fraction of requests fail with HTTP 500, and embeddings are deterministic
+ * bag-of-words vectors so texts sharing words land close together. Requests are served by
+ * {@code parallelism} workers, mirroring OLLAMA_NUM_PARALLEL, so excess load queues like it would on a box.
+ */
+final class OllamaStandInServer implements AutoCloseable {
+    private static final String[] SUMMARY_TOKENS = {
+            "<p>", "<strong>", "要点", "：", "</strong>", "订单", "与", "需求", "同步", "改善", "，", "市场", "关注", "度", "上升", "。", "</p>",
+            "<ul>", "<li>", "业绩", "指引", "上调", "，", "利润率", "改善", "。", "</li>", "<li>", "资本", "开支", "计划", "保持", "稳定", "。", "</li>", "</ul>",
+            "<p>", "风险", "提示", "：", "汇率", "波动", "与", "行业", "周期", "下行", "。", "</p>",
+            "<p>", "补充", "：", "上述", "内容", "仅", "基于", "新闻", "聚类", "整理", "，", "不构成", "投资", "建议", "。", "</p>"
+    };
+
+    private final Options options;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final AtomicLong requestSeq = new AtomicLong();
+    private final AtomicInteger generateRequests = new AtomicInteger();
+    private final AtomicInteger embedRequests = new AtomicInteger();
+    private final AtomicInteger injectedErrors = new AtomicInteger();
+    private final AtomicInteger abandonedStreams = new AtomicInteger();
+
+    private OllamaStandInServer(Options options) throws IOException {
+        this.options = options;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+        AtomicInteger threadNo = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(options.parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ollama-standin-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(workers);
+        server.createContext("/api/generate", exchange -> handle(exchange, this::generate));
+        server.createContext("/api/embed", exchange -> handle(exchange, this::embed));
+        server.createContext("/api/embeddings", exchange -> handle(exchange, this::embeddings));
+    }
+
+    static OllamaStandInServer start(Options options) throws IOException {
+        OllamaStandInServer standIn = new OllamaStandInServer(options);
+        standIn.server.start();
+        return standIn;
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    int generateRequests() {
+        return generateRequests.get();
+    }
+
+    int embedRequests() {
+        return embedRequests.get();
+    }
+
+    int injectedErrors() {
+        return injectedErrors.get();
+    }
+
+    int abandonedStreams() {
+        return abandonedStreams.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        workers.shutdownNow();
+    }
+
+    /**
+     * Deterministic unit vector: every lower-cased word (or CJK character) adds a seeded pseudo-random
+     * direction, so overlapping texts get high cosine similarity.
+     */
+    static float[] pseudoEmbedding(String text, int dimension) {
+        float[] out = new float[dimension];
+        String[] words = text == null ? new String[0] : text.toLowerCase().split("[\\s\\p{Punct}]+");
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            for (String token : tokens(word)) {
+                SplittableRandom random = new SplittableRandom(token.hashCode() * 0x9E3779B97F4A7C15L);
+                for (int i = 0; i < dimension; i++) {
+                    out[i] += (float) random.nextGaussian();
+                }
+            }
+        }
+        double norm = 0.0;
+        for (float v : out) {
+            norm += v * v;
+        }
+        if (norm == 0.0) {
+            out[0] = 1.0f;
+            return out;
+        }
+        float scale = (float) (1.0 / Math.sqrt(norm));
+        for (int i = 0; i < dimension; i++) {
+            out[i] *= scale;
+        }
+        return out;
+    }
+
+    private static List<String> tokens(String word) {
+        List<String> out = new ArrayList<>();
+        StringBuilder latin = new StringBuilder();
+        for (int i = 0; i < word.length(); i++) {
+            char ch = word.charAt(i);
+            if (Character.isLetterOrDigit(ch) && ch < 0x3000) {
+                latin.append(ch);
+                continue;
+            }
+            if (latin.length() > 0) {
+                out.add(latin.toString());
+                latin.setLength(0);
+            }
+            out.add(String.valueOf(ch));
+        }
+        if (latin.length() > 0) {
+            out.add(latin.toString());
+        }
+        return out;
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        SplittableRandom random = new SplittableRandom(options.seed + requestSeq.incrementAndGet());
+        try {
+            JSONObject request;
+            try (InputStream in = exchange.getRequestBody()) {
+                request = new JSONObject(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+            }
+            if (random.nextDouble() < options.errorRate) {
+                injectedErrors.incrementAndGet();
+                sleepMs(sample(random, options.errorLatencyMedianMs));
+                send(exchange, 500, new JSONObject().put("error", "injected failure").toString());
+                return;
+            }
+            handler.handle(exchange, request, random);
+        } catch (IOException e) {
+            abandonedStreams.incrementAndGet();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void generate(HttpExchange exchange, JSONObject request, SplittableRandom random) throws IOException {
+        generateRequests.incrementAndGet();
+        int numPredict = request.optJSONObject("options") == null
+                ? 0
+                : request.getJSONObject("options").optInt("num_predict", 0);
+        int tokenCount = numPredict > 0 ? Math.min(numPredict, options.responseTokens) : options.responseTokens;
+        long tokenNanos = (long) (1_000_000_000.0 / Math.max(1.0, options.tokensPerSec));
+        sleepMs(sample(random, options.ttftMedianMs));
+        if (!request.optBoolean("stream", true)) {
+            sleepNanos(tokenNanos * tokenCount);
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < tokenCount; i++) {
+                text.append(SUMMARY_TOKENS[i % SUMMARY_TOKENS.length]);
+            }
+            send(exchange, 200, new JSONObject().put("response", text).put("done", true).put("eval_count", tokenCount).toString());
+            return;
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (int i = 0; i < tokenCount; i++) {
+            if (i > 0) {
+                sleepNanos(tokenNanos);
+            }
+            writeLine(out, new JSONObject().put("response", SUMMARY_TOKENS[i % SUMMARY_TOKENS.length]).put("done", false));
+        }
+        writeLine(out, new JSONObject().put("response", "").put("done", true).put("eval_count", tokenCount));
+    }
+
+    private void embed(HttpExchange exchange, JSONObject request, SplittableRandom random) throws IOException {
+        embedRequests.incrementAndGet();
+        Object input = request.opt("input");
+        List<String> texts = new ArrayList<>();
+        if (input instanceof JSONArray) {
+            JSONArray arr = (JSONArray) input;
+            for (int i = 0; i < arr.length(); i++) {
+                texts.add(arr.optString(i, ""));
+            }
+        } else {
+            texts.add(request.optString("input", ""));
+        }
+        sleepMs(sample(random, options.embedLatencyMedianMs) * Math.max(1, texts.size()) / Math.max(1, options.embedBatchSpeedup));
+        JSONArray embeddings = new JSONArray();
+        for (String text : texts) {
+            embeddings.put(new JSONArray(pseudoEmbedding(text, options.dimension)));
+        }
+        send(exchange, 200, new JSONObject().put("embeddings", embeddings).toString());
+    }
+
+    private void embeddings(HttpExchange exchange, JSONObject request, SplittableRandom random) throws IOException {
+        embedRequests.incrementAndGet();
+        sleepMs(sample(random, options.embedLatencyMedianMs));
+        float[] vector = pseudoEmbedding(request.optString("prompt", ""), options.dimension);
+        send(exchange, 200, new JSONObject().put("embedding", new JSONArray(vector)).toString());
+    }
+
+    private long sample(SplittableRandom random, long medianMs) {
+        if (medianMs <= 0L) {
+            return 0L;
+        }
+        return Math.round(medianMs * Math.exp(options.latencySigma * random.nextGaussian()));
+    }
+
+    private static void writeLine(OutputStream out, JSONObject line) throws IOException {
+        out.write((line.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static void sleepMs(long ms) {
+        sleepNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    private static void sleepNanos(long nanos) {
+        if (nanos <= 0L) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle(HttpExchange exchange, JSONObject request, SplittableRandom random) throws IOException;
+    }
+
+    /**
+     * Load profile; all latencies are medians of a log-normal with {@code latencySigma}.
+     */
+    static final class Options {
+        int parallelism = 1;
+        long ttftMedianMs = 150L;
+        double tokensPerSec = 40.0;
+        int responseTokens = SUMMARY_TOKENS.length;
+        long embedLatencyMedianMs = 15L;
+        int embedBatchSpeedup = 4;
+        long errorLatencyMedianMs = 5L;
+        double latencySigma = 0.35;
+        double errorRate = 0.0;
+        int dimension = 256;
+        long seed = 42L;
+
+        Options parallelism(int value) {
+            this.parallelism = Math.max(1, value);
+            return this;
+        }
+
+        Options ttftMedianMs(long value) {
+            this.ttftMedianMs = Math.max(0L, value);
+            return this;
+        }
+
+        Options tokensPerSec(double value) {
+            this.tokensPerSec = value;
+            return this;
+        }
+
+        Options responseTokens(int value) {
+            this.responseTokens = Math.max(1, value);
+            return this;
+        }
+
+        Options embedLatencyMedianMs(long value) {
+            this.embedLatencyMedianMs = Math.max(0L, value);
+            return this;
+        }
+
+        Options latencySigma(double value) {
+            this.latencySigma = Math.max(0.0, value);
+            return this;
+        }
+
+        Options errorRate(double value) {
+            this.errorRate = Math.max(0.0, Math.min(1.0, value));
+            return this;
+        }
+
+        Options dimension(int value) {
+            this.dimension = Math.max(8, value);
+            return this;
+        }
+
+        Options seed(long value) {
+            this.seed = value;
+            return this;
+        }
+    }
+}
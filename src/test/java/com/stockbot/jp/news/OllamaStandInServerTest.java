@@ -0,0 +1,101 @@
+package com.stockbot.jp.news;
+
+import com.stockbot.data.OllamaClient;
+import com.stockbot.data.http.HttpClientEx;
+import com.stockbot.jp.config.Config;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OllamaStandInServerTest {
+
+    @Test
+    void embeddingsShouldBeDeterministicAndTopicSensitive() throws Exception {
+        try (OllamaStandInServer standIn = OllamaStandInServer.start(fast().dimension(64))) {
+            OllamaClient client = new OllamaClient(new HttpClientEx(), standIn.baseUrl(), "m", 10, 0);
+
+            float[] a = client.embed("nomic", "8035.T 決算 上方修正 営業利益");
+            float[] b = client.embed("nomic", "8035.T 決算 上方修正 営業利益");
+            float[] near = client.embed("nomic", "8035.T 決算 上方修正 純利益");
+            float[] far = client.embed("nomic", "7203.T 新工場 設備投資");
+            List<float[]> batch = client.embedBatch("nomic", List.of("8035.T 決算 上方修正 営業利益", "x"));
+
+            assertEquals(64, a.length);
+            assertArrayEquals(a, b);
+            assertArrayEquals(a, batch.get(0));
+            assertTrue(dot(a, near) > dot(a, far));
+        }
+    }
+
+    @Test
+    void streamedGenerationShouldReportTokensAndHonourEarlyStop() throws Exception {
+        try (OllamaStandInServer standIn = OllamaStandInServer.start(fast())) {
+            OllamaClient client = new OllamaClient(new HttpClientEx(), standIn.baseUrl(), "m", 10, 0);
+
+            OllamaClient.StreamResult full = client.generateStream("", "prompt", 10_000L, chunk -> false);
+            OllamaClient.StreamResult stopped = client.generateStream("", "prompt", 10_000L, "</p>"::equals);
+
+            assertEquals(OllamaClient.StreamResult.STOP_DONE, full.stopReason);
+            assertTrue(full.text.endsWith("</p>"));
+            assertTrue(full.ttftMs >= 0L);
+            assertEquals(OllamaClient.StreamResult.STOP_CONDITION, stopped.stopReason);
+            assertTrue(stopped.tokens < full.tokens);
+        }
+    }
+
+    @Test
+    void pipelineShouldSummarizeAgainstStandInAndFallBackOnInjectedErrors() throws Exception {
+        try (OllamaStandInServer ok = OllamaStandInServer.start(fast().dimension(64));
+             OllamaStandInServer failing = OllamaStandInServer.start(fast().dimension(64).errorRate(1.0))) {
+            String okHtml = runOneTicker(ok);
+            String failedHtml = runOneTicker(failing);
+
+            assertTrue(okHtml.contains("风险提示"));
+            assertFalse(okHtml.contains("补充"));
+            assertTrue(failing.injectedErrors() > 0);
+            assertFalse(failedHtml.contains("风险提示"));
+        }
+    }
+
+    private static String runOneTicker(OllamaStandInServer standIn) {
+        InMemoryNewsItemDao dao = new InMemoryNewsItemDao();
+        OffsetDateTime now = OffsetDateTime.now();
+        dao.add("https://news.example.com/1", "8035.T 決算 上方修正", "営業利益が増加", "ja", "JP", now.minusHours(1));
+        dao.add("https://news.example.com/2", "8035.T 決算 上方修正 続報", "営業利益が増加", "ja", "JP", now.minusHours(2));
+        dao.add("https://news.example.com/3", "8035.T 新工場 設備投資", "半導体の増産", "ja", "JP", now.minusHours(3));
+        Config config = Config.fromConfigurationProperties(Path.of("."), Map.of(
+                "watchlist.ai.base_url", standIn.baseUrl(),
+                "news.vector.dimension", "64",
+                "ai.summary.stream.max_sections", "3"
+        ));
+        WatchlistNewsPipeline pipeline = new WatchlistNewsPipeline(config, new HttpClientEx(), dao);
+        pipeline.planRun(Map.of("8035.T", List.of("8035.T")), "ja", "JP", true);
+        WatchlistNewsPipeline.PipelineResult result = pipeline.processTicker(
+                "8035.T", "東京エレクトロン", "", "", List.of("8035.T"), "ja", "JP", 1.0);
+        return pipeline.awaitSummary(result);
+    }
+
+    private static OllamaStandInServer.Options fast() {
+        return new OllamaStandInServer.Options()
+                .ttftMedianMs(1L)
+                .embedLatencyMedianMs(0L)
+                .tokensPerSec(5_000.0)
+                .latencySigma(0.0);
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0.0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+}
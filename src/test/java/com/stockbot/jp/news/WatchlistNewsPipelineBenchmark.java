@@ -0,0 +1,152 @@
+package com.stockbot.jp.news;
+
+import com.stockbot.data.http.HttpClientEx;
+import com.stockbot.jp.config.Config;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives {@link WatchlistNewsPipeline#processTicker} for a synthetic watchlist against {@link OllamaStandInServer}
+ * and an in-memory news_item, so pipeline throughput and per-ticker tail latency can be measured without
+ * Ollama or PostgreSQL. {@code watchlistRun} reports the time for a whole run (tickers / time = throughput);
+ * {@code singleTicker} samples one ticker end to end, summary included, for p50/p99. Run after
+ * {@code mvn test-compile}:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test.cp
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) com.stockbot.jp.news.WatchlistNewsPipelineBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class WatchlistNewsPipelineBenchmark {
+    private static final String[] TOPICS = {
+            "決算 上方修正 営業利益 増益",
+            "新工場 設備投資 半導体 増産",
+            "株主還元 自社株買い 増配",
+            "為替 円安 輸出 採算"
+    };
+
+    @Param({"20"})
+    public int tickers;
+
+    @Param({"12"})
+    public int itemsPerTicker;
+
+    @Param({"1", "4"})
+    public int llmParallelism;
+
+    @Param({"0.0", "0.05"})
+    public double errorRate;
+
+    private OllamaStandInServer standIn;
+    private WatchlistNewsPipeline pipeline;
+    private List<String> tickerCodes;
+    private Map<String, List<String>> queries;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        standIn = OllamaStandInServer.start(new OllamaStandInServer.Options()
+                .parallelism(llmParallelism)
+                .errorRate(errorRate)
+                .dimension(256));
+        InMemoryNewsItemDao dao = new InMemoryNewsItemDao();
+        tickerCodes = new ArrayList<>();
+        queries = new LinkedHashMap<>();
+        OffsetDateTime now = OffsetDateTime.now();
+        for (int t = 0; t < tickers; t++) {
+            String code = (1300 + t * 7) + ".T";
+            tickerCodes.add(code);
+            queries.put(code, List.of(code));
+            for (int i = 0; i < itemsPerTicker; i++) {
+                String topic = TOPICS[i % TOPICS.length];
+                dao.add(
+                        "https://news.example.com/" + code + "/" + i,
+                        code + " " + topic + " 第" + i + "報",
+                        code + " に関する " + topic + " の続報。",
+                        "ja",
+                        "JP",
+                        now.minusHours(i)
+                );
+            }
+        }
+        Map<String, Object> props = new LinkedHashMap<>();
+        props.put("watchlist.ai.base_url", standIn.baseUrl());
+        props.put("news.vector.dimension", "256");
+        props.put("news.embedding.batch_size", "500");
+        props.put("ai.summary.parallelism", Integer.toString(llmParallelism));
+        props.put("ai.summary.budget_sec", "3600");
+        props.put("ai.summary.stream.enabled", "true");
+        Config config = Config.fromConfigurationProperties(Path.of("."), props);
+        pipeline = new WatchlistNewsPipeline(config, new HttpClientEx(), dao);
+        pipeline.planRun(queries, "ja", "JP", true);
+        // First call embeds the whole seeded corpus; keep that out of the measurement.
+        pipeline.awaitSummary(process(tickerCodes.get(0), 0.0));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        System.out.println("[BENCH] " + pipeline.summaryStatsNote()
+                + " standin_generate=" + standIn.generateRequests()
+                + " standin_embed=" + standIn.embedRequests()
+                + " standin_errors=" + standIn.injectedErrors());
+        standIn.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    public int watchlistRun() {
+        pipeline.planRun(queries, "ja", "JP", true);
+        List<WatchlistNewsPipeline.PipelineResult> results = new ArrayList<>(tickerCodes.size());
+        for (int i = 0; i < tickerCodes.size(); i++) {
+            results.add(process(tickerCodes.get(i), tickerCodes.size() - i));
+        }
+        int chars = 0;
+        for (WatchlistNewsPipeline.PipelineResult result : results) {
+            chars += pipeline.awaitSummary(result).length();
+        }
+        return chars;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    public String singleTicker() {
+        String code = tickerCodes.get(Math.floorMod(next.getAndIncrement(), tickerCodes.size()));
+        return pipeline.awaitSummary(process(code, 0.0));
+    }
+
+    private WatchlistNewsPipeline.PipelineResult process(String code, double priority) {
+        return pipeline.processTicker(code, code, "", "", queries.get(code), "ja", "JP", priority);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(WatchlistNewsPipelineBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,139 @@
+package com.stockbot.jp.runner;
+
+import com.stockbot.core.RunTelemetry;
+import com.stockbot.data.YahooStandInServer;
+import com.stockbot.data.http.HttpArchive;
+import com.stockbot.jp.config.Config;
+import com.stockbot.jp.db.BarDailyDao;
+import com.stockbot.jp.db.Database;
+import com.stockbot.jp.db.MetadataDao;
+import com.stockbot.jp.db.MigrationRunner;
+import com.stockbot.jp.db.RunDao;
+import com.stockbot.jp.db.ScanResultDao;
+import com.stockbot.jp.db.UniverseDao;
+import com.stockbot.jp.model.DailyRunOutcome;
+import com.stockbot.jp.model.UniverseRecord;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * End-to-end market scan benchmark: {@link DailyRunner#runMarketScanOnly} over a synthetic universe, fetching
+ * from {@link YahooStandInServer} (synthetic charts, or a replayed {@link HttpArchive} recording) and writing to
+ * a real PostgreSQL. Prints tickers/sec, p50/p95/p99 fetch latency and the share of scan time spent in the DB.
+ * The JPX universe in the target database is replaced, so the JDBC URL must name a throwaway database
+ * containing "bench" (or pass {@code -Dbench.force=true}). Run after {@code mvn test-compile}:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test.cp
+ * java -Dbench.db.url=jdbc:postgresql://localhost:5432/stockbot_bench -Dbench.db.user=postgres \
+ *      -Dbench.tickers=4000 -Dbench.concurrency=16 -Dbench.latency_ms=120 -Dbench.rate_limit=0.01 \
+ *      -cp target/test-classes:target/classes:$(cat target/test.cp) com.stockbot.jp.runner.MarketScanBenchmark
+ * </pre>
+ * To replay real traffic, first run the app once with {@code -Dstockbot.http.record_dir=outputs/http-archive},
+ * then add {@code -Dbench.replay_dir=outputs/http-archive}; tickers without a recording fall back to synthetic
+ * charts. Bars already stored by an earlier run are upserted again, so repeated runs measure the warm path.
+ * {@code -Dbench.cache_prefer=true} measures a cache-first scan instead: tickers whose bars an earlier run left in
+ * the local bar archive (under {@code bench.outputs_dir}, default target/bench-outputs) are scored without touching
+ * Yahoo or the database; {@code -Dbench.archive=false} makes the same scan read price_daily.
+ */
+public final class MarketScanBenchmark {
+    private static final String[] MARKETS = {"Prime", "Standard", "Growth"};
+
+    private MarketScanBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = System.getProperty("bench.db.url", "jdbc:postgresql://localhost:5432/stockbot_bench");
+        if (!url.toLowerCase(Locale.ROOT).contains("bench") && !Boolean.getBoolean("bench.force")) {
+            throw new IllegalStateException("Refusing to replace the universe in " + url
+                    + "; use a database named *bench* or -Dbench.force=true");
+        }
+        int tickers = Integer.getInteger("bench.tickers", 4000);
+        int concurrency = Integer.getInteger("bench.concurrency", 8);
+
+        Database database = new Database(
+                url,
+                System.getProperty("bench.db.user", "postgres"),
+                System.getProperty("bench.db.password", ""),
+                System.getProperty("bench.db.schema", "public"),
+                false
+        );
+        new MigrationRunner().run(database);
+        UniverseDao universeDao = new UniverseDao(database);
+        MetadataDao metadataDao = new MetadataDao(database);
+        universeDao.replaceFromSource("JPX", syntheticUniverse(tickers));
+        // Keeps JpxUniverseUpdater from downloading the real list over the synthetic one.
+        metadataDao.put("jpx.universe.last_sync_at", Instant.now().toString());
+
+        YahooStandInServer.Options options = new YahooStandInServer.Options()
+                .parallelism(Integer.getInteger("bench.standin.parallelism", 64))
+                .latencyMedianMs(Long.getLong("bench.latency_ms", 120L))
+                .rateLimitRate(Double.parseDouble(System.getProperty("bench.rate_limit", "0.0")))
+                .timeoutRate(Double.parseDouble(System.getProperty("bench.timeout_rate", "0.0")))
+                .stallMs(Long.getLong("bench.stall_ms", 2_000L));
+        String replayDir = System.getProperty("bench.replay_dir", "");
+        if (!replayDir.isBlank()) {
+            options.replay(new HttpArchive(Path.of(replayDir)), null);
+        }
+
+        try (YahooStandInServer standIn = YahooStandInServer.start(options)) {
+            Map<String, Object> props = new LinkedHashMap<>();
+            props.put("yahoo.chart.base_url", standIn.baseUrl());
+            props.put("fetch.concurrent", Integer.toString(concurrency));
+            props.put("scan.cache.prefer_enabled", System.getProperty("bench.cache_prefer", "false"));
+            props.put("scan.archive.enabled", System.getProperty("bench.archive", "true"));
+            props.put("outputs.dir", System.getProperty("bench.outputs_dir", "target/bench-outputs"));
+            props.put("scan.max_universe_size", "0");
+            props.put("scan.batch.max_segments_per_run", "0");
+            props.put("scan.progress.log_every", "500");
+            props.put("vector.memory.enabled", "false");
+            Config config = Config.fromConfigurationProperties(Path.of("."), props);
+            RunTelemetry telemetry = new RunTelemetry(0L, "BENCH", "MarketScanBenchmark", Instant.now());
+            DailyRunner runner = new DailyRunner(
+                    config,
+                    universeDao,
+                    metadataDao,
+                    new BarDailyDao(database),
+                    new RunDao(database),
+                    new ScanResultDao(database),
+                    null,
+                    telemetry
+            );
+
+            long started = System.nanoTime();
+            DailyRunOutcome outcome = runner.runMarketScanOnly(false, null, true);
+            double wallSec = (System.nanoTime() - started) / 1_000_000_000.0;
+
+            System.out.println(String.format(
+                    Locale.US,
+                    "[BENCH] tickers=%d scanned=%d failed=%d concurrency=%d wall_s=%.2f tickers_per_sec=%.1f",
+                    outcome.universeSize,
+                    outcome.scannedSize,
+                    outcome.failedSize,
+                    concurrency,
+                    wallSec,
+                    outcome.scannedSize / Math.max(0.001, wallSec)
+            ));
+            for (RunTelemetry.StepRecord step : telemetry.stepRecords()) {
+                if (RunTelemetry.STEP_MARKET_FETCH.equals(step.name())) {
+                    System.out.println("[BENCH] " + step.optionalNote());
+                }
+            }
+            System.out.println("[BENCH] " + standIn.statsNote());
+        }
+    }
+
+    private static List<UniverseRecord> syntheticUniverse(int size) {
+        List<UniverseRecord> out = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            String code = Integer.toString(1300 + i);
+            out.add(new UniverseRecord(code + ".jp", code, "Bench " + code, MARKETS[i % MARKETS.length]));
+        }
+        return out;
+    }
+}
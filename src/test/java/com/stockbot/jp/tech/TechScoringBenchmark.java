@@ -0,0 +1,109 @@
+package com.stockbot.jp.tech;
+
+import com.stockbot.data.ChartParseBenchmark;
+import com.stockbot.jp.indicator.IndicatorEngine;
+import com.stockbot.jp.model.BarDaily;
+import com.stockbot.jp.model.IndicatorSnapshot;
+import com.stockbot.jp.model.ScoredCandidate;
+import com.stockbot.jp.strategy.ReasonJsonBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-ticker scoring work of a market scan on one {@code bars}-long series: indicators, tech score and the two
+ * JSON columns kept for top-list candidates. {@code scanTicker} chains them the way DailyRunner does. Run with
+ * {@code mvn -Pbench test -Dbench.include=TechScoringBenchmark}, or directly after {@code mvn test-compile}:
+ * <pre>
+ * mvn -q dependency:build-classpath -Dmdep.includeScope=test -Dmdep.outputFile=target/test.cp
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) com.stockbot.jp.tech.TechScoringBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TechScoringBenchmark {
+    @Param({"520"})
+    public int bars;
+
+    private final IndicatorEngine indicatorEngine = new IndicatorEngine();
+    private final TechScoreEngine techScoreEngine = new TechScoreEngine();
+    private final ReasonJsonBuilder reasonJsonBuilder = new ReasonJsonBuilder();
+    private List<BarDaily> series;
+    private IndicatorSnapshot snapshot;
+    private TechScoreResult tech;
+
+    @Setup(Level.Trial)
+    public void load() {
+        series = ChartParseBenchmark.barFixture("8035.T", bars);
+        snapshot = indicatorEngine.compute(series);
+        tech = techScoreEngine.evaluate("8035.jp", "Tokyo Electron", series);
+    }
+
+    @Benchmark
+    public IndicatorSnapshot indicators() {
+        return indicatorEngine.compute(series);
+    }
+
+    @Benchmark
+    public TechScoreResult techScore() {
+        return techScoreEngine.evaluate("8035.jp", "Tokyo Electron", series);
+    }
+
+    @Benchmark
+    public String reasonsJson() {
+        return reasonJsonBuilder.buildReasonsJson(tech, 55.0);
+    }
+
+    @Benchmark
+    public String indicatorsJson() {
+        return reasonJsonBuilder.buildIndicatorsJson(tech);
+    }
+
+    @Benchmark
+    public String snapshotIndicatorsJson() {
+        return reasonJsonBuilder.buildIndicatorsJson(snapshot);
+    }
+
+    @Benchmark
+    public ScoredCandidate scanTicker() {
+        TechScoreResult result = techScoreEngine.evaluate("8035.jp", "Tokyo Electron", series);
+        return new ScoredCandidate("8035.jp", "8035", "Tokyo Electron", "Prime",
+                result.getTrendStrength(), result.getPrice(), null, null, result);
+    }
+
+    /**
+     * Per-ticker cost before JSON was deferred to top-list candidates; the gap to {@code scanTicker} times the
+     * universe size is the saving per scan.
+     */
+    @Benchmark
+    public ScoredCandidate scanTickerEagerJson() {
+        TechScoreResult result = techScoreEngine.evaluate("8035.jp", "Tokyo Electron", series);
+        return new ScoredCandidate("8035.jp", "8035", "Tokyo Electron", "Prime",
+                result.getTrendStrength(), result.getPrice(),
+                reasonJsonBuilder.buildReasonsJson(result, 55.0), reasonJsonBuilder.buildIndicatorsJson(result));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(TechScoringBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,102 @@
+package com.stockbot.jp.vector;
+
+import com.stockbot.jp.db.Database;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class VectorSearchServiceTest {
+
+    private final Database database = new Database("jdbc:postgresql://127.0.0.1:1/none", "u", "p", "stockbot", false);
+
+    @Test
+    void vectorSlots_shouldSendOnlyEmbeddedQueriesToTheVectorStatement() {
+        List<float[]> vectors = Arrays.asList(new float[]{0.1f}, null, new float[0], new float[]{0.2f, 0.3f});
+
+        assertEquals(List.of(0, 3), VectorSearchService.vectorSlots(vectors));
+        assertEquals(List.of(), VectorSearchService.vectorSlots(List.of()));
+    }
+
+    @Test
+    void vectorBatchParams_shouldAlignArraysWithSlotsAndNormalizeFilters() {
+        List<VectorSearchService.Query> queries = Arrays.asList(
+                new VectorSearchService.Query("a", null, new VectorSearchService.SearchFilters(" news ", " 7203.jp ", "")),
+                new VectorSearchService.Query("b", null, null),
+                null
+        );
+        List<float[]> vectors = Arrays.asList(new float[]{0.5f, -1.0f}, null, new float[]{2.0f});
+
+        String[][] params = VectorSearchService.vectorBatchParams(queries, vectors, List.of(0, 2));
+
+        assertArrayEquals(new String[]{"[0.5,-1.0]", "[2.0]"}, params[0]);
+        assertArrayEquals(new String[]{"NEWS", null}, params[1]);
+        assertArrayEquals(new String[]{"7203.jp", null}, params[2]);
+        assertArrayEquals(new String[]{null, null}, params[3]);
+    }
+
+    @Test
+    void resolveQueryEmbeddings_shouldEmbedMissingTextsInOneCall() {
+        List<List<String>> calls = new ArrayList<>();
+        VectorSearchService service = new VectorSearchService(database, new VectorSearchService.TextEmbedder() {
+            @Override
+            public float[] embed(String text) {
+                throw new AssertionError("single embed not expected");
+            }
+
+            @Override
+            public List<float[]> embedAll(List<String> texts) {
+                calls.add(List.copyOf(texts));
+                List<float[]> out = new ArrayList<>();
+                for (String text : texts) {
+                    out.add(new float[]{text.length()});
+                }
+                return out;
+            }
+        });
+        float[] given = {9.0f};
+
+        List<float[]> vectors = service.resolveQueryEmbeddings(Arrays.asList(
+                new VectorSearchService.Query("toyota", null, null),
+                new VectorSearchService.Query("sony", given, null),
+                new VectorSearchService.Query("  ", null, null),
+                null,
+                new VectorSearchService.Query("softbank", null, null)
+        ));
+
+        assertEquals(List.of(List.of("toyota", "softbank")), calls);
+        assertArrayEquals(new float[]{6.0f}, vectors.get(0));
+        assertSame(given, vectors.get(1));
+        assertNull(vectors.get(2));
+        assertNull(vectors.get(3));
+        assertArrayEquals(new float[]{8.0f}, vectors.get(4));
+    }
+
+    @Test
+    void resolveQueryEmbeddings_shouldStopCallingTheEmbedderAfterRepeatedFailures() {
+        int[] calls = new int[1];
+        VectorSearchService service = new VectorSearchService(database, text -> {
+            calls[0]++;
+            return new float[0];
+        });
+        List<VectorSearchService.Query> queries = List.of(
+                new VectorSearchService.Query("a", null, null),
+                new VectorSearchService.Query("b", null, null),
+                new VectorSearchService.Query("c", null, null)
+        );
+
+        List<float[]> first = service.resolveQueryEmbeddings(queries);
+        List<float[]> second = service.resolveQueryEmbeddings(queries);
+
+        assertEquals(3, calls[0]);
+        assertEquals(List.of(), VectorSearchService.vectorSlots(first));
+        assertEquals(List.of(), VectorSearchService.vectorSlots(second));
+        assertEquals(3L, service.drainStats().embedFailures);
+    }
+}